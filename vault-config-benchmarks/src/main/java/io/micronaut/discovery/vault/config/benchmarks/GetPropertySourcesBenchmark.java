@@ -0,0 +1,148 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.benchmarks;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.discovery.config.ConfigurationClient;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientReadConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientReadConfiguration.VaultResponseDecoder;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+import io.micronaut.discovery.vault.config.VaultConfigurationClient;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import io.reactivex.Flowable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Benchmarks reading every property source of an application end to end, through the http client, from an
+ *  in-process {@link StubVault}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GetPropertySourcesBenchmark {
+
+    private static final String APPLICATION_NAME = "benchmark";
+    private static final String SECRET_ENGINE_NAME = "secret";
+    private static final String TOKEN = "benchmark-token";
+
+    @Param({"V1", "V2"})
+    VaultKvVersion kvVersion;
+
+    @Param({"1024", "65536"})
+    int size;
+
+    @Param({"1", "10"})
+    int profiles;
+
+    @Param({"BINDING", "STREAMING", "INTROSPECTED"})
+    VaultResponseDecoder decoder;
+
+    private StubVault vault;
+    private ApplicationContext applicationContext;
+    private Environment environment;
+    private VaultConfigurationClient configurationClient;
+
+    /**
+     * Starts the Vault stub serving every vault key of the application and an application context reading from it.
+     *
+     * @throws InterruptedException If interrupted while starting the Vault stub
+     */
+    @Setup
+    public void setup() throws InterruptedException {
+        String[] names = new String[profiles];
+        for (int i = 0; i < profiles; i++) {
+            names[i] = "profile" + i;
+        }
+
+        Map<String, Object> secrets = VaultPayloads.secrets(size);
+        vault = StubVault.builder()
+                .kvVersion(kvVersion)
+                .engine(SECRET_ENGINE_NAME)
+                .token(TOKEN)
+                .build()
+                .start();
+        vault.putSecret("application", secrets);
+        vault.putSecret(APPLICATION_NAME, secrets);
+        for (String name : names) {
+            vault.putSecret("application/" + name, secrets);
+            vault.putSecret(APPLICATION_NAME + "/" + name, secrets);
+        }
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.application.name", APPLICATION_NAME);
+        properties.put(ConfigurationClient.ENABLED, true);
+        properties.put(VaultClientConfiguration.PREFIX + ".config.enabled", true);
+        properties.put(VaultClientConfiguration.PREFIX + ".uri", vault.getUri());
+        properties.put(VaultClientConfiguration.PREFIX + ".token", TOKEN);
+        properties.put(VaultClientConfiguration.PREFIX + ".kv-version", kvVersion.name());
+        properties.put(VaultClientConfiguration.PREFIX + ".secret-engine-name", SECRET_ENGINE_NAME);
+        properties.put(VaultClientReadConfiguration.PREFIX + ".decoder", decoder.name());
+
+        applicationContext = ApplicationContext.build(names)
+                .deduceEnvironment(false)
+                .properties(properties)
+                .start();
+        environment = applicationContext.getEnvironment();
+        configurationClient = applicationContext.getBean(VaultConfigurationClient.class);
+    }
+
+    /**
+     * Stops the application context and the Vault stub.
+     */
+    @TearDown
+    public void tearDown() {
+        if (applicationContext != null) {
+            applicationContext.close();
+        }
+        if (vault != null) {
+            vault.close();
+        }
+    }
+
+    /**
+     * @return The property sources read from Vault
+     */
+    @Benchmark
+    public List<PropertySource> getPropertySources() {
+        return Flowable.fromPublisher(configurationClient.getPropertySources(environment)).toList().blockingGet();
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.context.env.PropertySourcePropertyResolver;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+import io.micronaut.discovery.vault.config.v2.VaultResponseV2;
+import io.micronaut.jackson.ObjectMapperFactory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Benchmarks building a {@link PropertySource} from the secrets of a bound response and resolving its
+ *  properties, which flattens the nested secrets.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PropertySourceBenchmark {
+
+    private static final String VAULT_KEY = "benchmark";
+    private static final int ORDER = 0;
+
+    @Param({"1024", "16384", "131072", "1048576"})
+    int size;
+
+    private Map<String, Object> secrets;
+
+    /**
+     * Binds the response the secrets are taken from.
+     *
+     * @throws IOException If the response cannot be bound
+     */
+    @Setup
+    public void setup() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapperFactory().objectMapper(null, null);
+        secrets = objectMapper.readValue(VaultPayloads.response(VaultKvVersion.V2, size), VaultResponseV2.class).getSecrets();
+    }
+
+    /**
+     * @param blackhole The blackhole consuming the properties
+     */
+    @Benchmark
+    public void propertySource(Blackhole blackhole) {
+        PropertySource propertySource = PropertySource.of(VAULT_KEY, secrets, ORDER);
+        for (String name : propertySource) {
+            blackhole.consume(propertySource.get(name));
+        }
+    }
+
+    /**
+     * @return The resolver of the property source
+     */
+    @Benchmark
+    public PropertySourcePropertyResolver resolvedPropertySource() {
+        return new PropertySourcePropertyResolver(PropertySource.of(VAULT_KEY, secrets, ORDER));
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.benchmarks;
+
+import io.micronaut.context.env.DefaultEnvironment;
+import io.micronaut.context.env.Environment;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientConnectionPoolConfiguration;
+import io.micronaut.discovery.vault.config.VaultConfigurationClient;
+import io.micronaut.runtime.ApplicationConfiguration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Benchmarks building the vault keys of an application with a growing number of active environments.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VaultKeysBenchmark {
+
+    @Param({"1", "10", "50"})
+    int profiles;
+
+    private VaultConfigurationClient configurationClient;
+
+    /**
+     * Creates a configuration client whose environment has the given number of active names.
+     */
+    @Setup
+    public void setup() {
+        String[] names = new String[profiles];
+        for (int i = 0; i < profiles; i++) {
+            names[i] = "profile" + i;
+        }
+        Environment environment = new DefaultEnvironment(names);
+        ApplicationConfiguration applicationConfiguration = new ApplicationConfiguration();
+        applicationConfiguration.setName("benchmark");
+
+        VaultClientConfiguration vaultClientConfiguration =
+                new VaultClientConfiguration(new VaultClientConnectionPoolConfiguration(), applicationConfiguration);
+
+        // only the application configuration and the environment take part in building the vault keys
+        configurationClient = new VaultConfigurationClient(null, null, vaultClientConfiguration, applicationConfiguration,
+                environment, null, null, null, null, null, null, null, null, null, null);
+    }
+
+    /**
+     * @return The vault keys
+     */
+    @Benchmark
+    public Map<Integer, String> buildVaultKeys() {
+        return configurationClient.getVaultKeys();
+    }
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.benchmarks;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *  Builds Vault responses whose secrets add up to a given number of bytes.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+final class VaultPayloads {
+
+    private static final int VALUE_LENGTH = 64;
+    private static final int NESTED_EVERY = 10;
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private VaultPayloads() {
+    }
+
+    /**
+     * Builds the secrets, every tenth secret being nested one level deeper.
+     *
+     * @param size The approximate size of the secrets in bytes
+     * @return The secrets
+     */
+    static Map<String, Object> secrets(int size) {
+        Map<String, Object> secrets = new LinkedHashMap<>();
+        Map<String, Object> nested = new LinkedHashMap<>();
+        char[] value = new char[VALUE_LENGTH];
+        int written = 0;
+        for (int i = 0; written < size; i++) {
+            Arrays.fill(value, (char) ('a' + i % 26));
+            String key = String.format("key-%06d", i);
+            if (i % NESTED_EVERY == 0) {
+                nested.put(key, new String(value));
+            } else {
+                secrets.put(key, new String(value));
+            }
+            written += key.length() + VALUE_LENGTH + 6;
+        }
+        secrets.put("nested", nested);
+        return secrets;
+    }
+
+    /**
+     * Builds the response body of a read of a vault key.
+     *
+     * @param kvVersion The secret engine version
+     * @param size      The approximate size of the secrets in bytes
+     * @return The response body
+     */
+    static byte[] response(VaultKvVersion kvVersion, int size) {
+        Map<String, Object> secrets = secrets(size);
+        Map<String, Object> response = new LinkedHashMap<>();
+        response.put("request_id", "3f7a6f1a-2b2e-4c5e-9b07-1e2f3a4b5c6d");
+        response.put("lease_id", "");
+        response.put("renewable", false);
+        response.put("lease_duration", kvVersion == VaultKvVersion.V1 ? 2764800 : 0);
+        if (kvVersion == VaultKvVersion.V1) {
+            response.put("data", secrets);
+        } else {
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            metadata.put("created_time", "2019-05-01T10:00:00.000000Z");
+            metadata.put("deletion_time", "");
+            metadata.put("destroyed", false);
+            metadata.put("version", 1);
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("data", secrets);
+            data.put("metadata", metadata);
+            response.put("data", data);
+        }
+        response.put("wrap_info", null);
+        response.put("warnings", Collections.emptyList());
+        response.put("auth", null);
+        try {
+            return OBJECT_MAPPER.writeValueAsBytes(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to write the Vault response", e);
+        }
+    }
+}
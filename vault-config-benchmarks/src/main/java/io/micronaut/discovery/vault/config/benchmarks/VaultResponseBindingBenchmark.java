@@ -0,0 +1,126 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.buffer.netty.NettyByteBufferFactory;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.discovery.vault.config.AbstractVaultResponse;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+import io.micronaut.discovery.vault.config.VaultIntrospectedResponseDecoder;
+import io.micronaut.discovery.vault.config.VaultSecrets;
+import io.micronaut.discovery.vault.config.VaultStreamingResponseDecoder;
+import io.micronaut.discovery.vault.config.v1.VaultResponseV1;
+import io.micronaut.discovery.vault.config.v2.VaultResponseV2;
+import io.micronaut.jackson.ObjectMapperFactory;
+import io.micronaut.runtime.ApplicationConfiguration;
+import io.netty.buffer.Unpooled;
+import io.reactivex.Flowable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Benchmarks decoding Vault responses from 1 KB to 1 MB of secrets, binding the whole response with Jackson
+ *  as the http client does, with the streaming decoder and with the introspected decoder.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class VaultResponseBindingBenchmark {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    @Param({"V1", "V2"})
+    VaultKvVersion kvVersion;
+
+    @Param({"1024", "16384", "131072", "1048576"})
+    int size;
+
+    private byte[] body;
+    private Class<? extends AbstractVaultResponse> responseType;
+    private ObjectMapper objectMapper;
+    private VaultStreamingResponseDecoder responseDecoder;
+    private VaultIntrospectedResponseDecoder introspectedResponseDecoder;
+
+    /**
+     * Builds the response body and the decoders.
+     */
+    @Setup
+    public void setup() {
+        body = VaultPayloads.response(kvVersion, size);
+        responseType = kvVersion == VaultKvVersion.V1 ? VaultResponseV1.class : VaultResponseV2.class;
+        objectMapper = new ObjectMapperFactory().objectMapper(null, null);
+
+        VaultClientConfiguration vaultClientConfiguration = new VaultClientConfiguration(
+                new VaultClientConfiguration.VaultClientConnectionPoolConfiguration(), new ApplicationConfiguration());
+        vaultClientConfiguration.setKvVersion(kvVersion);
+        responseDecoder = new VaultStreamingResponseDecoder(objectMapper, vaultClientConfiguration);
+        introspectedResponseDecoder = new VaultIntrospectedResponseDecoder(objectMapper, vaultClientConfiguration);
+    }
+
+    /**
+     * @return The bound response
+     * @throws IOException If the response cannot be bound
+     */
+    @Benchmark
+    public AbstractVaultResponse binding() throws IOException {
+        return objectMapper.readValue(body, responseType);
+    }
+
+    /**
+     * @return The response created with its introspection
+     * @throws IOException If the response cannot be decoded
+     */
+    @Benchmark
+    public AbstractVaultResponse introspected() throws IOException {
+        return introspectedResponseDecoder.decode(body, responseType);
+    }
+
+    /**
+     * @return The secrets decoded from the response body fed in chunks
+     */
+    @Benchmark
+    public VaultSecrets streaming() {
+        List<ByteBuffer<?>> chunks = new ArrayList<>(body.length / CHUNK_SIZE + 1);
+        for (int offset = 0; offset < body.length; offset += CHUNK_SIZE) {
+            int length = Math.min(CHUNK_SIZE, body.length - offset);
+            chunks.add(NettyByteBufferFactory.DEFAULT.wrap(Unpooled.wrappedBuffer(body, offset, length)));
+        }
+        return responseDecoder.decode(Flowable.fromIterable(chunks), false).blockingFirst();
+    }
+}
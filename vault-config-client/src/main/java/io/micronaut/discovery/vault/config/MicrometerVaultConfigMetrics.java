@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Tags;
+import io.micronaut.context.BeanContext;
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.condition.Condition;
+import io.micronaut.context.condition.ConditionContext;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.micronaut.core.value.PropertyResolver;
+import io.micronaut.retry.event.RetryEvent;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  {@link VaultConfigMetrics} recorded with Micrometer, tagged by kv-version and client description. The meter
+ *  registry of the context is used when there is one. Without one, e.g. in the bootstrap context, the metrics are
+ *  only recorded when the {@link #GLOBAL_REGISTRY} property is set, with {@link Metrics#globalRegistry}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@BootstrapContextCompatible
+@Requires(classes = MeterRegistry.class)
+@Requires(property = MicrometerVaultConfigMetrics.ENABLED, notEquals = "false")
+@Requires(condition = MicrometerVaultConfigMetrics.MeterRegistryCondition.class)
+public class MicrometerVaultConfigMetrics implements VaultConfigMetrics, ApplicationEventListener<RetryEvent> {
+
+    /**
+     * The property to disable the metrics.
+     */
+    public static final String ENABLED = VaultClientConfiguration.PREFIX + ".metrics.enabled";
+
+    /**
+     * The property to record the metrics with the global registry of Micrometer when the context has no meter registry.
+     */
+    public static final String GLOBAL_REGISTRY = VaultClientConfiguration.PREFIX + ".metrics.global-registry";
+
+    private static final String PREFIX = "vault.config";
+
+    private final MeterRegistry meterRegistry;
+    private final Tags tags;
+    private final DistributionSummary responseSize;
+
+    /**
+     * @param meterRegistry            The meter registry, if any, the global registry otherwise
+     * @param vaultClientConfiguration Vault Client Configuration
+     * @param configHttpClient         The http client
+     */
+    public MicrometerVaultConfigMetrics(@Nullable MeterRegistry meterRegistry,
+                                        VaultClientConfiguration vaultClientConfiguration,
+                                        VaultConfigHttpClient<?> configHttpClient) {
+        this.meterRegistry = meterRegistry != null ? meterRegistry : Metrics.globalRegistry;
+        this.tags = Tags.of(
+                "kv-version", vaultClientConfiguration.getKvVersion().name(),
+                "description", configHttpClient.getDescription());
+        this.responseSize = DistributionSummary.builder(PREFIX + ".response.size")
+                .description("The size of the bodies of the responses from Vault")
+                .baseUnit("bytes")
+                .tags(tags)
+                .register(this.meterRegistry);
+    }
+
+    @Override
+    public void recordRead(@Nonnull String backend, @Nonnull String vaultKey, @Nonnull Outcome outcome, long nanos) {
+        meterRegistry.timer(PREFIX + ".read", tags.and(
+                "engine", backend,
+                "path", vaultKey,
+                "outcome", tagValue(outcome))).record(nanos, TimeUnit.NANOSECONDS);
+        if (outcome == Outcome.NOT_FOUND) {
+            meterRegistry.counter(PREFIX + ".not.found", tags.and("engine", backend, "path", vaultKey)).increment();
+        }
+    }
+
+    @Override
+    public void recordSkippedRead(@Nonnull String backend, @Nonnull String vaultKey) {
+        meterRegistry.counter(PREFIX + ".read.skipped", tags.and("engine", backend, "path", vaultKey)).increment();
+    }
+
+    @Override
+    public void recordFailFast(@Nonnull String backend, @Nonnull String vaultKey) {
+        meterRegistry.counter(PREFIX + ".fail.fast", tags.and("engine", backend, "path", vaultKey)).increment();
+    }
+
+    @Override
+    public void recordRetry(@Nonnull String method) {
+        meterRegistry.counter(PREFIX + ".retries", tags.and("method", method)).increment();
+    }
+
+    @Override
+    public void recordResponseSize(long bytes) {
+        responseSize.record(bytes);
+    }
+
+    @Override
+    public void recordLoad(@Nonnull Outcome outcome, long nanos) {
+        meterRegistry.timer(PREFIX + ".load", tags.and("outcome", tagValue(outcome))).record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Counts the retries of the Vault http clients, and of the response decoders which retry the whole read when
+     * the body fails while it is decoded, tagged with the decoder and the method, e.g.
+     * {@code VaultStreamingResponseDecoder.decode}.
+     *
+     * @param event The retry event
+     */
+    @Override
+    public void onApplicationEvent(RetryEvent event) {
+        Class<?> declaringType = event.getSource().getDeclaringType();
+        if (VaultConfigHttpClient.class.isAssignableFrom(declaringType)) {
+            recordRetry(event.getSource().getMethodName());
+        } else if (VaultStreamingResponseDecoder.class.isAssignableFrom(declaringType)
+                || VaultIntrospectedResponseDecoder.class.isAssignableFrom(declaringType)) {
+            recordRetry(declaringType.getSimpleName() + "." + event.getSource().getMethodName());
+        }
+    }
+
+    private static String tagValue(Outcome outcome) {
+        return outcome.name().toLowerCase(Locale.ENGLISH).replace('_', '-');
+    }
+
+    /**
+     * Met when the context has a meter registry, or when the global registry is opted in.
+     */
+    public static final class MeterRegistryCondition implements Condition {
+
+        @Override
+        public boolean matches(ConditionContext context) {
+            BeanContext beanContext = context.getBeanContext();
+            if (beanContext instanceof PropertyResolver
+                    && ((PropertyResolver) beanContext).getProperty(GLOBAL_REGISTRY, Boolean.class).orElse(false)) {
+                return true;
+            }
+            return beanContext.containsBean(MeterRegistry.class);
+        }
+    }
+}
@@ -22,7 +22,11 @@ import io.micronaut.discovery.config.ConfigDiscoveryConfiguration;
 import io.micronaut.http.client.HttpClientConfiguration;
 import io.micronaut.runtime.ApplicationConfiguration;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  *  A {@link HttpClientConfiguration} for Vault Client.
@@ -49,6 +53,18 @@ public class VaultClientConfiguration extends HttpClientConfiguration {
 
     private final VaultClientConnectionPoolConfiguration vaultClientConnectionPoolConfiguration;
     private final VaultClientDiscoveryConfiguration vaultClientDiscoveryConfiguration = new VaultClientDiscoveryConfiguration();
+    private VaultClientSnapshotConfiguration snapshotConfiguration = new VaultClientSnapshotConfiguration();
+    private VaultClientRefreshConfiguration refreshConfiguration = new VaultClientRefreshConfiguration();
+    private VaultClientLeaseConfiguration leaseConfiguration = new VaultClientLeaseConfiguration();
+    private VaultClientAuthenticationConfiguration authenticationConfiguration = new VaultClientAuthenticationConfiguration();
+    private VaultClientReadConfiguration readConfiguration = new VaultClientReadConfiguration();
+    private VaultClientRoutingConfiguration routingConfiguration = new VaultClientRoutingConfiguration();
+    private VaultClientEventsConfiguration eventsConfiguration = new VaultClientEventsConfiguration();
+    private VaultClientDatabaseConfiguration databaseConfiguration = new VaultClientDatabaseConfiguration();
+    private VaultClientTransitConfiguration transitConfiguration = new VaultClientTransitConfiguration();
+    private VaultClientPkiConfiguration pkiConfiguration = new VaultClientPkiConfiguration();
+    private VaultClientOffHeapConfiguration offHeapConfiguration = new VaultClientOffHeapConfiguration();
+    private List<VaultSecretEngineConfiguration> engineConfigurations = new ArrayList<>();
 
     private String uri = "http://locahost:8200";
     private String token;
@@ -78,6 +94,234 @@ public class VaultClientConfiguration extends HttpClientConfiguration {
         return vaultClientDiscoveryConfiguration;
     }
 
+    /**
+     * @return The snapshot configuration
+     */
+    public VaultClientSnapshotConfiguration getSnapshotConfiguration() {
+        return snapshotConfiguration;
+    }
+
+    /**
+     * Set the snapshot configuration.
+     *
+     * @param snapshotConfiguration The snapshot configuration
+     */
+    @Inject
+    public void setSnapshotConfiguration(VaultClientSnapshotConfiguration snapshotConfiguration) {
+        if (snapshotConfiguration != null) {
+            this.snapshotConfiguration = snapshotConfiguration;
+        }
+    }
+
+    /**
+     * @return The background refresh configuration
+     */
+    public VaultClientRefreshConfiguration getRefreshConfiguration() {
+        return refreshConfiguration;
+    }
+
+    /**
+     * Set the background refresh configuration.
+     *
+     * @param refreshConfiguration The background refresh configuration
+     */
+    @Inject
+    public void setRefreshConfiguration(VaultClientRefreshConfiguration refreshConfiguration) {
+        if (refreshConfiguration != null) {
+            this.refreshConfiguration = refreshConfiguration;
+        }
+    }
+
+    /**
+     * @return The lease driven refresh configuration
+     */
+    public VaultClientLeaseConfiguration getLeaseConfiguration() {
+        return leaseConfiguration;
+    }
+
+    /**
+     * Set the lease driven refresh configuration.
+     *
+     * @param leaseConfiguration The lease driven refresh configuration
+     */
+    @Inject
+    public void setLeaseConfiguration(VaultClientLeaseConfiguration leaseConfiguration) {
+        if (leaseConfiguration != null) {
+            this.leaseConfiguration = leaseConfiguration;
+        }
+    }
+
+    /**
+     * @return The authentication configuration
+     */
+    public VaultClientAuthenticationConfiguration getAuthenticationConfiguration() {
+        return authenticationConfiguration;
+    }
+
+    /**
+     * Set the authentication configuration.
+     *
+     * @param authenticationConfiguration The authentication configuration
+     */
+    @Inject
+    public void setAuthenticationConfiguration(VaultClientAuthenticationConfiguration authenticationConfiguration) {
+        if (authenticationConfiguration != null) {
+            this.authenticationConfiguration = authenticationConfiguration;
+        }
+    }
+
+    /**
+     * @return The read configuration
+     */
+    public VaultClientReadConfiguration getReadConfiguration() {
+        return readConfiguration;
+    }
+
+    /**
+     * Set the read configuration.
+     *
+     * @param readConfiguration The read configuration
+     */
+    @Inject
+    public void setReadConfiguration(VaultClientReadConfiguration readConfiguration) {
+        if (readConfiguration != null) {
+            this.readConfiguration = readConfiguration;
+        }
+    }
+
+    /**
+     * @return The multi-endpoint routing configuration
+     */
+    public VaultClientRoutingConfiguration getRoutingConfiguration() {
+        return routingConfiguration;
+    }
+
+    /**
+     * Set the multi-endpoint routing configuration.
+     *
+     * @param routingConfiguration The multi-endpoint routing configuration
+     */
+    @Inject
+    public void setRoutingConfiguration(VaultClientRoutingConfiguration routingConfiguration) {
+        if (routingConfiguration != null) {
+            this.routingConfiguration = routingConfiguration;
+        }
+    }
+
+    /**
+     * @return The event notifications configuration
+     */
+    public VaultClientEventsConfiguration getEventsConfiguration() {
+        return eventsConfiguration;
+    }
+
+    /**
+     * Set the event notifications configuration.
+     *
+     * @param eventsConfiguration The event notifications configuration
+     */
+    @Inject
+    public void setEventsConfiguration(VaultClientEventsConfiguration eventsConfiguration) {
+        if (eventsConfiguration != null) {
+            this.eventsConfiguration = eventsConfiguration;
+        }
+    }
+
+    /**
+     * @return The database secrets engine configuration
+     */
+    public VaultClientDatabaseConfiguration getDatabaseConfiguration() {
+        return databaseConfiguration;
+    }
+
+    /**
+     * Set the database secrets engine configuration.
+     *
+     * @param databaseConfiguration The database secrets engine configuration
+     */
+    @Inject
+    public void setDatabaseConfiguration(VaultClientDatabaseConfiguration databaseConfiguration) {
+        if (databaseConfiguration != null) {
+            this.databaseConfiguration = databaseConfiguration;
+        }
+    }
+
+    /**
+     * @return The transit secrets engine configuration
+     */
+    public VaultClientTransitConfiguration getTransitConfiguration() {
+        return transitConfiguration;
+    }
+
+    /**
+     * Set the transit secrets engine configuration.
+     *
+     * @param transitConfiguration The transit secrets engine configuration
+     */
+    @Inject
+    public void setTransitConfiguration(VaultClientTransitConfiguration transitConfiguration) {
+        if (transitConfiguration != null) {
+            this.transitConfiguration = transitConfiguration;
+        }
+    }
+
+    /**
+     * @return The PKI secrets engine configuration
+     */
+    public VaultClientPkiConfiguration getPkiConfiguration() {
+        return pkiConfiguration;
+    }
+
+    /**
+     * Set the PKI secrets engine configuration.
+     *
+     * @param pkiConfiguration The PKI secrets engine configuration
+     */
+    @Inject
+    public void setPkiConfiguration(VaultClientPkiConfiguration pkiConfiguration) {
+        if (pkiConfiguration != null) {
+            this.pkiConfiguration = pkiConfiguration;
+        }
+    }
+
+    /**
+     * @return The off-heap secret store configuration
+     */
+    public VaultClientOffHeapConfiguration getOffHeapConfiguration() {
+        return offHeapConfiguration;
+    }
+
+    /**
+     * Set the off-heap secret store configuration.
+     *
+     * @param offHeapConfiguration The off-heap secret store configuration
+     */
+    @Inject
+    public void setOffHeapConfiguration(VaultClientOffHeapConfiguration offHeapConfiguration) {
+        if (offHeapConfiguration != null) {
+            this.offHeapConfiguration = offHeapConfiguration;
+        }
+    }
+
+    /**
+     * @return The configurations of the additional KV mounts read next to the secret engine
+     */
+    public List<VaultSecretEngineConfiguration> getEngineConfigurations() {
+        return engineConfigurations;
+    }
+
+    /**
+     * Set the configurations of the additional KV mounts read next to the secret engine.
+     *
+     * @param engineConfigurations The configurations of the additional KV mounts
+     */
+    @Inject
+    public void setEngineConfigurations(List<VaultSecretEngineConfiguration> engineConfigurations) {
+        if (engineConfigurations != null) {
+            this.engineConfigurations = engineConfigurations;
+        }
+    }
+
     /**
      * @return The Vault Server Uri
      */
@@ -163,7 +407,30 @@ public class VaultClientConfiguration extends HttpClientConfiguration {
      */
     @ConfigurationProperties(ConnectionPoolConfiguration.PREFIX)
     @BootstrapContextCompatible
-    public static class VaultClientConnectionPoolConfiguration extends ConnectionPoolConfiguration { }
+    public static class VaultClientConnectionPoolConfiguration extends ConnectionPoolConfiguration {
+
+        private int prewarmConnections = 0;
+
+        /**
+         * @return The number of pooled connections opened to Vault while the application starts (default 0)
+         */
+        public int getPrewarmConnections() {
+            return prewarmConnections;
+        }
+
+        /**
+         * Set the number of pooled connections opened to Vault while the application starts, before the first
+         * read of configuration. Needs the connection pool to be enabled, 0 disables the pre-warming. With routing
+         * endpoints, the connections are opened to every endpoint. Only the reads of the BINDING decoder use the
+         * pooled connections, the pre-warming is skipped with the STREAMING and INTROSPECTED decoders, whose
+         * streamed reads open a connection of their own.
+         *
+         * @param prewarmConnections The number of connections to open
+         */
+        public void setPrewarmConnections(int prewarmConnections) {
+            this.prewarmConnections = prewarmConnections;
+        }
+    }
 
     /**
      * The Discovery Configuration class for Vault.
@@ -175,4 +442,1276 @@ public class VaultClientConfiguration extends HttpClientConfiguration {
         public static final String PREFIX = VaultClientConfiguration.PREFIX + "." + ConfigDiscoveryConfiguration.PREFIX;
     }
 
+    /**
+     * The encrypted on-disk snapshot configuration class for Vault.
+     */
+    @ConfigurationProperties(VaultClientSnapshotConfiguration.NAME)
+    @BootstrapContextCompatible
+    public static class VaultClientSnapshotConfiguration {
+
+        public static final String NAME = "snapshot";
+        public static final String PREFIX = VaultClientConfiguration.PREFIX + "." + NAME;
+
+        private static final Duration DEFAULT_MAX_AGE = Duration.ofDays(7);
+
+        private boolean enabled = false;
+        private String path;
+        private String key;
+        private Duration maxAge = DEFAULT_MAX_AGE;
+
+        /**
+         * @return Flag to indicate that property sources are served from the snapshot (default false)
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Set flag to indicate that property sources are served from the snapshot. The snapshot is verified against
+         * Vault in the background and the changes found are applied once the application started, publishing a
+         * refresh event for the changed properties.
+         *
+         * @param enabled Flag to enable the snapshot
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * @return The snapshot file path
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Set the snapshot file path. Defaults to a file named after the application in the temporary directory.
+         *
+         * @param path The snapshot file path
+         */
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        /**
+         * @return The Base64 encoded AES key used to encrypt the snapshot
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * Set the Base64 encoded AES key (128, 192 or 256 bits) used to encrypt the snapshot.
+         *
+         * @param key The Base64 encoded AES key
+         */
+        public void setKey(String key) {
+            this.key = key;
+        }
+
+        /**
+         * @return The maximum age of a snapshot that can still be served (default 7 days)
+         */
+        public Duration getMaxAge() {
+            return maxAge;
+        }
+
+        /**
+         * Set the maximum age of a snapshot that can still be served.
+         *
+         * @param maxAge The maximum age of a snapshot
+         */
+        public void setMaxAge(Duration maxAge) {
+            this.maxAge = maxAge;
+        }
+    }
+
+    /**
+     * The background refresh configuration class for Vault.
+     */
+    @ConfigurationProperties(VaultClientRefreshConfiguration.NAME)
+    @BootstrapContextCompatible
+    public static class VaultClientRefreshConfiguration {
+
+        public static final String NAME = "refresh";
+        public static final String PREFIX = VaultClientConfiguration.PREFIX + "." + NAME;
+
+        private static final Duration DEFAULT_INTERVAL = Duration.ofSeconds(30);
+
+        private boolean enabled = false;
+        private Duration interval = DEFAULT_INTERVAL;
+
+        /**
+         * @return Flag to indicate that Vault is polled for changes in the background (default false)
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Set flag to indicate that Vault is polled for changes in the background.
+         *
+         * @param enabled Flag to enable the background refresh
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * @return The interval between two polls (default 30 seconds)
+         */
+        public Duration getInterval() {
+            return interval;
+        }
+
+        /**
+         * Set the interval between two polls.
+         *
+         * @param interval The interval between two polls
+         */
+        public void setInterval(Duration interval) {
+            this.interval = interval;
+        }
+    }
+
+    /**
+     * The lease driven refresh configuration class for Vault.
+     */
+    @ConfigurationProperties(VaultClientLeaseConfiguration.NAME)
+    @BootstrapContextCompatible
+    public static class VaultClientLeaseConfiguration {
+
+        public static final String NAME = "lease";
+        public static final String PREFIX = VaultClientConfiguration.PREFIX + "." + NAME;
+
+        private static final double DEFAULT_FRACTION = 0.75;
+        private static final double DEFAULT_JITTER = 0.1;
+        private static final Duration DEFAULT_MIN_DELAY = Duration.ofSeconds(10);
+        private static final Duration DEFAULT_MAX_DELAY = Duration.ofHours(1);
+
+        private boolean enabled = false;
+        private double fraction = DEFAULT_FRACTION;
+        private double jitter = DEFAULT_JITTER;
+        private Duration minDelay = DEFAULT_MIN_DELAY;
+        private Duration maxDelay = DEFAULT_MAX_DELAY;
+
+        /**
+         * @return Flag to indicate that secrets are read again before their lease runs out (default false)
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Set flag to indicate that secrets are read again before their lease runs out.
+         *
+         * @param enabled Flag to enable the lease driven refresh
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * @return The fraction of the lease duration after which a secret is read again (default 0.75)
+         */
+        public double getFraction() {
+            return fraction;
+        }
+
+        /**
+         * Set the fraction of the lease duration after which a secret is read again.
+         *
+         * @param fraction The fraction of the lease duration
+         */
+        public void setFraction(double fraction) {
+            this.fraction = fraction;
+        }
+
+        /**
+         * @return The random spread applied to each delay, as a fraction of the delay (default 0.1)
+         */
+        public double getJitter() {
+            return jitter;
+        }
+
+        /**
+         * Set the random spread applied to each delay, as a fraction of the delay.
+         *
+         * @param jitter The random spread
+         */
+        public void setJitter(double jitter) {
+            this.jitter = jitter;
+        }
+
+        /**
+         * @return The minimum delay between two reads of the same secret (default 10 seconds)
+         */
+        public Duration getMinDelay() {
+            return minDelay;
+        }
+
+        /**
+         * Set the minimum delay between two reads of the same secret.
+         *
+         * @param minDelay The minimum delay
+         */
+        public void setMinDelay(Duration minDelay) {
+            this.minDelay = minDelay;
+        }
+
+        /**
+         * @return The maximum delay between two reads of the same secret (default 1 hour)
+         */
+        public Duration getMaxDelay() {
+            return maxDelay;
+        }
+
+        /**
+         * Set the maximum delay between two reads of the same secret, also used for secrets without a lease.
+         *
+         * @param maxDelay The maximum delay
+         */
+        public void setMaxDelay(Duration maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+    }
+
+    /**
+     * The authentication configuration class for Vault.
+     */
+    @ConfigurationProperties(VaultClientAuthenticationConfiguration.NAME)
+    @BootstrapContextCompatible
+    public static class VaultClientAuthenticationConfiguration {
+
+        public static final String NAME = "authentication";
+        public static final String PREFIX = VaultClientConfiguration.PREFIX + "." + NAME;
+
+        /**
+         * Vault authentication methods.
+         */
+        public enum VaultAuthMethod { TOKEN, APPROLE, KUBERNETES, JWT };
+
+        /**
+         * The file the Kubernetes service account token is read from by default.
+         */
+        public static final String DEFAULT_KUBERNETES_JWT_PATH = "/var/run/secrets/kubernetes.io/serviceaccount/token";
+
+        private static final double DEFAULT_RENEW_FRACTION = 0.75;
+
+        private VaultAuthMethod method = VaultAuthMethod.TOKEN;
+        private String path;
+        private String role;
+        private String roleId;
+        private String secretId;
+        private String jwt;
+        private String jwtPath;
+        private double renewFraction = DEFAULT_RENEW_FRACTION;
+
+        /**
+         * @return The authentication method (default TOKEN)
+         */
+        public VaultAuthMethod getMethod() {
+            return method;
+        }
+
+        /**
+         * Set the authentication method.
+         *
+         * @param method The authentication method
+         */
+        public void setMethod(VaultAuthMethod method) {
+            this.method = method;
+        }
+
+        /**
+         * @return The path the authentication method is mounted at, defaults to the name of the method
+         */
+        public String getPath() {
+            return path;
+        }
+
+        /**
+         * Set the path the authentication method is mounted at.
+         *
+         * @param path The authentication mount path
+         */
+        public void setPath(String path) {
+            this.path = path;
+        }
+
+        /**
+         * @return The role to log in with, for the KUBERNETES and JWT methods
+         */
+        public String getRole() {
+            return role;
+        }
+
+        /**
+         * Set the role to log in with, for the KUBERNETES and JWT methods.
+         *
+         * @param role The role
+         */
+        public void setRole(String role) {
+            this.role = role;
+        }
+
+        /**
+         * @return The role id, for the APPROLE method
+         */
+        public String getRoleId() {
+            return roleId;
+        }
+
+        /**
+         * Set the role id, for the APPROLE method.
+         *
+         * @param roleId The role id
+         */
+        public void setRoleId(String roleId) {
+            this.roleId = roleId;
+        }
+
+        /**
+         * @return The secret id, for the APPROLE method
+         */
+        public String getSecretId() {
+            return secretId;
+        }
+
+        /**
+         * Set the secret id, for the APPROLE method.
+         *
+         * @param secretId The secret id
+         */
+        public void setSecretId(String secretId) {
+            this.secretId = secretId;
+        }
+
+        /**
+         * @return The JWT to log in with, for the JWT method
+         */
+        public String getJwt() {
+            return jwt;
+        }
+
+        /**
+         * Set the JWT to log in with, for the JWT method.
+         *
+         * @param jwt The JWT
+         */
+        public void setJwt(String jwt) {
+            this.jwt = jwt;
+        }
+
+        /**
+         * @return The file the JWT is read from, for the KUBERNETES and JWT methods
+         */
+        public String getJwtPath() {
+            return jwtPath;
+        }
+
+        /**
+         * Set the file the JWT is read from, for the KUBERNETES and JWT methods. The KUBERNETES method
+         * defaults to the service account token.
+         *
+         * @param jwtPath The file the JWT is read from
+         */
+        public void setJwtPath(String jwtPath) {
+            this.jwtPath = jwtPath;
+        }
+
+        /**
+         * @return The fraction of the token TTL after which the token is renewed (default 0.75)
+         */
+        public double getRenewFraction() {
+            return renewFraction;
+        }
+
+        /**
+         * Set the fraction of the token TTL after which the token is renewed.
+         *
+         * @param renewFraction The fraction of the token TTL
+         */
+        public void setRenewFraction(double renewFraction) {
+            this.renewFraction = renewFraction;
+        }
+    }
+
+    /**
+     * The read configuration class for Vault.
+     */
+    @ConfigurationProperties(VaultClientReadConfiguration.NAME)
+    @BootstrapContextCompatible
+    public static class VaultClientReadConfiguration {
+
+        public static final String NAME = "read";
+        public static final String PREFIX = VaultClientConfiguration.PREFIX + "." + NAME;
+
+        /**
+         * Vault response decoders.
+         */
+        public enum VaultResponseDecoder { BINDING, STREAMING, INTROSPECTED };
+
+        /**
+         * Executors of the reads.
+         */
+        public enum VaultReadExecution { IO, VIRTUAL_THREADS };
+
+        private int maxConcurrency = 0;
+        private Duration timeout;
+        private VaultResponseDecoder decoder = VaultResponseDecoder.BINDING;
+        private boolean listKeys = false;
+        private Duration missingKeyTtl = Duration.ZERO;
+        private VaultReadExecution execution = VaultReadExecution.IO;
+        private List<String> deferredKeys = new ArrayList<>();
+
+        /**
+         * @return The maximum number of vault keys read at the same time, 0 for no limit (default 0)
+         */
+        public int getMaxConcurrency() {
+            return maxConcurrency;
+        }
+
+        /**
+         * Set the maximum number of vault keys read at the same time, 0 or less for no limit.
+         *
+         * @param maxConcurrency The maximum number of concurrent reads
+         */
+        public void setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+        }
+
+        /**
+         * @return The timeout of the read of a single vault key, retries included, if any (default none)
+         */
+        @Nullable
+        public Duration getTimeout() {
+            return timeout;
+        }
+
+        /**
+         * Set the timeout of the read of a single vault key, retries included. A vault key timing out is
+         * skipped, unless the fail fast property is set.
+         *
+         * @param timeout The timeout of a single read
+         */
+        public void setTimeout(@Nullable Duration timeout) {
+            this.timeout = timeout;
+        }
+
+        /**
+         * @return The decoder of the responses (default BINDING)
+         */
+        public VaultResponseDecoder getDecoder() {
+            return decoder;
+        }
+
+        /**
+         * Set the decoder of the responses. BINDING binds the whole response, STREAMING decodes the response
+         * body as it arrives straight into flat properties, skipping everything but the secrets, INTROSPECTED
+         * creates the response with its compile time introspection, without reflection.
+         *
+         * @param decoder The decoder of the responses
+         */
+        public void setDecoder(VaultResponseDecoder decoder) {
+            this.decoder = decoder;
+        }
+
+        /**
+         * @return Whether the keys under the application and the application name are listed before reading the
+         * vault keys of the active environments (default false)
+         */
+        public boolean isListKeys() {
+            return listKeys;
+        }
+
+        /**
+         * Set whether the keys under the application and the application name are listed before reading the
+         * vault keys of the active environments, so that only the vault keys found are read. The token needs the
+         * list capability, the vault keys are all read when the list is denied.
+         *
+         * @param listKeys Whether the keys are listed
+         */
+        public void setListKeys(boolean listKeys) {
+            this.listKeys = listKeys;
+        }
+
+        /**
+         * @return How long a vault key found missing is not read again (default zero, read every time)
+         */
+        public Duration getMissingKeyTtl() {
+            return missingKeyTtl;
+        }
+
+        /**
+         * Set how long a vault key found missing, by a read or a list, is not read again.
+         *
+         * @param missingKeyTtl The time to live of a missing vault key
+         */
+        public void setMissingKeyTtl(Duration missingKeyTtl) {
+            this.missingKeyTtl = missingKeyTtl;
+        }
+
+        /**
+         * @return The executor of the reads (default IO)
+         */
+        public VaultReadExecution getExecution() {
+            return execution;
+        }
+
+        /**
+         * Set the executor of the reads. IO reads on the shared I/O executor, VIRTUAL_THREADS reads every vault
+         * key on a virtual thread of its own on Java 21 and later, and on the I/O executor on older versions.
+         *
+         * @param execution The executor of the reads
+         */
+        public void setExecution(VaultReadExecution execution) {
+            this.execution = execution;
+        }
+
+        /**
+         * @return The vault keys loaded after the application started, instead of during its startup
+         */
+        public List<String> getDeferredKeys() {
+            return deferredKeys;
+        }
+
+        /**
+         * Set the vault keys loaded after the application started, instead of during its startup, e.g.
+         * {@code application/dev} or {@code my-app/*} for every environment of my-app. Their property sources
+         * are applied when they arrive and a refresh event is published for the properties they change.
+         *
+         * @param deferredKeys The deferred vault keys
+         */
+        public void setDeferredKeys(List<String> deferredKeys) {
+            this.deferredKeys = deferredKeys;
+        }
+    }
+
+    /**
+     * The multi-endpoint routing configuration class for Vault. The reads of configuration are spread over the
+     * Vault uri and the additional endpoints, e.g. performance standbys, while the logins stay on the Vault uri.
+     */
+    @ConfigurationProperties(VaultClientRoutingConfiguration.NAME)
+    @BootstrapContextCompatible
+    public static class VaultClientRoutingConfiguration {
+
+        public static final String NAME = "routing";
+        public static final String PREFIX = VaultClientConfiguration.PREFIX + "." + NAME;
+
+        /**
+         * Behaviours of a node behind the index of a read, sent as the X-Vault-Inconsistent header.
+         */
+        public enum VaultInconsistentMode {
+            FORWARD_ACTIVE_NODE("forward-active-node"),
+            FAIL("fail");
+
+            private final String headerValue;
+
+            VaultInconsistentMode(String headerValue) {
+                this.headerValue = headerValue;
+            }
+
+            /**
+             * @return The value of the X-Vault-Inconsistent header
+             */
+            public String getHeaderValue() {
+                return headerValue;
+            }
+        }
+
+        private static final double DEFAULT_HEDGE_PERCENTILE = 95;
+        private static final Duration DEFAULT_HEDGE_MIN_DELAY = Duration.ofMillis(20);
+        private static final int DEFAULT_LATENCY_WINDOW = 128;
+        private static final Duration DEFAULT_UNHEALTHY_DELAY = Duration.ofSeconds(10);
+
+        private List<String> endpoints = new ArrayList<>();
+        private boolean hedgeEnabled = false;
+        private double hedgePercentile = DEFAULT_HEDGE_PERCENTILE;
+        private Duration hedgeMinDelay = DEFAULT_HEDGE_MIN_DELAY;
+        private int latencyWindow = DEFAULT_LATENCY_WINDOW;
+        private Duration unhealthyDelay = DEFAULT_UNHEALTHY_DELAY;
+        private boolean consistentReads = true;
+        private VaultInconsistentMode inconsistentMode = VaultInconsistentMode.FORWARD_ACTIVE_NODE;
+
+        /**
+         * @return The Vault endpoints read from in addition to the Vault uri, routing is disabled when empty
+         */
+        public List<String> getEndpoints() {
+            return endpoints;
+        }
+
+        /**
+         * Set the Vault endpoints read from in addition to the Vault uri.
+         *
+         * @param endpoints The Vault endpoints
+         */
+        public void setEndpoints(List<String> endpoints) {
+            this.endpoints = endpoints;
+        }
+
+        /**
+         * @return Flag to indicate that a slow read is hedged to a second endpoint (default false)
+         */
+        public boolean isHedgeEnabled() {
+            return hedgeEnabled;
+        }
+
+        /**
+         * Set flag to indicate that a slow read is hedged to a second endpoint.
+         *
+         * @param hedgeEnabled Flag to hedge slow reads
+         */
+        public void setHedgeEnabled(boolean hedgeEnabled) {
+            this.hedgeEnabled = hedgeEnabled;
+        }
+
+        /**
+         * @return The percentile of the latency of an endpoint after which a read is hedged (default 95)
+         */
+        public double getHedgePercentile() {
+            return hedgePercentile;
+        }
+
+        /**
+         * Set the percentile of the latency of an endpoint after which a read is hedged.
+         *
+         * @param hedgePercentile The percentile, between 0 and 100
+         */
+        public void setHedgePercentile(double hedgePercentile) {
+            this.hedgePercentile = hedgePercentile;
+        }
+
+        /**
+         * @return The minimum delay before a read is hedged (default 20 milliseconds)
+         */
+        public Duration getHedgeMinDelay() {
+            return hedgeMinDelay;
+        }
+
+        /**
+         * Set the minimum delay before a read is hedged.
+         *
+         * @param hedgeMinDelay The minimum delay
+         */
+        public void setHedgeMinDelay(Duration hedgeMinDelay) {
+            this.hedgeMinDelay = hedgeMinDelay;
+        }
+
+        /**
+         * @return The number of latest reads the latency of an endpoint is tracked over (default 128)
+         */
+        public int getLatencyWindow() {
+            return latencyWindow;
+        }
+
+        /**
+         * Set the number of latest reads the latency of an endpoint is tracked over.
+         *
+         * @param latencyWindow The number of reads
+         */
+        public void setLatencyWindow(int latencyWindow) {
+            this.latencyWindow = latencyWindow;
+        }
+
+        /**
+         * @return The time a failing endpoint is only read from when no other endpoint is healthy (default 10 seconds)
+         */
+        public Duration getUnhealthyDelay() {
+            return unhealthyDelay;
+        }
+
+        /**
+         * Set the time a failing endpoint is only read from when no other endpoint is healthy.
+         *
+         * @param unhealthyDelay The time a failing endpoint is demoted
+         */
+        public void setUnhealthyDelay(Duration unhealthyDelay) {
+            this.unhealthyDelay = unhealthyDelay;
+        }
+
+        /**
+         * @return Flag to indicate that the X-Vault-Index of the latest response is sent with every read (default true)
+         */
+        public boolean isConsistentReads() {
+            return consistentReads;
+        }
+
+        /**
+         * Set flag to indicate that the X-Vault-Index of the latest response is sent with every read, so that a
+         * standby behind it forwards the read or fails it instead of answering with stale secrets.
+         *
+         * @param consistentReads Flag to send the X-Vault-Index
+         */
+        public void setConsistentReads(boolean consistentReads) {
+            this.consistentReads = consistentReads;
+        }
+
+        /**
+         * @return The behaviour of a node behind the index of a read (default FORWARD_ACTIVE_NODE)
+         */
+        public VaultInconsistentMode getInconsistentMode() {
+            return inconsistentMode;
+        }
+
+        /**
+         * Set the behaviour of a node behind the index of a read.
+         *
+         * @param inconsistentMode The behaviour of a node behind the index
+         */
+        public void setInconsistentMode(VaultInconsistentMode inconsistentMode) {
+            this.inconsistentMode = inconsistentMode;
+        }
+    }
+
+    /**
+     * The event notifications configuration class for Vault.
+     */
+    @ConfigurationProperties(VaultClientEventsConfiguration.NAME)
+    @BootstrapContextCompatible
+    public static class VaultClientEventsConfiguration {
+
+        public static final String NAME = "events";
+        public static final String PREFIX = VaultClientConfiguration.PREFIX + "." + NAME;
+
+        private static final Duration DEFAULT_RECONNECT_DELAY = Duration.ofSeconds(1);
+        private static final Duration DEFAULT_MAX_RECONNECT_DELAY = Duration.ofMinutes(1);
+        private static final Duration DEFAULT_FALLBACK_INTERVAL = Duration.ofSeconds(30);
+
+        private boolean enabled = false;
+        private Duration reconnectDelay = DEFAULT_RECONNECT_DELAY;
+        private Duration maxReconnectDelay = DEFAULT_MAX_RECONNECT_DELAY;
+        private Duration fallbackInterval = DEFAULT_FALLBACK_INTERVAL;
+
+        /**
+         * @return Flag to indicate that the secrets are read again on the write events of Vault (default false)
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Set flag to indicate that the secrets are read again on the write events of Vault.
+         *
+         * @param enabled Flag to enable the event notifications
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * @return The delay before the first reconnection after the event stream drops (default 1 second)
+         */
+        public Duration getReconnectDelay() {
+            return reconnectDelay;
+        }
+
+        /**
+         * Set the delay before the first reconnection after the event stream drops, doubled on every failure.
+         *
+         * @param reconnectDelay The delay before the first reconnection
+         */
+        public void setReconnectDelay(Duration reconnectDelay) {
+            this.reconnectDelay = reconnectDelay;
+        }
+
+        /**
+         * @return The maximum delay between two reconnections (default 1 minute)
+         */
+        public Duration getMaxReconnectDelay() {
+            return maxReconnectDelay;
+        }
+
+        /**
+         * Set the maximum delay between two reconnections.
+         *
+         * @param maxReconnectDelay The maximum delay between two reconnections
+         */
+        public void setMaxReconnectDelay(Duration maxReconnectDelay) {
+            this.maxReconnectDelay = maxReconnectDelay;
+        }
+
+        /**
+         * @return The interval between two polls while the event stream is down (default 30 seconds)
+         */
+        public Duration getFallbackInterval() {
+            return fallbackInterval;
+        }
+
+        /**
+         * Set the interval between two polls of every vault key while the event stream is down.
+         *
+         * @param fallbackInterval The interval between two polls
+         */
+        public void setFallbackInterval(Duration fallbackInterval) {
+            this.fallbackInterval = fallbackInterval;
+        }
+    }
+
+    /**
+     * The database secrets engine configuration class for Vault.
+     */
+    @ConfigurationProperties(VaultClientDatabaseConfiguration.NAME)
+    @BootstrapContextCompatible
+    public static class VaultClientDatabaseConfiguration {
+
+        public static final String NAME = "database";
+        public static final String PREFIX = VaultClientConfiguration.PREFIX + "." + NAME;
+
+        private static final String DEFAULT_BACKEND = "database";
+        private static final double DEFAULT_RENEW_FRACTION = 0.5;
+        private static final Duration DEFAULT_ROTATE_BEFORE = Duration.ofMinutes(5);
+        private static final Duration DEFAULT_RETRY_DELAY = Duration.ofSeconds(5);
+        private static final Duration DEFAULT_REVOKE_DELAY = Duration.ofMinutes(1);
+
+        private boolean enabled = false;
+        private String backend = DEFAULT_BACKEND;
+        private List<String> roles = new ArrayList<>();
+        private double renewFraction = DEFAULT_RENEW_FRACTION;
+        private Duration rotateBefore = DEFAULT_ROTATE_BEFORE;
+        private Duration retryDelay = DEFAULT_RETRY_DELAY;
+        private Duration revokeDelay = DEFAULT_REVOKE_DELAY;
+
+        /**
+         * @return Flag to indicate that database credentials are generated by Vault (default false)
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Set flag to indicate that database credentials are generated by Vault.
+         *
+         * @param enabled Flag to enable the database credentials
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * @return The path the database secrets engine is mounted at (default database)
+         */
+        public String getBackend() {
+            return backend;
+        }
+
+        /**
+         * Set the path the database secrets engine is mounted at.
+         *
+         * @param backend The path of the database secrets engine
+         */
+        public void setBackend(String backend) {
+            this.backend = backend;
+        }
+
+        /**
+         * @return The roles credentials are generated for
+         */
+        public List<String> getRoles() {
+            return roles;
+        }
+
+        /**
+         * Set the roles credentials are generated for, as soon as the application context starts.
+         *
+         * @param roles The roles
+         */
+        public void setRoles(List<String> roles) {
+            this.roles = roles;
+        }
+
+        /**
+         * @return The fraction of the lease duration after which a lease is renewed (default 0.5)
+         */
+        public double getRenewFraction() {
+            return renewFraction;
+        }
+
+        /**
+         * Set the fraction of the lease duration after which a lease is renewed.
+         *
+         * @param renewFraction The fraction of the lease duration
+         */
+        public void setRenewFraction(double renewFraction) {
+            this.renewFraction = renewFraction;
+        }
+
+        /**
+         * @return How long before the expiry of its lease the next credentials are generated (default 5 minutes)
+         */
+        public Duration getRotateBefore() {
+            return rotateBefore;
+        }
+
+        /**
+         * Set how long before the expiry of a lease that can no longer be renewed the next credentials are
+         * generated. The previous credentials stay valid until their lease is revoked, see {@link #setRevokeDelay},
+         * or expires.
+         *
+         * @param rotateBefore How long before the expiry the credentials are rotated
+         */
+        public void setRotateBefore(Duration rotateBefore) {
+            this.rotateBefore = rotateBefore;
+        }
+
+        /**
+         * @return The delay before a failed generation or renewal is tried again (default 5 seconds)
+         */
+        public Duration getRetryDelay() {
+            return retryDelay;
+        }
+
+        /**
+         * Set the delay before a failed generation or renewal is tried again.
+         *
+         * @param retryDelay The delay before trying again
+         */
+        public void setRetryDelay(Duration retryDelay) {
+            this.retryDelay = retryDelay;
+        }
+
+        /**
+         * @return How long after the next credentials are generated the lease of the previous ones is revoked
+         * (default 1 minute)
+         */
+        public Duration getRevokeDelay() {
+            return revokeDelay;
+        }
+
+        /**
+         * Set how long after the next credentials are generated the lease of the previous ones is revoked, which
+         * is the time the connections opened with the previous credentials have to be closed. A zero delay leaves
+         * the lease of the previous credentials to expire on its own.
+         *
+         * @param revokeDelay The delay before revoking the lease of the previous credentials
+         */
+        public void setRevokeDelay(Duration revokeDelay) {
+            this.revokeDelay = revokeDelay;
+        }
+    }
+
+    /**
+     * The transit secrets engine configuration class for Vault.
+     */
+    @ConfigurationProperties(VaultClientTransitConfiguration.NAME)
+    @BootstrapContextCompatible
+    public static class VaultClientTransitConfiguration {
+
+        public static final String NAME = "transit";
+        public static final String PREFIX = VaultClientConfiguration.PREFIX + "." + NAME;
+
+        private static final String DEFAULT_BACKEND = "transit";
+        private static final int DEFAULT_MAX_BATCH_SIZE = 250;
+        private static final Duration DEFAULT_LINGER = Duration.ofMillis(2);
+        private static final int DEFAULT_DATA_KEY_BITS = 256;
+        private static final Duration DEFAULT_DATA_KEY_LIFETIME = Duration.ofMinutes(10);
+        private static final long DEFAULT_DATA_KEY_MAX_USES = 1_000_000;
+        private static final int DEFAULT_DATA_KEY_CACHE_SIZE = 1000;
+
+        private String backend = DEFAULT_BACKEND;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private Duration linger = DEFAULT_LINGER;
+        private int dataKeyBits = DEFAULT_DATA_KEY_BITS;
+        private Duration dataKeyLifetime = DEFAULT_DATA_KEY_LIFETIME;
+        private long dataKeyMaxUses = DEFAULT_DATA_KEY_MAX_USES;
+        private int dataKeyCacheSize = DEFAULT_DATA_KEY_CACHE_SIZE;
+
+        /**
+         * @return The path the transit secrets engine is mounted at (default transit)
+         */
+        public String getBackend() {
+            return backend;
+        }
+
+        /**
+         * Set the path the transit secrets engine is mounted at.
+         *
+         * @param backend The path of the transit secrets engine
+         */
+        public void setBackend(String backend) {
+            this.backend = backend;
+        }
+
+        /**
+         * @return The maximum number of operations sent in a single batch request (default 250)
+         */
+        public int getMaxBatchSize() {
+            return maxBatchSize;
+        }
+
+        /**
+         * Set the maximum number of operations sent in a single batch request. A batch is sent as soon as it is
+         * full, without waiting for the linger time.
+         *
+         * @param maxBatchSize The maximum batch size
+         */
+        public void setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+        }
+
+        /**
+         * @return How long the first operation of a batch waits for others to join it (default 2 milliseconds)
+         */
+        public Duration getLinger() {
+            return linger;
+        }
+
+        /**
+         * Set how long the first operation of a batch waits for other operations with the same key to join it.
+         *
+         * @param linger The linger time
+         */
+        public void setLinger(Duration linger) {
+            this.linger = linger;
+        }
+
+        /**
+         * @return The size in bits of the data keys of the envelope encryption (default 256)
+         */
+        public int getDataKeyBits() {
+            return dataKeyBits;
+        }
+
+        /**
+         * Set the size in bits of the data keys of the envelope encryption, 128, 256 or 512.
+         *
+         * @param dataKeyBits The size of the data keys
+         */
+        public void setDataKeyBits(int dataKeyBits) {
+            this.dataKeyBits = dataKeyBits;
+        }
+
+        /**
+         * @return How long a data key is kept in memory (default 10 minutes)
+         */
+        public Duration getDataKeyLifetime() {
+            return dataKeyLifetime;
+        }
+
+        /**
+         * Set how long a data key is kept in memory, to encrypt or to decrypt, before Vault is asked again. It must
+         * be positive.
+         *
+         * @param dataKeyLifetime The lifetime of the data keys
+         */
+        public void setDataKeyLifetime(Duration dataKeyLifetime) {
+            this.dataKeyLifetime = dataKeyLifetime;
+        }
+
+        /**
+         * @return The maximum number of payloads encrypted with a data key (default 1000000)
+         */
+        public long getDataKeyMaxUses() {
+            return dataKeyMaxUses;
+        }
+
+        /**
+         * Set the maximum number of payloads encrypted with a data key before a new one is generated. It must be
+         * positive and stay well below 2^32, the limit of AES-GCM with random initialization vectors.
+         *
+         * @param dataKeyMaxUses The maximum number of encryptions
+         */
+        public void setDataKeyMaxUses(long dataKeyMaxUses) {
+            this.dataKeyMaxUses = dataKeyMaxUses;
+        }
+
+        /**
+         * @return The maximum number of data keys kept in memory to decrypt (default 1000)
+         */
+        public int getDataKeyCacheSize() {
+            return dataKeyCacheSize;
+        }
+
+        /**
+         * Set the maximum number of data keys kept in memory to decrypt. The expired data keys are dropped as new
+         * ones are kept, and the least recently used one beyond the maximum.
+         *
+         * @param dataKeyCacheSize The maximum number of data keys
+         */
+        public void setDataKeyCacheSize(int dataKeyCacheSize) {
+            this.dataKeyCacheSize = dataKeyCacheSize;
+        }
+    }
+
+    /**
+     * The PKI secrets engine configuration class for Vault.
+     */
+    @ConfigurationProperties(VaultClientPkiConfiguration.NAME)
+    @BootstrapContextCompatible
+    public static class VaultClientPkiConfiguration {
+
+        public static final String NAME = "pki";
+        public static final String PREFIX = VaultClientConfiguration.PREFIX + "." + NAME;
+
+        private static final String DEFAULT_BACKEND = "pki";
+        private static final double DEFAULT_RENEW_FRACTION = 0.66;
+        private static final Duration DEFAULT_RETRY_DELAY = Duration.ofSeconds(5);
+
+        private boolean enabled = false;
+        private String backend = DEFAULT_BACKEND;
+        private String role;
+        private String commonName;
+        private List<String> altNames = new ArrayList<>();
+        private Duration ttl;
+        private double renewFraction = DEFAULT_RENEW_FRACTION;
+        private Duration retryDelay = DEFAULT_RETRY_DELAY;
+
+        /**
+         * @return Flag to indicate that a certificate is issued by Vault (default false)
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Set flag to indicate that a certificate is issued by Vault.
+         *
+         * @param enabled Flag to enable the certificate issuance
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * @return The path the PKI secrets engine is mounted at (default pki)
+         */
+        public String getBackend() {
+            return backend;
+        }
+
+        /**
+         * Set the path the PKI secrets engine is mounted at.
+         *
+         * @param backend The path of the PKI secrets engine
+         */
+        public void setBackend(String backend) {
+            this.backend = backend;
+        }
+
+        /**
+         * @return The role the certificate is issued for
+         */
+        public String getRole() {
+            return role;
+        }
+
+        /**
+         * Set the role the certificate is issued for.
+         *
+         * @param role The role
+         */
+        public void setRole(String role) {
+            this.role = role;
+        }
+
+        /**
+         * @return The common name of the certificate
+         */
+        public String getCommonName() {
+            return commonName;
+        }
+
+        /**
+         * Set the common name of the certificate.
+         *
+         * @param commonName The common name
+         */
+        public void setCommonName(String commonName) {
+            this.commonName = commonName;
+        }
+
+        /**
+         * @return The subject alternative names of the certificate
+         */
+        public List<String> getAltNames() {
+            return altNames;
+        }
+
+        /**
+         * Set the subject alternative names of the certificate, DNS names or email addresses.
+         *
+         * @param altNames The subject alternative names
+         */
+        public void setAltNames(List<String> altNames) {
+            this.altNames = altNames;
+        }
+
+        /**
+         * @return The requested lifetime of the certificate, the default of the role when not set
+         */
+        public Duration getTtl() {
+            return ttl;
+        }
+
+        /**
+         * Set the requested lifetime of the certificate, capped by the maximum of the role.
+         *
+         * @param ttl The requested lifetime
+         */
+        public void setTtl(Duration ttl) {
+            this.ttl = ttl;
+        }
+
+        /**
+         * @return The fraction of the certificate lifetime after which a new certificate is issued (default 0.66)
+         */
+        public double getRenewFraction() {
+            return renewFraction;
+        }
+
+        /**
+         * Set the fraction of the certificate lifetime after which a new certificate is issued.
+         *
+         * @param renewFraction The fraction of the certificate lifetime
+         */
+        public void setRenewFraction(double renewFraction) {
+            this.renewFraction = renewFraction;
+        }
+
+        /**
+         * @return The delay before a failed issuance is tried again (default 5 seconds)
+         */
+        public Duration getRetryDelay() {
+            return retryDelay;
+        }
+
+        /**
+         * Set the delay before a failed issuance is tried again.
+         *
+         * @param retryDelay The delay before trying again
+         */
+        public void setRetryDelay(Duration retryDelay) {
+            this.retryDelay = retryDelay;
+        }
+    }
+
+    /**
+     * The off-heap secret store configuration class for Vault.
+     */
+    @ConfigurationProperties(VaultClientOffHeapConfiguration.NAME)
+    @BootstrapContextCompatible
+    public static class VaultClientOffHeapConfiguration {
+
+        public static final String NAME = "off-heap";
+        public static final String PREFIX = VaultClientConfiguration.PREFIX + "." + NAME;
+
+        private boolean enabled = false;
+
+        /**
+         * @return Flag to indicate that the secret values are kept off-heap (default false)
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Set flag to indicate that the secret values read from Vault are kept in off-heap buffers, decoded
+         * on access and wiped when their property source is replaced.
+         *
+         * @param enabled Flag to keep the secret values off-heap
+         */
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+    }
 }
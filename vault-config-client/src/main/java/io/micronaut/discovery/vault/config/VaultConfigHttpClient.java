@@ -16,6 +16,7 @@
 
 package io.micronaut.discovery.vault.config;
 
+import io.micronaut.core.io.buffer.ByteBuffer;
 import io.micronaut.http.annotation.Header;
 import org.reactivestreams.Publisher;
 
@@ -47,4 +48,29 @@ public interface VaultConfigHttpClient<T extends AbstractVaultResponse> {
                                          @Nonnull String backend,
                                          @Nonnull String vaultKey);
 
+    /**
+     * Read configuration from Vault as a stream of raw response body chunks. The stream is not retried, as a
+     * retry would restart the chunks in the middle of a decoding, the decoders retry the whole read instead.
+     *
+     * @param token The vault token
+     * @param backend The secret engine name
+     * @param vaultKey The vault key
+     * @return A publisher of the response body chunks
+     */
+    Publisher<ByteBuffer<?>> readConfigurationStream(@Nonnull @Header("X-Vault-Token") String token,
+                                                     @Nonnull String backend,
+                                                     @Nonnull String vaultKey);
+
+    /**
+     * List the keys directly under a path of the secret engine.
+     *
+     * @param token The vault token
+     * @param backend The secret engine name
+     * @param path The path to list, without the trailing slash
+     * @return A publisher of the response body
+     */
+    Publisher<VaultKeysResponse> listKeys(@Nonnull @Header("X-Vault-Token") String token,
+                                          @Nonnull String backend,
+                                          @Nonnull String path);
+
 }
@@ -0,0 +1,93 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import javax.annotation.Nonnull;
+
+/**
+ *  Records the reads of configuration from Vault. Every method does nothing by default, an implementation
+ *  overrides the ones it records.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public interface VaultConfigMetrics {
+
+    /**
+     * The metrics recording nothing, used when no other implementation is available.
+     */
+    VaultConfigMetrics NOOP = new VaultConfigMetrics() { };
+
+    /**
+     * Outcomes of a read.
+     */
+    enum Outcome { SUCCESS, NOT_FOUND, ERROR }
+
+    /**
+     * Records the read of a vault key, retries included.
+     *
+     * @param backend  The secret engine name
+     * @param vaultKey The vault key
+     * @param outcome  The outcome of the read
+     * @param nanos    The duration of the read in nanoseconds
+     */
+    default void recordRead(@Nonnull String backend, @Nonnull String vaultKey, @Nonnull Outcome outcome, long nanos) {
+    }
+
+    /**
+     * Records a vault key not read because it is known to be missing, from a list or an earlier read.
+     *
+     * @param backend  The secret engine name
+     * @param vaultKey The vault key
+     */
+    default void recordSkippedRead(@Nonnull String backend, @Nonnull String vaultKey) {
+    }
+
+    /**
+     * Records a vault key that could not be found while the fail fast property is set.
+     *
+     * @param backend  The secret engine name
+     * @param vaultKey The vault key
+     */
+    default void recordFailFast(@Nonnull String backend, @Nonnull String vaultKey) {
+    }
+
+    /**
+     * Records a retry of a request to Vault, by an http client or by a response decoder.
+     *
+     * @param method The name of the http client method retried, or of the decoder method prefixed with the decoder
+     */
+    default void recordRetry(@Nonnull String method) {
+    }
+
+    /**
+     * Records the size of the body of a response from Vault.
+     *
+     * @param bytes The size of the body in bytes
+     */
+    default void recordResponseSize(long bytes) {
+    }
+
+    /**
+     * Records the load of every property source of the application from Vault.
+     *
+     * @param outcome The outcome of the load
+     * @param nanos   The duration of the load in nanoseconds
+     */
+    default void recordLoad(@Nonnull Outcome outcome, long nanos) {
+    }
+}
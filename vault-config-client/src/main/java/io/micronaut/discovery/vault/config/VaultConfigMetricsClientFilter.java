@@ -0,0 +1,65 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.filter.ClientFilterChain;
+import io.micronaut.http.filter.HttpClientFilter;
+import io.reactivex.Flowable;
+import org.reactivestreams.Publisher;
+
+/**
+ *  Records the size of the responses to the authenticated requests sent to Vault, from their Content-Length. Only
+ *  the requests of the Vault http clients are filtered, the clients created by the endpoint router having no
+ *  service id at all.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Filter(value = {"/v1/**", "/v2/**"}, serviceId = VaultClientConfiguration.VAULT_CLIENT_CONFIG_ENDPOINT)
+@BootstrapContextCompatible
+@Requires(beans = VaultConfigMetrics.class)
+public class VaultConfigMetricsClientFilter implements HttpClientFilter {
+
+    private static final String VAULT_TOKEN_HEADER = "X-Vault-Token";
+
+    private final VaultConfigMetrics metrics;
+
+    /**
+     * @param metrics The metrics
+     */
+    public VaultConfigMetricsClientFilter(VaultConfigMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Publisher<? extends HttpResponse<?>> doFilter(MutableHttpRequest<?> request, ClientFilterChain chain) {
+        if (!request.getHeaders().contains(VAULT_TOKEN_HEADER)) {
+            return chain.proceed(request);
+        }
+        return Flowable.fromPublisher(chain.proceed(request)).doOnNext(response -> {
+            long contentLength = response.getContentLength();
+            if (contentLength >= 0) {
+                metrics.recordResponseSize(contentLength);
+            }
+        });
+    }
+}
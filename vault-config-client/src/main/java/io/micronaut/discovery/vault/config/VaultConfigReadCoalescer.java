@@ -0,0 +1,155 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.reactivex.Flowable;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Singleton;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ *  Shares a single in-flight read between every caller reading the same vault key of the same secret engine
+ *  with the same token. The response, or the error, is replayed to every subscriber of the shared read and
+ *  the next read after its completion goes to Vault again. The reads are keyed on a SHA-256 hash of the token,
+ *  which is never kept itself, and only shared once subscribed.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@BootstrapContextCompatible
+public class VaultConfigReadCoalescer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultConfigReadCoalescer.class);
+
+    private final Map<List<Object>, Flowable<?>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * Reads configuration from Vault, joining the read in flight for the same vault key if there is one.
+     *
+     * @param configHttpClient The http client
+     * @param token            The vault token
+     * @param backend          The secret engine name
+     * @param vaultKey         The vault key
+     * @param <T>              The response type
+     * @return A flowable of the response
+     */
+    public <T extends AbstractVaultResponse> Flowable<T> read(@Nonnull VaultConfigHttpClient<T> configHttpClient,
+                                                              @Nonnull String token,
+                                                              @Nonnull String backend,
+                                                              @Nonnull String vaultKey) {
+        List<Object> key = Arrays.asList(VaultConfigHttpClient.class, hash(token), backend, vaultKey);
+        return share(key, vaultKey, backend, () -> configHttpClient.readConfigurationValues(token, backend, vaultKey));
+    }
+
+    /**
+     * Reads configuration from Vault and decodes it while it streams in, joining the read in flight for the same
+     * vault key if there is one.
+     *
+     * @param configHttpClient The http client
+     * @param responseDecoder  The streaming response decoder
+     * @param token            The vault token
+     * @param backend          The secret engine name
+     * @param vaultKey         The vault key
+     * @param includeMetadata  Whether the KV v2 metadata is decoded
+     * @return A flowable of the decoded secrets
+     */
+    public Flowable<VaultSecrets> readStreaming(@Nonnull VaultConfigHttpClient<?> configHttpClient,
+                                                @Nonnull VaultStreamingResponseDecoder responseDecoder,
+                                                @Nonnull String token,
+                                                @Nonnull String backend,
+                                                @Nonnull String vaultKey,
+                                                boolean includeMetadata) {
+        List<Object> key = Arrays.asList(VaultStreamingResponseDecoder.class, hash(token), backend, vaultKey, includeMetadata);
+        return share(key, vaultKey, backend, () ->
+                responseDecoder.decode(configHttpClient.readConfigurationStream(token, backend, vaultKey), includeMetadata));
+    }
+
+    /**
+     * Reads configuration from Vault and decodes it with the response introspection, joining the read in flight
+     * for the same vault key if there is one.
+     *
+     * @param configHttpClient The http client
+     * @param responseDecoder  The introspected response decoder
+     * @param token            The vault token
+     * @param backend          The secret engine name
+     * @param vaultKey         The vault key
+     * @return A flowable of the response
+     */
+    public Flowable<AbstractVaultResponse<?>> readIntrospected(@Nonnull VaultConfigHttpClient<?> configHttpClient,
+                                                               @Nonnull VaultIntrospectedResponseDecoder responseDecoder,
+                                                               @Nonnull String token,
+                                                               @Nonnull String backend,
+                                                               @Nonnull String vaultKey) {
+        List<Object> key = Arrays.asList(VaultIntrospectedResponseDecoder.class, hash(token), backend, vaultKey);
+        return share(key, vaultKey, backend, () ->
+                responseDecoder.decode(configHttpClient.readConfigurationStream(token, backend, vaultKey)));
+    }
+
+    /**
+     * Joins the read in flight for the key, or starts a new one, when the returned flowable is subscribed. A read
+     * is removed before its termination is signalled, so that a read retried on error never joins the failed one,
+     * and it always terminates as the shared read is never cancelled.
+     *
+     * @param key      The key of the read
+     * @param vaultKey The vault key
+     * @param backend  The secret engine name
+     * @param read     The supplier of the read
+     * @param <T>      The response type
+     * @return A flowable of the response
+     */
+    @SuppressWarnings("unchecked")
+    private <T> Flowable<T> share(List<Object> key, String vaultKey, String backend, Supplier<Publisher<T>> read) {
+        return Flowable.defer(() -> (Flowable<T>) inFlight.computeIfAbsent(key, k -> {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Reading vault key [{}] of secret engine [{}]", vaultKey, backend);
+            }
+            return Flowable.fromPublisher(read.get())
+                    .doOnTerminate(() -> inFlight.remove(k))
+                    .cache();
+        }));
+    }
+
+    /**
+     * @param token The vault token
+     * @return The hex encoded SHA-256 hash of the token
+     */
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte b : digest) {
+                hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -22,21 +22,35 @@ import io.micronaut.context.env.EnvironmentPropertySource;
 import io.micronaut.context.env.PropertySource;
 import io.micronaut.context.exceptions.ConfigurationException;
 import io.micronaut.discovery.config.ConfigurationClient;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientReadConfiguration.VaultReadExecution;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientReadConfiguration.VaultResponseDecoder;
+import io.micronaut.discovery.vault.config.auth.VaultTokenSupplier;
+import io.micronaut.discovery.vault.config.v2.VaultResponseV2;
 import io.micronaut.http.HttpStatus;
 import io.micronaut.http.client.exceptions.HttpClientResponseException;
 import io.micronaut.runtime.ApplicationConfiguration;
 import io.micronaut.scheduling.TaskExecutors;
 import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.disposables.SerialDisposable;
+import io.reactivex.flowables.ConnectableFlowable;
 import io.reactivex.schedulers.Schedulers;
 import org.reactivestreams.Publisher;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
 import javax.inject.Named;
 import javax.inject.Singleton;
+import java.time.Duration;
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  *  A {@link ConfigurationClient} for Vault Configuration.
@@ -51,31 +65,80 @@ public class VaultConfigurationClient implements ConfigurationClient {
     private static final Logger LOG = LoggerFactory.getLogger(VaultConfigurationClient.class);
     private static final String DEFAULT_APPLICATION = "application";
 
+    /**
+     * When the vault keys are loaded.
+     */
+    private enum VaultKeyLoad { STARTUP, DEFERRED }
+
     private final VaultConfigHttpClient<?> configHttpClient;
     private final VaultClientConfiguration vaultClientConfiguration;
     private final ApplicationConfiguration applicationConfiguration;
     private final Environment environment;
     private final ExecutorService executorService;
+    private final ExecutorService virtualThreadExecutor;
+    private final VaultTokenSupplier tokenSupplier;
+    private final VaultConfigReadCoalescer readCoalescer;
+    private final VaultMissingKeyCache missingKeyCache;
+    private final VaultStreamingResponseDecoder responseDecoder;
+    private final VaultIntrospectedResponseDecoder introspectedResponseDecoder;
+    private final VaultSnapshotStore snapshotStore;
+    private final VaultConfigMetrics metrics;
+    private final VaultOffHeapSecretStore secretStore;
+    private final VaultSecretEngines secretEngines;
+    private final SerialDisposable snapshotVerification = new SerialDisposable();
+    private final Map<String, VaultSecretMetadata> secretMetadata = new ConcurrentHashMap<>();
 
     /**
      * Default Constructor.
      *
-     * @param configHttpClient          The http client
-     * @param vaultClientConfiguration  Vault Client Configuration
-     * @param applicationConfiguration  The application configuration
-     * @param environment               The environment
-     * @param executorService           Executor Service
+     * @param connectionPrewarmer         The connection pre-warmer, if enabled, created before the other
+     *                                    dependencies so that the connections open while they are created
+     * @param configHttpClient            The http client
+     * @param vaultClientConfiguration    Vault Client Configuration
+     * @param applicationConfiguration    The application configuration
+     * @param environment                 The environment
+     * @param executorService             Executor Service
+     * @param tokenSupplier               The Vault token supplier
+     * @param readCoalescer               The read coalescer
+     * @param missingKeyCache             The cache of the missing vault keys
+     * @param responseDecoder             The streaming response decoder
+     * @param introspectedResponseDecoder The introspected response decoder
+     * @param snapshotStore               The snapshot store, if the snapshot is enabled
+     * @param metrics                     The metrics, if any
+     * @param secretStore                 The off-heap secret store, if the off-heap store is enabled
+     * @param secretEngines               The additional KV mounts, if any
      */
-    public VaultConfigurationClient(VaultConfigHttpClient<?> configHttpClient,
+    public VaultConfigurationClient(@Nullable VaultConnectionPrewarmer connectionPrewarmer,
+                                    VaultConfigHttpClient<?> configHttpClient,
                                     VaultClientConfiguration vaultClientConfiguration,
                                     ApplicationConfiguration applicationConfiguration,
                                     Environment environment,
-                                    @Named(TaskExecutors.IO) @Nullable ExecutorService executorService) {
+                                    @Named(TaskExecutors.IO) @Nullable ExecutorService executorService,
+                                    VaultTokenSupplier tokenSupplier,
+                                    VaultConfigReadCoalescer readCoalescer,
+                                    VaultMissingKeyCache missingKeyCache,
+                                    VaultStreamingResponseDecoder responseDecoder,
+                                    VaultIntrospectedResponseDecoder introspectedResponseDecoder,
+                                    @Nullable VaultSnapshotStore snapshotStore,
+                                    @Nullable VaultConfigMetrics metrics,
+                                    @Nullable VaultOffHeapSecretStore secretStore,
+                                    @Nullable VaultSecretEngines secretEngines) {
         this.configHttpClient = configHttpClient;
         this.vaultClientConfiguration = vaultClientConfiguration;
         this.applicationConfiguration = applicationConfiguration;
         this.environment = environment;
         this.executorService = executorService;
+        VaultReadExecution execution = vaultClientConfiguration.getReadConfiguration().getExecution();
+        this.virtualThreadExecutor = execution == VaultReadExecution.VIRTUAL_THREADS ? newVirtualThreadExecutor() : null;
+        this.tokenSupplier = tokenSupplier;
+        this.readCoalescer = readCoalescer;
+        this.missingKeyCache = missingKeyCache;
+        this.responseDecoder = responseDecoder;
+        this.introspectedResponseDecoder = introspectedResponseDecoder;
+        this.snapshotStore = snapshotStore;
+        this.metrics = metrics != null ? metrics : VaultConfigMetrics.NOOP;
+        this.secretStore = secretStore;
+        this.secretEngines = secretEngines;
     }
 
     @Override
@@ -95,50 +158,495 @@ public class VaultConfigurationClient implements ConfigurationClient {
             LOG.debug("Application name: {}, application profiles: {}", applicationName, activeNames);
         }
 
-        List<Flowable<PropertySource>> propertySources = new ArrayList<>();
+        Map<Integer, String> vaultKeys = filterVaultKeys(buildVaultKeys(applicationName), VaultKeyLoad.STARTUP);
+        Flowable<PropertySource> propertySourceFlowable = readVaultKeys(vaultKeys);
 
-        String token = vaultClientConfiguration.getToken();
-        String engine = vaultClientConfiguration.getSecretEngineName();
+        if (snapshotStore != null) {
+            String scope = vaultClientConfiguration.getSecretEngineName() + "/" + vaultClientConfiguration.getKvVersion() + vaultKeys;
+            if (secretEngines != null) {
+                for (VaultSecretEngineConfiguration engine : secretEngines.getEngines()) {
+                    scope += "," + engine.getPath() + "/" + engine.getKvVersion() + "+" + engine.getOrderOffset();
+                }
+            }
+            propertySourceFlowable = readThroughSnapshot(scope, propertySourceFlowable);
+        }
+        propertySourceFlowable = copyOffHeap(timeLoad(propertySourceFlowable));
+        if (!vaultClientConfiguration.getRefreshConfiguration().isEnabled()
+                && !vaultClientConfiguration.getLeaseConfiguration().isEnabled()) {
+            return propertySourceFlowable;
+        }
+        return propertySourceFlowable.concatWith(Flowable.fromCallable(() ->
+                new VaultMetadataPropertySource(new HashMap<>(secretMetadata))));
+    }
 
-        buildVaultKeys(applicationName).entrySet().forEach(entry -> {
-            propertySources.add(
-                    Flowable.fromPublisher(
-                            configHttpClient.readConfigurationValues(token, engine, entry.getValue()))
-                            .map(data -> PropertySource.of(entry.getValue(), data.getSecrets(), entry.getKey()))
-                            .onErrorResumeNext(throwable -> {
-                                //TODO: Discover why the below hack is necessary
-                                Throwable t = (Throwable) throwable;
-                                if (t instanceof HttpClientResponseException) {
-                                    if (((HttpClientResponseException) t).getStatus() == HttpStatus.NOT_FOUND) {
-                                        if (vaultClientConfiguration.isFailFast()) {
-                                            return Flowable.error(new ConfigurationException(
-                                                    "Could not locate PropertySource and the fail fast property is set", t));
-                                        }
-                                    }
-                                    return Flowable.empty();
-                                }
-                                return Flowable.error(new ConfigurationException("Error reading distributed configuration from Vault: " + t.getMessage(), t));
-                            })
-            );
+    /**
+     * The metadata of the last read of a vault key of the secret engine, by this client or at startup by the
+     * client of the bootstrap context.
+     *
+     * @param vaultKey The vault key
+     * @return The metadata of the last read, if the vault key was read
+     */
+    public Optional<VaultSecretMetadata> getSecretMetadata(String vaultKey) {
+        VaultSecretMetadata metadata = secretMetadata.get(vaultKey);
+        if (metadata != null) {
+            return Optional.of(metadata);
+        }
+        return VaultMetadataPropertySource.find(environment, vaultKey);
+    }
+
+    /**
+     * Reads the property sources of the deferred vault keys, which are left out of
+     * {@link #getPropertySources(Environment)} to be loaded once the application started.
+     *
+     * @return A publisher of the property sources of the deferred vault keys found in Vault
+     */
+    public Publisher<PropertySource> getDeferredPropertySources() {
+        if (!vaultClientConfiguration.getDiscoveryConfiguration().isEnabled()) {
+            return Flowable.empty();
+        }
+        Map<Integer, String> vaultKeys = filterVaultKeys(getVaultKeys(), VaultKeyLoad.DEFERRED);
+        if (vaultKeys.isEmpty()) {
+            return Flowable.empty();
+        }
+        return readVaultKeys(vaultKeys);
+    }
 
+    /**
+     * @param vaultKeys The vault keys by property source order
+     * @param load      The load of the vault keys kept
+     * @return The vault keys kept, by property source order
+     */
+    private Map<Integer, String> filterVaultKeys(Map<Integer, String> vaultKeys, VaultKeyLoad load) {
+        Map<Integer, String> filteredKeys = new TreeMap<>();
+        vaultKeys.forEach((order, vaultKey) -> {
+            if (load(vaultKey) == load) {
+                filteredKeys.put(order, vaultKey);
+            }
         });
+        return filteredKeys;
+    }
+
+    /**
+     * @param vaultKey The vault key
+     * @return When the vault key is loaded
+     */
+    private VaultKeyLoad load(String vaultKey) {
+        VaultClientConfiguration.VaultClientReadConfiguration readConfiguration = vaultClientConfiguration.getReadConfiguration();
+        if (matches(readConfiguration.getDeferredKeys(), vaultKey)) {
+            return VaultKeyLoad.DEFERRED;
+        }
+        return VaultKeyLoad.STARTUP;
+    }
+
+    /**
+     * @param patterns The vault keys, or vault key prefixes ending with {@code *}
+     * @param vaultKey The vault key
+     * @return Whether the vault key matches one of the patterns
+     */
+    private static boolean matches(@Nullable List<String> patterns, String vaultKey) {
+        return patterns != null && patterns.stream().anyMatch(pattern -> pattern.endsWith("*")
+                ? vaultKey.startsWith(pattern.substring(0, pattern.length() - 1))
+                : vaultKey.equals(pattern));
+    }
 
-        Flowable<PropertySource> propertySourceFlowable = Flowable.merge(propertySources);
-        if (executorService != null) {
+    /**
+     * @param vaultKeys The vault keys by property source order
+     * @return A flowable of the property sources found in Vault, read on the executor of the reads
+     */
+    private Flowable<PropertySource> readVaultKeys(Map<Integer, String> vaultKeys) {
+        Flowable<PropertySource> propertySourceFlowable = readToken()
+                .flatMap(token -> listMissingKeys(token, vaultKeys)
+                        .flatMapPublisher(missingKeys -> readPropertySources(token, vaultKeys, missingKeys)));
+        if (virtualThreadExecutor != null) {
+            return propertySourceFlowable.subscribeOn(Schedulers.from(virtualThreadExecutor));
+        } else if (executorService != null) {
             return propertySourceFlowable.subscribeOn(Schedulers.from(executorService));
+        }
+        return propertySourceFlowable;
+    }
+
+    /**
+     * Records the duration of the load of the property sources, from subscription to termination.
+     *
+     * @param propertySourceFlowable The flowable of the property sources
+     * @return The timed flowable
+     */
+    private Flowable<PropertySource> timeLoad(Flowable<PropertySource> propertySourceFlowable) {
+        return Flowable.defer(() -> {
+            long start = System.nanoTime();
+            return propertySourceFlowable
+                    .doOnComplete(() -> metrics.recordLoad(VaultConfigMetrics.Outcome.SUCCESS, System.nanoTime() - start))
+                    .doOnError(t -> metrics.recordLoad(VaultConfigMetrics.Outcome.ERROR, System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * @return A flowable of the Vault token
+     */
+    private Flowable<String> readToken() {
+        return Flowable.fromPublisher(tokenSupplier.getToken())
+                .onErrorResumeNext((Throwable t) -> {
+                    if (t instanceof ConfigurationException) {
+                        return Flowable.error(t);
+                    }
+                    return Flowable.error(new ConfigurationException("Error authenticating with Vault: " + t.getMessage(), t));
+                });
+    }
+
+    /**
+     * Lists the keys under the parent of every vault key of an active environment, when enabled, e.g. under
+     * {@code application} and the application name, to find the vault keys missing without reading them.
+     * The vault keys already known to be missing are not listed again.
+     *
+     * @param token     The vault token
+     * @param vaultKeys The vault keys by property source order
+     * @return A single of the vault keys missing, empty when they could not be listed
+     */
+    private Single<Set<String>> listMissingKeys(String token, Map<Integer, String> vaultKeys) {
+        if (!vaultClientConfiguration.getReadConfiguration().isListKeys()) {
+            return Single.just(Collections.emptySet());
+        }
+
+        String engine = vaultClientConfiguration.getSecretEngineName();
+        Map<String, List<String>> vaultKeysByParent = new LinkedHashMap<>();
+        for (String vaultKey : vaultKeys.values()) {
+            int separator = vaultKey.lastIndexOf('/');
+            if (separator > 0 && !missingKeyCache.isMissing(engine, vaultKey)) {
+                vaultKeysByParent.computeIfAbsent(vaultKey.substring(0, separator), parent -> new ArrayList<>()).add(vaultKey);
+            }
+        }
+        return Flowable.fromIterable(vaultKeysByParent.entrySet())
+                .flatMap(entry -> listMissingKeys(token, engine, entry.getKey(), entry.getValue()))
+                .collect(HashSet::new, Set::add);
+    }
+
+    /**
+     * Lists the keys under a parent path, a parent path not found having no keys at all.
+     *
+     * @param token     The vault token
+     * @param engine    The secret engine name
+     * @param parent    The parent path of the vault keys
+     * @param vaultKeys The vault keys under the parent path
+     * @return A flowable of the vault keys missing, empty when they could not be listed
+     */
+    private Flowable<String> listMissingKeys(String token, String engine, String parent, List<String> vaultKeys) {
+        Flowable<String> missingKeys = Flowable.fromPublisher(configHttpClient.listKeys(token, engine, parent))
+                .map(response -> new HashSet<>(response.getKeys()))
+                .flatMapIterable(keys -> {
+                    List<String> missing = new ArrayList<>();
+                    for (String vaultKey : vaultKeys) {
+                        if (!keys.contains(vaultKey.substring(parent.length() + 1))) {
+                            missing.add(vaultKey);
+                        }
+                    }
+                    return missing;
+                });
+        Duration timeout = vaultClientConfiguration.getReadConfiguration().getTimeout();
+        if (timeout != null && !timeout.isZero() && !timeout.isNegative()) {
+            missingKeys = missingKeys.timeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+        return missingKeys
+                .onErrorResumeNext(throwable -> {
+                    if (throwable instanceof HttpClientResponseException
+                            && ((HttpClientResponseException) throwable).getStatus() == HttpStatus.NOT_FOUND) {
+                        return Flowable.fromIterable(vaultKeys);
+                    }
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Unable to list the keys under [{}], reading every vault key: {}", parent, throwable.getMessage());
+                    }
+                    return Flowable.empty();
+                })
+                .doOnNext(vaultKey -> missingKeyCache.missing(engine, vaultKey));
+    }
+
+    /**
+     * Reads the property sources for the given vault keys from Vault, from the secret engine and from every
+     * additional KV mount. When set, at most
+     * {@link VaultClientConfiguration.VaultClientReadConfiguration#getMaxConcurrency()} keys are read at the same
+     * time, and the property sources are emitted by order, whichever read completes first. The property sources
+     * of a mount are named after the mount and the vault key, e.g. {@code shared:application}, and ordered by the
+     * order of the vault key plus the order offset of the mount.
+     *
+     * @param token       The vault token
+     * @param vaultKeys   The vault keys by property source order
+     * @param missingKeys The vault keys listed as missing, which are not read
+     * @return A flowable of the property sources found in Vault
+     */
+    private Flowable<PropertySource> readPropertySources(String token, Map<Integer, String> vaultKeys, Set<String> missingKeys) {
+        VaultClientConfiguration.VaultClientReadConfiguration readConfiguration = vaultClientConfiguration.getReadConfiguration();
+        int maxConcurrency = readConfiguration.getMaxConcurrency() > 0 ? readConfiguration.getMaxConcurrency() : Integer.MAX_VALUE;
+        Duration timeout = readConfiguration.getTimeout();
+        String engineName = vaultClientConfiguration.getSecretEngineName();
+
+        List<Map.Entry<Integer, Callable<Flowable<PropertySource>>>> reads = new ArrayList<>();
+        for (Map.Entry<Integer, String> entry : vaultKeys.entrySet()) {
+            int order = entry.getKey();
+            String vaultKey = entry.getValue();
+            reads.add(new AbstractMap.SimpleImmutableEntry<>(order, () -> {
+                if (missingKeys.contains(vaultKey) || missingKeyCache.isMissing(engineName, vaultKey)) {
+                    recordMetadata(vaultKey, null, null);
+                    return skipPropertySource(engineName, vaultKey);
+                }
+                return readPropertySource(token, order, vaultKey, timeout);
+            }));
+            if (secretEngines != null) {
+                for (VaultSecretEngineConfiguration engine : secretEngines.getEngines()) {
+                    int engineOrder = order + engine.getOrderOffset();
+                    reads.add(new AbstractMap.SimpleImmutableEntry<>(engineOrder, () -> {
+                        if (missingKeyCache.isMissing(engine.getPath(), vaultKey)) {
+                            return skipPropertySource(engine.getPath(), vaultKey);
+                        }
+                        return readPropertySource(token, engine, engineOrder, vaultKey, timeout);
+                    }));
+                }
+            }
+        }
+        reads.sort(Map.Entry.comparingByKey());
+
+        return Flowable.fromIterable(reads)
+                .concatMapEager(read -> {
+                    Flowable<PropertySource> propertySource = read.getValue().call();
+                    if (virtualThreadExecutor != null) {
+                        propertySource = propertySource.subscribeOn(Schedulers.from(virtualThreadExecutor));
+                    }
+                    return propertySource;
+                }, maxConcurrency, 1);
+    }
+
+    /**
+     * Creates an executor starting a virtual thread per task, looked up reflectively as the client is built
+     * for Java 8.
+     *
+     * @return The executor, or null before Java 21
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (ReflectiveOperationException e) {
+            LOG.info("Virtual threads are not available on Java {}, reading from Vault on the I/O executor",
+                    System.getProperty("java.version"));
+            return null;
+        }
+    }
+
+    /**
+     * Skips the read of a vault key known to be missing, as if it could not be found.
+     *
+     * @param engine   The secret engine name
+     * @param vaultKey The vault key
+     * @return An empty flowable, or an error if the fail fast property is set
+     */
+    private Flowable<PropertySource> skipPropertySource(String engine, String vaultKey) {
+        metrics.recordSkippedRead(engine, vaultKey);
+        if (vaultClientConfiguration.isFailFast()) {
+            metrics.recordFailFast(engine, vaultKey);
+            return Flowable.error(new ConfigurationException(
+                    "Could not locate PropertySource [" + vaultKey + "] and the fail fast property is set"));
+        }
+        return Flowable.empty();
+    }
+
+    /**
+     * Reads the property source of a single vault key from Vault.
+     *
+     * @param token    The vault token
+     * @param order    The property source order
+     * @param vaultKey The vault key
+     * @param timeout  The timeout of the read, if any
+     * @return A flowable of the property source, empty if it could not be found
+     */
+    private Flowable<PropertySource> readPropertySource(String token, int order, String vaultKey, @Nullable Duration timeout) {
+        String engine = vaultClientConfiguration.getSecretEngineName();
+        Flowable<PropertySource> propertySource;
+        VaultResponseDecoder decoder = vaultClientConfiguration.getReadConfiguration().getDecoder();
+        if (decoder == VaultResponseDecoder.STREAMING) {
+            // the version of the KV v2 metadata is only read by the background refresh
+            boolean includeMetadata = vaultClientConfiguration.getRefreshConfiguration().isEnabled();
+            propertySource = readCoalescer.readStreaming(configHttpClient, responseDecoder, token, engine, vaultKey, includeMetadata)
+                    .doOnNext(secrets -> recordMetadata(vaultKey, secrets.getVersion().orElse(null),
+                            secrets.getLeaseDuration().orElse(null)))
+                    .map(secrets -> PropertySource.of(vaultKey, secrets.getProperties(), order));
+        } else if (decoder == VaultResponseDecoder.INTROSPECTED) {
+            propertySource = readCoalescer.readIntrospected(configHttpClient, introspectedResponseDecoder, token, engine, vaultKey)
+                    .doOnNext(data -> recordMetadata(vaultKey, data))
+                    .map(data -> PropertySource.of(vaultKey, data.getSecrets(), order));
         } else {
+            propertySource = readCoalescer.read(configHttpClient, token, engine, vaultKey)
+                    .doOnNext(data -> recordMetadata(vaultKey, data))
+                    .map(data -> PropertySource.of(vaultKey, data.getSecrets(), order));
+        }
+        propertySource = propertySource.doOnError(throwable -> {
+            if (throwable instanceof HttpClientResponseException
+                    && ((HttpClientResponseException) throwable).getStatus() == HttpStatus.NOT_FOUND) {
+                recordMetadata(vaultKey, null, null);
+            }
+        });
+        return handleRead(engine, vaultKey, propertySource, timeout);
+    }
+
+    /**
+     * @param vaultKey The vault key
+     * @param response The response read from Vault
+     */
+    private void recordMetadata(String vaultKey, AbstractVaultResponse<?> response) {
+        Integer version = null;
+        if (response instanceof VaultResponseV2 && response.getData() != null) {
+            version = ((VaultResponseV2) response).getData().getVersion().orElse(null);
+        }
+        recordMetadata(vaultKey, version, response.getLeaseDuration());
+    }
+
+    /**
+     * @param vaultKey      The vault key
+     * @param version       The version of the secret read, KV v2 only
+     * @param leaseDuration The lease duration of the secret read
+     */
+    private void recordMetadata(String vaultKey, @Nullable Integer version, @Nullable Long leaseDuration) {
+        secretMetadata.put(vaultKey, new VaultSecretMetadata(version, leaseDuration, System.currentTimeMillis()));
+    }
+
+    /**
+     * Reads the property source of a single vault key from an additional KV mount.
+     *
+     * @param token    The vault token
+     * @param engine   The configuration of the KV mount
+     * @param order    The property source order
+     * @param vaultKey The vault key
+     * @param timeout  The timeout of the read, if any
+     * @return A flowable of the property source, empty if it could not be found
+     */
+    private Flowable<PropertySource> readPropertySource(String token, VaultSecretEngineConfiguration engine, int order,
+                                                        String vaultKey, @Nullable Duration timeout) {
+        String name = VaultSecretEngines.getPropertySourceName(engine, vaultKey);
+        Flowable<PropertySource> propertySource = secretEngines.read(token, engine, vaultKey)
+                .map(secrets -> PropertySource.of(name, secrets, order));
+        return handleRead(engine.getPath(), vaultKey, propertySource, timeout);
+    }
+
+    /**
+     * Applies the timeout to the read of a vault key, records it and maps its errors, a vault key not found
+     * or timing out being skipped unless the fail fast property is set.
+     *
+     * @param engine         The secret engine name
+     * @param vaultKey       The vault key
+     * @param propertySource The flowable reading the property source
+     * @param timeout        The timeout of the read, if any
+     * @return A flowable of the property source, empty if it could not be found
+     */
+    private Flowable<PropertySource> handleRead(String engine, String vaultKey, Flowable<PropertySource> propertySource,
+                                                @Nullable Duration timeout) {
+        if (timeout != null && !timeout.isZero() && !timeout.isNegative()) {
+            propertySource = propertySource.timeout(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        Flowable<PropertySource> timedPropertySource = propertySource;
+        return Flowable.defer(() -> {
+            long start = System.nanoTime();
+            return timedPropertySource
+                    .doOnComplete(() -> metrics.recordRead(engine, vaultKey, VaultConfigMetrics.Outcome.SUCCESS, System.nanoTime() - start))
+                    .onErrorResumeNext(throwable -> {
+                        //TODO: Discover why the below hack is necessary
+                        Throwable t = (Throwable) throwable;
+                        if (t instanceof HttpClientResponseException) {
+                            if (((HttpClientResponseException) t).getStatus() == HttpStatus.NOT_FOUND) {
+                                metrics.recordRead(engine, vaultKey, VaultConfigMetrics.Outcome.NOT_FOUND, System.nanoTime() - start);
+                                missingKeyCache.missing(engine, vaultKey);
+                                if (vaultClientConfiguration.isFailFast()) {
+                                    metrics.recordFailFast(engine, vaultKey);
+                                    return Flowable.error(new ConfigurationException(
+                                            "Could not locate PropertySource and the fail fast property is set", t));
+                                }
+                            } else {
+                                metrics.recordRead(engine, vaultKey, VaultConfigMetrics.Outcome.ERROR, System.nanoTime() - start);
+                            }
+                            return Flowable.empty();
+                        }
+                        metrics.recordRead(engine, vaultKey, VaultConfigMetrics.Outcome.ERROR, System.nanoTime() - start);
+                        if (t instanceof TimeoutException) {
+                            if (vaultClientConfiguration.isFailFast()) {
+                                metrics.recordFailFast(engine, vaultKey);
+                                return Flowable.error(new ConfigurationException("Timeout reading vault key [" + vaultKey
+                                        + "] from Vault after " + timeout + " and the fail fast property is set", t));
+                            }
+                            LOG.warn("Timeout reading vault key [{}] from Vault after {}, skipping it", vaultKey, timeout);
+                            return Flowable.empty();
+                        }
+                        return Flowable.error(new ConfigurationException("Error reading distributed configuration from Vault: " + t.getMessage(), t));
+                    });
+        });
+    }
+
+    /**
+     * @param propertySourceFlowable The flowable of the property sources
+     * @return The flowable of the property sources copied off-heap when the off-heap store is enabled
+     */
+    private Flowable<PropertySource> copyOffHeap(Flowable<PropertySource> propertySourceFlowable) {
+        if (secretStore == null) {
             return propertySourceFlowable;
         }
+        return propertySourceFlowable.map(propertySource -> propertySource instanceof VaultSnapshotPropertySource
+                ? propertySource : secretStore.copy(propertySource));
+    }
+
+    /**
+     * Serves the property sources from the snapshot when one is available and verifies it against Vault
+     * in the background, otherwise reads them from Vault. Every successful read from Vault replaces the snapshot.
+     * Both the snapshot read and the background verification start when the returned flowable is subscribed,
+     * a new verification replacing the previous one. The property sources served from the snapshot are followed
+     * by a {@link VaultSnapshotPropertySource} replaying the verification, for the {@link VaultSnapshotRefresher}
+     * to apply the changes found.
+     *
+     * @param scope                  The scope of the snapshot
+     * @param propertySourceFlowable The flowable reading the property sources from Vault
+     * @return A flowable of the property sources
+     */
+    private Flowable<PropertySource> readThroughSnapshot(String scope, Flowable<PropertySource> propertySourceFlowable) {
+        Single<List<PropertySource>> vaultPropertySources = propertySourceFlowable
+                .toList()
+                .doOnSuccess(propertySources -> snapshotStore.write(scope, propertySources));
+
+        return Flowable.defer(() -> {
+            Optional<List<PropertySource>> snapshot = snapshotStore.read(scope);
+            if (!snapshot.isPresent()) {
+                return vaultPropertySources.flattenAsFlowable(propertySources -> propertySources);
+            }
+
+            List<PropertySource> snapshotPropertySources = snapshot.get();
+            ConnectableFlowable<List<PropertySource>> verification = vaultPropertySources.toFlowable().replay(1);
+            snapshotVerification.set(verification.connect());
+
+            return Flowable.fromIterable(snapshotPropertySources).concatWith(Flowable.just(
+                    new VaultSnapshotPropertySource(snapshotPropertySources, verification.firstOrError())));
+        });
+    }
+
+    /**
+     * Stops the background verification of the snapshot if it is still reading from Vault, and shuts the virtual
+     * thread executor down.
+     */
+    @PreDestroy
+    public void close() {
+        snapshotVerification.dispose();
+        if (virtualThreadExecutor != null) {
+            virtualThreadExecutor.shutdown();
+        }
+    }
+
+    /**
+     * @return The keys used to get vault properties, by property source order
+     */
+    public Map<Integer, String> getVaultKeys() {
+        return buildVaultKeys(applicationConfiguration.getName().orElse(null));
     }
 
     /**
      * Builds the keys used to get vault properties.
      *
      * @param applicationName The application name
-     * @return list of vault keys
+     * @return The vault keys, sorted by property source order
      */
     protected Map<Integer, String> buildVaultKeys(@Nullable String applicationName) {
-        Map<Integer, String> vaultKeys = new HashMap<>();
+        Map<Integer, String> vaultKeys = new TreeMap<>();
 
         int baseOrder = EnvironmentPropertySource.POSITION + 100;
         int envOrder = baseOrder + 200;
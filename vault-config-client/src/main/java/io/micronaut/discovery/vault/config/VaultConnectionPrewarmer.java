@@ -0,0 +1,121 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Context;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientConnectionPoolConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientReadConfiguration.VaultResponseDecoder;
+import io.micronaut.http.client.HttpClientConfiguration.ConnectionPoolConfiguration;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.disposables.Disposable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+
+/**
+ *  Opens pooled connections to Vault as soon as it is created, while the token is obtained and the other beans
+ *  are created, so that the first reads of configuration find them open. It is created at startup in the
+ *  application context and, as the bootstrap context does not create the context beans, ahead of the other
+ *  dependencies of the {@link VaultConfigurationClient} in the bootstrap context. Every connection is opened by
+ *  a read of the health of Vault, whose failures are ignored.
+ *
+ *  <p>The connections are opened by the http clients that serve the reads of configuration: the http client of
+ *  the Vault uri or, when routing endpoints are configured, the http client of every endpoint of the
+ *  {@link VaultEndpointRouter}.</p>
+ *
+ *  <p>Only the reads of the {@link VaultResponseDecoder#BINDING} decoder go through the connection pool. The
+ *  streamed reads of the {@link VaultResponseDecoder#STREAMING} and {@link VaultResponseDecoder#INTROSPECTED}
+ *  decoders open a connection of their own, closed once the response is read, so no connection is opened in
+ *  advance with these decoders.</p>
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Context
+@BootstrapContextCompatible
+@Requires(property = VaultClientConfiguration.PREFIX + "." + ConnectionPoolConfiguration.PREFIX + ".prewarm-connections")
+public class VaultConnectionPrewarmer {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultConnectionPrewarmer.class);
+
+    private final Disposable prewarm;
+
+    /**
+     * @param healthHttpClient         The http client of the health endpoint
+     * @param endpointRouter           The router of the reads over the endpoints, if routing is configured
+     * @param poolConfiguration        The connection pool configuration
+     * @param vaultClientConfiguration Vault Client Configuration
+     */
+    public VaultConnectionPrewarmer(VaultHealthHttpClient healthHttpClient,
+                                    @Nullable VaultEndpointRouter endpointRouter,
+                                    VaultClientConnectionPoolConfiguration poolConfiguration,
+                                    VaultClientConfiguration vaultClientConfiguration) {
+        int connections = poolConfiguration.getPrewarmConnections();
+        if (connections <= 0) {
+            this.prewarm = null;
+            return;
+        }
+        if (!poolConfiguration.isEnabled()) {
+            LOG.warn("The connection pool of the Vault client is disabled, no connection is opened in advance");
+            this.prewarm = null;
+            return;
+        }
+        VaultResponseDecoder decoder = vaultClientConfiguration.getReadConfiguration().getDecoder();
+        if (decoder != VaultResponseDecoder.BINDING) {
+            LOG.warn("The {} decoder does not read Vault through the connection pool, no connection is opened in advance",
+                    decoder);
+            this.prewarm = null;
+            return;
+        }
+
+        long start = System.nanoTime();
+        Completable openConnections = endpointRouter != null
+                ? endpointRouter.prewarm(connections)
+                : Flowable.range(0, connections).flatMapCompletable(i -> openConnection(healthHttpClient), false, connections);
+        this.prewarm = openConnections.subscribe(() -> {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Opened {} connections to Vault in {}ms", connections, (System.nanoTime() - start) / 1000000);
+            }
+        });
+    }
+
+    /**
+     * Stops opening connections, if they are still being opened.
+     */
+    @PreDestroy
+    public void close() {
+        if (prewarm != null) {
+            prewarm.dispose();
+        }
+    }
+
+    private static Completable openConnection(VaultHealthHttpClient healthHttpClient) {
+        return Flowable.fromPublisher(healthHttpClient.readHealth())
+                .ignoreElements()
+                .onErrorComplete(throwable -> {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Unable to open a connection to Vault in advance: {}", throwable.getMessage());
+                    }
+                    return true;
+                });
+    }
+}
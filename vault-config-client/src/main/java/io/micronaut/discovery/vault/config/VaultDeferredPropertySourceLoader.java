@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientReadConfiguration;
+import io.reactivex.Flowable;
+import io.reactivex.disposables.Disposable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+
+/**
+ *  Loads the property sources of the deferred vault keys once the application started, so that its startup does
+ *  not wait for them, and applies them through the {@link VaultPropertySourceUpdater}. Until they arrive the
+ *  properties of the deferred vault keys are not set.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@Requires(property = VaultClientReadConfiguration.PREFIX + ".deferred-keys")
+public class VaultDeferredPropertySourceLoader implements ApplicationEventListener<StartupEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultDeferredPropertySourceLoader.class);
+
+    private final VaultConfigurationClient configurationClient;
+    private final VaultPropertySourceUpdater propertySourceUpdater;
+    private Disposable load;
+
+    /**
+     * @param configurationClient   The Vault configuration client
+     * @param propertySourceUpdater The property source updater
+     */
+    public VaultDeferredPropertySourceLoader(VaultConfigurationClient configurationClient,
+                                             VaultPropertySourceUpdater propertySourceUpdater) {
+        this.configurationClient = configurationClient;
+        this.propertySourceUpdater = propertySourceUpdater;
+    }
+
+    /**
+     * Starts loading the deferred vault keys once the application is started.
+     *
+     * @param event The startup event
+     */
+    @Override
+    public synchronized void onApplicationEvent(StartupEvent event) {
+        long start = System.nanoTime();
+        load = Flowable.fromPublisher(configurationClient.getDeferredPropertySources())
+                .toList()
+                .subscribe(propertySources -> {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Deferred vault keys loaded in {}ms", (System.nanoTime() - start) / 1_000_000);
+                    }
+                    if (!propertySources.isEmpty()) {
+                        propertySourceUpdater.update(propertySources);
+                    }
+                }, throwable -> LOG.error("Error loading the deferred vault keys from Vault: {}", throwable.getMessage(), throwable));
+    }
+
+    /**
+     * Stops loading the deferred vault keys.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (load != null) {
+            load.dispose();
+        }
+    }
+}
@@ -0,0 +1,376 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.BeanContext;
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.core.type.Argument;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientRoutingConfiguration;
+import io.micronaut.discovery.vault.config.auth.VaultTokenSupplier;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.LoadBalancer;
+import io.micronaut.http.client.RxStreamingHttpClient;
+import io.micronaut.http.client.exceptions.HttpClientException;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Maybe;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.PreDestroy;
+import javax.inject.Provider;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ *  Routes the reads of configuration over the Vault uri and the endpoints of the routing configuration. Every
+ *  read goes to the healthy endpoint with the lowest recent latency and fails over to the next one when the
+ *  endpoint cannot be reached or answers with a 412, a 429 or a 5xx. A read slower than the configured
+ *  percentile of its endpoint is optionally hedged to the next endpoint, the first to answer wins.
+ *
+ *  <p>The X-Vault-Index of the latest response is sent back with every read, so that a performance standby
+ *  behind the data already read forwards the read to the active node, or fails it, instead of answering with
+ *  stale secrets.</p>
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@BootstrapContextCompatible
+@Requires(property = VaultClientRoutingConfiguration.PREFIX + ".endpoints")
+public class VaultEndpointRouter {
+
+    public static final String VAULT_INDEX_HEADER = "X-Vault-Index";
+    public static final String VAULT_INCONSISTENT_HEADER = "X-Vault-Inconsistent";
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultEndpointRouter.class);
+    private static final String VAULT_TOKEN_HEADER = "X-Vault-Token";
+    private static final String HEALTH_PATH = "/v1/sys/health?standbyok=true&perfstandbyok=true&sealedcode=200&uninitcode=200";
+    private static final double EWMA_WEIGHT = 0.2;
+
+    private final BeanContext beanContext;
+    private final VaultClientConfiguration vaultClientConfiguration;
+    private final VaultClientRoutingConfiguration routingConfiguration;
+    private final Provider<VaultTokenSupplier> tokenSupplier;
+    private final List<VaultEndpoint> endpoints = new ArrayList<>();
+    private volatile String index;
+
+    /**
+     * @param beanContext              The bean context the http clients are created from
+     * @param vaultClientConfiguration Vault Client Configuration
+     * @param tokenSupplier            The Vault token supplier, invalidated when Vault rejects its token
+     */
+    public VaultEndpointRouter(BeanContext beanContext, VaultClientConfiguration vaultClientConfiguration,
+                               Provider<VaultTokenSupplier> tokenSupplier) {
+        this.beanContext = beanContext;
+        this.vaultClientConfiguration = vaultClientConfiguration;
+        this.tokenSupplier = tokenSupplier;
+        this.routingConfiguration = vaultClientConfiguration.getRoutingConfiguration();
+        Set<String> uris = new LinkedHashSet<>();
+        uris.add(vaultClientConfiguration.getUri());
+        uris.addAll(routingConfiguration.getEndpoints());
+        for (String uri : uris) {
+            endpoints.add(new VaultEndpoint(uri, toUrl(uri), routingConfiguration.getLatencyWindow()));
+        }
+    }
+
+    /**
+     * Reads from Vault and binds the response body.
+     *
+     * @param path     The path of the read
+     * @param token    The vault token
+     * @param bodyType The response body type
+     * @param <T>      The response body type
+     * @return A flowable of the response body
+     */
+    public <T> Flowable<T> retrieve(@Nonnull String path, @Nonnull String token, @Nonnull Argument<T> bodyType) {
+        return route(client -> client.exchange(request(path, token).accept(MediaType.APPLICATION_JSON_TYPE), bodyType)
+                .flatMapMaybe(response -> {
+                    updateIndex(response);
+                    return response.getBody().map(Maybe::just).orElse(Maybe.empty());
+                }))
+                .doOnError(throwable -> invalidateRejected(token, throwable));
+    }
+
+    /**
+     * Reads from Vault as a stream of raw response body chunks.
+     *
+     * @param path  The path of the read
+     * @param token The vault token
+     * @return A flowable of the response body chunks
+     */
+    public Flowable<ByteBuffer<?>> dataStream(@Nonnull String path, @Nonnull String token) {
+        Flowable<ByteBuffer<?>> body = route(client -> client.exchangeStream(request(path, token).accept(MediaType.APPLICATION_OCTET_STREAM_TYPE))
+                .map(response -> {
+                    updateIndex(response);
+                    return response.body();
+                }));
+        return body.doOnError(throwable -> invalidateRejected(token, throwable));
+    }
+
+    /**
+     * Opens pooled connections to every endpoint, each by a read of the health of Vault whose failures are ignored.
+     * The reads do not record latency samples, the endpoints are ranked by the reads of configuration only.
+     *
+     * @param connections The number of connections to open to each endpoint
+     * @return A completable that completes once the connections are opened
+     */
+    public Completable prewarm(int connections) {
+        return Flowable.fromIterable(endpoints)
+                .flatMapCompletable(endpoint -> Flowable.range(0, connections)
+                        .flatMapCompletable(i -> endpoint.client().exchange(HttpRequest.GET(HEALTH_PATH))
+                                .ignoreElements()
+                                .onErrorComplete(throwable -> {
+                                    if (LOG.isDebugEnabled()) {
+                                        LOG.debug("Unable to open a connection to Vault endpoint [{}] in advance: {}",
+                                                endpoint.uri, throwable.getMessage());
+                                    }
+                                    return true;
+                                }), false, connections));
+    }
+
+    /**
+     * @return The uris of the endpoints, fastest healthy endpoint first
+     */
+    public List<String> getEndpoints() {
+        List<String> uris = new ArrayList<>();
+        for (VaultEndpoint endpoint : rank()) {
+            uris.add(endpoint.uri);
+        }
+        return uris;
+    }
+
+    /**
+     * Closes the http clients of the endpoints.
+     */
+    @PreDestroy
+    public void close() {
+        for (VaultEndpoint endpoint : endpoints) {
+            endpoint.close();
+        }
+    }
+
+    private <T> Flowable<T> route(Function<RxStreamingHttpClient, Flowable<T>> read) {
+        return Flowable.defer(() -> {
+            long start = System.nanoTime();
+            List<VaultEndpoint> ranked = rank();
+            Flowable<T> primary = attempt(ranked, 0, read, start);
+            if (!routingConfiguration.isHedgeEnabled() || ranked.size() < 2) {
+                return primary;
+            }
+            long hedgeDelay = ranked.get(0).percentile(routingConfiguration.getHedgePercentile());
+            if (hedgeDelay < 0) {
+                return primary;
+            }
+            hedgeDelay = Math.max(hedgeDelay, routingConfiguration.getHedgeMinDelay().toNanos());
+            Flowable<T> hedge = attempt(ranked, 1, read, start).delaySubscription(hedgeDelay, TimeUnit.NANOSECONDS);
+            return Flowable.ambArray(primary, hedge);
+        });
+    }
+
+    /**
+     * Reads from the endpoint at the given rank, failing over to the next endpoint unless a part of the response
+     * was already emitted.
+     */
+    private <T> Flowable<T> attempt(List<VaultEndpoint> ranked, int rank, Function<RxStreamingHttpClient, Flowable<T>> read,
+                                    long start) {
+        VaultEndpoint endpoint = ranked.get(rank);
+        if (rank + 1 == ranked.size()) {
+            return endpoint.read(read, start);
+        }
+        return Flowable.defer(() -> {
+            AtomicBoolean emitted = new AtomicBoolean();
+            return endpoint.read(read, start)
+                    .doOnNext(item -> emitted.set(true))
+                    .onErrorResumeNext(throwable -> {
+                        if (emitted.get() || !isFailover(throwable)) {
+                            return Flowable.error(throwable);
+                        }
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("Vault endpoint [{}] failed, failing over: {}", endpoint.uri, throwable.getMessage());
+                        }
+                        return attempt(ranked, rank + 1, read, start);
+                    });
+        });
+    }
+
+    /**
+     * @return The healthy endpoints by increasing latency, then the unhealthy ones by increasing demotion time
+     */
+    private List<VaultEndpoint> rank() {
+        long now = System.nanoTime();
+        List<VaultEndpoint> ranked = new ArrayList<>(endpoints);
+        ranked.sort(Comparator
+                .comparing((VaultEndpoint endpoint) -> !endpoint.isHealthy(now))
+                .thenComparingDouble(endpoint -> endpoint.isHealthy(now) ? endpoint.latency : endpoint.unhealthyUntil));
+        return ranked;
+    }
+
+    private MutableHttpRequest<?> request(String path, String token) {
+        MutableHttpRequest<?> request = HttpRequest.GET(path).header(VAULT_TOKEN_HEADER, token);
+        String currentIndex = index;
+        if (routingConfiguration.isConsistentReads() && currentIndex != null) {
+            request.header(VAULT_INDEX_HEADER, currentIndex)
+                    .header(VAULT_INCONSISTENT_HEADER, routingConfiguration.getInconsistentMode().getHeaderValue());
+        }
+        return request;
+    }
+
+    private void invalidateRejected(String token, Throwable throwable) {
+        if (VaultTokenClientFilter.isForbidden(throwable) && !token.isEmpty()) {
+            tokenSupplier.get().invalidate(token);
+        }
+    }
+
+    private void updateIndex(HttpResponse<?> response) {
+        String responseIndex = response.getHeaders().get(VAULT_INDEX_HEADER);
+        if (responseIndex != null) {
+            index = responseIndex;
+        }
+    }
+
+    /**
+     * @return Whether the failure is specific to the endpoint, so that another endpoint may succeed
+     */
+    private static boolean isFailover(Throwable throwable) {
+        if (throwable instanceof HttpClientResponseException) {
+            int status = ((HttpClientResponseException) throwable).getStatus().getCode();
+            return status >= 500 || status == 412 || status == 429;
+        }
+        return throwable instanceof HttpClientException || throwable instanceof IOException;
+    }
+
+    private static URL toUrl(String uri) {
+        try {
+            return new URL(uri);
+        } catch (MalformedURLException e) {
+            throw new ConfigurationException("Invalid Vault endpoint [" + uri + "]: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * A Vault endpoint, its http client and its recent latency.
+     */
+    private final class VaultEndpoint {
+
+        private final String uri;
+        private final URL url;
+        private final long[] samples;
+        private RxStreamingHttpClient client;
+        private long sampleCount;
+        private volatile double latency;
+        private volatile long unhealthyUntil = Long.MIN_VALUE;
+
+        VaultEndpoint(String uri, URL url, int window) {
+            this.uri = uri;
+            this.url = url;
+            this.samples = new long[Math.max(1, window)];
+        }
+
+        /**
+         * Reads from the endpoint, recording the time to the first part of the response as a latency sample. A read
+         * cancelled before it responded, e.g. a hedged read that lost, took at least as long as the read that won,
+         * so its sample is the time since the start of the first attempt rather than its own shorter time.
+         *
+         * @param read       The read
+         * @param routeStart The start of the first attempt of the read
+         */
+        <T> Flowable<T> read(Function<RxStreamingHttpClient, Flowable<T>> read, long routeStart) {
+            return Flowable.defer(() -> {
+                long start = System.nanoTime();
+                AtomicBoolean recorded = new AtomicBoolean();
+                return read.apply(client())
+                        .doOnNext(item -> record(recorded, start))
+                        .doOnComplete(() -> record(recorded, start))
+                        .doOnCancel(() -> record(recorded, Math.min(start, routeStart)))
+                        .doOnError(throwable -> {
+                            if (isFailover(throwable)) {
+                                unhealthyUntil = System.nanoTime() + routingConfiguration.getUnhealthyDelay().toNanos();
+                            } else {
+                                record(recorded, start);
+                            }
+                        });
+            });
+        }
+
+        private void record(AtomicBoolean recorded, long since) {
+            if (recorded.compareAndSet(false, true)) {
+                recordLatency(System.nanoTime() - since);
+            }
+        }
+
+        /**
+         * The http client is created on the first read, the http client filters may depend on the beans reading
+         * through this router.
+         */
+        synchronized RxStreamingHttpClient client() {
+            if (client == null) {
+                client = (RxStreamingHttpClient) beanContext.createBean(HttpClient.class, LoadBalancer.fixed(url), vaultClientConfiguration, null);
+            }
+            return client;
+        }
+
+        synchronized void close() {
+            if (client != null) {
+                client.close();
+            }
+        }
+
+        boolean isHealthy(long now) {
+            return unhealthyUntil == Long.MIN_VALUE || now - unhealthyUntil >= 0;
+        }
+
+        synchronized void recordLatency(long nanos) {
+            samples[(int) (sampleCount++ % samples.length)] = nanos;
+            latency = sampleCount == 1 ? nanos : latency + EWMA_WEIGHT * (nanos - latency);
+        }
+
+        /**
+         * @return The latency at the percentile over the recent reads in nanoseconds, or -1 without reads yet
+         */
+        synchronized long percentile(double percentile) {
+            int count = (int) Math.min(sampleCount, samples.length);
+            if (count == 0) {
+                return -1;
+            }
+            long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+            int rank = (int) Math.ceil(percentile / 100 * count) - 1;
+            return sorted[Math.max(0, Math.min(rank, count - 1))];
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.websocket.WebSocketSession;
+import io.micronaut.websocket.annotation.ClientWebSocket;
+import io.micronaut.websocket.annotation.OnClose;
+import io.micronaut.websocket.annotation.OnError;
+import io.micronaut.websocket.annotation.OnMessage;
+import io.micronaut.websocket.annotation.OnOpen;
+import io.netty.buffer.ByteBuf;
+import io.reactivex.Flowable;
+import io.reactivex.processors.UnicastProcessor;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ *  A WebSocket session subscribed to the event notifications of Vault. The events received are buffered until
+ *  the {@link VaultEventSubscriber} subscribes to them, and the stream completes when the session closes.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@ClientWebSocket
+public abstract class VaultEventStream implements AutoCloseable {
+
+    private final UnicastProcessor<String> events = UnicastProcessor.create();
+    private volatile WebSocketSession session;
+
+    /**
+     * @param session The WebSocket session
+     */
+    @OnOpen
+    public void onOpen(WebSocketSession session) {
+        this.session = session;
+    }
+
+    /**
+     * @param event The content of the frame of the event, released by the client once handled
+     */
+    @OnMessage
+    public void onMessage(ByteBuf event) {
+        events.onNext(event.toString(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Completes the stream when the session closes.
+     */
+    @OnClose
+    public void onClose() {
+        if (!events.hasComplete() && !events.hasThrowable()) {
+            events.onComplete();
+        }
+    }
+
+    /**
+     * @param throwable The error of the session
+     */
+    @OnError
+    public void onError(Throwable throwable) {
+        if (!events.hasComplete() && !events.hasThrowable()) {
+            events.onError(throwable);
+        }
+    }
+
+    /**
+     * @return The events received, as JSON
+     */
+    public Flowable<String> getEvents() {
+        return events;
+    }
+
+    @Override
+    public void close() {
+        WebSocketSession currentSession = session;
+        if (currentSession != null) {
+            currentSession.close();
+        }
+    }
+}
@@ -0,0 +1,387 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.BeanContext;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientEventsConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+import io.micronaut.discovery.vault.config.auth.VaultTokenSupplier;
+import io.micronaut.http.HttpRequest;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.HttpClient;
+import io.micronaut.http.client.LoadBalancer;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import io.micronaut.websocket.RxWebSocketClient;
+import io.reactivex.Flowable;
+import io.reactivex.disposables.Disposable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.annotation.PreDestroy;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ *  Subscribes to the KV event notifications of Vault and reads again only the vault key of a write event,
+ *  when it is one of the keys of the application, applying it through the {@link VaultPropertySourceUpdater}.
+ *  The events of the additional KV mounts of {@link VaultSecretEngines} read the vault key again from that mount.
+ *  While the event stream is down, every vault key is polled at the fallback interval until the subscription
+ *  is back, after which every vault key is read once more to catch up with the events missed.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@Requires(property = VaultClientEventsConfiguration.PREFIX + ".enabled", value = "true")
+public class VaultEventSubscriber implements ApplicationEventListener<StartupEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultEventSubscriber.class);
+    private static final String VAULT_TOKEN_HEADER = "X-Vault-Token";
+
+    private final BeanContext beanContext;
+    private final VaultConfigHttpClient<?> configHttpClient;
+    private final VaultClientConfiguration vaultClientConfiguration;
+    private final VaultClientEventsConfiguration eventsConfiguration;
+    private final VaultConfigurationClient configurationClient;
+    private final VaultPropertySourceUpdater propertySourceUpdater;
+    private final TaskScheduler taskScheduler;
+    private final VaultTokenSupplier tokenSupplier;
+    private final VaultConfigReadCoalescer readCoalescer;
+    private final VaultMissingKeyCache missingKeyCache;
+    private final ObjectMapper objectMapper;
+    private final VaultSecretEngines secretEngines;
+
+    private RxWebSocketClient webSocketClient;
+    private Disposable subscription;
+    private VaultEventStream stream;
+    private ScheduledFuture<?> fallback;
+    private Duration reconnectDelay;
+    private boolean missedEvents;
+    private boolean closed;
+
+    /**
+     * @param beanContext              The bean context
+     * @param configHttpClient         The http client
+     * @param vaultClientConfiguration Vault Client Configuration
+     * @param configurationClient      The Vault configuration client
+     * @param propertySourceUpdater    The property source updater
+     * @param taskScheduler            The task scheduler
+     * @param tokenSupplier            The Vault token supplier
+     * @param readCoalescer            The read coalescer
+     * @param missingKeyCache          The cache of the missing vault keys
+     * @param objectMapper             The object mapper
+     * @param secretEngines            The additional KV mounts, if any
+     */
+    public VaultEventSubscriber(BeanContext beanContext,
+                                VaultConfigHttpClient<?> configHttpClient,
+                                VaultClientConfiguration vaultClientConfiguration,
+                                VaultConfigurationClient configurationClient,
+                                VaultPropertySourceUpdater propertySourceUpdater,
+                                @Named(TaskExecutors.SCHEDULED) TaskScheduler taskScheduler,
+                                VaultTokenSupplier tokenSupplier,
+                                VaultConfigReadCoalescer readCoalescer,
+                                VaultMissingKeyCache missingKeyCache,
+                                ObjectMapper objectMapper,
+                                @Nullable VaultSecretEngines secretEngines) {
+        this.beanContext = beanContext;
+        this.configHttpClient = configHttpClient;
+        this.vaultClientConfiguration = vaultClientConfiguration;
+        this.eventsConfiguration = vaultClientConfiguration.getEventsConfiguration();
+        this.configurationClient = configurationClient;
+        this.propertySourceUpdater = propertySourceUpdater;
+        this.taskScheduler = taskScheduler;
+        this.tokenSupplier = tokenSupplier;
+        this.readCoalescer = readCoalescer;
+        this.missingKeyCache = missingKeyCache;
+        this.objectMapper = objectMapper;
+        this.secretEngines = secretEngines;
+        this.reconnectDelay = eventsConfiguration.getReconnectDelay();
+    }
+
+    /**
+     * Subscribes to the event notifications once the application is started.
+     *
+     * @param event The startup event
+     */
+    @Override
+    public void onApplicationEvent(StartupEvent event) {
+        subscribe();
+    }
+
+    /**
+     * @return Whether the event stream is currently up
+     */
+    public synchronized boolean isSubscribed() {
+        return stream != null;
+    }
+
+    /**
+     * Closes the event stream and stops polling.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        closed = true;
+        if (subscription != null) {
+            subscription.dispose();
+        }
+        if (stream != null) {
+            stream.close();
+        }
+        stopFallback();
+        if (webSocketClient != null) {
+            webSocketClient.close();
+        }
+    }
+
+    private synchronized void subscribe() {
+        if (closed) {
+            return;
+        }
+        if (webSocketClient == null) {
+            webSocketClient = createWebSocketClient();
+        }
+        String eventType;
+        if (secretEngines != null && !secretEngines.getEngines().isEmpty()) {
+            // the mounts may not all have the KV version of the secret engine
+            eventType = "kv*";
+        } else {
+            eventType = vaultClientConfiguration.getKvVersion() == VaultKvVersion.V1 ? "kv-v1/*" : "kv-v2/*";
+        }
+        subscription = Flowable.fromPublisher(tokenSupplier.getToken())
+                .firstOrError()
+                .flatMapPublisher(token -> webSocketClient.connect(VaultEventStream.class,
+                        HttpRequest.GET("/v1/sys/events/subscribe/" + eventType + "?json=true").header(VAULT_TOKEN_HEADER, token)))
+                .switchMap(eventStream -> {
+                    onSubscribed(eventStream);
+                    return eventStream.getEvents();
+                })
+                .subscribe(this::onEvent, this::onDropped, () -> onDropped(null));
+    }
+
+    /**
+     * The WebSocket client is owned by the subscriber, the clients injected with {@code @Client} are closed on
+     * every refresh of the configuration, which is what the events trigger.
+     */
+    private RxWebSocketClient createWebSocketClient() {
+        URL url;
+        try {
+            url = new URL(vaultClientConfiguration.getUri());
+        } catch (MalformedURLException e) {
+            throw new ConfigurationException("Invalid Vault uri [" + vaultClientConfiguration.getUri() + "]: " + e.getMessage(), e);
+        }
+        return (RxWebSocketClient) beanContext.createBean(HttpClient.class, LoadBalancer.fixed(url), vaultClientConfiguration, null);
+    }
+
+    private synchronized void onSubscribed(VaultEventStream eventStream) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Subscribed to the event notifications of Vault");
+        }
+        stream = eventStream;
+        reconnectDelay = eventsConfiguration.getReconnectDelay();
+        stopFallback();
+        if (missedEvents) {
+            missedEvents = false;
+            poll();
+        }
+    }
+
+    private synchronized void onDropped(Throwable throwable) {
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+        if (closed) {
+            return;
+        }
+        LOG.warn("The event notifications of Vault are down, polling every {} until they are back: {}",
+                eventsConfiguration.getFallbackInterval(), throwable == null ? "stream closed" : throwable.getMessage());
+        missedEvents = true;
+        if (fallback == null) {
+            Duration interval = eventsConfiguration.getFallbackInterval();
+            fallback = taskScheduler.scheduleWithFixedDelay(interval, interval, this::poll);
+        }
+        taskScheduler.schedule(reconnectDelay, this::subscribe);
+        Duration nextDelay = reconnectDelay.multipliedBy(2);
+        reconnectDelay = nextDelay.compareTo(eventsConfiguration.getMaxReconnectDelay()) > 0
+                ? eventsConfiguration.getMaxReconnectDelay() : nextDelay;
+    }
+
+    private void stopFallback() {
+        if (fallback != null) {
+            fallback.cancel(false);
+            fallback = null;
+        }
+    }
+
+    /**
+     * Reads the vault key of a write event again, from the secret engine or the KV mount written, when it is one
+     * of the keys of the application.
+     */
+    private void onEvent(String event) {
+        JsonNode node;
+        try {
+            node = objectMapper.readTree(event);
+        } catch (IOException e) {
+            LOG.warn("Unable to read the Vault event: {}", e.getMessage());
+            return;
+        }
+        String path = node.path("data").path("event").path("metadata").path("path").asText(null);
+        if (path == null) {
+            return;
+        }
+        String eventType = node.path("data").path("event_type").asText("");
+        Map<Integer, String> vaultKeys = configurationClient.getVaultKeys();
+
+        String engine = vaultClientConfiguration.getSecretEngineName();
+        String vaultKey = vaultKey(path, eventType, engine);
+        if (vaultKey != null) {
+            missingKeyCache.invalidate(engine, vaultKey);
+            vaultKeys.forEach((order, key) -> {
+                if (key.equals(vaultKey)) {
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Vault key [{}] written, reading it again", vaultKey);
+                    }
+                    update(read(order, vaultKey));
+                }
+            });
+        }
+        if (secretEngines != null) {
+            for (VaultSecretEngineConfiguration secretEngine : secretEngines.getEngines()) {
+                String engineKey = vaultKey(path, eventType, secretEngine.getPath());
+                if (engineKey == null) {
+                    continue;
+                }
+                missingKeyCache.invalidate(secretEngine.getPath(), engineKey);
+                vaultKeys.forEach((order, key) -> {
+                    if (key.equals(engineKey)) {
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("Vault key [{}] written to [{}], reading it again", engineKey, secretEngine.getPath());
+                        }
+                        update(read(secretEngine, order, engineKey));
+                    }
+                });
+            }
+        }
+    }
+
+    private void update(Flowable<PropertySource> propertySource) {
+        propertySource.subscribe(read -> propertySourceUpdater.update(Collections.singletonList(read)));
+    }
+
+    /**
+     * Reads every vault key of the application again, from the secret engine and every KV mount.
+     */
+    private void poll() {
+        Map<Integer, String> vaultKeys = configurationClient.getVaultKeys();
+        Flowable.fromIterable(vaultKeys.entrySet())
+                .flatMap(entry -> {
+                    Flowable<PropertySource> propertySources = read(entry.getKey(), entry.getValue());
+                    if (secretEngines != null) {
+                        for (VaultSecretEngineConfiguration secretEngine : secretEngines.getEngines()) {
+                            propertySources = propertySources.mergeWith(read(secretEngine, entry.getKey(), entry.getValue()));
+                        }
+                    }
+                    return propertySources;
+                })
+                .toList()
+                .subscribe(propertySources -> {
+                    if (!propertySources.isEmpty()) {
+                        propertySourceUpdater.update(propertySources);
+                    }
+                }, throwable -> LOG.warn("Error polling Vault for changes: {}", throwable.getMessage()));
+    }
+
+    /**
+     * Reads a vault key from the secret engine, a deleted secret giving an empty property source.
+     */
+    private Flowable<PropertySource> read(int order, String vaultKey) {
+        String engine = vaultClientConfiguration.getSecretEngineName();
+        return recover(vaultKey, order, vaultKey, Flowable.fromPublisher(tokenSupplier.getToken())
+                .flatMap(token -> readCoalescer.read(configHttpClient, token, engine, vaultKey))
+                .map(response -> PropertySource.of(vaultKey, secrets(response), order)));
+    }
+
+    /**
+     * Reads a vault key from a KV mount, a deleted secret giving an empty property source.
+     */
+    private Flowable<PropertySource> read(VaultSecretEngineConfiguration secretEngine, int order, String vaultKey) {
+        String name = VaultSecretEngines.getPropertySourceName(secretEngine, vaultKey);
+        int engineOrder = order + secretEngine.getOrderOffset();
+        return recover(name, engineOrder, vaultKey, Flowable.fromPublisher(tokenSupplier.getToken())
+                .flatMap(token -> secretEngines.read(token, secretEngine, vaultKey))
+                .map(secrets -> PropertySource.of(name, secrets, engineOrder)));
+    }
+
+    private static Map<String, Object> secrets(AbstractVaultResponse<?> response) {
+        return response.getSecrets();
+    }
+
+    /**
+     * @return The property source read, an empty one if the vault key was not found, or nothing on an error
+     */
+    private Flowable<PropertySource> recover(String name, int order, String vaultKey, Flowable<PropertySource> propertySource) {
+        return propertySource
+                .onErrorResumeNext(throwable -> {
+                    if (throwable instanceof HttpClientResponseException
+                            && ((HttpClientResponseException) throwable).getStatus() == HttpStatus.NOT_FOUND) {
+                        return Flowable.just(PropertySource.of(name, Collections.emptyMap(), order));
+                    }
+                    LOG.warn("Error reading vault key [{}] again: {}", vaultKey, throwable.getMessage());
+                    return Flowable.empty();
+                });
+    }
+
+    /**
+     * @param path      The path of the secret written
+     * @param eventType The event type, which holds the KV version of the mount written
+     * @param mount     The path of the secret engine or of the KV mount
+     * @return The vault key of the event, or null if the event is not about the mount
+     */
+    private String vaultKey(String path, String eventType, String mount) {
+        String prefix = mount + "/";
+        if (!path.startsWith(prefix)) {
+            return null;
+        }
+        path = path.substring(prefix.length());
+        boolean v2 = eventType.isEmpty()
+                ? vaultClientConfiguration.getKvVersion() == VaultKvVersion.V2
+                : eventType.startsWith("kv-v2/");
+        if (v2) {
+            // data/, delete/, undelete/, destroy/ or metadata/ followed by the vault key
+            int separator = path.indexOf('/');
+            return separator < 0 ? null : path.substring(separator + 1);
+        }
+        return path;
+    }
+}
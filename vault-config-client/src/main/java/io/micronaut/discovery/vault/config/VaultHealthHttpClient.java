@@ -0,0 +1,49 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.http.annotation.Consumes;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Produces;
+import io.micronaut.http.client.annotation.Client;
+import org.reactivestreams.Publisher;
+
+import java.util.Map;
+
+/**
+ *  A non-blocking HTTP client for the Vault health endpoint, which needs no token. It shares the connection pool
+ *  of the other Vault clients.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Client(value = VaultClientConfiguration.VAULT_CLIENT_CONFIG_ENDPOINT, configuration = VaultClientConfiguration.class)
+@BootstrapContextCompatible
+public interface VaultHealthHttpClient {
+
+    /**
+     * Reads the health of Vault, answered with a 200 whether the node is active, a standby, sealed or not
+     * initialized.
+     *
+     * @return A {@link Publisher} that emits the health status
+     */
+    @Get("/v1/sys/health?standbyok=true&perfstandbyok=true&sealedcode=200&uninitcode=200")
+    @Produces(single = true)
+    @Consumes(single = true)
+    Publisher<Map<String, Object>> readHealth();
+}
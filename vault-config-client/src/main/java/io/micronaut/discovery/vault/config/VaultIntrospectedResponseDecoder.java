@@ -0,0 +1,156 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.core.beans.BeanIntrospection;
+import io.micronaut.core.beans.BeanIntrospector;
+import io.micronaut.core.convert.ConversionService;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.core.naming.NameUtils;
+import io.micronaut.core.type.Argument;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientDiscoveryConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+import io.micronaut.discovery.vault.config.v1.VaultResponseV1;
+import io.micronaut.discovery.vault.config.v2.VaultResponseV2;
+import io.micronaut.retry.annotation.Retryable;
+import io.netty.util.ReferenceCountUtil;
+import io.reactivex.Flowable;
+import org.reactivestreams.Publisher;
+
+import javax.inject.Singleton;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ *  Decodes Vault responses with the bean introspections generated at compile time for the {@link io.micronaut.core.annotation.Introspected}
+ *  response types, instead of binding them with Jackson. The body is read as plain maps and lists, and the
+ *  response is created with its introspected constructor, whose arguments are matched to the snake case fields
+ *  of the body. Neither needs reflection, e.g. on a native image.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@BootstrapContextCompatible
+public class VaultIntrospectedResponseDecoder {
+
+    private final ObjectMapper objectMapper;
+    private final VaultClientConfiguration vaultClientConfiguration;
+
+    /**
+     * @param objectMapper             The object mapper
+     * @param vaultClientConfiguration Vault Client Configuration
+     */
+    public VaultIntrospectedResponseDecoder(ObjectMapper objectMapper, VaultClientConfiguration vaultClientConfiguration) {
+        this.objectMapper = objectMapper;
+        this.vaultClientConfiguration = vaultClientConfiguration;
+    }
+
+    /**
+     * Decodes the response body chunks of a read of a vault key of the secret engine, with its KV version.
+     * The read is retried by {@link #decode(Publisher, VaultKvVersion)} only, so that the retries are not nested.
+     *
+     * @param body The response body chunks
+     * @return A flowable of the response
+     */
+    public Flowable<AbstractVaultResponse<?>> decode(Publisher<ByteBuffer<?>> body) {
+        return decode(body, vaultClientConfiguration.getKvVersion());
+    }
+
+    /**
+     * Decodes the response body chunks of a read of a vault key into the response type of the KV version.
+     * Every chunk is released once copied. Every subscription reads the body again from the start, so a failed
+     * read is retried as a whole, unless the vault key was not found.
+     *
+     * @param body      The response body chunks
+     * @param kvVersion The KV version of the secret engine read
+     * @return A flowable of the response
+     */
+    @Retryable(
+            attempts = "${" + VaultClientDiscoveryConfiguration.PREFIX + ".retry-count:3}",
+            delay = "${" + VaultClientDiscoveryConfiguration.PREFIX + ".retry-delay:1s}",
+            excludes = VaultKeyNotFoundException.class
+    )
+    public Flowable<AbstractVaultResponse<?>> decode(Publisher<ByteBuffer<?>> body, VaultKvVersion kvVersion) {
+        Class<? extends AbstractVaultResponse<?>> responseType = kvVersion == VaultKvVersion.V1
+                ? VaultResponseV1.class : VaultResponseV2.class;
+        return Flowable.fromPublisher(body)
+                .onErrorResumeNext((Throwable throwable) -> Flowable.error(VaultKeyNotFoundException.of(throwable)))
+                .collect(ByteArrayOutputStream::new, (out, chunk) -> {
+                    try {
+                        byte[] bytes = chunk.toByteArray();
+                        out.write(bytes, 0, bytes.length);
+                    } finally {
+                        ReferenceCountUtil.safeRelease(chunk.asNativeBuffer());
+                    }
+                })
+                .<AbstractVaultResponse<?>>map(out -> decode(out.toByteArray(), responseType))
+                .toFlowable();
+    }
+
+    /**
+     * Decodes a response body.
+     *
+     * @param body The response body
+     * @param type The response type, which must be introspected
+     * @param <T>  The response type
+     * @return The response
+     * @throws IOException If the body is not a JSON object
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T decode(byte[] body, Class<T> type) throws IOException {
+        Map<String, Object> fields = objectMapper.readValue(body, Map.class);
+        return instantiate(BeanIntrospector.SHARED.getIntrospection(type), fields);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T instantiate(BeanIntrospection<T> introspection, Map<String, Object> fields) {
+        Argument<?>[] arguments = introspection.getConstructorArguments();
+        Object[] values = new Object[arguments.length];
+        for (int i = 0; i < arguments.length; i++) {
+            Argument<?> argument = arguments[i];
+            Object value = fields.get(NameUtils.hyphenate(argument.getName()).replace('-', '_'));
+            if (value instanceof Map) {
+                Optional<? extends BeanIntrospection<?>> nested = BeanIntrospector.SHARED.findIntrospection(argument.getType());
+                if (nested.isPresent()) {
+                    value = instantiate(nested.get(), (Map<String, Object>) value);
+                }
+            }
+            values[i] = convert(value, argument);
+        }
+        return introspection.instantiate(values);
+    }
+
+    private Object convert(Object value, Argument<?> argument) {
+        Class<?> type = argument.getType();
+        if (value == null) {
+            if (type == boolean.class) {
+                return Boolean.FALSE;
+            }
+            return type.isPrimitive() ? ConversionService.SHARED.convert(0, type).orElse(null) : null;
+        }
+        if (type.isInstance(value)) {
+            return value;
+        }
+        return ConversionService.SHARED.convert(value, argument).orElseThrow(() -> new IllegalArgumentException(
+                "Unable to convert the Vault response field [" + argument.getName() + "] to " + type.getSimpleName()));
+    }
+}
@@ -0,0 +1,52 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+
+/**
+ *  A streamed read of a vault key not found in Vault. The decoders do not retry it, a vault key not found staying
+ *  so, and it is still handled as any other response with the {@code 404} status.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultKeyNotFoundException extends HttpClientResponseException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param cause The response exception with the {@code 404} status
+     */
+    public VaultKeyNotFoundException(HttpClientResponseException cause) {
+        super(cause.getMessage(), cause, cause.getResponse());
+    }
+
+    /**
+     * @param throwable The error of a streamed read
+     * @return A {@link VaultKeyNotFoundException} for a response with the {@code 404} status, the error otherwise
+     */
+    static Throwable of(Throwable throwable) {
+        if (throwable instanceof HttpClientResponseException && !(throwable instanceof VaultKeyNotFoundException)
+                && ((HttpClientResponseException) throwable).getStatus() == HttpStatus.NOT_FOUND) {
+            return new VaultKeyNotFoundException((HttpClientResponseException) throwable);
+        }
+        return throwable;
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.Introspected;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *  Vault List Response Envelope, the keys directly under a path of a secret engine. The keys ending with a slash
+ *  are paths with keys of their own.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Immutable
+@Introspected
+public class VaultKeysResponse extends AbstractVaultResponse<Map<String, Object>> {
+
+    /**
+     * Constructor for VaultKeysResponse.
+     *
+     * @param data The data object
+     * @param leaseDuration The token lease duration
+     * @param leaseId The token lease id
+     * @param requestId The vault request id
+     * @param wrapInfo The wrap info object
+     * @param renewable The flag indicating the vault token is renewable
+     * @param warnings The list of warnings
+     */
+    @JsonCreator
+    @Internal
+    public VaultKeysResponse(
+            @JsonProperty("data") @Nullable final Map<String, Object> data,
+            @JsonProperty("lease_duration") @Nullable final Long leaseDuration,
+            @JsonProperty("lease_id") @Nullable final String leaseId,
+            @JsonProperty("request_id") @Nullable final String requestId,
+            @JsonProperty("wrap_info") @Nullable final Map<String, String> wrapInfo,
+            @JsonProperty("renewable") final boolean renewable,
+            @JsonProperty("warnings") @Nullable final List<String> warnings) {
+
+        super(data == null ? Collections.emptyMap() : Collections.unmodifiableMap(data),
+                leaseDuration, leaseId, requestId, wrapInfo, renewable, warnings);
+    }
+
+    @Override
+    public Map<String, Object> getSecrets() {
+        return this.data;
+    }
+
+    /**
+     * @return The keys under the path listed
+     */
+    @JsonIgnore
+    public List<String> getKeys() {
+        Object keys = this.data.get("keys");
+        if (!(keys instanceof List)) {
+            return Collections.emptyList();
+        }
+        List<String> names = new ArrayList<>();
+        for (Object key : (List<?>) keys) {
+            names.add(String.valueOf(key));
+        }
+        return names;
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.env.PropertySource;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ *  A {@link PropertySource} without properties carrying the {@link VaultSecretMetadata} of the vault keys read
+ *  at startup. The startup reads happen in the bootstrap context, whose beans are not the beans of the
+ *  application context, and the property sources are the only state both contexts share. It is only added when
+ *  the lease driven refresh or the background refresh, which read the metadata, is enabled.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultMetadataPropertySource implements PropertySource {
+
+    /**
+     * The name of the property source.
+     */
+    public static final String NAME = "vault-metadata";
+
+    private final Map<String, VaultSecretMetadata> metadata;
+
+    /**
+     * @param metadata The metadata by vault key
+     */
+    public VaultMetadataPropertySource(Map<String, VaultSecretMetadata> metadata) {
+        this.metadata = Collections.unmodifiableMap(metadata);
+    }
+
+    /**
+     * @param environment The environment
+     * @param vaultKey    The vault key
+     * @return The metadata of the vault key read at startup, if any
+     */
+    public static Optional<VaultSecretMetadata> find(Environment environment, String vaultKey) {
+        for (PropertySource propertySource : environment.getPropertySources()) {
+            if (propertySource instanceof VaultMetadataPropertySource) {
+                return Optional.ofNullable(((VaultMetadataPropertySource) propertySource).metadata.get(vaultKey));
+            }
+        }
+        return Optional.empty();
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Object get(String key) {
+        return null;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return Collections.emptyIterator();
+    }
+
+    @Override
+    public String toString() {
+        return NAME;
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+
+import javax.annotation.Nonnull;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ *  Remembers the vault keys found missing in Vault, by a read or a list, for the missing key time to live, so that
+ *  they are not read again in the meantime. Nothing is remembered when the time to live is zero.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@BootstrapContextCompatible
+public class VaultMissingKeyCache {
+
+    private final Map<List<String>, Long> missingKeys = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    /**
+     * @param vaultClientConfiguration Vault Client Configuration
+     */
+    public VaultMissingKeyCache(VaultClientConfiguration vaultClientConfiguration) {
+        Duration ttl = vaultClientConfiguration.getReadConfiguration().getMissingKeyTtl();
+        this.ttlNanos = ttl == null || ttl.isNegative() ? 0 : ttl.toNanos();
+    }
+
+    /**
+     * @param backend  The secret engine name
+     * @param vaultKey The vault key
+     * @return Whether the vault key was found missing less than the time to live ago
+     */
+    public boolean isMissing(@Nonnull String backend, @Nonnull String vaultKey) {
+        List<String> key = Arrays.asList(backend, vaultKey);
+        Long expiry = missingKeys.get(key);
+        if (expiry == null) {
+            return false;
+        }
+        if (System.nanoTime() - expiry >= 0) {
+            missingKeys.remove(key, expiry);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * @param backend  The secret engine name
+     * @param vaultKey The vault key found missing
+     */
+    public void missing(@Nonnull String backend, @Nonnull String vaultKey) {
+        if (ttlNanos > 0) {
+            missingKeys.put(Arrays.asList(backend, vaultKey), System.nanoTime() + ttlNanos);
+        }
+    }
+
+    /**
+     * Forgets a vault key found missing, e.g. when it is written.
+     *
+     * @param backend  The secret engine name
+     * @param vaultKey The vault key
+     */
+    public void invalidate(@Nonnull String backend, @Nonnull String vaultKey) {
+        missingKeys.remove(Arrays.asList(backend, vaultKey));
+    }
+}
@@ -0,0 +1,171 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.env.PropertySource;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ *  A {@link PropertySource} keeping the string values of another property source UTF-8 encoded in a single
+ *  direct {@link ByteBuffer}, the properties being {@link VaultOffHeapSecret} handles to their slice of the
+ *  buffer. Any other value is kept as is. Once wiped the buffer is filled with zeros and released, and the
+ *  values can no longer be read.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultOffHeapPropertySource implements PropertySource {
+
+    private final String name;
+    private final int order;
+    private final Map<String, Object> properties;
+    private final int size;
+    private volatile ByteBuffer buffer;
+
+    /**
+     * Copies the string values of the property source to a new off-heap buffer.
+     *
+     * @param propertySource The property source
+     */
+    public VaultOffHeapPropertySource(PropertySource propertySource) {
+        this.name = propertySource.getName();
+        this.order = propertySource.getOrder();
+
+        int bytes = 0;
+        for (String key : propertySource) {
+            Object value = propertySource.get(key);
+            if (value instanceof CharSequence) {
+                bytes += encodedLength((CharSequence) value);
+            }
+        }
+        this.size = bytes;
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(bytes);
+        CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        Map<String, Object> properties = new LinkedHashMap<>();
+        for (String key : propertySource) {
+            Object value = propertySource.get(key);
+            if (value instanceof CharSequence) {
+                int offset = buffer.position();
+                encoder.reset().encode(CharBuffer.wrap((CharSequence) value), buffer, true);
+                encoder.flush(buffer);
+                ByteBuffer encoded = buffer.duplicate();
+                encoded.limit(buffer.position()).position(offset);
+                value = new VaultOffHeapSecret(this, offset, buffer.position() - offset,
+                        ((CharSequence) value).length(), encoded.hashCode());
+            }
+            properties.put(key, value);
+        }
+        this.properties = Collections.unmodifiableMap(properties);
+        this.buffer = buffer;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getOrder() {
+        return order;
+    }
+
+    @Override
+    public Object get(String key) {
+        return properties.get(key);
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return properties.keySet().iterator();
+    }
+
+    /**
+     * @return The size of the off-heap buffer in bytes
+     */
+    public int getSize() {
+        return size;
+    }
+
+    /**
+     * @return Whether the values were wiped
+     */
+    public boolean isWiped() {
+        return buffer == null;
+    }
+
+    /**
+     * Fills the off-heap buffer with zeros and releases it.
+     */
+    public synchronized void wipe() {
+        ByteBuffer buffer = this.buffer;
+        if (buffer != null) {
+            this.buffer = null;
+            for (int i = 0; i < buffer.capacity(); i++) {
+                buffer.put(i, (byte) 0);
+            }
+        }
+    }
+
+    /**
+     * @param offset The offset of a value
+     * @param length The length of the value in bytes
+     * @return A read-only view of the value
+     */
+    ByteBuffer read(int offset, int length) {
+        ByteBuffer buffer = this.buffer;
+        if (buffer == null) {
+            throw new IllegalStateException("The secrets of property source [" + name + "] were wiped");
+        }
+        ByteBuffer value = buffer.asReadOnlyBuffer();
+        value.limit(offset + length).position(offset);
+        return value;
+    }
+
+    /**
+     * @param value A string value
+     * @return The length of the value encoded in UTF-8, an unpaired surrogate being replaced by a single byte
+     */
+    private static int encodedLength(CharSequence value) {
+        int length = 0;
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else {
+                length += Character.isSurrogate(c) ? 1 : 3;
+            }
+        }
+        return length;
+    }
+}
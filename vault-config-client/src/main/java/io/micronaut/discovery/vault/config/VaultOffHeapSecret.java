@@ -0,0 +1,159 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ *  A secret value kept UTF-8 encoded in the off-heap buffer of a {@link VaultOffHeapPropertySource}, decoded on
+ *  every access. Prefer {@link #toCharArray()} to {@link #toString()} when the caller can wipe the value after use.
+ *  Accessing the value after its property source was wiped throws an {@link IllegalStateException}.
+ *
+ *  <p>Only the value at rest in the environment is kept off-heap. The environment calls {@link #toString()} when
+ *  the property source is added, to look for random value expressions, and on every read of the property, so
+ *  each read still creates a heap {@link String}, as does every bean keeping the value injected. The heap copies
+ *  are left to the garbage collector, wiping the property source does not reach them.</p>
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public final class VaultOffHeapSecret implements CharSequence {
+
+    private final VaultOffHeapPropertySource propertySource;
+    private final int offset;
+    private final int length;
+    private final int charLength;
+    private final int hash;
+
+    /**
+     * @param propertySource The property source holding the buffer
+     * @param offset         The offset of the value in the buffer
+     * @param length         The length of the value in bytes
+     * @param charLength     The length of the decoded value in chars
+     * @param hash           The hash code of the encoded value, kept to stay the same once the value is wiped
+     */
+    VaultOffHeapSecret(VaultOffHeapPropertySource propertySource, int offset, int length, int charLength, int hash) {
+        this.propertySource = propertySource;
+        this.offset = offset;
+        this.length = length;
+        this.charLength = charLength;
+        this.hash = hash;
+    }
+
+    /**
+     * Decodes the value into a new array, which the caller should fill with zeros once done with it.
+     *
+     * @return The decoded value
+     */
+    public char[] toCharArray() {
+        return decode(charLength);
+    }
+
+    /**
+     * @return Whether the value can still be read
+     */
+    public boolean isWiped() {
+        return propertySource.isWiped();
+    }
+
+    @Override
+    public int length() {
+        return charLength;
+    }
+
+    @Override
+    public char charAt(int index) {
+        if (index < 0 || index >= charLength) {
+            throw new StringIndexOutOfBoundsException(index);
+        }
+        char[] value = decode(index + 1);
+        try {
+            return value[index];
+        } finally {
+            Arrays.fill(value, '\0');
+        }
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+        return toString().subSequence(start, end);
+    }
+
+    /**
+     * Decodes the value into a heap {@link String}, which cannot be wiped.
+     *
+     * @return The decoded value
+     */
+    @Override
+    public String toString() {
+        char[] value = toCharArray();
+        try {
+            return new String(value);
+        } finally {
+            Arrays.fill(value, '\0');
+        }
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof VaultOffHeapSecret)) {
+            return false;
+        }
+        VaultOffHeapSecret other = (VaultOffHeapSecret) o;
+        if (length != other.length || hash != other.hash || isWiped() || other.isWiped()) {
+            return false;
+        }
+        return propertySource.read(offset, length).equals(other.propertySource.read(other.offset, other.length));
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Decodes the first chars of the value into a new array, which is filled with zeros by the caller.
+     *
+     * @param chars The number of chars to decode
+     * @return The decoded chars
+     */
+    private char[] decode(int chars) {
+        ByteBuffer bytes = propertySource.read(offset, length);
+        // one more char for a surrogate pair straddling the end
+        CharBuffer buffer = CharBuffer.allocate(Math.min(chars + 1, charLength));
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder();
+        CoderResult result = decoder.decode(bytes, buffer, true);
+        if (result.isUnderflow()) {
+            result = decoder.flush(buffer);
+        }
+        char[] value = Arrays.copyOf(buffer.array(), Math.min(chars, buffer.position()));
+        Arrays.fill(buffer.array(), '\0');
+        if (result.isError() || propertySource.isWiped()) {
+            Arrays.fill(value, '\0');
+            throw new IllegalStateException("The secret of property source [" + propertySource.getName() + "] was wiped");
+        }
+        return value;
+    }
+}
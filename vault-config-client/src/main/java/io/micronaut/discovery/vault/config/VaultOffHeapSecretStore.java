@@ -0,0 +1,103 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientOffHeapConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ *  Keeps the secret values of the Vault property sources off-heap. The {@link VaultPropertySourceUpdater} wipes
+ *  every {@link VaultOffHeapPropertySource} it replaces in the environment, and the ones left in the environment
+ *  are wiped when the store is closed.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@BootstrapContextCompatible
+@Requires(property = VaultClientOffHeapConfiguration.PREFIX + ".enabled", value = "true")
+public class VaultOffHeapSecretStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultOffHeapSecretStore.class);
+
+    private final Environment environment;
+
+    /**
+     * @param environment The environment
+     */
+    public VaultOffHeapSecretStore(Environment environment) {
+        this.environment = environment;
+    }
+
+    /**
+     * Copies the string values of a property source off-heap.
+     *
+     * @param propertySource The property source read from Vault
+     * @return The off-heap property source
+     */
+    public VaultOffHeapPropertySource copy(PropertySource propertySource) {
+        if (propertySource instanceof VaultOffHeapPropertySource) {
+            return (VaultOffHeapPropertySource) propertySource;
+        }
+        VaultOffHeapPropertySource offHeapPropertySource = new VaultOffHeapPropertySource(propertySource);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Property source [{}] kept off-heap in {} bytes", offHeapPropertySource.getName(), offHeapPropertySource.getSize());
+        }
+        return offHeapPropertySource;
+    }
+
+    /**
+     * @return The off-heap size of the property sources of the environment in bytes
+     */
+    public long getSize() {
+        long size = 0;
+        for (VaultOffHeapPropertySource propertySource : getOffHeapPropertySources()) {
+            if (!propertySource.isWiped()) {
+                size += propertySource.getSize();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Wipes the off-heap property sources of the environment.
+     */
+    @PreDestroy
+    public void close() {
+        getOffHeapPropertySources().forEach(VaultOffHeapPropertySource::wipe);
+    }
+
+    private List<VaultOffHeapPropertySource> getOffHeapPropertySources() {
+        List<VaultOffHeapPropertySource> offHeapPropertySources = new ArrayList<>();
+        for (PropertySource propertySource : environment.getPropertySources()) {
+            if (propertySource instanceof VaultOffHeapPropertySource) {
+                offHeapPropertySources.add((VaultOffHeapPropertySource) propertySource);
+            }
+        }
+        return offHeapPropertySources;
+    }
+}
@@ -0,0 +1,245 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.core.order.OrderUtil;
+import io.micronaut.runtime.context.scope.refresh.RefreshEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nullable;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ *  Applies Vault property sources read after startup to the running {@link Environment} and publishes a
+ *  {@link RefreshEvent} for the keys that actually changed. With the off-heap store enabled the property sources
+ *  are copied off-heap and every {@link VaultOffHeapPropertySource} replaced in the environment is wiped, so the
+ *  previous values of the event can no longer be read once it was published.
+ *
+ *  <p>The environment only ever adds properties, so a property removed from Vault is either applied again from
+ *  the property source with the highest precedence still having it or, when there is none, cleared by the
+ *  {@value #REMOVED_NAME} property source, which maps it to no value.</p>
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+public class VaultPropertySourceUpdater {
+
+    /**
+     * The name of the property source clearing the properties removed from Vault.
+     */
+    public static final String REMOVED_NAME = "vault-removed";
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultPropertySourceUpdater.class);
+
+    private final Environment environment;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VaultOffHeapSecretStore secretStore;
+    private final Set<String> removedKeys = new HashSet<>();
+
+    /**
+     * @param environment    The environment
+     * @param eventPublisher The event publisher
+     * @param secretStore    The off-heap secret store, if the off-heap store is enabled
+     */
+    public VaultPropertySourceUpdater(Environment environment,
+                                      ApplicationEventPublisher eventPublisher,
+                                      @Nullable VaultOffHeapSecretStore secretStore) {
+        this.environment = environment;
+        this.eventPublisher = eventPublisher;
+        this.secretStore = secretStore;
+    }
+
+    /**
+     * Replaces the property sources of the same name in the environment. A {@link RefreshEvent} is only
+     * published when at least one property differs from the property source it replaces.
+     *
+     * @param propertySources The property sources read from Vault
+     * @return The changed keys with their previous values
+     */
+    public synchronized Map<String, Object> update(Collection<PropertySource> propertySources) {
+        Map<String, PropertySource> currentPropertySources = new HashMap<>();
+        for (PropertySource propertySource : environment.getPropertySources()) {
+            currentPropertySources.put(propertySource.getName(), propertySource);
+        }
+
+        Map<String, Object> changes = new LinkedHashMap<>();
+        Set<String> removed = new HashSet<>();
+        List<PropertySource> changedPropertySources = new ArrayList<>();
+        List<PropertySource> updatedPropertySources = new ArrayList<>(propertySources.size());
+        for (PropertySource propertySource : propertySources) {
+            updatedPropertySources.add(secretStore != null ? secretStore.copy(propertySource) : propertySource);
+        }
+
+        for (PropertySource propertySource : updatedPropertySources) {
+            PropertySource currentPropertySource = currentPropertySources.get(propertySource.getName());
+            Map<String, Object> propertySourceChanges = diff(currentPropertySource, propertySource);
+            if (!propertySourceChanges.isEmpty()) {
+                changes.putAll(propertySourceChanges);
+                changedPropertySources.add(propertySource);
+                for (String key : propertySourceChanges.keySet()) {
+                    if (propertySource.get(key) == null) {
+                        removed.add(key);
+                    }
+                }
+            } else {
+                wipe(propertySource, currentPropertySource);
+            }
+        }
+
+        if (changes.isEmpty()) {
+            return Collections.emptyMap();
+        }
+
+        Set<String> changedNames = new HashSet<>();
+        for (PropertySource propertySource : changedPropertySources) {
+            changedNames.add(propertySource.getName());
+        }
+
+        // a removed property is applied again from the property source with the highest precedence having it
+        List<PropertySource> appliedPropertySources = new ArrayList<>(changedPropertySources);
+        Set<String> appliedKeys = new HashSet<>(changes.keySet());
+        Set<String> clearedKeys = new HashSet<>();
+        for (String key : removed) {
+            PropertySource fallback = null;
+            for (PropertySource propertySource : currentPropertySources.values()) {
+                if (!changedNames.contains(propertySource.getName()) && isApplicable(propertySource)
+                        && propertySource.get(key) != null
+                        && (fallback == null || propertySource.getOrder() > fallback.getOrder())) {
+                    fallback = propertySource;
+                }
+            }
+            if (fallback == null) {
+                clearedKeys.add(key);
+            } else if (!appliedPropertySources.contains(fallback)) {
+                appliedPropertySources.add(fallback);
+                fallback.forEach(appliedKeys::add);
+            }
+        }
+
+        // the environment applies an added property source on top of the existing values regardless of its
+        // order, so the overlapping property sources with a higher precedence have to be applied again
+        OrderUtil.sort(appliedPropertySources);
+        int lowestOrder = appliedPropertySources.get(0).getOrder();
+        for (PropertySource propertySource : currentPropertySources.values()) {
+            if (propertySource.getOrder() > lowestOrder
+                    && !appliedPropertySources.contains(propertySource)
+                    && !changedNames.contains(propertySource.getName())
+                    && isApplicable(propertySource)
+                    && overlaps(propertySource, appliedKeys)) {
+                appliedPropertySources.add(propertySource);
+            }
+        }
+        OrderUtil.sort(appliedPropertySources);
+
+        clear(clearedKeys, appliedPropertySources);
+        for (PropertySource propertySource : appliedPropertySources) {
+            environment.addPropertySource(propertySource);
+            if (changedNames.contains(propertySource.getName())) {
+                wipe(currentPropertySources.get(propertySource.getName()), propertySource);
+            }
+        }
+
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Vault property sources {} changed, keys: {}", changedNames, changes.keySet());
+        }
+        eventPublisher.publishEvent(new RefreshEvent(changes));
+        return changes;
+    }
+
+    /**
+     * Clears the properties removed from Vault that no property source has any more, and stops clearing the
+     * properties applied again.
+     *
+     * @param clearedKeys            The properties no property source has any more
+     * @param appliedPropertySources The property sources applied
+     */
+    private void clear(Set<String> clearedKeys, List<PropertySource> appliedPropertySources) {
+        boolean changed = removedKeys.addAll(clearedKeys);
+        for (PropertySource propertySource : appliedPropertySources) {
+            for (String key : propertySource) {
+                changed |= removedKeys.remove(key);
+            }
+        }
+        if (changed) {
+            Map<String, Object> properties = new HashMap<>();
+            for (String key : removedKeys) {
+                properties.put(key, null);
+            }
+            environment.addPropertySource(PropertySource.of(REMOVED_NAME, properties, Integer.MIN_VALUE));
+        }
+    }
+
+    /**
+     * @param propertySource The property source
+     * @return Whether the property source can be applied again to the environment
+     */
+    private static boolean isApplicable(PropertySource propertySource) {
+        return propertySource.getConvention() == PropertySource.PropertyConvention.JAVA_PROPERTIES
+                && !REMOVED_NAME.equals(propertySource.getName());
+    }
+
+    /**
+     * Wipes the off-heap values of a discarded property source that are not shared with the one kept.
+     */
+    private static void wipe(PropertySource discarded, PropertySource kept) {
+        if (discarded instanceof VaultOffHeapPropertySource && discarded != kept) {
+            ((VaultOffHeapPropertySource) discarded).wipe();
+        }
+    }
+
+    private static Map<String, Object> diff(PropertySource previous, PropertySource current) {
+        Map<String, Object> changes = new LinkedHashMap<>();
+        if (previous != null) {
+            for (String key : previous) {
+                Object previousValue = previous.get(key);
+                if (!Objects.equals(previousValue, current.get(key))) {
+                    changes.put(key, previousValue);
+                }
+            }
+        }
+        for (String key : current) {
+            if (previous == null || previous.get(key) == null) {
+                changes.putIfAbsent(key, null);
+            }
+        }
+        return changes;
+    }
+
+    private static boolean overlaps(PropertySource propertySource, Set<String> keys) {
+        for (String key : propertySource) {
+            if (keys.contains(key)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
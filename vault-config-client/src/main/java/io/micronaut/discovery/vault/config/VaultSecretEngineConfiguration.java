@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.EachProperty;
+import io.micronaut.context.annotation.Parameter;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+
+import javax.annotation.Nullable;
+
+/**
+ *  The configuration of an additional KV mount for Vault, e.g. {@code vault.client.engines.shared}. The vault keys
+ *  of the application are read from every mount, their property sources taking precedence over the ones of the
+ *  secret engine according to the order offset of the mount.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@EachProperty(VaultSecretEngineConfiguration.PREFIX)
+@BootstrapContextCompatible
+public class VaultSecretEngineConfiguration {
+
+    public static final String PREFIX = VaultClientConfiguration.PREFIX + ".engines";
+
+    private final String name;
+    private String path;
+    private VaultKvVersion kvVersion;
+    private int orderOffset = 0;
+
+    /**
+     * @param name The name of the mount configuration
+     */
+    public VaultSecretEngineConfiguration(@Parameter String name) {
+        this.name = name;
+    }
+
+    /**
+     * @return The name of the mount configuration
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * @return The path the KV secrets engine is mounted at (default the name of the mount configuration)
+     */
+    public String getPath() {
+        return path != null ? path : name;
+    }
+
+    /**
+     * Set the path the KV secrets engine is mounted at.
+     *
+     * @param path The path of the KV secrets engine
+     */
+    public void setPath(String path) {
+        this.path = path;
+    }
+
+    /**
+     * @return The version of the KV secrets engine, null when detected from the mounts of Vault
+     */
+    @Nullable
+    public VaultKvVersion getKvVersion() {
+        return kvVersion;
+    }
+
+    /**
+     * Set the version of the KV secrets engine. When not set, the version is detected once from
+     * {@code sys/mounts}, which needs the token to be allowed to read it.
+     *
+     * @param kvVersion The version of the KV secrets engine
+     */
+    public void setKvVersion(@Nullable VaultKvVersion kvVersion) {
+        this.kvVersion = kvVersion;
+    }
+
+    /**
+     * @return The offset added to the order of the property sources read from the mount (default 0)
+     */
+    public int getOrderOffset() {
+        return orderOffset;
+    }
+
+    /**
+     * Set the offset added to the order of the property sources read from the mount. A positive offset gives
+     * the mount precedence over the secret engine, a negative one gives the secret engine precedence.
+     *
+     * @param orderOffset The order offset
+     */
+    public void setOrderOffset(int orderOffset) {
+        this.orderOffset = orderOffset;
+    }
+}
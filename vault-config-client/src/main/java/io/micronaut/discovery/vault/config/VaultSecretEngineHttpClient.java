@@ -0,0 +1,133 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientConnectionPoolConfiguration;
+import io.micronaut.discovery.vault.config.v1.VaultResponseV1;
+import io.micronaut.discovery.vault.config.v2.VaultResponseV2;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Consumes;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.Produces;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.retry.annotation.Retryable;
+import org.reactivestreams.Publisher;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+/**
+ *  A non-blocking HTTP client reading the additional KV mounts, whatever the version of the secret engine, and
+ *  the mounts of Vault to detect their version.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Client(value = VaultClientConfiguration.VAULT_CLIENT_CONFIG_ENDPOINT, configuration = VaultClientConfiguration.class)
+@BootstrapContextCompatible
+public interface VaultSecretEngineHttpClient {
+
+    /**
+     * Lists the secrets engines mounted in Vault, with their type and options.
+     *
+     * @param token             Vault authentication token
+     * @return A {@link Publisher} that emits the mounts keyed by path
+     */
+    @Get("/v1/sys/mounts")
+    @Produces(single = true)
+    @Consumes(single = true)
+    @Retryable(
+            attempts = "${" + VaultClientConnectionPoolConfiguration.PREFIX + ".retry-count:3}",
+            delay = "${" + VaultClientConnectionPoolConfiguration.PREFIX + ".retry-delay:1s}"
+    )
+    Publisher<Map<String, Object>> readMounts(@Nonnull @Header("X-Vault-Token") String token);
+
+    /**
+     * Reads the secrets of a vault key from a KV v1 mount.
+     *
+     * @param token             Vault authentication token
+     * @param backend           The path the KV secrets engine is mounted at
+     * @param vaultKey          The vault key
+     * @return A {@link Publisher} that emits the {@link VaultResponseV1}
+     */
+    @Get("/v1/{backend}/{vaultKey}")
+    @Produces(single = true)
+    @Consumes(single = true)
+    @Retryable(
+            attempts = "${" + VaultClientConnectionPoolConfiguration.PREFIX + ".retry-count:3}",
+            delay = "${" + VaultClientConnectionPoolConfiguration.PREFIX + ".retry-delay:1s}"
+    )
+    Publisher<VaultResponseV1> readV1(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull String backend,
+            @Nonnull String vaultKey);
+
+    /**
+     * Reads the latest version of the secrets of a vault key from a KV v2 mount.
+     *
+     * @param token             Vault authentication token
+     * @param backend           The path the KV secrets engine is mounted at
+     * @param vaultKey          The vault key
+     * @return A {@link Publisher} that emits the {@link VaultResponseV2}
+     */
+    @Get("/v1/{backend}/data/{vaultKey}")
+    @Produces(single = true)
+    @Consumes(single = true)
+    @Retryable(
+            attempts = "${" + VaultClientConnectionPoolConfiguration.PREFIX + ".retry-count:3}",
+            delay = "${" + VaultClientConnectionPoolConfiguration.PREFIX + ".retry-delay:1s}"
+    )
+    Publisher<VaultResponseV2> readV2(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull String backend,
+            @Nonnull String vaultKey);
+
+    /**
+     * Reads the secrets of a vault key from a KV v1 mount as a stream of raw response body chunks. The stream is
+     * not retried, the decoders retry the whole read.
+     *
+     * @param token             Vault authentication token
+     * @param backend           The path the KV secrets engine is mounted at
+     * @param vaultKey          The vault key
+     * @return A {@link Publisher} that emits the response body chunks
+     */
+    @Get("/v1/{backend}/{vaultKey}")
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    Publisher<ByteBuffer<?>> readStreamV1(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull String backend,
+            @Nonnull String vaultKey);
+
+    /**
+     * Reads the latest version of the secrets of a vault key from a KV v2 mount as a stream of raw response body
+     * chunks. The stream is not retried, the decoders retry the whole read.
+     *
+     * @param token             Vault authentication token
+     * @param backend           The path the KV secrets engine is mounted at
+     * @param vaultKey          The vault key
+     * @return A {@link Publisher} that emits the response body chunks
+     */
+    @Get("/v1/{backend}/data/{vaultKey}")
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    Publisher<ByteBuffer<?>> readStreamV2(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull String backend,
+            @Nonnull String vaultKey);
+}
@@ -0,0 +1,210 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientReadConfiguration.VaultResponseDecoder;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ *  Reads the additional KV mounts, each with its own KV version. The version of the mounts configured without one
+ *  is detected from {@code sys/mounts} by the first read needing it and kept for the lifetime of the application,
+ *  the reads of the mounts with a configured version do not wait for it. When the mounts cannot be listed, e.g.
+ *  for lack of permission, the mounts are read with the KV version of the secret engine and the detection is
+ *  tried again by the next read. The mounts are decoded with the configured response decoder, with their own
+ *  KV version.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@BootstrapContextCompatible
+@Requires(property = VaultSecretEngineConfiguration.PREFIX)
+public class VaultSecretEngines {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultSecretEngines.class);
+    private static final String KV_TYPE = "kv";
+
+    private final VaultSecretEngineHttpClient httpClient;
+    private final VaultClientConfiguration vaultClientConfiguration;
+    private final VaultStreamingResponseDecoder responseDecoder;
+    private final VaultIntrospectedResponseDecoder introspectedResponseDecoder;
+    private final AtomicReference<Single<Map<String, VaultKvVersion>>> detection = new AtomicReference<>();
+    private volatile Map<String, VaultKvVersion> detectedKvVersions;
+
+    /**
+     * @param httpClient                  The http client of the KV mounts
+     * @param vaultClientConfiguration    Vault Client Configuration
+     * @param responseDecoder             The streaming response decoder
+     * @param introspectedResponseDecoder The introspected response decoder
+     */
+    public VaultSecretEngines(VaultSecretEngineHttpClient httpClient,
+                              VaultClientConfiguration vaultClientConfiguration,
+                              VaultStreamingResponseDecoder responseDecoder,
+                              VaultIntrospectedResponseDecoder introspectedResponseDecoder) {
+        this.httpClient = httpClient;
+        this.vaultClientConfiguration = vaultClientConfiguration;
+        this.responseDecoder = responseDecoder;
+        this.introspectedResponseDecoder = introspectedResponseDecoder;
+    }
+
+    /**
+     * @return The configurations of the additional KV mounts
+     */
+    public List<VaultSecretEngineConfiguration> getEngines() {
+        return vaultClientConfiguration.getEngineConfigurations();
+    }
+
+    /**
+     * @param engine   The configuration of the KV mount
+     * @param vaultKey The vault key
+     * @return The name of the property source of the vault key read from the KV mount
+     */
+    public static String getPropertySourceName(@Nonnull VaultSecretEngineConfiguration engine, @Nonnull String vaultKey) {
+        return engine.getName() + ":" + vaultKey;
+    }
+
+    /**
+     * Reads the secrets of a vault key from a KV mount, with the configured or the detected KV version.
+     *
+     * @param token    The vault token
+     * @param engine   The configuration of the KV mount
+     * @param vaultKey The vault key
+     * @return A flowable of the secrets
+     */
+    public Flowable<Map<String, Object>> read(@Nonnull String token,
+                                              @Nonnull VaultSecretEngineConfiguration engine,
+                                              @Nonnull String vaultKey) {
+        String backend = engine.getPath();
+        VaultResponseDecoder decoder = vaultClientConfiguration.getReadConfiguration().getDecoder();
+        return getKvVersion(token, engine).flatMapPublisher(kvVersion -> {
+            if (decoder == VaultResponseDecoder.STREAMING) {
+                return responseDecoder.decode(readStream(token, backend, vaultKey, kvVersion), kvVersion, false)
+                        .map(VaultSecrets::getProperties);
+            }
+            if (decoder == VaultResponseDecoder.INTROSPECTED) {
+                return introspectedResponseDecoder.decode(readStream(token, backend, vaultKey, kvVersion), kvVersion)
+                        .map(AbstractVaultResponse::getSecrets);
+            }
+            Flowable<? extends AbstractVaultResponse<?>> response = kvVersion == VaultKvVersion.V1
+                    ? Flowable.fromPublisher(httpClient.readV1(token, backend, vaultKey))
+                    : Flowable.fromPublisher(httpClient.readV2(token, backend, vaultKey));
+            return response.map(AbstractVaultResponse::getSecrets);
+        });
+    }
+
+    /**
+     * @param token     The vault token
+     * @param backend   The path the KV secrets engine is mounted at
+     * @param vaultKey  The vault key
+     * @param kvVersion The KV version of the mount
+     * @return A publisher of the response body chunks
+     */
+    private Publisher<ByteBuffer<?>> readStream(String token, String backend, String vaultKey, VaultKvVersion kvVersion) {
+        return kvVersion == VaultKvVersion.V1
+                ? httpClient.readStreamV1(token, backend, vaultKey)
+                : httpClient.readStreamV2(token, backend, vaultKey);
+    }
+
+    /**
+     * @param token  The vault token
+     * @param engine The configuration of the KV mount
+     * @return A single of the configured KV version of the mount, or the detected one
+     */
+    private Single<VaultKvVersion> getKvVersion(String token, VaultSecretEngineConfiguration engine) {
+        if (engine.getKvVersion() != null) {
+            return Single.just(engine.getKvVersion());
+        }
+        VaultKvVersion defaultKvVersion = vaultClientConfiguration.getKvVersion();
+        return detectKvVersions(token)
+                .map(kvVersions -> {
+                    VaultKvVersion kvVersion = kvVersions.get(engine.getPath());
+                    if (kvVersion == null) {
+                        LOG.warn("No KV secrets engine mounted at [{}], reading it as {}", engine.getPath(), defaultKvVersion);
+                        return defaultKvVersion;
+                    }
+                    return kvVersion;
+                })
+                .onErrorReturn(throwable -> {
+                    LOG.warn("Unable to detect the KV version of the mount [{}] from sys/mounts, reading it as {}: {}",
+                            engine.getPath(), defaultKvVersion, throwable.getMessage());
+                    return defaultKvVersion;
+                });
+    }
+
+    /**
+     * Lists the mounts once, the reads detecting the versions at the same time sharing the same list.
+     *
+     * @param token The vault token
+     * @return A single of the KV versions by mount path
+     */
+    private Single<Map<String, VaultKvVersion>> detectKvVersions(String token) {
+        Map<String, VaultKvVersion> kvVersions = detectedKvVersions;
+        if (kvVersions != null) {
+            return Single.just(kvVersions);
+        }
+        return detection.updateAndGet(current -> current != null ? current :
+                Flowable.fromPublisher(httpClient.readMounts(token))
+                        .singleOrError()
+                        .map(VaultSecretEngines::parseKvVersions)
+                        .doOnSuccess(detected -> detectedKvVersions = detected)
+                        .doFinally(() -> detection.set(null))
+                        .cache());
+    }
+
+    /**
+     * @param mounts The response of {@code sys/mounts}, with the mounts both at the root and under data
+     * @return The KV versions by mount path, without the trailing slash
+     */
+    @SuppressWarnings("unchecked")
+    private static Map<String, VaultKvVersion> parseKvVersions(Map<String, Object> mounts) {
+        Object data = mounts.get("data");
+        if (data instanceof Map) {
+            mounts = (Map<String, Object>) data;
+        }
+        Map<String, VaultKvVersion> kvVersions = new HashMap<>();
+        for (Map.Entry<String, Object> entry : mounts.entrySet()) {
+            if (!(entry.getValue() instanceof Map)) {
+                continue;
+            }
+            Map<String, Object> mount = (Map<String, Object>) entry.getValue();
+            if (!KV_TYPE.equals(mount.get("type"))) {
+                continue;
+            }
+            Object options = mount.get("options");
+            Object version = options instanceof Map ? ((Map<String, Object>) options).get("version") : null;
+            String path = entry.getKey().endsWith("/") ? entry.getKey().substring(0, entry.getKey().length() - 1) : entry.getKey();
+            kvVersions.put(path, "2".equals(String.valueOf(version)) ? VaultKvVersion.V2 : VaultKvVersion.V1);
+        }
+        return Collections.unmodifiableMap(kvVersions);
+    }
+}
@@ -0,0 +1,69 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.util.Optional;
+
+/**
+ *  The metadata of the last read of a vault key, kept so that the refreshers can start from the read made
+ *  at startup instead of reading every vault key once more. A vault key not found has neither a version nor
+ *  a lease duration.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Immutable
+public class VaultSecretMetadata {
+
+    private final Integer version;
+    private final Long leaseDuration;
+    private final long readAt;
+
+    /**
+     * @param version       The version of the secret, KV v2 only
+     * @param leaseDuration The lease duration in seconds
+     * @param readAt        The time of the read in milliseconds since the epoch
+     */
+    public VaultSecretMetadata(@Nullable Integer version, @Nullable Long leaseDuration, long readAt) {
+        this.version = version;
+        this.leaseDuration = leaseDuration;
+        this.readAt = readAt;
+    }
+
+    /**
+     * @return The version of the secret read, KV v2 only
+     */
+    public Optional<Integer> getVersion() {
+        return Optional.ofNullable(version);
+    }
+
+    /**
+     * @return The lease duration in seconds of the secret read
+     */
+    public Optional<Long> getLeaseDuration() {
+        return Optional.ofNullable(leaseDuration);
+    }
+
+    /**
+     * @return The time of the read in milliseconds since the epoch
+     */
+    public long getReadAt() {
+        return readAt;
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ *  The secrets of a vault key decoded by the {@link VaultStreamingResponseDecoder}, already flattened into
+ *  dotted property names.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Immutable
+public class VaultSecrets {
+
+    private final Map<String, Object> properties;
+    private final Long leaseDuration;
+    private final Integer version;
+
+    /**
+     * @param properties    The flattened secrets
+     * @param leaseDuration The lease duration
+     * @param version       The version of the secret, KV v2 only
+     */
+    public VaultSecrets(Map<String, Object> properties, @Nullable Long leaseDuration, @Nullable Integer version) {
+        this.properties = Collections.unmodifiableMap(properties);
+        this.leaseDuration = leaseDuration;
+        this.version = version;
+    }
+
+    /**
+     * @return The secrets, keyed by dotted property name
+     */
+    public Map<String, Object> getProperties() {
+        return properties;
+    }
+
+    /**
+     * @return The lease duration in seconds
+     */
+    public Optional<Long> getLeaseDuration() {
+        return Optional.ofNullable(leaseDuration);
+    }
+
+    /**
+     * @return The version of the secret, only decoded for KV v2 when the metadata is requested
+     */
+    public Optional<Integer> getVersion() {
+        return Optional.ofNullable(version);
+    }
+}
@@ -0,0 +1,87 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.env.PropertySource;
+import io.reactivex.Single;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ *  A {@link PropertySource} without properties added when the property sources were served from the
+ *  {@link VaultSnapshotStore}. It carries the served property sources and the background read from Vault verifying
+ *  them, so that the {@link VaultSnapshotRefresher} of the application context can apply what changed since the
+ *  snapshot was taken, the startup reads happening in the bootstrap context.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultSnapshotPropertySource implements PropertySource {
+
+    /**
+     * The name of the property source.
+     */
+    public static final String NAME = "vault-snapshot";
+
+    private final List<PropertySource> propertySources;
+    private final Single<List<PropertySource>> verification;
+
+    /**
+     * @param propertySources The property sources served from the snapshot
+     * @param verification    The property sources read from Vault, replayed to every subscriber
+     */
+    public VaultSnapshotPropertySource(List<PropertySource> propertySources, Single<List<PropertySource>> verification) {
+        this.propertySources = Collections.unmodifiableList(propertySources);
+        this.verification = verification;
+    }
+
+    /**
+     * @return The property sources served from the snapshot
+     */
+    public List<PropertySource> getPropertySources() {
+        return propertySources;
+    }
+
+    /**
+     * @return The property sources read from Vault to verify the snapshot
+     */
+    public Single<List<PropertySource>> getVerification() {
+        return verification;
+    }
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public Object get(String key) {
+        return null;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+        return Collections.emptyIterator();
+    }
+
+    @Override
+    public String toString() {
+        return NAME;
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientSnapshotConfiguration;
+import io.reactivex.disposables.Disposable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ *  Applies the changes made in Vault since the snapshot served at startup was taken, once the background read
+ *  verifying it completes, through the {@link VaultPropertySourceUpdater}, which publishes a refresh event for the
+ *  changed properties. A vault key of the snapshot no longer found in Vault is replaced by an empty property
+ *  source, which removes its properties from the environment.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@Requires(property = VaultClientSnapshotConfiguration.PREFIX + ".enabled", value = "true")
+public class VaultSnapshotRefresher implements ApplicationEventListener<StartupEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultSnapshotRefresher.class);
+
+    private final Environment environment;
+    private final VaultSnapshotStore snapshotStore;
+    private final VaultPropertySourceUpdater propertySourceUpdater;
+    private Disposable verification;
+
+    /**
+     * @param environment           The environment
+     * @param snapshotStore         The snapshot store
+     * @param propertySourceUpdater The property source updater
+     */
+    public VaultSnapshotRefresher(Environment environment,
+                                  VaultSnapshotStore snapshotStore,
+                                  VaultPropertySourceUpdater propertySourceUpdater) {
+        this.environment = environment;
+        this.snapshotStore = snapshotStore;
+        this.propertySourceUpdater = propertySourceUpdater;
+    }
+
+    /**
+     * Waits for the verification of the snapshot served at startup, if one was served.
+     *
+     * @param event The startup event
+     */
+    @Override
+    public synchronized void onApplicationEvent(StartupEvent event) {
+        for (PropertySource propertySource : environment.getPropertySources()) {
+            if (propertySource instanceof VaultSnapshotPropertySource) {
+                VaultSnapshotPropertySource snapshot = (VaultSnapshotPropertySource) propertySource;
+                verification = snapshot.getVerification()
+                        .doOnSuccess(propertySources -> apply(snapshot.getPropertySources(), propertySources))
+                        .ignoreElement()
+                        .subscribe(() -> { }, throwable ->
+                                LOG.warn("Unable to verify the Vault configuration snapshot: {}", throwable.getMessage()));
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops waiting for the verification of the snapshot.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (verification != null) {
+            verification.dispose();
+        }
+    }
+
+    private void apply(List<PropertySource> snapshotPropertySources, List<PropertySource> vaultPropertySources) {
+        if (snapshotStore.isSame(snapshotPropertySources, vaultPropertySources)) {
+            LOG.debug("Vault configuration snapshot verified");
+            return;
+        }
+        List<PropertySource> propertySources = new ArrayList<>(vaultPropertySources);
+        Set<String> names = new HashSet<>();
+        for (PropertySource propertySource : vaultPropertySources) {
+            names.add(propertySource.getName());
+        }
+        for (PropertySource propertySource : snapshotPropertySources) {
+            if (!names.contains(propertySource.getName())) {
+                propertySources.add(PropertySource.of(propertySource.getName(), Collections.emptyMap(), propertySource.getOrder()));
+            }
+        }
+        Map<String, Object> changes = propertySourceUpdater.update(propertySources);
+        LOG.info("Vault configuration changed since the snapshot was taken, {} properties refreshed", changes.size());
+    }
+}
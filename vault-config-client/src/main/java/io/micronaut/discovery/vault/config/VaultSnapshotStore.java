@@ -0,0 +1,244 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientSnapshotConfiguration;
+import io.micronaut.runtime.ApplicationConfiguration;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ *  Stores the resolved Vault property sources in a local file encrypted with AES-GCM,
+ *  so that they can be served on startup without a round trip to Vault.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@BootstrapContextCompatible
+@Requires(property = VaultClientSnapshotConfiguration.PREFIX + ".enabled", value = "true")
+public class VaultSnapshotStore {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultSnapshotStore.class);
+
+    private static final String CIPHER = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_LENGTH = 128;
+    private static final int FORMAT_VERSION = 1;
+
+    private static final String CREATED = "created";
+    private static final String SOURCES = "sources";
+    private static final String NAME = "name";
+    private static final String ORDER = "order";
+    private static final String PROPERTIES = "properties";
+
+    private final VaultClientSnapshotConfiguration snapshotConfiguration;
+    private final ObjectMapper objectMapper;
+    private final SecretKeySpec secretKey;
+    private final Path path;
+    private final SecureRandom secureRandom = new SecureRandom();
+
+    /**
+     * @param vaultClientConfiguration Vault Client Configuration
+     * @param applicationConfiguration The application configuration
+     * @param objectMapper             The object mapper
+     */
+    public VaultSnapshotStore(VaultClientConfiguration vaultClientConfiguration,
+                              ApplicationConfiguration applicationConfiguration,
+                              ObjectMapper objectMapper) {
+        this.snapshotConfiguration = vaultClientConfiguration.getSnapshotConfiguration();
+        this.objectMapper = objectMapper;
+        this.secretKey = decodeKey(snapshotConfiguration.getKey());
+
+        String snapshotPath = snapshotConfiguration.getPath();
+        if (snapshotPath == null) {
+            String applicationName = applicationConfiguration.getName().orElse("application");
+            this.path = Paths.get(System.getProperty("java.io.tmpdir"), "vault-config-" + applicationName + ".snapshot");
+        } else {
+            this.path = Paths.get(snapshotPath);
+        }
+    }
+
+    /**
+     * Reads the property sources from the snapshot file.
+     *
+     * @param scope The scope the snapshot was written for, usually derived from the vault keys
+     * @return The property sources, or empty if there is no valid snapshot for the scope
+     */
+    public Optional<List<PropertySource>> read(String scope) {
+        if (!Files.isRegularFile(path)) {
+            return Optional.empty();
+        }
+
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+            if (buffer.getInt() != FORMAT_VERSION) {
+                LOG.warn("Ignoring Vault configuration snapshot [{}] written in an unknown format", path);
+                return Optional.empty();
+            }
+            byte[] iv = new byte[IV_LENGTH];
+            buffer.get(iv);
+            byte[] cipherText = new byte[buffer.remaining()];
+            buffer.get(cipherText);
+
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
+            cipher.updateAAD(scope.getBytes(StandardCharsets.UTF_8));
+
+            Map<String, Object> snapshot = objectMapper.readValue(cipher.doFinal(cipherText),
+                    new TypeReference<Map<String, Object>>() { });
+
+            long created = ((Number) snapshot.get(CREATED)).longValue();
+            if (System.currentTimeMillis() - created > snapshotConfiguration.getMaxAge().toMillis()) {
+                LOG.info("Ignoring Vault configuration snapshot [{}] older than {}", path, snapshotConfiguration.getMaxAge());
+                return Optional.empty();
+            }
+
+            List<PropertySource> propertySources = new ArrayList<>();
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> sources = (List<Map<String, Object>>) snapshot.get(SOURCES);
+            for (Map<String, Object> source : sources) {
+                @SuppressWarnings("unchecked")
+                Map<String, Object> properties = (Map<String, Object>) source.get(PROPERTIES);
+                propertySources.add(PropertySource.of(
+                        (String) source.get(NAME),
+                        properties,
+                        ((Number) source.get(ORDER)).intValue()));
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Read {} property sources from Vault configuration snapshot [{}]", propertySources.size(), path);
+            }
+            return Optional.of(propertySources);
+        } catch (GeneralSecurityException e) {
+            LOG.warn("Vault configuration snapshot [{}] could not be decrypted or does not match the current configuration", path);
+        } catch (IOException | RuntimeException e) {
+            LOG.warn("Error reading Vault configuration snapshot [{}]: {}", path, e.getMessage());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * Writes the property sources to the snapshot file, replacing the previous snapshot atomically.
+     *
+     * @param scope           The scope of the snapshot, usually derived from the vault keys
+     * @param propertySources The property sources
+     */
+    public void write(String scope, List<PropertySource> propertySources) {
+        Map<String, Object> snapshot = new LinkedHashMap<>();
+        snapshot.put(CREATED, System.currentTimeMillis());
+        snapshot.put(SOURCES, toSnapshot(propertySources));
+
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            secureRandom.nextBytes(iv);
+
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, secretKey, new GCMParameterSpec(TAG_LENGTH, iv));
+            cipher.updateAAD(scope.getBytes(StandardCharsets.UTF_8));
+            byte[] cipherText = cipher.doFinal(objectMapper.writeValueAsBytes(snapshot));
+
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + IV_LENGTH + cipherText.length);
+            buffer.putInt(FORMAT_VERSION).put(iv).put(cipherText);
+
+            Path parent = path.toAbsolutePath().getParent();
+            Files.createDirectories(parent);
+            Path temp = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+            try {
+                Files.write(temp, buffer.array());
+                Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Wrote {} property sources to Vault configuration snapshot [{}]", propertySources.size(), path);
+            }
+        } catch (GeneralSecurityException | IOException e) {
+            LOG.warn("Error writing Vault configuration snapshot [{}]: {}", path, e.getMessage());
+        }
+    }
+
+    /**
+     * Compares two lists of property sources by name, order and properties.
+     *
+     * @param first  The first list of property sources
+     * @param second The second list of property sources
+     * @return True if both lists hold the same property sources
+     */
+    public boolean isSame(List<PropertySource> first, List<PropertySource> second) {
+        return toSnapshot(first).equals(toSnapshot(second));
+    }
+
+    private List<Map<String, Object>> toSnapshot(List<PropertySource> propertySources) {
+        List<Map<String, Object>> sources = new ArrayList<>(propertySources.size());
+        for (PropertySource propertySource : propertySources) {
+            Map<String, Object> properties = new LinkedHashMap<>();
+            for (String key : propertySource) {
+                properties.put(key, propertySource.get(key));
+            }
+            Map<String, Object> source = new LinkedHashMap<>();
+            source.put(NAME, propertySource.getName());
+            source.put(ORDER, propertySource.getOrder());
+            source.put(PROPERTIES, properties);
+            sources.add(source);
+        }
+        return sources;
+    }
+
+    private static SecretKeySpec decodeKey(String key) {
+        if (key == null) {
+            throw new ConfigurationException("The property " + VaultClientSnapshotConfiguration.PREFIX + ".key is required when the snapshot is enabled");
+        }
+        byte[] keyBytes;
+        try {
+            keyBytes = Base64.getDecoder().decode(key);
+        } catch (IllegalArgumentException e) {
+            throw new ConfigurationException("The property " + VaultClientSnapshotConfiguration.PREFIX + ".key is not valid Base64", e);
+        }
+        if (keyBytes.length != 16 && keyBytes.length != 24 && keyBytes.length != 32) {
+            throw new ConfigurationException("The property " + VaultClientSnapshotConfiguration.PREFIX + ".key must be a 128, 192 or 256 bit AES key");
+        }
+        return new SecretKeySpec(keyBytes, "AES");
+    }
+}
@@ -0,0 +1,298 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientDiscoveryConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+import io.micronaut.retry.annotation.Retryable;
+import io.netty.util.ReferenceCountUtil;
+import io.reactivex.Flowable;
+import org.reactivestreams.Publisher;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ *  Decodes Vault responses token by token, as the body chunks arrive, straight into flat property maps.
+ *  Only the secrets and the lease duration are kept, the wrap info, the warnings and, unless requested, the
+ *  KV v2 metadata are skipped without being materialized.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@BootstrapContextCompatible
+public class VaultStreamingResponseDecoder {
+
+    private static final List<String> DATA_PATH_V1 = Collections.singletonList("data");
+    private static final List<String> DATA_PATH_V2 = Arrays.asList("data", "data");
+    private static final List<String> METADATA_PATH_V2 = Arrays.asList("data", "metadata");
+    private static final List<String> VERSION_PATH_V2 = Arrays.asList("data", "metadata", "version");
+    private static final List<String> LEASE_DURATION_PATH = Collections.singletonList("lease_duration");
+
+    private final JsonFactory jsonFactory;
+    private final VaultClientConfiguration vaultClientConfiguration;
+
+    /**
+     * @param objectMapper             The object mapper
+     * @param vaultClientConfiguration Vault Client Configuration
+     */
+    public VaultStreamingResponseDecoder(ObjectMapper objectMapper, VaultClientConfiguration vaultClientConfiguration) {
+        this.jsonFactory = objectMapper.getFactory();
+        this.vaultClientConfiguration = vaultClientConfiguration;
+    }
+
+    /**
+     * Decodes the response body chunks of a read of a vault key of the secret engine, with its KV version.
+     * The read is retried by {@link #decode(Publisher, VaultKvVersion, boolean)} only, so that the retries are
+     * not nested.
+     *
+     * @param body            The response body chunks
+     * @param includeMetadata Whether the KV v2 metadata is decoded
+     * @return A flowable of the decoded secrets
+     */
+    public Flowable<VaultSecrets> decode(Publisher<ByteBuffer<?>> body, boolean includeMetadata) {
+        return decode(body, vaultClientConfiguration.getKvVersion(), includeMetadata);
+    }
+
+    /**
+     * Decodes the response body chunks of a read of a vault key. Every chunk is released once fed to the parser.
+     * Every subscription reads the body again into a new decoding, so a failed read is retried as a whole, unless
+     * the vault key was not found.
+     *
+     * @param body            The response body chunks
+     * @param kvVersion       The KV version of the secret engine read
+     * @param includeMetadata Whether the KV v2 metadata is decoded
+     * @return A flowable of the decoded secrets
+     */
+    @Retryable(
+            attempts = "${" + VaultClientDiscoveryConfiguration.PREFIX + ".retry-count:3}",
+            delay = "${" + VaultClientDiscoveryConfiguration.PREFIX + ".retry-delay:1s}",
+            excludes = VaultKeyNotFoundException.class
+    )
+    public Flowable<VaultSecrets> decode(Publisher<ByteBuffer<?>> body, VaultKvVersion kvVersion, boolean includeMetadata) {
+        return Flowable.fromPublisher(body)
+                .onErrorResumeNext((Throwable throwable) -> Flowable.error(VaultKeyNotFoundException.of(throwable)))
+                .collect(() -> new Decoding(jsonFactory.createNonBlockingByteArrayParser(), kvVersion, includeMetadata),
+                        Decoding::feed)
+                .map(Decoding::finish)
+                .toFlowable();
+    }
+
+    /**
+     * The state of the decoding of a single response.
+     */
+    private static final class Decoding {
+
+        private final JsonParser parser;
+        private final ByteArrayFeeder feeder;
+        private final List<String> dataPath;
+        private final boolean includeMetadata;
+
+        private final List<String> path = new ArrayList<>();
+        private final Map<String, Object> properties = new LinkedHashMap<>();
+        private final Deque<Object> values = new ArrayDeque<>();
+        private final Deque<String> valueNames = new ArrayDeque<>();
+        private boolean rootStarted;
+        private String fieldName;
+        private int skipDepth;
+        private Long leaseDuration;
+        private Integer version;
+
+        Decoding(JsonParser parser, VaultKvVersion kvVersion, boolean includeMetadata) {
+            this.parser = parser;
+            this.feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+            this.dataPath = kvVersion == VaultKvVersion.V1 ? DATA_PATH_V1 : DATA_PATH_V2;
+            this.includeMetadata = includeMetadata && kvVersion == VaultKvVersion.V2;
+        }
+
+        void feed(ByteBuffer<?> chunk) throws IOException {
+            try {
+                byte[] bytes = chunk.toByteArray();
+                feeder.feedInput(bytes, 0, bytes.length);
+            } finally {
+                ReferenceCountUtil.safeRelease(chunk.asNativeBuffer());
+            }
+            drain();
+        }
+
+        VaultSecrets finish() throws IOException {
+            feeder.endOfInput();
+            drain();
+            parser.close();
+            return new VaultSecrets(properties, leaseDuration, version);
+        }
+
+        private void drain() throws IOException {
+            JsonToken token;
+            while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+                next(token);
+            }
+        }
+
+        private void next(JsonToken token) throws IOException {
+            if (skipDepth > 0) {
+                if (token.isStructStart()) {
+                    skipDepth++;
+                } else if (token.isStructEnd()) {
+                    skipDepth--;
+                }
+                return;
+            }
+            if (!values.isEmpty()) {
+                collect(token);
+                return;
+            }
+
+            switch (token) {
+                case FIELD_NAME:
+                    fieldName = parser.getCurrentName();
+                    break;
+                case START_OBJECT:
+                    if (!rootStarted) {
+                        rootStarted = true;
+                    } else if (isData() || isOnPath(fieldName, dataPath) || (includeMetadata && isOnPath(fieldName, METADATA_PATH_V2))) {
+                        path.add(fieldName);
+                    } else {
+                        skipDepth = 1;
+                    }
+                    break;
+                case END_OBJECT:
+                    if (!path.isEmpty()) {
+                        path.remove(path.size() - 1);
+                    }
+                    break;
+                case START_ARRAY:
+                    if (isData()) {
+                        valueNames.push(propertyName(fieldName));
+                        values.push(new ArrayList<>());
+                    } else {
+                        skipDepth = 1;
+                    }
+                    break;
+                default:
+                    scalar(token);
+            }
+        }
+
+        private void scalar(JsonToken token) throws IOException {
+            if (isData()) {
+                Object value = value(token);
+                if (value != null) {
+                    properties.put(propertyName(fieldName), value);
+                }
+            } else if (isPath(fieldName, LEASE_DURATION_PATH) && token == JsonToken.VALUE_NUMBER_INT) {
+                leaseDuration = parser.getLongValue();
+            } else if (includeMetadata && isPath(fieldName, VERSION_PATH_V2) && token == JsonToken.VALUE_NUMBER_INT) {
+                version = parser.getIntValue();
+            }
+        }
+
+        /**
+         * Collects the values of an array of the secrets, which are kept as a list like the binding decoder does.
+         */
+        private void collect(JsonToken token) throws IOException {
+            switch (token) {
+                case FIELD_NAME:
+                    valueNames.push(parser.getCurrentName());
+                    break;
+                case START_OBJECT:
+                    values.push(new LinkedHashMap<String, Object>());
+                    break;
+                case START_ARRAY:
+                    values.push(new ArrayList<>());
+                    break;
+                case END_OBJECT:
+                case END_ARRAY:
+                    add(values.pop());
+                    break;
+                default:
+                    add(value(token));
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private void add(Object value) {
+            Object parent = values.peek();
+            if (parent instanceof List) {
+                ((List<Object>) parent).add(value);
+            } else if (parent instanceof Map) {
+                ((Map<String, Object>) parent).put(valueNames.pop(), value);
+            } else {
+                properties.put(valueNames.pop(), value);
+            }
+        }
+
+        private Object value(JsonToken token) throws IOException {
+            switch (token) {
+                case VALUE_STRING:
+                    return parser.getText();
+                case VALUE_NUMBER_INT:
+                case VALUE_NUMBER_FLOAT:
+                    return parser.getNumberValue();
+                case VALUE_TRUE:
+                    return Boolean.TRUE;
+                case VALUE_FALSE:
+                    return Boolean.FALSE;
+                default:
+                    return null;
+            }
+        }
+
+        /**
+         * @return Whether the current field is a secret, at or below the data path
+         */
+        private boolean isData() {
+            return path.size() >= dataPath.size() && path.subList(0, dataPath.size()).equals(dataPath);
+        }
+
+        /**
+         * @return Whether the field is the given path or one of its parents
+         */
+        private boolean isOnPath(String name, List<String> target) {
+            return path.size() < target.size()
+                    && path.equals(target.subList(0, path.size()))
+                    && target.get(path.size()).equals(name);
+        }
+
+        private boolean isPath(String name, List<String> target) {
+            return path.size() == target.size() - 1 && isOnPath(name, target);
+        }
+
+        private String propertyName(String name) {
+            if (path.size() == dataPath.size()) {
+                return name;
+            }
+            return String.join(".", path.subList(dataPath.size(), path.size())) + "." + name;
+        }
+    }
+}
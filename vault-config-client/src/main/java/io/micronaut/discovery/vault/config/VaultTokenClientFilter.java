@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.discovery.vault.config.auth.VaultTokenSupplier;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.MutableHttpRequest;
+import io.micronaut.http.annotation.Filter;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.http.filter.ClientFilterChain;
+import io.micronaut.http.filter.HttpClientFilter;
+import io.reactivex.Flowable;
+import org.reactivestreams.Publisher;
+
+import javax.inject.Provider;
+
+/**
+ *  Invalidates the token of the {@link VaultTokenSupplier} when Vault rejects it with a 403, so that the next
+ *  request obtains a new one. Only the requests of the Vault http clients are filtered, the reads of the endpoint
+ *  router invalidate the token themselves. The token supplier is looked up on the first rejection, as it may
+ *  depend on the http clients filtered.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Filter(value = {"/v1/**", "/v2/**"}, serviceId = VaultClientConfiguration.VAULT_CLIENT_CONFIG_ENDPOINT)
+@BootstrapContextCompatible
+public class VaultTokenClientFilter implements HttpClientFilter {
+
+    private static final String VAULT_TOKEN_HEADER = "X-Vault-Token";
+
+    private final Provider<VaultTokenSupplier> tokenSupplier;
+
+    /**
+     * @param tokenSupplier The Vault token supplier
+     */
+    public VaultTokenClientFilter(Provider<VaultTokenSupplier> tokenSupplier) {
+        this.tokenSupplier = tokenSupplier;
+    }
+
+    @Override
+    public Publisher<? extends HttpResponse<?>> doFilter(MutableHttpRequest<?> request, ClientFilterChain chain) {
+        String token = request.getHeaders().get(VAULT_TOKEN_HEADER);
+        if (token == null || token.isEmpty()) {
+            return chain.proceed(request);
+        }
+        return Flowable.fromPublisher(chain.proceed(request)).doOnError(throwable -> {
+            if (isForbidden(throwable)) {
+                tokenSupplier.get().invalidate(token);
+            }
+        });
+    }
+
+    /**
+     * @param throwable The error of a request to Vault
+     * @return Whether Vault rejected the token of the request
+     */
+    static boolean isForbidden(Throwable throwable) {
+        return throwable instanceof HttpClientResponseException
+                && ((HttpClientResponseException) throwable).getStatus() == HttpStatus.FORBIDDEN;
+    }
+}
@@ -0,0 +1,235 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.vault.config.auth;
+
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientAuthenticationConfiguration;
+import io.reactivex.Completable;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.disposables.Disposable;
+import io.reactivex.disposables.Disposables;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Base class for the {@link VaultTokenSupplier} implementations that log in to Vault. The token is cached
+ *  in memory and renewed before its TTL runs out. Concurrent callers share a single login request. A renewal
+ *  returning no TTL left, once the token reached its max TTL, logs in again. A token logged in without TTL is
+ *  kept until Vault rejects it with a 403.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public abstract class AbstractLoginVaultTokenSupplier implements VaultTokenSupplier {
+
+    private static final Logger LOG = LoggerFactory.getLogger(AbstractLoginVaultTokenSupplier.class);
+
+    protected final VaultClientAuthenticationConfiguration authenticationConfiguration;
+
+    private final VaultAuthHttpClient authHttpClient;
+    private final Object lock = new Object();
+
+    private volatile VaultToken token;
+    private Single<VaultToken> login;
+    private Disposable renewal = Disposables.disposed();
+
+    /**
+     * @param authHttpClient              The auth http client
+     * @param authenticationConfiguration The authentication configuration
+     */
+    protected AbstractLoginVaultTokenSupplier(VaultAuthHttpClient authHttpClient,
+                                              VaultClientAuthenticationConfiguration authenticationConfiguration) {
+        this.authHttpClient = authHttpClient;
+        this.authenticationConfiguration = authenticationConfiguration;
+    }
+
+    @Nonnull
+    @Override
+    public Publisher<String> getToken() {
+        VaultToken current = token;
+        if (current != null && !current.isExpired()) {
+            return Flowable.just(current.clientToken);
+        }
+        return login().map(vaultToken -> vaultToken.clientToken).toFlowable();
+    }
+
+    @Override
+    public void invalidate(@Nonnull String rejected) {
+        synchronized (lock) {
+            VaultToken current = token;
+            if (current != null && current.clientToken.equals(rejected)) {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("The Vault token was rejected, logging in again on the next request");
+                }
+                token = null;
+                renewal.dispose();
+            }
+        }
+    }
+
+    /**
+     * @return The path the authentication method is mounted at by default
+     */
+    protected abstract String getDefaultPath();
+
+    /**
+     * @return The login credentials of the authentication method
+     * @throws IOException if the credentials cannot be read
+     */
+    protected abstract Map<String, Object> getCredentials() throws IOException;
+
+    /**
+     * Reads a JWT from a file.
+     *
+     * @param jwtPath The file the JWT is read from
+     * @return The JWT
+     * @throws IOException if the file cannot be read
+     */
+    protected String readJwt(String jwtPath) throws IOException {
+        return new String(Files.readAllBytes(Paths.get(jwtPath)), StandardCharsets.UTF_8).trim();
+    }
+
+    /**
+     * Returns the value, failing with a {@link ConfigurationException} if it was not configured.
+     *
+     * @param value    The value
+     * @param property The name of the property, relative to the authentication configuration
+     * @param <T>      The type of the value
+     * @return The value
+     */
+    protected <T> T required(T value, String property) {
+        if (value == null) {
+            throw new ConfigurationException("The property " + VaultClientAuthenticationConfiguration.PREFIX + "." + property
+                    + " is required for the " + authenticationConfiguration.getMethod() + " authentication method");
+        }
+        return value;
+    }
+
+    /**
+     * Stops renewing the token.
+     */
+    @PreDestroy
+    public void close() {
+        renewal.dispose();
+    }
+
+    private Single<VaultToken> login() {
+        synchronized (lock) {
+            if (login == null) {
+                String path = authenticationConfiguration.getPath() != null ? authenticationConfiguration.getPath() : getDefaultPath();
+                login = Single.defer(() -> Single.fromPublisher(authHttpClient.login(path, getCredentials())))
+                        .map(this::toToken)
+                        .doOnSuccess(vaultToken -> {
+                            if (LOG.isDebugEnabled()) {
+                                LOG.debug("Logged in to Vault with the {} authentication method", authenticationConfiguration.getMethod());
+                            }
+                            accept(vaultToken);
+                        })
+                        // forgotten before the token is emitted, a caller invalidating it then starts a new login
+                        .doOnEvent((vaultToken, throwable) -> {
+                            synchronized (lock) {
+                                login = null;
+                            }
+                        })
+                        .cache();
+            }
+            return login;
+        }
+    }
+
+    private void renew(VaultToken vaultToken) {
+        Single.fromPublisher(authHttpClient.renewSelf(vaultToken.clientToken))
+                .map(this::toToken)
+                .subscribe(renewed -> {
+                    if (renewed.ttlMillis <= 0) {
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("The Vault token reached its max TTL, logging in again");
+                        }
+                        loginAgain();
+                    } else {
+                        accept(renewed);
+                    }
+                }, throwable -> {
+                    LOG.warn("Error renewing the Vault token, logging in again: {}", throwable.getMessage());
+                    loginAgain();
+                });
+    }
+
+    private void loginAgain() {
+        login().subscribe(renewed -> { }, loginError ->
+                LOG.warn("Error logging in to Vault: {}", loginError.getMessage()));
+    }
+
+    private void accept(VaultToken vaultToken) {
+        synchronized (lock) {
+            token = vaultToken;
+            renewal.dispose();
+            if (vaultToken.ttlMillis > 0) {
+                long delay = (long) (vaultToken.ttlMillis * authenticationConfiguration.getRenewFraction());
+                Completable timer = Completable.timer(delay, TimeUnit.MILLISECONDS);
+                if (vaultToken.renewable) {
+                    renewal = timer.subscribe(() -> renew(vaultToken));
+                } else {
+                    renewal = timer.andThen(Completable.defer(() -> login().ignoreElement())).subscribe(() -> { }, throwable ->
+                            LOG.warn("Error logging in to Vault: {}", throwable.getMessage()));
+                }
+            }
+        }
+    }
+
+    private VaultToken toToken(VaultAuthResponse response) {
+        VaultAuth auth = response.getAuth();
+        if (auth == null || auth.getClientToken() == null) {
+            throw new ConfigurationException("Vault did not return a token for the "
+                    + authenticationConfiguration.getMethod() + " authentication method");
+        }
+        long ttl = auth.getLeaseDuration() == null ? 0 : TimeUnit.SECONDS.toMillis(auth.getLeaseDuration());
+        return new VaultToken(auth.getClientToken(), ttl, auth.isRenewable());
+    }
+
+    /**
+     * A token and the instant it expires at, a token without TTL never expiring.
+     */
+    private static final class VaultToken {
+
+        private final String clientToken;
+        private final long ttlMillis;
+        private final long expiresAt;
+        private final boolean renewable;
+
+        private VaultToken(String clientToken, long ttlMillis, boolean renewable) {
+            this.clientToken = clientToken;
+            this.ttlMillis = ttlMillis;
+            this.expiresAt = ttlMillis > 0 ? System.currentTimeMillis() + ttlMillis : Long.MAX_VALUE;
+            this.renewable = renewable;
+        }
+
+        private boolean isExpired() {
+            return System.currentTimeMillis() >= expiresAt;
+        }
+    }
+}
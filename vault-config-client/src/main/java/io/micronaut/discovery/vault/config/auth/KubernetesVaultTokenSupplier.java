@@ -0,0 +1,64 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.vault.config.auth;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientAuthenticationConfiguration;
+
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *  A {@link VaultTokenSupplier} that logs in with the Kubernetes authentication method, using the
+ *  service account token of the pod.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@BootstrapContextCompatible
+@Requires(property = VaultClientAuthenticationConfiguration.PREFIX + ".method", value = "KUBERNETES")
+public class KubernetesVaultTokenSupplier extends AbstractLoginVaultTokenSupplier {
+
+    /**
+     * @param authHttpClient           The auth http client
+     * @param vaultClientConfiguration Vault Client Configuration
+     */
+    public KubernetesVaultTokenSupplier(VaultAuthHttpClient authHttpClient, VaultClientConfiguration vaultClientConfiguration) {
+        super(authHttpClient, vaultClientConfiguration.getAuthenticationConfiguration());
+    }
+
+    @Override
+    protected String getDefaultPath() {
+        return "kubernetes";
+    }
+
+    @Override
+    protected Map<String, Object> getCredentials() throws IOException {
+        String jwtPath = authenticationConfiguration.getJwtPath() != null
+                ? authenticationConfiguration.getJwtPath()
+                : VaultClientAuthenticationConfiguration.DEFAULT_KUBERNETES_JWT_PATH;
+
+        Map<String, Object> credentials = new HashMap<>();
+        credentials.put("role", required(authenticationConfiguration.getRole(), "role"));
+        credentials.put("jwt", readJwt(jwtPath));
+        return credentials;
+    }
+}
@@ -0,0 +1,55 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.vault.config.auth;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientAuthenticationConfiguration;
+import io.reactivex.Flowable;
+import org.reactivestreams.Publisher;
+
+import javax.annotation.Nonnull;
+import javax.inject.Singleton;
+
+/**
+ *  A {@link VaultTokenSupplier} for the static token configured with {@code vault.client.token}. Without a
+ *  configured token the requests are sent unauthenticated.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@BootstrapContextCompatible
+@Requires(property = VaultClientAuthenticationConfiguration.PREFIX + ".method", value = "TOKEN", defaultValue = "TOKEN")
+public class StaticVaultTokenSupplier implements VaultTokenSupplier {
+
+    private final VaultClientConfiguration vaultClientConfiguration;
+
+    /**
+     * @param vaultClientConfiguration Vault Client Configuration
+     */
+    public StaticVaultTokenSupplier(VaultClientConfiguration vaultClientConfiguration) {
+        this.vaultClientConfiguration = vaultClientConfiguration;
+    }
+
+    @Nonnull
+    @Override
+    public Publisher<String> getToken() {
+        String token = vaultClientConfiguration.getToken();
+        return Flowable.just(token != null ? token : NO_TOKEN);
+    }
+}
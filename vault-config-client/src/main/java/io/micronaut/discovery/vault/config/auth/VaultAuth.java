@@ -0,0 +1,90 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.vault.config.auth;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.Introspected;
+
+import javax.annotation.concurrent.Immutable;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ *  Vault Auth object, returned by the login and token renewal endpoints.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Immutable
+@Introspected
+public class VaultAuth {
+
+    private final String clientToken;
+    private final Long leaseDuration;
+    private final boolean renewable;
+    private final List<String> policies;
+
+    /**
+     * Constructor for VaultAuth.
+     *
+     * @param clientToken The client token
+     * @param leaseDuration The token TTL in seconds
+     * @param renewable The flag indicating the token is renewable
+     * @param policies The token policies
+     */
+    @JsonCreator
+    @Internal
+    public VaultAuth(@JsonProperty("client_token") final String clientToken,
+                     @JsonProperty("lease_duration") final Long leaseDuration,
+                     @JsonProperty("renewable") final boolean renewable,
+                     @JsonProperty("policies") final List<String> policies) {
+
+        this.clientToken = clientToken;
+        this.leaseDuration = leaseDuration;
+        this.renewable = renewable;
+        this.policies = policies == null ? Collections.emptyList() : Collections.unmodifiableList(policies);
+    }
+
+    /**
+     * @return The client token
+     */
+    public String getClientToken() {
+        return clientToken;
+    }
+
+    /**
+     * @return The token TTL in seconds
+     */
+    public Long getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    /**
+     * @return The flag indicating the token is renewable
+     */
+    public boolean isRenewable() {
+        return renewable;
+    }
+
+    /**
+     * @return The token policies
+     */
+    public List<String> getPolicies() {
+        return policies;
+    }
+}
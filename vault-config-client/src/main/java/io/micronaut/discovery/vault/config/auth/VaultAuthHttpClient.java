@@ -0,0 +1,70 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package io.micronaut.discovery.vault.config.auth;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientDiscoveryConfiguration;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Consumes;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.Produces;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.retry.annotation.Retryable;
+import org.reactivestreams.Publisher;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+/**
+ *  A non-blocking HTTP client for the Vault authentication endpoints.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Client(value = VaultClientConfiguration.VAULT_CLIENT_CONFIG_ENDPOINT, configuration = VaultClientConfiguration.class)
+@BootstrapContextCompatible
+public interface VaultAuthHttpClient {
+
+    /**
+     * Logs in to Vault with an authentication method.
+     *
+     * @param path              The path the authentication method is mounted at
+     * @param credentials       The login credentials of the authentication method
+     * @return A {@link Publisher} that emits the {@link VaultAuthResponse}
+     */
+    @Post("/v1/auth/{path}/login")
+    @Produces(single = true)
+    @Consumes(single = true)
+    @Retryable(
+            attempts = "${" + VaultClientDiscoveryConfiguration.PREFIX + ".retry-count:3}",
+            delay = "${" + VaultClientDiscoveryConfiguration.PREFIX + ".retry-delay:1s}"
+    )
+    Publisher<VaultAuthResponse> login(@Nonnull String path, @Nonnull @Body Map<String, Object> credentials);
+
+    /**
+     * Renews the token used to authenticate the request.
+     *
+     * @param token             Vault authentication token
+     * @return A {@link Publisher} that emits the {@link VaultAuthResponse}
+     */
+    @Post("/v1/auth/token/renew-self")
+    @Produces(single = true)
+    @Consumes(single = true)
+    Publisher<VaultAuthResponse> renewSelf(@Nonnull @Header("X-Vault-Token") String token);
+
+}
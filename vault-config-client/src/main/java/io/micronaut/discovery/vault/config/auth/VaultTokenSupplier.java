@@ -0,0 +1,50 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.auth;
+
+import org.reactivestreams.Publisher;
+
+import javax.annotation.Nonnull;
+
+/**
+ * A contract for supplying the token sent to Vault with every request.
+ *
+ * @author thiagolocatelli
+ * @since 1.2.0
+ */
+public interface VaultTokenSupplier {
+
+    /**
+     * The token of the unauthenticated requests. It is sent as an empty X-Vault-Token header, which Vault ignores.
+     */
+    String NO_TOKEN = "";
+
+    /**
+     * @return A publisher that emits a valid Vault token, or {@link #NO_TOKEN} for unauthenticated requests
+     */
+    @Nonnull
+    Publisher<String> getToken();
+
+    /**
+     * Drops the token if it is still the one supplied, after Vault rejected it with a 403, so that the next call
+     * to {@link #getToken()} obtains a new one. Does nothing by default.
+     *
+     * @param token The token rejected by Vault
+     */
+    default void invalidate(@Nonnull String token) {
+    }
+}
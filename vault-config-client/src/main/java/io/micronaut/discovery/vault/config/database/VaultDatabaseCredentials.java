@@ -0,0 +1,160 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.database;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.time.Duration;
+import java.time.Instant;
+
+/**
+ *  Database credentials generated by Vault for a role, with their lease.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Immutable
+public final class VaultDatabaseCredentials {
+
+    private final String role;
+    private final String username;
+    private final String password;
+    private final String leaseId;
+    private final Duration leaseDuration;
+    private final Instant expiry;
+    private final boolean renewable;
+
+    /**
+     * @param role          The role
+     * @param username      The database username
+     * @param password      The database password
+     * @param leaseId       The lease id
+     * @param leaseDuration The lease duration, zero for credentials without lease
+     * @param expiry        The instant the lease expires at, null for credentials without lease
+     * @param renewable     Whether the lease is renewable
+     */
+    public VaultDatabaseCredentials(String role,
+                                    String username,
+                                    String password,
+                                    @Nullable String leaseId,
+                                    Duration leaseDuration,
+                                    @Nullable Instant expiry,
+                                    boolean renewable) {
+        this.role = role;
+        this.username = username;
+        this.password = password;
+        this.leaseId = leaseId;
+        this.leaseDuration = leaseDuration;
+        this.expiry = expiry;
+        this.renewable = renewable;
+    }
+
+    /**
+     * Creates the credentials of a response of Vault.
+     *
+     * @param role     The role
+     * @param response The response
+     * @param now      The instant the response was received
+     * @return The credentials
+     */
+    static VaultDatabaseCredentials of(String role, VaultDatabaseCredentialsResponse response, Instant now) {
+        Duration leaseDuration = leaseDuration(response);
+        return new VaultDatabaseCredentials(role, response.getUsername(), response.getPassword(),
+                response.getLeaseId(), leaseDuration, leaseDuration.isZero() ? null : now.plus(leaseDuration),
+                response.isRenewable());
+    }
+
+    /**
+     * Creates the same credentials with the lease of a renewal.
+     *
+     * @param response The renewal response
+     * @param now      The instant the response was received
+     * @return The renewed credentials
+     */
+    VaultDatabaseCredentials renewed(VaultDatabaseCredentialsResponse response, Instant now) {
+        Duration renewedDuration = leaseDuration(response);
+        return new VaultDatabaseCredentials(role, username, password, leaseId, renewedDuration,
+                now.plus(renewedDuration), response.isRenewable());
+    }
+
+    private static Duration leaseDuration(VaultDatabaseCredentialsResponse response) {
+        Long seconds = response.getLeaseDuration();
+        return seconds != null && seconds > 0 ? Duration.ofSeconds(seconds) : Duration.ZERO;
+    }
+
+    /**
+     * @return The role
+     */
+    public String getRole() {
+        return role;
+    }
+
+    /**
+     * @return The database username
+     */
+    public String getUsername() {
+        return username;
+    }
+
+    /**
+     * @return The database password
+     */
+    public String getPassword() {
+        return password;
+    }
+
+    /**
+     * @return The lease id
+     */
+    public String getLeaseId() {
+        return leaseId;
+    }
+
+    /**
+     * @return The lease duration, zero for credentials without lease
+     */
+    public Duration getLeaseDuration() {
+        return leaseDuration;
+    }
+
+    /**
+     * @return The instant the lease expires at, null for credentials without lease
+     */
+    public Instant getExpiry() {
+        return expiry;
+    }
+
+    /**
+     * @return Whether the lease is renewable
+     */
+    public boolean isRenewable() {
+        return renewable;
+    }
+
+    /**
+     * @return Whether the lease expired
+     */
+    public boolean isExpired() {
+        return expiry != null && !expiry.isAfter(Instant.now());
+    }
+
+    @Override
+    public String toString() {
+        return "VaultDatabaseCredentials{role=" + role + ", username=" + username + ", leaseId=" + leaseId
+                + ", expiry=" + expiry + "}";
+    }
+}
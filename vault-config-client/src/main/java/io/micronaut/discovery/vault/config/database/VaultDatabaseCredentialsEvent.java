@@ -0,0 +1,58 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.database;
+
+import io.micronaut.context.event.ApplicationEvent;
+
+import javax.annotation.Nullable;
+
+/**
+ *  Published when new database credentials are generated for a role, so that the connection pools use them
+ *  for their next connections. The previous credentials stay valid until their lease is revoked, after the revoke
+ *  delay of the database configuration, or expires. The connections opened with them have to be closed by then,
+ *  e.g. as they are returned to the pool.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultDatabaseCredentialsEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final VaultDatabaseCredentials previous;
+
+    /**
+     * @param credentials The new credentials
+     * @param previous    The previous credentials, null for the first credentials of the role
+     */
+    public VaultDatabaseCredentialsEvent(VaultDatabaseCredentials credentials, @Nullable VaultDatabaseCredentials previous) {
+        super(credentials);
+        this.previous = previous;
+    }
+
+    @Override
+    public VaultDatabaseCredentials getSource() {
+        return (VaultDatabaseCredentials) super.getSource();
+    }
+
+    /**
+     * @return The previous credentials, null for the first credentials of the role
+     */
+    public VaultDatabaseCredentials getPrevious() {
+        return previous;
+    }
+}
@@ -0,0 +1,301 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.database;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientDatabaseConfiguration;
+import io.micronaut.discovery.vault.config.auth.VaultTokenSupplier;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import io.reactivex.Flowable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ *  Keeps database credentials generated by Vault for every role. The lease of the current credentials is
+ *  renewed in the background, and once it can no longer be renewed past the rotation window the next credentials
+ *  are generated before it expires. The lease of the previous credentials is revoked once the revoke delay passed,
+ *  unless it expires before, so that the replaced credentials do not stay valid for the rest of their lease. The
+ *  lookups of the credentials never wait on Vault, they return the current credentials held in memory.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@Requires(property = VaultClientDatabaseConfiguration.PREFIX + ".enabled", value = "true")
+public class VaultDatabaseCredentialsManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultDatabaseCredentialsManager.class);
+
+    private final VaultDatabaseHttpClient databaseHttpClient;
+    private final VaultClientDatabaseConfiguration databaseConfiguration;
+    private final VaultTokenSupplier tokenSupplier;
+    private final TaskScheduler taskScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<String, RoleCredentials> roles = new ConcurrentHashMap<>();
+    private volatile boolean closed;
+
+    /**
+     * @param databaseHttpClient       The database http client
+     * @param vaultClientConfiguration Vault Client Configuration
+     * @param tokenSupplier            The Vault token supplier
+     * @param taskScheduler            The task scheduler
+     * @param eventPublisher           The event publisher
+     */
+    public VaultDatabaseCredentialsManager(VaultDatabaseHttpClient databaseHttpClient,
+                                           VaultClientConfiguration vaultClientConfiguration,
+                                           VaultTokenSupplier tokenSupplier,
+                                           @Named(TaskExecutors.SCHEDULED) TaskScheduler taskScheduler,
+                                           ApplicationEventPublisher eventPublisher) {
+        this.databaseHttpClient = databaseHttpClient;
+        this.databaseConfiguration = vaultClientConfiguration.getDatabaseConfiguration();
+        this.tokenSupplier = tokenSupplier;
+        this.taskScheduler = taskScheduler;
+        this.eventPublisher = eventPublisher;
+        databaseConfiguration.getRoles().forEach(this::role);
+    }
+
+    /**
+     * Looks up the current credentials of a role without waiting on Vault. The credentials of a role not
+     * configured are generated from the first lookup on.
+     *
+     * @param role The role
+     * @return The current credentials, empty until the first credentials of the role are generated
+     */
+    public Optional<VaultDatabaseCredentials> getCredentials(String role) {
+        return Optional.ofNullable(role(role).current);
+    }
+
+    /**
+     * Waits for the first credentials of a role, e.g. while a connection pool is created.
+     *
+     * @param role    The role
+     * @param timeout The maximum time to wait
+     * @return The current credentials
+     * @throws ConfigurationException If the credentials could not be generated in time
+     */
+    public VaultDatabaseCredentials awaitCredentials(String role, Duration timeout) {
+        RoleCredentials roleCredentials = role(role);
+        VaultDatabaseCredentials current = roleCredentials.current;
+        if (current != null) {
+            return current;
+        }
+        try {
+            return roleCredentials.first.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            throw new ConfigurationException("No database credentials generated by Vault for role [" + role + "] after " + timeout, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConfigurationException("Interrupted while waiting for the database credentials of role [" + role + "]", e);
+        }
+    }
+
+    /**
+     * @return The current credentials by role
+     */
+    public Map<String, VaultDatabaseCredentials> getAllCredentials() {
+        Map<String, VaultDatabaseCredentials> credentials = new LinkedHashMap<>();
+        roles.forEach((role, roleCredentials) -> {
+            if (roleCredentials.current != null) {
+                credentials.put(role, roleCredentials.current);
+            }
+        });
+        return credentials;
+    }
+
+    /**
+     * Stops the renewals and the rotations.
+     */
+    @PreDestroy
+    public void close() {
+        closed = true;
+        roles.values().forEach(RoleCredentials::cancel);
+    }
+
+    private RoleCredentials role(String role) {
+        return roles.computeIfAbsent(role, name -> {
+            RoleCredentials roleCredentials = new RoleCredentials(name);
+            taskScheduler.schedule(Duration.ZERO, roleCredentials::generate);
+            return roleCredentials;
+        });
+    }
+
+    /**
+     * The credentials of a role and the next renewal or rotation of their lease.
+     */
+    private final class RoleCredentials {
+
+        private final String role;
+        private final CompletableFuture<VaultDatabaseCredentials> first = new CompletableFuture<>();
+        private volatile VaultDatabaseCredentials current;
+        private ScheduledFuture<?> next;
+
+        RoleCredentials(String role) {
+            this.role = role;
+        }
+
+        /**
+         * Generates the next credentials, which replace the current ones once received.
+         */
+        void generate() {
+            Flowable.fromPublisher(tokenSupplier.getToken())
+                    .flatMap(token -> databaseHttpClient.generateCredentials(token, databaseConfiguration.getBackend(), role))
+                    .firstOrError()
+                    .subscribe(response -> {
+                        VaultDatabaseCredentials credentials = VaultDatabaseCredentials.of(role, response, Instant.now());
+                        VaultDatabaseCredentials previous = current;
+                        current = credentials;
+                        first.complete(credentials);
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("Generated database credentials {}", credentials);
+                        }
+                        eventPublisher.publishEvent(new VaultDatabaseCredentialsEvent(credentials, previous));
+                        scheduleNext(credentials);
+                        if (previous != null) {
+                            scheduleRevocation(previous);
+                        }
+                    }, throwable -> {
+                        VaultDatabaseCredentials previous = current;
+                        LOG.warn("Error generating database credentials for role [{}], the current ones expire at {}: {}",
+                                role, previous != null ? previous.getExpiry() : null, throwable.getMessage());
+                        schedule(databaseConfiguration.getRetryDelay(), this::generate);
+                    });
+        }
+
+        /**
+         * Renews the lease of the credentials, or generates the next credentials after the retry delay if it cannot
+         * be renewed, so that an unavailable Vault is not hit again right away.
+         */
+        void renew(VaultDatabaseCredentials credentials) {
+            Map<String, Object> renewal = new LinkedHashMap<>();
+            renewal.put("lease_id", credentials.getLeaseId());
+            renewal.put("increment", credentials.getLeaseDuration().getSeconds());
+            Flowable.fromPublisher(tokenSupplier.getToken())
+                    .flatMap(token -> databaseHttpClient.renewLease(token, renewal))
+                    .firstOrError()
+                    .subscribe(response -> {
+                        VaultDatabaseCredentials renewed = credentials.renewed(response, Instant.now());
+                        if (current == credentials) {
+                            current = renewed;
+                        }
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("Renewed the lease of database credentials {}", renewed);
+                        }
+                        scheduleNext(renewed);
+                    }, throwable -> {
+                        LOG.warn("Error renewing the lease of database credentials {}, generating new ones in {}: {}",
+                                credentials, databaseConfiguration.getRetryDelay(), throwable.getMessage());
+                        schedule(databaseConfiguration.getRetryDelay(), this::generate);
+                    });
+        }
+
+        /**
+         * Schedules the renewal of the lease while it can be renewed past the rotation window, otherwise the
+         * generation of the next credentials at the start of the window.
+         */
+        void scheduleNext(VaultDatabaseCredentials credentials) {
+            Instant expiry = credentials.getExpiry();
+            if (expiry == null) {
+                return;
+            }
+            Instant now = Instant.now();
+            Duration leaseDuration = credentials.getLeaseDuration();
+            double renewFraction = databaseConfiguration.getRenewFraction();
+            Duration rotateBefore = databaseConfiguration.getRotateBefore();
+            Duration maxRotateBefore = Duration.ofMillis((long) (leaseDuration.toMillis() * (1 - renewFraction)));
+            if (rotateBefore.compareTo(maxRotateBefore) > 0) {
+                rotateBefore = maxRotateBefore;
+            }
+            Instant rotateAt = expiry.minus(rotateBefore);
+            Instant renewAt = now.plusMillis((long) (leaseDuration.toMillis() * renewFraction));
+            if (credentials.isRenewable() && renewAt.isBefore(rotateAt)) {
+                schedule(Duration.between(now, renewAt), () -> renew(credentials));
+            } else {
+                if (LOG.isDebugEnabled()) {
+                    LOG.debug("Generating the next database credentials of role [{}] at {}", role, rotateAt);
+                }
+                schedule(rotateAt.isAfter(now) ? Duration.between(now, rotateAt) : Duration.ZERO, this::generate);
+            }
+        }
+
+        /**
+         * Schedules the revocation of the lease of replaced credentials after the revoke delay, unless it expires
+         * before.
+         */
+        void scheduleRevocation(VaultDatabaseCredentials credentials) {
+            Duration revokeDelay = databaseConfiguration.getRevokeDelay();
+            if (revokeDelay == null || revokeDelay.isZero() || revokeDelay.isNegative()) {
+                return;
+            }
+            Instant expiry = credentials.getExpiry();
+            if (expiry != null && !expiry.isAfter(Instant.now().plus(revokeDelay))) {
+                return;
+            }
+            taskScheduler.schedule(revokeDelay, () -> revoke(credentials));
+        }
+
+        /**
+         * Revokes the lease of replaced credentials, which otherwise expires on its own.
+         */
+        void revoke(VaultDatabaseCredentials credentials) {
+            if (closed) {
+                return;
+            }
+            Flowable.fromPublisher(tokenSupplier.getToken())
+                    .flatMap(token -> databaseHttpClient.revokeLease(token,
+                            Collections.singletonMap("lease_id", credentials.getLeaseId())))
+                    .firstOrError()
+                    .subscribe(response -> {
+                        if (LOG.isDebugEnabled()) {
+                            LOG.debug("Revoked the lease of database credentials {}", credentials);
+                        }
+                    }, throwable -> LOG.warn("Error revoking the lease of database credentials {}, it expires at {}: {}",
+                            credentials, credentials.getExpiry(), throwable.getMessage()));
+        }
+
+        synchronized void schedule(Duration delay, Runnable task) {
+            if (!closed) {
+                next = taskScheduler.schedule(delay, task);
+            }
+        }
+
+        synchronized void cancel() {
+            if (next != null) {
+                next.cancel(false);
+            }
+        }
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.database;
+
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientConnectionPoolConfiguration;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Consumes;
+import io.micronaut.http.annotation.Get;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.Produces;
+import io.micronaut.http.annotation.Put;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.retry.annotation.Retryable;
+import org.reactivestreams.Publisher;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+/**
+ *  A non-blocking HTTP client for the Vault database secrets engine, the lease renewals and revocations.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Client(value = VaultClientConfiguration.VAULT_CLIENT_CONFIG_ENDPOINT, configuration = VaultClientConfiguration.class)
+public interface VaultDatabaseHttpClient {
+
+    /**
+     * Generates new database credentials for a role.
+     *
+     * @param token             Vault authentication token
+     * @param backend           The path the database secrets engine is mounted at
+     * @param role              The role
+     * @return A {@link Publisher} that emits the {@link VaultDatabaseCredentialsResponse}
+     */
+    @Get("/v1/{backend}/creds/{role}")
+    @Produces(single = true)
+    @Consumes(single = true)
+    @Retryable(
+            attempts = "${" + VaultClientConnectionPoolConfiguration.PREFIX + ".retry-count:3}",
+            delay = "${" + VaultClientConnectionPoolConfiguration.PREFIX + ".retry-delay:1s}"
+    )
+    Publisher<VaultDatabaseCredentialsResponse> generateCredentials(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull String backend,
+            @Nonnull String role);
+
+    /**
+     * Renews a lease. The response carries the lease duration granted, without data.
+     *
+     * @param token             Vault authentication token
+     * @param renewal           The lease id and the requested increment in seconds
+     * @return A {@link Publisher} that emits the {@link VaultDatabaseCredentialsResponse}
+     */
+    @Put("/v1/sys/leases/renew")
+    @Produces(single = true)
+    @Consumes(single = true)
+    Publisher<VaultDatabaseCredentialsResponse> renewLease(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull @Body Map<String, Object> renewal);
+
+    /**
+     * Revokes a lease. Vault answers with no content.
+     *
+     * @param token             Vault authentication token
+     * @param revocation        The lease id
+     * @return A {@link Publisher} that emits the response
+     */
+    @Put("/v1/sys/leases/revoke")
+    @Produces(single = true)
+    @Consumes(single = true)
+    Publisher<HttpResponse<?>> revokeLease(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull @Body Map<String, Object> revocation);
+}
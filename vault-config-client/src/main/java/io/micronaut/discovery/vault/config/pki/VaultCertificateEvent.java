@@ -0,0 +1,56 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.pki;
+
+import io.micronaut.context.event.ApplicationEvent;
+
+import javax.annotation.Nullable;
+
+/**
+ *  Published when a new certificate is issued by Vault. The TLS contexts of the {@link VaultCertificateManager}
+ *  already use it for their next handshakes, the event is for the other users of the certificate.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultCertificateEvent extends ApplicationEvent {
+
+    private static final long serialVersionUID = 1L;
+
+    private final VaultCertificate previous;
+
+    /**
+     * @param certificate The new certificate
+     * @param previous    The previous certificate, null for the first certificate
+     */
+    public VaultCertificateEvent(VaultCertificate certificate, @Nullable VaultCertificate previous) {
+        super(certificate);
+        this.previous = previous;
+    }
+
+    @Override
+    public VaultCertificate getSource() {
+        return (VaultCertificate) super.getSource();
+    }
+
+    /**
+     * @return The previous certificate, null for the first certificate
+     */
+    public VaultCertificate getPrevious() {
+        return previous;
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.pki;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.event.ApplicationEventPublisher;
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientPkiConfiguration;
+import io.micronaut.discovery.vault.config.auth.VaultTokenSupplier;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import io.netty.handler.ssl.ClientAuth;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.reactivex.Flowable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.SSLException;
+import javax.net.ssl.TrustManagerFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ *  Keeps a certificate issued by the Vault PKI secrets engine, issuing the next one in the background at a
+ *  fraction of the lifetime of the current one. The TLS contexts created by this manager present the current
+ *  certificate and trust its certificate authorities, a new certificate applies to their next handshakes without
+ *  restart, and the handshakes never wait on Vault.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@Requires(property = VaultClientPkiConfiguration.PREFIX + ".enabled", value = "true")
+public class VaultCertificateManager {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultCertificateManager.class);
+
+    private final VaultPkiHttpClient pkiHttpClient;
+    private final VaultClientPkiConfiguration pkiConfiguration;
+    private final VaultTokenSupplier tokenSupplier;
+    private final TaskScheduler taskScheduler;
+    private final ApplicationEventPublisher eventPublisher;
+    private final VaultReloadingKeyManager keyManager = new VaultReloadingKeyManager();
+    private final VaultReloadingTrustManager trustManager = new VaultReloadingTrustManager();
+    private final CompletableFuture<VaultCertificate> first = new CompletableFuture<>();
+    private volatile VaultCertificate current;
+    private ScheduledFuture<?> next;
+    private boolean closed;
+
+    /**
+     * @param pkiHttpClient            The PKI http client
+     * @param vaultClientConfiguration Vault Client Configuration
+     * @param tokenSupplier            The Vault token supplier
+     * @param taskScheduler            The task scheduler
+     * @param eventPublisher           The event publisher
+     */
+    public VaultCertificateManager(VaultPkiHttpClient pkiHttpClient,
+                                   VaultClientConfiguration vaultClientConfiguration,
+                                   VaultTokenSupplier tokenSupplier,
+                                   @Named(TaskExecutors.SCHEDULED) TaskScheduler taskScheduler,
+                                   ApplicationEventPublisher eventPublisher) {
+        this.pkiHttpClient = pkiHttpClient;
+        this.pkiConfiguration = vaultClientConfiguration.getPkiConfiguration();
+        this.tokenSupplier = tokenSupplier;
+        this.taskScheduler = taskScheduler;
+        this.eventPublisher = eventPublisher;
+        if (pkiConfiguration.getRole() == null || pkiConfiguration.getCommonName() == null) {
+            throw new ConfigurationException("The role and the common name of the certificate must be set with "
+                    + VaultClientPkiConfiguration.PREFIX + ".role and " + VaultClientPkiConfiguration.PREFIX + ".common-name");
+        }
+        schedule(Duration.ZERO);
+    }
+
+    /**
+     * @return The current certificate, empty until the first certificate is issued
+     */
+    public Optional<VaultCertificate> getCertificate() {
+        return Optional.ofNullable(current);
+    }
+
+    /**
+     * Waits for the first certificate, e.g. before a server starts accepting connections.
+     *
+     * @param timeout The maximum time to wait
+     * @return The current certificate
+     * @throws ConfigurationException If the certificate could not be issued in time
+     */
+    public VaultCertificate awaitCertificate(Duration timeout) {
+        VaultCertificate certificate = current;
+        if (certificate != null) {
+            return certificate;
+        }
+        try {
+            return first.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException | ExecutionException e) {
+            throw new ConfigurationException("No certificate issued by Vault after " + timeout, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConfigurationException("Interrupted while waiting for the certificate issued by Vault", e);
+        }
+    }
+
+    /**
+     * @return A key manager factory presenting the current certificate
+     */
+    public KeyManagerFactory getKeyManagerFactory() {
+        return keyManager.factory();
+    }
+
+    /**
+     * @return A trust manager factory trusting the certificate authorities of the current certificate
+     */
+    public TrustManagerFactory getTrustManagerFactory() {
+        return trustManager.factory();
+    }
+
+    /**
+     * Creates a server TLS context presenting the current certificate.
+     *
+     * @param clientAuth Whether the clients must present a certificate issued by the same certificate authorities
+     * @return The TLS context
+     */
+    public SslContext createServerSslContext(ClientAuth clientAuth) {
+        try {
+            return SslContextBuilder.forServer(keyManager.factory())
+                    .trustManager(trustManager.factory())
+                    .clientAuth(clientAuth)
+                    .build();
+        } catch (SSLException e) {
+            throw new ConfigurationException("Unable to create the server TLS context: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Creates a client TLS context presenting the current certificate and trusting the servers whose certificate
+     * was issued by the same certificate authorities.
+     *
+     * @return The TLS context
+     */
+    public SslContext createClientSslContext() {
+        try {
+            return SslContextBuilder.forClient()
+                    .keyManager(keyManager.factory())
+                    .trustManager(trustManager.factory())
+                    .build();
+        } catch (SSLException e) {
+            throw new ConfigurationException("Unable to create the client TLS context: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Stops the issuance of the next certificates.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        closed = true;
+        if (next != null) {
+            next.cancel(false);
+        }
+    }
+
+    private void issue() {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("common_name", pkiConfiguration.getCommonName());
+        List<String> altNames = pkiConfiguration.getAltNames();
+        if (altNames != null && !altNames.isEmpty()) {
+            request.put("alt_names", String.join(",", altNames));
+        }
+        Duration ttl = pkiConfiguration.getTtl();
+        if (ttl != null) {
+            request.put("ttl", ttl.getSeconds() + "s");
+        }
+        request.put("private_key_format", "pkcs8");
+
+        Flowable.fromPublisher(tokenSupplier.getToken())
+                .flatMap(token -> pkiHttpClient.issue(token, pkiConfiguration.getBackend(), pkiConfiguration.getRole(), request))
+                .firstOrError()
+                .map(response -> VaultCertificate.of(response.getData()))
+                .subscribe(certificate -> {
+                    keyManager.update(certificate);
+                    trustManager.update(certificate);
+                    VaultCertificate previous = current;
+                    current = certificate;
+                    first.complete(certificate);
+                    LOG.info("Certificate issued by Vault: {}", certificate);
+                    eventPublisher.publishEvent(new VaultCertificateEvent(certificate, previous));
+                    schedule(nextDelay(certificate));
+                }, throwable -> {
+                    VaultCertificate previous = current;
+                    LOG.warn("Error issuing a certificate with role [{}], the current one expires at {}: {}",
+                            pkiConfiguration.getRole(), previous != null ? previous.getNotAfter() : null, throwable.getMessage());
+                    schedule(pkiConfiguration.getRetryDelay());
+                });
+    }
+
+    private Duration nextDelay(VaultCertificate certificate) {
+        Instant notBefore = certificate.getNotBefore();
+        long lifetime = Duration.between(notBefore, certificate.getNotAfter()).toMillis();
+        Instant renewAt = notBefore.plusMillis((long) (lifetime * pkiConfiguration.getRenewFraction()));
+        Instant now = Instant.now();
+        return renewAt.isAfter(now) ? Duration.between(now, renewAt) : pkiConfiguration.getRetryDelay();
+    }
+
+    private synchronized void schedule(Duration delay) {
+        if (!closed) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("Issuing the next certificate in {}", delay);
+            }
+            next = taskScheduler.schedule(delay, this::issue);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.pki;
+
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientConnectionPoolConfiguration;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Consumes;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.Produces;
+import io.micronaut.http.client.annotation.Client;
+import io.micronaut.retry.annotation.Retryable;
+import org.reactivestreams.Publisher;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+/**
+ *  A non-blocking HTTP client for the Vault PKI secrets engine.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Client(value = VaultClientConfiguration.VAULT_CLIENT_CONFIG_ENDPOINT, configuration = VaultClientConfiguration.class)
+public interface VaultPkiHttpClient {
+
+    /**
+     * Issues a new certificate and private key for a role.
+     *
+     * @param token             Vault authentication token
+     * @param backend           The path the PKI secrets engine is mounted at
+     * @param role              The role
+     * @param request           The request body, holding the common name and the options of the certificate
+     * @return A {@link Publisher} that emits the {@link VaultPkiResponse}
+     */
+    @Post("/v1/{backend}/issue/{role}")
+    @Produces(single = true)
+    @Consumes(single = true)
+    @Retryable(
+            attempts = "${" + VaultClientConnectionPoolConfiguration.PREFIX + ".retry-count:3}",
+            delay = "${" + VaultClientConnectionPoolConfiguration.PREFIX + ".retry-delay:1s}"
+    )
+    Publisher<VaultPkiResponse> issue(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull String backend,
+            @Nonnull String role,
+            @Nonnull @Body Map<String, Object> request);
+}
@@ -0,0 +1,181 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.pki;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.KeyManagerFactory;
+import javax.net.ssl.KeyManagerFactorySpi;
+import javax.net.ssl.ManagerFactoryParameters;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.X509ExtendedKeyManager;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.NoSuchAlgorithmException;
+import java.security.Principal;
+import java.security.PrivateKey;
+import java.security.cert.X509Certificate;
+
+/**
+ *  A key manager presenting the current certificate issued by Vault. Every handshake reads the certificate
+ *  in memory, a new certificate applies to the next handshake. Until the first certificate is issued no
+ *  certificate is presented.
+ *
+ *  <p>Each certificate is chosen under its own alias, {@link VaultCertificate#getAlias()}, and its chain and private
+ *  key are looked up by that alias. A handshake that chose the previous certificate while a new one is swapped in
+ *  still gets the chain and the key of the certificate it chose, never a mix of both.</p>
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+final class VaultReloadingKeyManager extends X509ExtendedKeyManager {
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    /**
+     * Swaps in a new certificate, the previous one staying available to the handshakes that already chose it.
+     *
+     * @param certificate The certificate
+     * @throws GeneralSecurityException If no key manager can be created for the certificate
+     */
+    void update(VaultCertificate certificate) throws GeneralSecurityException {
+        KeyManagerFactory keyManagerFactory = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        keyManagerFactory.init(certificate.getKeyStore(), certificate.getKeyStorePassword());
+        for (KeyManager keyManager : keyManagerFactory.getKeyManagers()) {
+            if (keyManager instanceof X509ExtendedKeyManager) {
+                synchronized (this) {
+                    previous = current;
+                    current = new Generation(certificate, (X509ExtendedKeyManager) keyManager);
+                }
+                return;
+            }
+        }
+        throw new GeneralSecurityException("No X.509 key manager available");
+    }
+
+    /**
+     * @return A key manager factory whose only key manager is this one
+     */
+    KeyManagerFactory factory() {
+        KeyManagerFactory defaults;
+        try {
+            defaults = KeyManagerFactory.getInstance(KeyManagerFactory.getDefaultAlgorithm());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No default key manager factory available", e);
+        }
+        KeyManager[] keyManagers = {this};
+        return new KeyManagerFactory(new KeyManagerFactorySpi() {
+            @Override
+            protected void engineInit(KeyStore keyStore, char[] password) {
+            }
+
+            @Override
+            protected void engineInit(ManagerFactoryParameters parameters) {
+            }
+
+            @Override
+            protected KeyManager[] engineGetKeyManagers() {
+                return keyManagers.clone();
+            }
+        }, defaults.getProvider(), defaults.getAlgorithm()) { };
+    }
+
+    @Override
+    public String[] getClientAliases(String keyType, Principal[] issuers) {
+        Generation generation = current;
+        return generation != null && generation.keyManager.getClientAliases(keyType, issuers) != null
+                ? new String[] {generation.alias} : null;
+    }
+
+    @Override
+    public String chooseClientAlias(String[] keyTypes, Principal[] issuers, Socket socket) {
+        Generation generation = current;
+        return generation != null && generation.keyManager.chooseClientAlias(keyTypes, issuers, socket) != null
+                ? generation.alias : null;
+    }
+
+    @Override
+    public String chooseEngineClientAlias(String[] keyTypes, Principal[] issuers, SSLEngine engine) {
+        Generation generation = current;
+        return generation != null && generation.keyManager.chooseEngineClientAlias(keyTypes, issuers, engine) != null
+                ? generation.alias : null;
+    }
+
+    @Override
+    public String[] getServerAliases(String keyType, Principal[] issuers) {
+        Generation generation = current;
+        return generation != null && generation.keyManager.getServerAliases(keyType, issuers) != null
+                ? new String[] {generation.alias} : null;
+    }
+
+    @Override
+    public String chooseServerAlias(String keyType, Principal[] issuers, Socket socket) {
+        Generation generation = current;
+        return generation != null && generation.keyManager.chooseServerAlias(keyType, issuers, socket) != null
+                ? generation.alias : null;
+    }
+
+    @Override
+    public String chooseEngineServerAlias(String keyType, Principal[] issuers, SSLEngine engine) {
+        Generation generation = current;
+        return generation != null && generation.keyManager.chooseEngineServerAlias(keyType, issuers, engine) != null
+                ? generation.alias : null;
+    }
+
+    @Override
+    public X509Certificate[] getCertificateChain(String alias) {
+        Generation generation = generation(alias);
+        return generation != null ? generation.certificate.getChain() : null;
+    }
+
+    @Override
+    public PrivateKey getPrivateKey(String alias) {
+        Generation generation = generation(alias);
+        return generation != null ? generation.certificate.getPrivateKey() : null;
+    }
+
+    /**
+     * @param alias The alias chosen by a handshake
+     * @return The current or the previous certificate with this alias, null if neither has it
+     */
+    private synchronized Generation generation(String alias) {
+        if (current != null && current.alias.equals(alias)) {
+            return current;
+        }
+        if (previous != null && previous.alias.equals(alias)) {
+            return previous;
+        }
+        return null;
+    }
+
+    /**
+     * A certificate with the key manager choosing it for the key types and issuers of a handshake.
+     */
+    private static final class Generation {
+
+        private final VaultCertificate certificate;
+        private final X509ExtendedKeyManager keyManager;
+        private final String alias;
+
+        Generation(VaultCertificate certificate, X509ExtendedKeyManager keyManager) {
+            this.certificate = certificate;
+            this.keyManager = keyManager;
+            this.alias = certificate.getAlias();
+        }
+    }
+}
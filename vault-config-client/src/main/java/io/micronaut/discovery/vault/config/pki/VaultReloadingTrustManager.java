@@ -0,0 +1,144 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.pki;
+
+import javax.net.ssl.ManagerFactoryParameters;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.TrustManagerFactorySpi;
+import javax.net.ssl.X509ExtendedTrustManager;
+import java.io.IOException;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.NoSuchAlgorithmException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.util.List;
+
+/**
+ *  A trust manager trusting the certificate authorities that issued the current certificate of Vault, so that
+ *  the peers of a mutual TLS connection are verified against the same PKI. Until the first certificate is issued
+ *  no peer is trusted.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+final class VaultReloadingTrustManager extends X509ExtendedTrustManager {
+
+    private volatile X509ExtendedTrustManager delegate;
+
+    /**
+     * Swaps in the certificate authorities of a new certificate.
+     *
+     * @param certificate The certificate
+     * @throws GeneralSecurityException If no trust manager can be created for the certificate authorities
+     */
+    void update(VaultCertificate certificate) throws GeneralSecurityException {
+        KeyStore trustStore = KeyStore.getInstance(KeyStore.getDefaultType());
+        try {
+            trustStore.load(null, null);
+        } catch (IOException e) {
+            throw new GeneralSecurityException(e);
+        }
+        List<X509Certificate> authorities = certificate.getAuthorities();
+        for (int i = 0; i < authorities.size(); i++) {
+            trustStore.setCertificateEntry("ca-" + i, authorities.get(i));
+        }
+        TrustManagerFactory trustManagerFactory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        trustManagerFactory.init(trustStore);
+        for (TrustManager trustManager : trustManagerFactory.getTrustManagers()) {
+            if (trustManager instanceof X509ExtendedTrustManager) {
+                delegate = (X509ExtendedTrustManager) trustManager;
+                return;
+            }
+        }
+        throw new GeneralSecurityException("No X.509 trust manager available");
+    }
+
+    /**
+     * @return A trust manager factory whose only trust manager is this one
+     */
+    TrustManagerFactory factory() {
+        TrustManagerFactory defaults;
+        try {
+            defaults = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("No default trust manager factory available", e);
+        }
+        TrustManager[] trustManagers = {this};
+        return new TrustManagerFactory(new TrustManagerFactorySpi() {
+            @Override
+            protected void engineInit(KeyStore keyStore) {
+            }
+
+            @Override
+            protected void engineInit(ManagerFactoryParameters parameters) {
+            }
+
+            @Override
+            protected TrustManager[] engineGetTrustManagers() {
+                return trustManagers.clone();
+            }
+        }, defaults.getProvider(), defaults.getAlgorithm()) { };
+    }
+
+    private X509ExtendedTrustManager current() throws CertificateException {
+        X509ExtendedTrustManager current = delegate;
+        if (current == null) {
+            throw new CertificateException("No certificate authority known before the first certificate is issued by Vault");
+        }
+        return current;
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
+        current().checkClientTrusted(chain, authType, socket);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType, Socket socket) throws CertificateException {
+        current().checkServerTrusted(chain, authType, socket);
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException {
+        current().checkClientTrusted(chain, authType, engine);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType, SSLEngine engine) throws CertificateException {
+        current().checkServerTrusted(chain, authType, engine);
+    }
+
+    @Override
+    public void checkClientTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        current().checkClientTrusted(chain, authType);
+    }
+
+    @Override
+    public void checkServerTrusted(X509Certificate[] chain, String authType) throws CertificateException {
+        current().checkServerTrusted(chain, authType);
+    }
+
+    @Override
+    public X509Certificate[] getAcceptedIssuers() {
+        X509ExtendedTrustManager current = delegate;
+        return current != null ? current.getAcceptedIssuers() : new X509Certificate[0];
+    }
+}
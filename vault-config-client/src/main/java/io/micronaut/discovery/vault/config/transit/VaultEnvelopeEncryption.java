@@ -0,0 +1,320 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.transit;
+
+import io.micronaut.context.exceptions.ConfigurationException;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientTransitConfiguration;
+import io.micronaut.discovery.vault.config.auth.VaultTokenSupplier;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.crypto.Cipher;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import javax.inject.Singleton;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ *  Encrypts payloads locally with AES-GCM under data keys generated by the Vault transit secrets engine. The
+ *  plaintext data key is kept in memory for a bounded lifetime and number of encryptions, only the data key
+ *  wrapped by the transit key is stored in the envelope. Vault is only called to generate a new data key, and to
+ *  unwrap the data key of an envelope not in memory.
+ *
+ *  <p>Envelope layout: the format version, the length of the wrapped data key on two bytes, the wrapped data key,
+ *  the initialization vector and the ciphertext with its authentication tag. Everything before the initialization
+ *  vector is authenticated as additional data.</p>
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+public class VaultEnvelopeEncryption {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultEnvelopeEncryption.class);
+    private static final byte VERSION = 1;
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+    private static final String CIPHER = "AES/GCM/NoPadding";
+
+    private final VaultTransitHttpClient transitHttpClient;
+    private final VaultTransitClient transitClient;
+    private final VaultClientTransitConfiguration transitConfiguration;
+    private final VaultTokenSupplier tokenSupplier;
+    private final SecureRandom secureRandom = new SecureRandom();
+    private final Map<String, DataKey> encryptionKeys = new ConcurrentHashMap<>();
+    private final Map<String, DataKey> decryptionKeys;
+    private final Map<String, Single<DataKey>> pendingKeys = new ConcurrentHashMap<>();
+
+    /**
+     * @param transitHttpClient        The transit http client
+     * @param transitClient            The transit client, unwrapping the data keys
+     * @param vaultClientConfiguration Vault Client Configuration
+     * @param tokenSupplier            The Vault token supplier
+     * @throws ConfigurationException If the data keys could never be used, with a maximum number of encryptions
+     *                                or a lifetime that is not positive
+     */
+    public VaultEnvelopeEncryption(VaultTransitHttpClient transitHttpClient,
+                                   VaultTransitClient transitClient,
+                                   VaultClientConfiguration vaultClientConfiguration,
+                                   VaultTokenSupplier tokenSupplier) {
+        this.transitHttpClient = transitHttpClient;
+        this.transitClient = transitClient;
+        this.transitConfiguration = vaultClientConfiguration.getTransitConfiguration();
+        this.tokenSupplier = tokenSupplier;
+        if (transitConfiguration.getDataKeyMaxUses() <= 0) {
+            throw new ConfigurationException("The maximum number of encryptions with a data key must be positive, was "
+                    + transitConfiguration.getDataKeyMaxUses());
+        }
+        Duration dataKeyLifetime = transitConfiguration.getDataKeyLifetime();
+        if (dataKeyLifetime == null || dataKeyLifetime.isZero() || dataKeyLifetime.isNegative()) {
+            throw new ConfigurationException("The lifetime of the data keys must be positive, was " + dataKeyLifetime);
+        }
+        int cacheSize = Math.max(1, transitConfiguration.getDataKeyCacheSize());
+        this.decryptionKeys = Collections.synchronizedMap(new LinkedHashMap<String, DataKey>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, DataKey> eldest) {
+                return size() > cacheSize;
+            }
+        });
+    }
+
+    /**
+     * Encrypts a payload under the current data key of a transit key.
+     *
+     * @param key       The name of the transit key wrapping the data keys
+     * @param plaintext The payload
+     * @return A publisher of the envelope
+     */
+    public Publisher<byte[]> encrypt(@Nonnull String key, @Nonnull byte[] plaintext) {
+        return encryptionKey(key).map(dataKey -> seal(dataKey, plaintext)).toFlowable();
+    }
+
+    /**
+     * Decrypts an envelope.
+     *
+     * @param key      The name of the transit key wrapping the data key of the envelope
+     * @param envelope The envelope
+     * @return A publisher of the payload
+     */
+    public Publisher<byte[]> decrypt(@Nonnull String key, @Nonnull byte[] envelope) {
+        return Single.fromCallable(() -> wrappedKey(envelope))
+                .flatMap(wrapped -> decryptionKey(key, wrapped))
+                .map(dataKey -> open(dataKey, envelope))
+                .toFlowable();
+    }
+
+    /**
+     * Drops the data key encrypting with a transit key, e.g. after the transit key was rotated, so that the next
+     * encryption uses a data key wrapped by the latest version of the transit key.
+     *
+     * @param key The name of the transit key
+     */
+    public void rotate(@Nonnull String key) {
+        encryptionKeys.remove(key);
+    }
+
+    private Single<DataKey> encryptionKey(String key) {
+        DataKey dataKey = encryptionKeys.get(key);
+        if (dataKey != null) {
+            if (dataKey.use(transitConfiguration.getDataKeyMaxUses())) {
+                return Single.just(dataKey);
+            }
+            encryptionKeys.remove(key, dataKey);
+        }
+        return coalesce("encrypt:" + key, () -> generateDataKey(key).doOnSuccess(generated -> {
+            encryptionKeys.put(key, generated);
+            cacheDecryptionKey(generated);
+        }))
+                .flatMap(generated -> {
+                    if (generated.use(transitConfiguration.getDataKeyMaxUses())) {
+                        return Single.just(generated);
+                    }
+                    if (generated.isExpired()) {
+                        // another data key would expire before its first use as well
+                        return Single.error(new VaultTransitException("The data key of transit key [" + key
+                                + "] expired before its first use, its lifetime of " + transitConfiguration.getDataKeyLifetime() + " is too short"));
+                    }
+                    // used up by the other callers sharing it
+                    return encryptionKey(key);
+                });
+    }
+
+    private Single<DataKey> decryptionKey(String key, String wrapped) {
+        DataKey dataKey = decryptionKeys.get(wrapped);
+        if (dataKey != null) {
+            if (!dataKey.isExpired()) {
+                return Single.just(dataKey);
+            }
+            decryptionKeys.remove(wrapped, dataKey);
+        }
+        return coalesce("decrypt:" + wrapped, () -> Flowable.fromPublisher(transitClient.decrypt(key, wrapped))
+                .firstOrError()
+                .map(plaintextKey -> new DataKey(plaintextKey, wrapped, expiry()))
+                .doOnSuccess(this::cacheDecryptionKey));
+    }
+
+    /**
+     * Keeps a data key to decrypt the envelopes it sealed, evicting the expired data keys first and the least
+     * recently used one beyond the cache size.
+     */
+    private void cacheDecryptionKey(DataKey dataKey) {
+        synchronized (decryptionKeys) {
+            decryptionKeys.values().removeIf(DataKey::isExpired);
+            decryptionKeys.put(dataKey.wrapped, dataKey);
+        }
+    }
+
+    /**
+     * @return The number of data keys kept to decrypt envelopes
+     */
+    int getDecryptionKeyCount() {
+        return decryptionKeys.size();
+    }
+
+    /**
+     * Shares a single request to Vault between every caller missing the same data key. The request is forgotten
+     * before its data key is emitted, so that a caller finding it already used up starts a new one.
+     */
+    private Single<DataKey> coalesce(String id, Supplier<Single<DataKey>> request) {
+        return Single.defer(() -> pendingKeys.computeIfAbsent(id, k -> request.get()
+                .doOnEvent((dataKey, throwable) -> pendingKeys.remove(k))
+                .cache()));
+    }
+
+    private Single<DataKey> generateDataKey(String key) {
+        Map<String, Object> parameters = Collections.singletonMap("bits", transitConfiguration.getDataKeyBits());
+        return Flowable.fromPublisher(tokenSupplier.getToken())
+                .flatMap(token -> transitHttpClient.generateDataKey(token, transitConfiguration.getBackend(), key, parameters))
+                .firstOrError()
+                .map(response -> {
+                    Object plaintext = response.getData().get("plaintext");
+                    Object ciphertext = response.getData().get("ciphertext");
+                    if (plaintext == null || ciphertext == null) {
+                        throw new VaultTransitException("No data key returned by Vault for transit key [" + key + "]");
+                    }
+                    if (LOG.isDebugEnabled()) {
+                        LOG.debug("Generated a data key wrapped by transit key [{}]", key);
+                    }
+                    return new DataKey(Base64.getDecoder().decode(plaintext.toString()), ciphertext.toString(), expiry());
+                })
+                .onErrorResumeNext(throwable -> Single.error(throwable instanceof VaultTransitException ? throwable
+                        : new VaultTransitException("Error generating a data key with transit key [" + key + "]: " + throwable.getMessage(), throwable)));
+    }
+
+    private long expiry() {
+        return System.nanoTime() + transitConfiguration.getDataKeyLifetime().toNanos();
+    }
+
+    private byte[] seal(DataKey dataKey, byte[] plaintext) throws GeneralSecurityException {
+        byte[] iv = new byte[IV_LENGTH];
+        secureRandom.nextBytes(iv);
+        Cipher cipher = Cipher.getInstance(CIPHER);
+        cipher.init(Cipher.ENCRYPT_MODE, dataKey.secretKey, new GCMParameterSpec(TAG_BITS, iv));
+        cipher.updateAAD(dataKey.header);
+        byte[] ciphertext = cipher.doFinal(plaintext);
+        return ByteBuffer.allocate(dataKey.header.length + IV_LENGTH + ciphertext.length)
+                .put(dataKey.header)
+                .put(iv)
+                .put(ciphertext)
+                .array();
+    }
+
+    private byte[] open(DataKey dataKey, byte[] envelope) {
+        int headerLength = dataKey.header.length;
+        try {
+            Cipher cipher = Cipher.getInstance(CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, dataKey.secretKey, new GCMParameterSpec(TAG_BITS, envelope, headerLength, IV_LENGTH));
+            cipher.updateAAD(envelope, 0, headerLength);
+            return cipher.doFinal(envelope, headerLength + IV_LENGTH, envelope.length - headerLength - IV_LENGTH);
+        } catch (GeneralSecurityException e) {
+            throw new VaultTransitException("Unable to decrypt the envelope: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * @return The wrapped data key of an envelope
+     */
+    private static String wrappedKey(byte[] envelope) {
+        if (envelope.length < 3 || envelope[0] != VERSION) {
+            throw new VaultTransitException("Not an envelope of a supported version");
+        }
+        int length = ((envelope[1] & 0xff) << 8) | (envelope[2] & 0xff);
+        if (envelope.length < 3 + length + IV_LENGTH) {
+            throw new VaultTransitException("Truncated envelope");
+        }
+        return new String(envelope, 3, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * A plaintext data key with its wrapped form, its expiry and the number of encryptions made with it.
+     */
+    private static final class DataKey {
+
+        private final SecretKey secretKey;
+        private final String wrapped;
+        private final byte[] header;
+        private final long expiry;
+        private final AtomicLong uses = new AtomicLong();
+
+        DataKey(byte[] plaintextKey, String wrapped, long expiry) {
+            this.secretKey = new SecretKeySpec(plaintextKey, "AES");
+            Arrays.fill(plaintextKey, (byte) 0);
+            this.wrapped = wrapped;
+            byte[] wrappedBytes = wrapped.getBytes(StandardCharsets.UTF_8);
+            if (wrappedBytes.length > 0xffff) {
+                throw new VaultTransitException("Wrapped data key too long for an envelope");
+            }
+            this.header = ByteBuffer.allocate(3 + wrappedBytes.length)
+                    .put(VERSION)
+                    .putShort((short) wrappedBytes.length)
+                    .put(wrappedBytes)
+                    .array();
+            this.expiry = expiry;
+        }
+
+        boolean isExpired() {
+            return System.nanoTime() - expiry >= 0;
+        }
+
+        /**
+         * @return Whether the data key can encrypt one more payload, counting the encryption
+         */
+        boolean use(long maxUses) {
+            return !isExpired() && uses.incrementAndGet() <= maxUses;
+        }
+    }
+}
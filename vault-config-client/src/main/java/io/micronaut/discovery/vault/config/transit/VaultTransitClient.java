@@ -0,0 +1,258 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.transit;
+
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientTransitConfiguration;
+import io.micronaut.discovery.vault.config.auth.VaultTokenSupplier;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.SingleEmitter;
+import org.reactivestreams.Publisher;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.Nonnull;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ *  Encrypts, decrypts, signs and verifies with the Vault transit secrets engine. The operations made with the
+ *  same key within the linger time are sent to Vault as a single {@code batch_input} request, and each result
+ *  is emitted to the publisher of its own operation. A batch is sent as soon as it reaches the maximum batch size.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+public class VaultTransitClient {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultTransitClient.class);
+    private static final String ENCRYPT = "encrypt";
+    private static final String DECRYPT = "decrypt";
+    private static final String SIGN = "sign";
+    private static final String VERIFY = "verify";
+
+    private final VaultTransitHttpClient transitHttpClient;
+    private final VaultClientTransitConfiguration transitConfiguration;
+    private final VaultTokenSupplier tokenSupplier;
+    private final TaskScheduler taskScheduler;
+    private final Map<List<String>, Batcher> batchers = new ConcurrentHashMap<>();
+
+    /**
+     * @param transitHttpClient        The transit http client
+     * @param vaultClientConfiguration Vault Client Configuration
+     * @param tokenSupplier            The Vault token supplier
+     * @param taskScheduler            The task scheduler
+     */
+    public VaultTransitClient(VaultTransitHttpClient transitHttpClient,
+                              VaultClientConfiguration vaultClientConfiguration,
+                              VaultTokenSupplier tokenSupplier,
+                              @Named(TaskExecutors.SCHEDULED) TaskScheduler taskScheduler) {
+        this.transitHttpClient = transitHttpClient;
+        this.transitConfiguration = vaultClientConfiguration.getTransitConfiguration();
+        this.tokenSupplier = tokenSupplier;
+        this.taskScheduler = taskScheduler;
+    }
+
+    /**
+     * Encrypts a plaintext.
+     *
+     * @param key       The name of the transit key
+     * @param plaintext The plaintext
+     * @return A publisher of the ciphertext, e.g. {@code vault:v1:...}
+     */
+    public Publisher<String> encrypt(@Nonnull String key, @Nonnull byte[] plaintext) {
+        return submit(ENCRYPT, key, Collections.singletonMap("plaintext", Base64.getEncoder().encodeToString(plaintext)),
+                result -> (String) result.get("ciphertext"));
+    }
+
+    /**
+     * Decrypts a ciphertext.
+     *
+     * @param key        The name of the transit key
+     * @param ciphertext The ciphertext
+     * @return A publisher of the plaintext
+     */
+    public Publisher<byte[]> decrypt(@Nonnull String key, @Nonnull String ciphertext) {
+        return submit(DECRYPT, key, Collections.singletonMap("ciphertext", ciphertext),
+                result -> Base64.getDecoder().decode((String) result.get("plaintext")));
+    }
+
+    /**
+     * Signs an input.
+     *
+     * @param key   The name of the transit key
+     * @param input The input
+     * @return A publisher of the signature, e.g. {@code vault:v1:...}
+     */
+    public Publisher<String> sign(@Nonnull String key, @Nonnull byte[] input) {
+        return submit(SIGN, key, Collections.singletonMap("input", Base64.getEncoder().encodeToString(input)),
+                result -> (String) result.get("signature"));
+    }
+
+    /**
+     * Verifies the signature of an input.
+     *
+     * @param key       The name of the transit key
+     * @param input     The input
+     * @param signature The signature
+     * @return A publisher of whether the signature is valid
+     */
+    public Publisher<Boolean> verify(@Nonnull String key, @Nonnull byte[] input, @Nonnull String signature) {
+        Map<String, Object> verification = new LinkedHashMap<>();
+        verification.put("input", Base64.getEncoder().encodeToString(input));
+        verification.put("signature", signature);
+        return submit(VERIFY, key, verification, result -> Boolean.TRUE.equals(result.get("valid")));
+    }
+
+    private <T> Publisher<T> submit(String operation, String key, Map<String, Object> input, Function<Map<String, Object>, T> result) {
+        return Single.<T>create(emitter ->
+                batchers.computeIfAbsent(Arrays.asList(operation, key), k -> new Batcher(operation, key))
+                        .add(new Operation<>(input, result, emitter)))
+                .toFlowable();
+    }
+
+    /**
+     * An operation waiting for its batch to be sent.
+     *
+     * @param <T> The type of the result
+     */
+    private static final class Operation<T> {
+
+        private final Map<String, Object> input;
+        private final Function<Map<String, Object>, T> result;
+        private final SingleEmitter<T> emitter;
+
+        Operation(Map<String, Object> input, Function<Map<String, Object>, T> result, SingleEmitter<T> emitter) {
+            this.input = input;
+            this.result = result;
+            this.emitter = emitter;
+        }
+
+        void complete(Map<String, Object> batchResult) {
+            if (batchResult == null) {
+                emitter.onError(new VaultTransitException("No result returned by Vault for the operation"));
+                return;
+            }
+            Object error = batchResult.get("error");
+            if (error != null && !error.toString().isEmpty()) {
+                emitter.onError(new VaultTransitException(error.toString()));
+                return;
+            }
+            T value;
+            try {
+                value = result.apply(batchResult);
+            } catch (RuntimeException e) {
+                emitter.onError(new VaultTransitException("Unexpected result returned by Vault: " + e.getMessage(), e));
+                return;
+            }
+            emitter.onSuccess(value);
+        }
+
+        void fail(Throwable throwable) {
+            emitter.onError(throwable);
+        }
+    }
+
+    /**
+     * Gathers the operations made with the same key into batches.
+     */
+    private final class Batcher {
+
+        private final String operation;
+        private final String key;
+        private final Queue<Operation<?>> queue = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger size = new AtomicInteger();
+        private final AtomicBoolean lingering = new AtomicBoolean();
+
+        Batcher(String operation, String key) {
+            this.operation = operation;
+            this.key = key;
+        }
+
+        void add(Operation<?> pending) {
+            queue.add(pending);
+            if (size.incrementAndGet() >= transitConfiguration.getMaxBatchSize()) {
+                flush(true);
+            } else if (lingering.compareAndSet(false, true)) {
+                taskScheduler.schedule(transitConfiguration.getLinger(), () -> {
+                    lingering.set(false);
+                    flush(false);
+                });
+            }
+        }
+
+        /**
+         * Sends the operations waiting, only the full batches unless the linger time elapsed.
+         */
+        private void flush(boolean fullOnly) {
+            int maxBatchSize = Math.max(1, transitConfiguration.getMaxBatchSize());
+            while (!fullOnly || size.get() >= maxBatchSize) {
+                List<Operation<?>> batch = new ArrayList<>();
+                Operation<?> pending;
+                while (batch.size() < maxBatchSize && (pending = queue.poll()) != null) {
+                    batch.add(pending);
+                }
+                if (batch.isEmpty()) {
+                    return;
+                }
+                size.addAndGet(-batch.size());
+                send(batch);
+            }
+        }
+
+        private void send(List<Operation<?>> batch) {
+            List<Map<String, Object>> inputs = new ArrayList<>(batch.size());
+            for (Operation<?> pending : batch) {
+                inputs.add(pending.input);
+            }
+            if (LOG.isTraceEnabled()) {
+                LOG.trace("Sending a batch of {} transit {} operations with key [{}]", inputs.size(), operation, key);
+            }
+            Map<String, Object> body = Collections.singletonMap("batch_input", inputs);
+            Flowable.fromPublisher(tokenSupplier.getToken())
+                    .flatMap(token -> transitHttpClient.batch(token, transitConfiguration.getBackend(), operation, key, body))
+                    .firstOrError()
+                    .subscribe(response -> {
+                        List<Map<String, Object>> results = response.getBatchResults();
+                        for (int i = 0; i < batch.size(); i++) {
+                            batch.get(i).complete(i < results.size() ? results.get(i) : null);
+                        }
+                    }, throwable -> {
+                        VaultTransitException exception = new VaultTransitException(
+                                "Error running the transit " + operation + " with key [" + key + "]: " + throwable.getMessage(), throwable);
+                        batch.forEach(pending -> pending.fail(exception));
+                    });
+        }
+    }
+}
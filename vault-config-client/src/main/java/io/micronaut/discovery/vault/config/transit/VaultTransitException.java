@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.transit;
+
+/**
+ *  Thrown when Vault could not run a transit operation.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultTransitException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * @param message The message
+     */
+    public VaultTransitException(String message) {
+        super(message);
+    }
+
+    /**
+     * @param message The message
+     * @param cause   The cause
+     */
+    public VaultTransitException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
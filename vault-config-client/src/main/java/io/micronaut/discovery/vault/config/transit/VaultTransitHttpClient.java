@@ -0,0 +1,78 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.transit;
+
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.http.annotation.Body;
+import io.micronaut.http.annotation.Consumes;
+import io.micronaut.http.annotation.Header;
+import io.micronaut.http.annotation.Post;
+import io.micronaut.http.annotation.Produces;
+import io.micronaut.http.client.annotation.Client;
+import org.reactivestreams.Publisher;
+
+import javax.annotation.Nonnull;
+import java.util.Map;
+
+/**
+ *  A non-blocking HTTP client for the batch operations of the Vault transit secrets engine. The batches are not
+ *  retried, encryptions and signatures not being idempotent.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Client(value = VaultClientConfiguration.VAULT_CLIENT_CONFIG_ENDPOINT, configuration = VaultClientConfiguration.class)
+public interface VaultTransitHttpClient {
+
+    /**
+     * Runs a batch of transit operations with a single key.
+     *
+     * @param token             Vault authentication token
+     * @param backend           The path the transit secrets engine is mounted at
+     * @param operation         The operation, e.g. {@code encrypt} or {@code verify}
+     * @param key               The name of the transit key
+     * @param batch             The request body, holding the {@code batch_input}
+     * @return A {@link Publisher} that emits the {@link VaultTransitResponse}
+     */
+    @Post("/v1/{backend}/{operation}/{key}")
+    @Produces(single = true)
+    @Consumes(single = true)
+    Publisher<VaultTransitResponse> batch(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull String backend,
+            @Nonnull String operation,
+            @Nonnull String key,
+            @Nonnull @Body Map<String, Object> batch);
+
+    /**
+     * Generates a data key, returned both in plaintext and wrapped by the transit key.
+     *
+     * @param token             Vault authentication token
+     * @param backend           The path the transit secrets engine is mounted at
+     * @param key               The name of the transit key wrapping the data key
+     * @param parameters        The request body, holding the {@code bits} of the data key
+     * @return A {@link Publisher} that emits the {@link VaultTransitResponse}
+     */
+    @Post("/v1/{backend}/datakey/plaintext/{key}")
+    @Produces(single = true)
+    @Consumes(single = true)
+    Publisher<VaultTransitResponse> generateDataKey(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull String backend,
+            @Nonnull String key,
+            @Nonnull @Body Map<String, Object> parameters);
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.v1;
+
+import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.context.annotation.Primary;
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.core.type.Argument;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientDiscoveryConfiguration;
+import io.micronaut.discovery.vault.config.VaultConfigHttpClient;
+import io.micronaut.discovery.vault.config.VaultEndpointRouter;
+import io.micronaut.discovery.vault.config.VaultKeysResponse;
+import io.micronaut.http.uri.UriTemplate;
+import io.micronaut.retry.annotation.Retryable;
+import org.reactivestreams.Publisher;
+
+import javax.annotation.Nonnull;
+import javax.inject.Singleton;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ *  A non-blocking HTTP client for Vault - KV v1, reading from the endpoints of the {@link VaultEndpointRouter}
+ *  instead of the single Vault uri.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@Primary
+@BootstrapContextCompatible
+@Requires(beans = VaultEndpointRouter.class)
+public class RoutingVaultConfigHttpClientV1 implements VaultConfigHttpClient<VaultResponseV1> {
+
+    private static final UriTemplate DATA_PATH = UriTemplate.of("/v1/{backend}/{vaultKey}");
+    private static final UriTemplate LIST_PATH = UriTemplate.of("/v1/{backend}/{vaultKey}?list=true");
+
+    private final VaultEndpointRouter endpointRouter;
+
+    /**
+     * @param endpointRouter The Vault endpoint router
+     */
+    public RoutingVaultConfigHttpClientV1(VaultEndpointRouter endpointRouter) {
+        this.endpointRouter = endpointRouter;
+    }
+
+    @Override
+    public String getDescription() {
+        return VaultConfigHttpClientV1.CLIENT_DESCRIPTION;
+    }
+
+    @Override
+    @Retryable(
+            attempts = "${" + VaultClientDiscoveryConfiguration.PREFIX + ".retry-count:3}",
+            delay = "${" + VaultClientDiscoveryConfiguration.PREFIX + ".retry-delay:1s}"
+    )
+    public Publisher<VaultResponseV1> readConfigurationValues(@Nonnull String token,
+                                                              @Nonnull String backend,
+                                                              @Nonnull String vaultKey) {
+        return endpointRouter.retrieve(path(DATA_PATH, backend, vaultKey), token, Argument.of(VaultResponseV1.class));
+    }
+
+    @Override
+    public Publisher<ByteBuffer<?>> readConfigurationStream(@Nonnull String token,
+                                                            @Nonnull String backend,
+                                                            @Nonnull String vaultKey) {
+        return endpointRouter.dataStream(path(DATA_PATH, backend, vaultKey), token);
+    }
+
+    @Override
+    public Publisher<VaultKeysResponse> listKeys(@Nonnull String token,
+                                                @Nonnull String backend,
+                                                @Nonnull String path) {
+        return endpointRouter.retrieve(path(LIST_PATH, backend, path), token, Argument.of(VaultKeysResponse.class));
+    }
+
+    private static String path(UriTemplate template, String backend, String vaultKey) {
+        Map<String, Object> parameters = new HashMap<>();
+        parameters.put("backend", backend);
+        parameters.put("vaultKey", vaultKey);
+        return template.expand(parameters);
+    }
+}
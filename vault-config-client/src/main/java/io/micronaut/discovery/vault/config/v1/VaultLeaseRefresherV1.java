@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.v1;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.context.event.ApplicationEventListener;
+import io.micronaut.context.event.StartupEvent;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientLeaseConfiguration;
+import io.micronaut.discovery.vault.config.VaultConfigHttpClient;
+import io.micronaut.discovery.vault.config.VaultConfigReadCoalescer;
+import io.micronaut.discovery.vault.config.VaultConfigurationClient;
+import io.micronaut.discovery.vault.config.VaultPropertySourceUpdater;
+import io.micronaut.discovery.vault.config.VaultSecretMetadata;
+import io.micronaut.discovery.vault.config.auth.VaultTokenSupplier;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.scheduling.TaskExecutors;
+import io.micronaut.scheduling.TaskScheduler;
+import io.reactivex.Flowable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Named;
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ *  Reads every KV v1 vault key again at a configurable fraction of the lease duration returned by Vault.
+ *  Each delay is spread with a random jitter so that a fleet of applications does not read in lockstep.
+ *  The first reads are scheduled from the leases of the reads made at startup.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@Requires(property = VaultClientLeaseConfiguration.PREFIX + ".enabled", value = "true")
+public class VaultLeaseRefresherV1 implements ApplicationEventListener<StartupEvent> {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultLeaseRefresherV1.class);
+
+    private final VaultConfigHttpClient<VaultResponseV1> configHttpClient;
+    private final VaultClientConfiguration vaultClientConfiguration;
+    private final VaultClientLeaseConfiguration leaseConfiguration;
+    private final VaultConfigurationClient configurationClient;
+    private final VaultPropertySourceUpdater propertySourceUpdater;
+    private final TaskScheduler taskScheduler;
+    private final VaultTokenSupplier tokenSupplier;
+    private final VaultConfigReadCoalescer readCoalescer;
+    private final Map<String, Instant> expiries = new ConcurrentHashMap<>();
+
+    /**
+     * @param configHttpClient         The http client
+     * @param vaultClientConfiguration Vault Client Configuration
+     * @param configurationClient      The Vault configuration client
+     * @param propertySourceUpdater    The property source updater
+     * @param taskScheduler            The task scheduler
+     * @param tokenSupplier            The Vault token supplier
+     * @param readCoalescer            The read coalescer
+     */
+    public VaultLeaseRefresherV1(VaultConfigHttpClient<VaultResponseV1> configHttpClient,
+                                 VaultClientConfiguration vaultClientConfiguration,
+                                 VaultConfigurationClient configurationClient,
+                                 VaultPropertySourceUpdater propertySourceUpdater,
+                                 @Named(TaskExecutors.SCHEDULED) TaskScheduler taskScheduler,
+                                 VaultTokenSupplier tokenSupplier,
+                                 VaultConfigReadCoalescer readCoalescer) {
+        this.configHttpClient = configHttpClient;
+        this.vaultClientConfiguration = vaultClientConfiguration;
+        this.leaseConfiguration = vaultClientConfiguration.getLeaseConfiguration();
+        this.configurationClient = configurationClient;
+        this.propertySourceUpdater = propertySourceUpdater;
+        this.taskScheduler = taskScheduler;
+        this.tokenSupplier = tokenSupplier;
+        this.readCoalescer = readCoalescer;
+    }
+
+    /**
+     * Schedules the first read of every vault key from the lease of its read at startup. A vault key whose
+     * startup read is unknown, e.g. when the configuration was served from the snapshot, is read within the
+     * minimum delay to learn its lease.
+     *
+     * @param event The startup event
+     */
+    @Override
+    public void onApplicationEvent(StartupEvent event) {
+        long spread = leaseConfiguration.getMinDelay().toMillis();
+        configurationClient.getVaultKeys().forEach((order, vaultKey) -> {
+            Optional<VaultSecretMetadata> metadata = configurationClient.getSecretMetadata(vaultKey);
+            if (metadata.isPresent()) {
+                Long leaseDuration = metadata.get().getLeaseDuration().orElse(null);
+                if (leaseDuration != null && leaseDuration > 0) {
+                    expiries.put(vaultKey, Instant.ofEpochMilli(metadata.get().getReadAt()).plusSeconds(leaseDuration));
+                }
+                long elapsed = System.currentTimeMillis() - metadata.get().getReadAt();
+                Duration delay = nextDelay(leaseDuration).minusMillis(elapsed);
+                schedule(order, vaultKey, delay.isNegative() ? Duration.ZERO : delay);
+            } else {
+                schedule(order, vaultKey, Duration.ofMillis(ThreadLocalRandom.current().nextLong(spread + 1)));
+            }
+        });
+    }
+
+    /**
+     * @param vaultKey The vault key
+     * @return The instant the lease of the secret read last expires at
+     */
+    public Optional<Instant> getExpiry(String vaultKey) {
+        return Optional.ofNullable(expiries.get(vaultKey));
+    }
+
+    private void schedule(int order, String vaultKey, Duration delay) {
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Reading vault key [{}] again in {}", vaultKey, delay);
+        }
+        taskScheduler.schedule(delay, () -> refresh(order, vaultKey));
+    }
+
+    private void refresh(int order, String vaultKey) {
+        Flowable.fromPublisher(tokenSupplier.getToken())
+                .flatMap(token -> readCoalescer.read(configHttpClient, token, vaultClientConfiguration.getSecretEngineName(), vaultKey))
+                .subscribe(response -> {
+                    Long leaseDuration = response.getLeaseDuration();
+                    if (leaseDuration != null && leaseDuration > 0) {
+                        expiries.put(vaultKey, Instant.now().plusSeconds(leaseDuration));
+                    }
+                    propertySourceUpdater.update(Collections.singletonList(
+                            PropertySource.of(vaultKey, response.getSecrets(), order)));
+                    schedule(order, vaultKey, nextDelay(leaseDuration));
+                }, throwable -> {
+                    if (throwable instanceof HttpClientResponseException
+                            && ((HttpClientResponseException) throwable).getStatus() == HttpStatus.NOT_FOUND) {
+                        // removes the properties of a vault key deleted since it was read
+                        propertySourceUpdater.update(Collections.singletonList(
+                                PropertySource.of(vaultKey, Collections.emptyMap(), order)));
+                        schedule(order, vaultKey, jitter(leaseConfiguration.getMaxDelay()));
+                    } else {
+                        LOG.warn("Error reading vault key [{}] whose lease expires at {}: {}",
+                                vaultKey, expiries.get(vaultKey), throwable.getMessage());
+                        schedule(order, vaultKey, jitter(leaseConfiguration.getMinDelay()));
+                    }
+                });
+    }
+
+    private Duration nextDelay(Long leaseDuration) {
+        if (leaseDuration == null || leaseDuration <= 0) {
+            return jitter(leaseConfiguration.getMaxDelay());
+        }
+        long delay = (long) (leaseDuration * 1000 * leaseConfiguration.getFraction());
+        delay = Math.min(delay, leaseConfiguration.getMaxDelay().toMillis());
+        return jitter(Duration.ofMillis(delay));
+    }
+
+    private Duration jitter(Duration delay) {
+        double spread = leaseConfiguration.getJitter() * (2 * ThreadLocalRandom.current().nextDouble() - 1);
+        long jittered = (long) (delay.toMillis() * (1 + spread));
+        return Duration.ofMillis(Math.max(jittered, leaseConfiguration.getMinDelay().toMillis()));
+    }
+}
@@ -22,6 +22,7 @@ import io.micronaut.core.annotation.Internal;
 import io.micronaut.core.annotation.Introspected;
 import io.micronaut.discovery.vault.config.AbstractVaultResponse;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import java.util.List;
 import java.util.Map;
@@ -50,13 +51,13 @@ public class VaultResponseV1 extends AbstractVaultResponse<Map<String, Object>>
     @JsonCreator
     @Internal
     public VaultResponseV1(
-            @JsonProperty("data") final Map<String, Object> data,
-            @JsonProperty("lease_duration") final Long leaseDuration,
-            @JsonProperty("lease_id") final String leaseId,
-            @JsonProperty("request_id") final String requestId,
-            @JsonProperty("wrap_info") final Map<String, String> wrapInfo,
+            @JsonProperty("data") @Nullable final Map<String, Object> data,
+            @JsonProperty("lease_duration") @Nullable final Long leaseDuration,
+            @JsonProperty("lease_id") @Nullable final String leaseId,
+            @JsonProperty("request_id") @Nullable final String requestId,
+            @JsonProperty("wrap_info") @Nullable final Map<String, String> wrapInfo,
             @JsonProperty("renewable") final boolean renewable,
-            @JsonProperty("warnings") final List<String> warnings) {
+            @JsonProperty("warnings") @Nullable final List<String> warnings) {
 
         super(data, leaseDuration, leaseId, requestId, wrapInfo, renewable,
                 warnings);
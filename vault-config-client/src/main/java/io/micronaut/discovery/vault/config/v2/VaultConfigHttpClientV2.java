@@ -17,9 +17,12 @@
 package io.micronaut.discovery.vault.config.v2;
 
 import io.micronaut.context.annotation.BootstrapContextCompatible;
+import io.micronaut.core.io.buffer.ByteBuffer;
 import io.micronaut.discovery.vault.config.VaultClientConfiguration;
 import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientDiscoveryConfiguration;
-import io.micronaut.discovery.vault.config.VaultConfigHttpClient;
+import io.micronaut.discovery.vault.config.VaultKeysResponse;
+import io.micronaut.http.MediaType;
+import io.micronaut.http.annotation.Consumes;
 import io.micronaut.http.annotation.Get;
 import io.micronaut.http.annotation.Header;
 import io.micronaut.http.annotation.Produces;
@@ -37,7 +40,7 @@ import javax.annotation.Nonnull;
  */
 @Client(value = VaultClientConfiguration.VAULT_CLIENT_CONFIG_ENDPOINT, configuration = VaultClientConfiguration.class)
 @BootstrapContextCompatible
-public interface VaultConfigHttpClientV2 extends VaultConfigHttpClient<VaultResponseV2> {
+public interface VaultConfigHttpClientV2 extends VaultKvHttpClientV2 {
 
     /**
      * Vault Http Client description.
@@ -54,6 +57,7 @@ public interface VaultConfigHttpClientV2 extends VaultConfigHttpClient<VaultResp
      */
     @Get("/v2/{backend}/data/{vaultKey}")
     @Produces(single = true)
+    @Consumes(single = true)
     @Retryable(
             attempts = "${" + VaultClientDiscoveryConfiguration.PREFIX + ".retry-count:3}",
             delay = "${" + VaultClientDiscoveryConfiguration.PREFIX + ".retry-delay:1s}"
@@ -64,6 +68,62 @@ public interface VaultConfigHttpClientV2 extends VaultConfigHttpClient<VaultResp
             @Nonnull String backend,
             @Nonnull String vaultKey);
 
+    /**
+     * Reads the metadata of a secret, including its current version, without reading the secret itself.
+     *
+     * @param token             Vault authentication token
+     * @param backend           The name of the secret engine in Vault
+     * @param vaultKey          The vault key
+     * @return A {@link Publisher} that emits the {@link VaultMetadataResponseV2}
+     */
+    @Get("/v1/{backend}/metadata/{vaultKey}")
+    @Produces(single = true)
+    @Consumes(single = true)
+    @Retryable(
+            attempts = "${" + VaultClientDiscoveryConfiguration.PREFIX + ".retry-count:3}",
+            delay = "${" + VaultClientDiscoveryConfiguration.PREFIX + ".retry-delay:1s}"
+    )
+    @Override
+    Publisher<VaultMetadataResponseV2> readMetadata(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull String backend,
+            @Nonnull String vaultKey);
+
+    /**
+     * Reads an application configuration as a stream of raw response body chunks, to be decoded without
+     * binding the response. The stream is not retried, the decoders retry the whole read.
+     *
+     * @param token             Vault authentication token
+     * @param backend           The name of the secret engine in Vault
+     * @param vaultKey          The vault key
+     * @return A {@link Publisher} that emits the response body chunks
+     */
+    @Get("/v2/{backend}/data/{vaultKey}")
+    @Consumes(MediaType.APPLICATION_OCTET_STREAM)
+    @Override
+    Publisher<ByteBuffer<?>> readConfigurationStream(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull String backend,
+            @Nonnull String vaultKey);
+
+    /**
+     * Lists the keys directly under a path of the secret engine, from the metadata of the secrets. The list is not retried, the keys listed
+     * only spare the reads of the vault keys missing.
+     *
+     * @param token             Vault authentication token
+     * @param backend           The name of the secret engine in Vault
+     * @param path              The path to list, without the trailing slash
+     * @return A {@link Publisher} that emits the {@link VaultKeysResponse}
+     */
+    @Get("/v1/{backend}/metadata/{path}?list=true")
+    @Produces(single = true)
+    @Consumes(single = true)
+    @Override
+    Publisher<VaultKeysResponse> listKeys(
+            @Nonnull @Header("X-Vault-Token") String token,
+            @Nonnull String backend,
+            @Nonnull String path);
+
     @Override
     default String getDescription() {
         return CLIENT_DESCRIPTION;
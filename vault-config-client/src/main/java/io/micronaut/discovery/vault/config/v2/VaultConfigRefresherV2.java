@@ -0,0 +1,194 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.v2;
+
+import io.micronaut.context.annotation.Requires;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientRefreshConfiguration;
+import io.micronaut.discovery.vault.config.VaultConfigReadCoalescer;
+import io.micronaut.discovery.vault.config.VaultConfigurationClient;
+import io.micronaut.discovery.vault.config.VaultPropertySourceUpdater;
+import io.micronaut.discovery.vault.config.VaultSecretMetadata;
+import io.micronaut.discovery.vault.config.auth.VaultTokenSupplier;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.micronaut.scheduling.annotation.Scheduled;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.disposables.SerialDisposable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.inject.Singleton;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ *  Polls the KV v2 metadata of every vault key and reads the secrets again only for the keys whose
+ *  current version changed since the last poll, or since the read at startup for the first poll. A vault key
+ *  deleted since is replaced by an empty property source, which removes its properties from the environment.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Singleton
+@Requires(property = VaultClientRefreshConfiguration.PREFIX + ".enabled", value = "true")
+public class VaultConfigRefresherV2 {
+
+    private static final Logger LOG = LoggerFactory.getLogger(VaultConfigRefresherV2.class);
+    private static final Integer DELETED = 0;
+
+    private final VaultKvHttpClientV2 configHttpClient;
+    private final VaultClientConfiguration vaultClientConfiguration;
+    private final VaultConfigurationClient configurationClient;
+    private final VaultPropertySourceUpdater propertySourceUpdater;
+    private final VaultTokenSupplier tokenSupplier;
+    private final VaultConfigReadCoalescer readCoalescer;
+    private final Map<String, Integer> versions = new ConcurrentHashMap<>();
+    private final AtomicBoolean polling = new AtomicBoolean();
+    private final SerialDisposable poll = new SerialDisposable();
+
+    /**
+     * @param configHttpClient         The http client
+     * @param vaultClientConfiguration Vault Client Configuration
+     * @param configurationClient      The Vault configuration client
+     * @param propertySourceUpdater    The property source updater
+     * @param tokenSupplier            The Vault token supplier
+     * @param readCoalescer            The read coalescer
+     */
+    public VaultConfigRefresherV2(VaultKvHttpClientV2 configHttpClient,
+                                  VaultClientConfiguration vaultClientConfiguration,
+                                  VaultConfigurationClient configurationClient,
+                                  VaultPropertySourceUpdater propertySourceUpdater,
+                                  VaultTokenSupplier tokenSupplier,
+                                  VaultConfigReadCoalescer readCoalescer) {
+        this.configHttpClient = configHttpClient;
+        this.vaultClientConfiguration = vaultClientConfiguration;
+        this.configurationClient = configurationClient;
+        this.propertySourceUpdater = propertySourceUpdater;
+        this.tokenSupplier = tokenSupplier;
+        this.readCoalescer = readCoalescer;
+    }
+
+    /**
+     * Polls Vault for changed secrets and applies them to the environment. The poll runs in the background, a
+     * poll still running when the next one is due makes the next one skipped.
+     */
+    @Scheduled(fixedDelay = "${" + VaultClientRefreshConfiguration.PREFIX + ".interval:30s}",
+               initialDelay = "${" + VaultClientRefreshConfiguration.PREFIX + ".interval:30s}")
+    void refresh() {
+        if (!polling.compareAndSet(false, true)) {
+            if (LOG.isDebugEnabled()) {
+                LOG.debug("The previous poll of Vault for changes is still running, skipping this poll");
+            }
+            return;
+        }
+        poll.set(readChanges()
+                .doFinally(() -> polling.set(false))
+                .subscribe(propertySources -> {
+                    if (!propertySources.isEmpty()) {
+                        propertySourceUpdater.update(propertySources);
+                    }
+                }, throwable -> LOG.warn("Error polling Vault for changes: {}", throwable.getMessage())));
+    }
+
+    /**
+     * Stops the poll if it is still running.
+     */
+    @PreDestroy
+    public void close() {
+        poll.dispose();
+    }
+
+    /**
+     * @return A single of the property sources of the vault keys changed or deleted since the last poll
+     */
+    private Single<List<PropertySource>> readChanges() {
+        String engine = vaultClientConfiguration.getSecretEngineName();
+        return Flowable.fromPublisher(tokenSupplier.getToken()).firstOrError().flatMap(token ->
+                Flowable.fromIterable(configurationClient.getVaultKeys().entrySet())
+                        .flatMap(entry -> Flowable.fromPublisher(configHttpClient.readMetadata(token, engine, entry.getValue()))
+                                .flatMap(metadata -> {
+                                    if (metadata.isCurrentVersionDeleted()) {
+                                        return deleted(entry.getKey(), entry.getValue());
+                                    }
+                                    if (!isChanged(entry.getValue(), metadata.getCurrentVersion())) {
+                                        return Flowable.empty();
+                                    }
+                                    return readCoalescer.read(configHttpClient, token, engine, entry.getValue())
+                                            .map(response -> {
+                                                response.getData().getVersion().ifPresent(version -> versions.put(entry.getValue(), version));
+                                                return PropertySource.of(entry.getValue(), response.getSecrets(), entry.getKey());
+                                            });
+                                })
+                                .onErrorResumeNext(throwable -> {
+                                    if (throwable instanceof HttpClientResponseException
+                                            && ((HttpClientResponseException) throwable).getStatus() == HttpStatus.NOT_FOUND) {
+                                        return deleted(entry.getKey(), entry.getValue());
+                                    }
+                                    LOG.warn("Error polling vault key [{}] for changes: {}", entry.getValue(), throwable.getMessage());
+                                    return Flowable.empty();
+                                }))
+                        .toList());
+    }
+
+    /**
+     * A key is read again when the current version differs from the version read last, a key neither read at
+     * startup nor by an earlier poll being read once.
+     *
+     * @param vaultKey       The vault key
+     * @param currentVersion The current version from the metadata
+     * @return True if the secret has to be read again
+     */
+    private boolean isChanged(String vaultKey, Optional<Integer> currentVersion) {
+        Integer version = knownVersion(vaultKey);
+        return version == null || !currentVersion.isPresent() || !Objects.equals(version, currentVersion.get());
+    }
+
+    /**
+     * @param vaultKey The vault key
+     * @return The version read last, by a poll or at startup, if known
+     */
+    private Integer knownVersion(String vaultKey) {
+        return versions.computeIfAbsent(vaultKey, key -> configurationClient.getSecretMetadata(key)
+                .flatMap(VaultSecretMetadata::getVersion)
+                .orElse(null));
+    }
+
+    /**
+     * A vault key deleted since it was read gives an empty property source, once.
+     *
+     * @param order    The property source order
+     * @param vaultKey The vault key
+     * @return A flowable of the empty property source, empty if the vault key was not read before
+     */
+    private Flowable<PropertySource> deleted(int order, String vaultKey) {
+        Integer version = knownVersion(vaultKey);
+        if (version == null || DELETED.equals(version)) {
+            return Flowable.empty();
+        }
+        versions.put(vaultKey, DELETED);
+        return Flowable.just(PropertySource.of(vaultKey, Collections.emptyMap(), order));
+    }
+}
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.v2;
+
+import io.micronaut.discovery.vault.config.VaultConfigHttpClient;
+import org.reactivestreams.Publisher;
+
+import javax.annotation.Nonnull;
+
+/**
+ *  A contract for an HTTP client to read secrets and their metadata from a KV v2 secret engine.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public interface VaultKvHttpClientV2 extends VaultConfigHttpClient<VaultResponseV2> {
+
+    /**
+     * Reads the metadata of a secret, including its current version, without reading the secret itself.
+     *
+     * @param token The vault token
+     * @param backend The secret engine name
+     * @param vaultKey The vault key
+     * @return A publisher of the response body
+     */
+    Publisher<VaultMetadataResponseV2> readMetadata(@Nonnull String token,
+                                                    @Nonnull String backend,
+                                                    @Nonnull String vaultKey);
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.v2;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import io.micronaut.core.annotation.Internal;
+import io.micronaut.core.annotation.Introspected;
+import io.micronaut.discovery.vault.config.AbstractVaultResponse;
+
+import javax.annotation.Nullable;
+import javax.annotation.concurrent.Immutable;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ *  Vault KV v2 Metadata Response Envelope.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@Immutable
+@Introspected
+public class VaultMetadataResponseV2 extends AbstractVaultResponse<Map<String, Object>> {
+
+    /**
+     * Constructor for VaultMetadataResponseV2.
+     *
+     * @param data The metadata object
+     * @param leaseDuration The token lease duration
+     * @param leaseId The token lease id
+     * @param requestId The vault request id
+     * @param wrapInfo The wrap info object
+     * @param renewable The flag indicating the vault token is renewable
+     * @param warnings The list of warnings
+     */
+    @JsonCreator
+    @Internal
+    public VaultMetadataResponseV2(
+            @JsonProperty("data") @Nullable final Map<String, Object> data,
+            @JsonProperty("lease_duration") @Nullable final Long leaseDuration,
+            @JsonProperty("lease_id") @Nullable final String leaseId,
+            @JsonProperty("request_id") @Nullable final String requestId,
+            @JsonProperty("wrap_info") @Nullable final Map<String, String> wrapInfo,
+            @JsonProperty("renewable") final boolean renewable,
+            @JsonProperty("warnings") @Nullable final List<String> warnings) {
+
+        super(data == null ? Collections.emptyMap() : Collections.unmodifiableMap(data),
+                leaseDuration, leaseId, requestId, wrapInfo, renewable, warnings);
+    }
+
+    @Override
+    public Map<String, Object> getSecrets() {
+        return this.data;
+    }
+
+    /**
+     * @return The current version of the secret
+     */
+    @JsonIgnore
+    public Optional<Integer> getCurrentVersion() {
+        Object currentVersion = this.data.get("current_version");
+        if (currentVersion instanceof Number) {
+            return Optional.of(((Number) currentVersion).intValue());
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * @return Whether the current version of the secret was deleted or destroyed
+     */
+    @JsonIgnore
+    public boolean isCurrentVersionDeleted() {
+        Optional<Integer> currentVersion = getCurrentVersion();
+        Object versions = this.data.get("versions");
+        if (!currentVersion.isPresent() || !(versions instanceof Map)) {
+            return false;
+        }
+        Object version = ((Map<?, ?>) versions).get(String.valueOf(currentVersion.get()));
+        if (!(version instanceof Map)) {
+            return false;
+        }
+        Object deletionTime = ((Map<?, ?>) version).get("deletion_time");
+        return Boolean.TRUE.equals(((Map<?, ?>) version).get("destroyed"))
+                || (deletionTime instanceof String && !((String) deletionTime).isEmpty());
+    }
+}
@@ -17,13 +17,16 @@
 package io.micronaut.discovery.vault.config.v2;
 
 import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import io.micronaut.core.annotation.Internal;
 import io.micronaut.core.annotation.Introspected;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import java.util.Collections;
 import java.util.Map;
+import java.util.Optional;
 
 /**
  *  Vault Data object.
@@ -46,8 +49,8 @@ public class VaultResponseData {
      */
     @JsonCreator
     @Internal
-    public VaultResponseData(@JsonProperty("data") final Map<String, Object> data,
-                             @JsonProperty("metadata") final Map<String, Object> metadata) {
+    public VaultResponseData(@JsonProperty("data") @Nullable final Map<String, Object> data,
+                             @JsonProperty("metadata") @Nullable final Map<String, Object> metadata) {
 
         this.data = data == null ? Collections.emptyMap() : Collections.unmodifiableMap(data);
         this.metadata = metadata == null ? Collections.emptyMap() : Collections.unmodifiableMap(metadata);
@@ -67,4 +70,16 @@ public class VaultResponseData {
         return metadata;
     }
 
+    /**
+     * @return The version of the secret, if present in the metadata
+     */
+    @JsonIgnore
+    public Optional<Integer> getVersion() {
+        Object version = metadata.get("version");
+        if (version instanceof Number) {
+            return Optional.of(((Number) version).intValue());
+        }
+        return Optional.empty();
+    }
+
 }
@@ -22,6 +22,7 @@ import io.micronaut.core.annotation.Internal;
 import io.micronaut.core.annotation.Introspected;
 import io.micronaut.discovery.vault.config.AbstractVaultResponse;
 
+import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import java.util.List;
 import java.util.Map;
@@ -51,12 +52,12 @@ public class VaultResponseV2 extends AbstractVaultResponse<VaultResponseData> {
     @Internal
     public VaultResponseV2(
             @JsonProperty("data") final VaultResponseData data,
-            @JsonProperty("lease_duration") final Long leaseDuration,
-            @JsonProperty("lease_id") final String leaseId,
-            @JsonProperty("request_id") final String requestId,
-            @JsonProperty("wrap_info") final Map<String, String> wrapInfo,
+            @JsonProperty("lease_duration") @Nullable final Long leaseDuration,
+            @JsonProperty("lease_id") @Nullable final String leaseId,
+            @JsonProperty("request_id") @Nullable final String requestId,
+            @JsonProperty("wrap_info") @Nullable final Map<String, String> wrapInfo,
             @JsonProperty("renewable") final boolean renewable,
-            @JsonProperty("warnings") final List<String> warnings) {
+            @JsonProperty("warnings") @Nullable final List<String> warnings) {
 
         super(data, leaseDuration, leaseId, requestId, wrapInfo, renewable,
                 warnings);
@@ -0,0 +1,73 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.runtime.ApplicationConfiguration;
+import org.junit.Test;
+
+import java.time.Duration;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Tests the time to live of the vault keys remembered missing by the {@link VaultMissingKeyCache}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultMissingKeyCacheTest {
+
+    @Test
+    public void missingKeyIsRememberedForTheTtl() throws InterruptedException {
+        VaultMissingKeyCache cache = cache(Duration.ofMillis(200));
+
+        cache.missing("secret", "app");
+
+        assertTrue(cache.isMissing("secret", "app"));
+        assertFalse(cache.isMissing("other", "app"));
+        assertFalse(cache.isMissing("secret", "app/dev"));
+        Thread.sleep(300);
+        assertFalse(cache.isMissing("secret", "app"));
+    }
+
+    @Test
+    public void nothingIsRememberedWithoutTtl() {
+        VaultMissingKeyCache cache = cache(Duration.ZERO);
+
+        cache.missing("secret", "app");
+
+        assertFalse(cache.isMissing("secret", "app"));
+    }
+
+    @Test
+    public void invalidatedKeyIsNoLongerMissing() {
+        VaultMissingKeyCache cache = cache(Duration.ofMinutes(1));
+        cache.missing("secret", "app");
+
+        cache.invalidate("secret", "app");
+
+        assertFalse(cache.isMissing("secret", "app"));
+    }
+
+    private static VaultMissingKeyCache cache(Duration ttl) {
+        VaultClientConfiguration configuration = new VaultClientConfiguration(
+                new VaultClientConfiguration.VaultClientConnectionPoolConfiguration(), new ApplicationConfiguration());
+        configuration.getReadConfiguration().setMissingKeyTtl(ttl);
+        return new VaultMissingKeyCache(configuration);
+    }
+}
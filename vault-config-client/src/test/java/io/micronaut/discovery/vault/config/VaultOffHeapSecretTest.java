@@ -0,0 +1,100 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.env.PropertySource;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Tests the access to the values of a {@link VaultOffHeapSecret}, before and after its property source is wiped.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultOffHeapSecretTest {
+
+    private static final String VALUE = "p\u00e4ssw\u00f6rd-\ud83d\udd11-\u20ac";
+
+    @Test
+    public void charsAreDecodedFromTheBuffer() {
+        VaultOffHeapSecret secret = secret(VALUE);
+
+        assertEquals(VALUE.length(), secret.length());
+        for (int i = 0; i < VALUE.length(); i++) {
+            assertEquals(VALUE.charAt(i), secret.charAt(i));
+        }
+        assertEquals(VALUE, secret.toString());
+        assertEquals(VALUE.substring(3, 12), secret.subSequence(3, 12).toString());
+    }
+
+    @Test(expected = StringIndexOutOfBoundsException.class)
+    public void charOutOfTheValueIsRejected() {
+        secret(VALUE).charAt(VALUE.length());
+    }
+
+    @Test
+    public void equalValuesHaveTheSameHashCode() {
+        VaultOffHeapSecret secret = secret(VALUE);
+        VaultOffHeapSecret same = secret(VALUE);
+
+        assertEquals(secret, same);
+        assertEquals(secret.hashCode(), same.hashCode());
+        assertNotEquals(secret, secret("other"));
+    }
+
+    @Test
+    public void hashCodeIsStableOnceWiped() {
+        VaultOffHeapPropertySource propertySource = propertySource(VALUE);
+        VaultOffHeapSecret secret = (VaultOffHeapSecret) propertySource.get("secret");
+        int hashCode = secret.hashCode();
+
+        propertySource.wipe();
+
+        assertTrue(secret.isWiped());
+        assertEquals(hashCode, secret.hashCode());
+        assertEquals(VALUE.length(), secret.length());
+        assertFalse(secret.equals(secret(VALUE)));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void wipedValueCannotBeRead() {
+        VaultOffHeapPropertySource propertySource = propertySource(VALUE);
+        VaultOffHeapSecret secret = (VaultOffHeapSecret) propertySource.get("secret");
+        propertySource.wipe();
+
+        secret.charAt(0);
+    }
+
+    private static VaultOffHeapSecret secret(String value) {
+        return (VaultOffHeapSecret) propertySource(value).get("secret");
+    }
+
+    private static VaultOffHeapPropertySource propertySource(String value) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("secret", value);
+        properties.put("port", 8200);
+        return new VaultOffHeapPropertySource(PropertySource.of("app", properties, 200));
+    }
+}
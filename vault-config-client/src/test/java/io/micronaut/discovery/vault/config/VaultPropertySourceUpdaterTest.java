@@ -0,0 +1,143 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.env.Environment;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.runtime.context.scope.refresh.RefreshEvent;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Tests how the {@link VaultPropertySourceUpdater} applies removed keys, fallbacks and off-heap replacements to
+ *  an {@link Environment}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultPropertySourceUpdaterTest {
+
+    private ApplicationContext context;
+    private Environment environment;
+    private final List<RefreshEvent> events = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        context = ApplicationContext.build().deduceEnvironment(false).start();
+        environment = context.getEnvironment();
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void removedKeyIsClearedAndAppliedAgainOnceBack() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("foo", "bar");
+        properties.put("baz", "qux");
+        environment.addPropertySource(PropertySource.of("app", properties, 200));
+        VaultPropertySourceUpdater updater = new VaultPropertySourceUpdater(environment, this::publish, null);
+
+        Map<String, Object> changes = updater.update(Collections.singletonList(
+                PropertySource.of("app", Collections.singletonMap("foo", "bar"), 200)));
+
+        assertEquals(Collections.singletonMap("baz", "qux"), changes);
+        assertFalse(environment.getProperty("baz", String.class).isPresent());
+        assertEquals(Optional.of("bar"), environment.getProperty("foo", String.class));
+        assertEquals(1, events.size());
+
+        updater.update(Collections.singletonList(PropertySource.of("app", properties, 200)));
+
+        assertEquals(Optional.of("qux"), environment.getProperty("baz", String.class));
+        assertEquals(2, events.size());
+    }
+
+    @Test
+    public void removedKeyFallsBackToTheNextPropertySource() {
+        environment.addPropertySource(PropertySource.of("application", Collections.singletonMap("foo", "default"), 100));
+        environment.addPropertySource(PropertySource.of("app", Collections.singletonMap("foo", "app"), 200));
+        VaultPropertySourceUpdater updater = new VaultPropertySourceUpdater(environment, this::publish, null);
+
+        updater.update(Collections.singletonList(PropertySource.of("app", Collections.emptyMap(), 200)));
+
+        assertEquals(Optional.of("default"), environment.getProperty("foo", String.class));
+        assertTrue(environment.getPropertySources().stream()
+                .noneMatch(ps -> VaultPropertySourceUpdater.REMOVED_NAME.equals(ps.getName())));
+    }
+
+    @Test
+    public void unchangedPropertySourcePublishesNoEvent() {
+        environment.addPropertySource(PropertySource.of("app", Collections.singletonMap("foo", "bar"), 200));
+        VaultPropertySourceUpdater updater = new VaultPropertySourceUpdater(environment, this::publish, null);
+
+        Map<String, Object> changes = updater.update(Collections.singletonList(
+                PropertySource.of("app", Collections.singletonMap("foo", "bar"), 200)));
+
+        assertTrue(changes.isEmpty());
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    public void offHeapPropertySourceIsWipedAfterItsReplacement() {
+        VaultOffHeapSecretStore secretStore = new VaultOffHeapSecretStore(environment);
+        VaultOffHeapPropertySource current = secretStore.copy(
+                PropertySource.of("app", Collections.singletonMap("foo", "bar"), 200));
+        environment.addPropertySource(current);
+        List<Boolean> wipedOnReplacement = new ArrayList<>();
+        Environment recording = (Environment) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[] {Environment.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("addPropertySource") && args[0] instanceof PropertySource
+                            && "app".equals(((PropertySource) args[0]).getName())) {
+                        wipedOnReplacement.add(current.isWiped());
+                    }
+                    try {
+                        return method.invoke(environment, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        VaultPropertySourceUpdater updater = new VaultPropertySourceUpdater(recording, this::publish, secretStore);
+
+        updater.update(Collections.singletonList(PropertySource.of("app", Collections.singletonMap("foo", "changed"), 200)));
+
+        assertEquals(Collections.singletonList(false), wipedOnReplacement);
+        assertTrue(current.isWiped());
+        assertEquals(Optional.of("changed"), environment.getProperty("foo", String.class));
+        assertTrue(events.get(0).getSource().containsKey("foo"));
+    }
+
+    private void publish(Object event) {
+        events.add((RefreshEvent) event);
+    }
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.runtime.ApplicationConfiguration;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Tests the encryption and the validation of the {@link VaultSnapshotStore}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultSnapshotStoreTest {
+
+    private static final String KEY = Base64.getEncoder().encodeToString(new byte[32]);
+    private static final String SCOPE = "secret/V2{100=application, 200=app}";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File file;
+    private List<PropertySource> propertySources;
+
+    @Before
+    public void setUp() {
+        file = new File(folder.getRoot(), "app.snapshot");
+        Map<String, Object> application = new HashMap<>();
+        application.put("foo", "default");
+        application.put("port", 8080);
+        propertySources = Arrays.asList(
+                PropertySource.of("application", application, 100),
+                PropertySource.of("app", Collections.singletonMap("foo", "app"), 200));
+    }
+
+    @Test
+    public void snapshotIsReadBack() {
+        store(KEY, Duration.ofDays(1)).write(SCOPE, propertySources);
+
+        Optional<List<PropertySource>> snapshot = store(KEY, Duration.ofDays(1)).read(SCOPE);
+
+        assertTrue(snapshot.isPresent());
+        assertTrue(store(KEY, Duration.ofDays(1)).isSame(propertySources, snapshot.get()));
+        assertEquals("app", snapshot.get().get(1).getName());
+        assertEquals(200, snapshot.get().get(1).getOrder());
+    }
+
+    @Test
+    public void snapshotIsEncrypted() throws Exception {
+        store(KEY, Duration.ofDays(1)).write(SCOPE, propertySources);
+
+        String content = new String(Files.readAllBytes(file.toPath()), "ISO-8859-1");
+
+        assertFalse(content.contains("default"));
+        assertFalse(content.contains("application"));
+    }
+
+    @Test
+    public void snapshotOfAnotherScopeIsNotRead() {
+        store(KEY, Duration.ofDays(1)).write(SCOPE, propertySources);
+
+        assertFalse(store(KEY, Duration.ofDays(1)).read("secret/V2{100=application}").isPresent());
+    }
+
+    @Test
+    public void snapshotWithAnotherKeyIsNotRead() {
+        store(KEY, Duration.ofDays(1)).write(SCOPE, propertySources);
+        byte[] otherKey = new byte[32];
+        otherKey[0] = 1;
+
+        assertFalse(store(Base64.getEncoder().encodeToString(otherKey), Duration.ofDays(1)).read(SCOPE).isPresent());
+    }
+
+    @Test
+    public void expiredSnapshotIsNotRead() throws InterruptedException {
+        store(KEY, Duration.ofDays(1)).write(SCOPE, propertySources);
+        Thread.sleep(50);
+
+        assertFalse(store(KEY, Duration.ofMillis(10)).read(SCOPE).isPresent());
+    }
+
+    @Test
+    public void corruptedSnapshotIsNotRead() throws Exception {
+        store(KEY, Duration.ofDays(1)).write(SCOPE, propertySources);
+        byte[] content = Files.readAllBytes(file.toPath());
+        content[content.length - 1] ^= 1;
+        Files.write(file.toPath(), content);
+
+        assertFalse(store(KEY, Duration.ofDays(1)).read(SCOPE).isPresent());
+    }
+
+    @Test
+    public void truncatedSnapshotIsNotRead() throws Exception {
+        store(KEY, Duration.ofDays(1)).write(SCOPE, propertySources);
+        byte[] content = Files.readAllBytes(file.toPath());
+        Files.write(file.toPath(), Arrays.copyOf(content, 10));
+
+        assertFalse(store(KEY, Duration.ofDays(1)).read(SCOPE).isPresent());
+    }
+
+    @Test
+    public void missingSnapshotIsNotRead() {
+        assertFalse(store(KEY, Duration.ofDays(1)).read(SCOPE).isPresent());
+    }
+
+    @Test
+    public void changedPropertySourcesAreNotTheSame() {
+        VaultSnapshotStore store = store(KEY, Duration.ofDays(1));
+        List<PropertySource> changed = Arrays.asList(
+                propertySources.get(0),
+                PropertySource.of("app", Collections.singletonMap("foo", "changed"), 200));
+
+        assertFalse(store.isSame(propertySources, changed));
+        assertFalse(store.isSame(propertySources, propertySources.subList(0, 1)));
+    }
+
+    private VaultSnapshotStore store(String key, Duration maxAge) {
+        VaultClientConfiguration configuration = new VaultClientConfiguration(
+                new VaultClientConfiguration.VaultClientConnectionPoolConfiguration(), new ApplicationConfiguration());
+        VaultClientConfiguration.VaultClientSnapshotConfiguration snapshotConfiguration = configuration.getSnapshotConfiguration();
+        snapshotConfiguration.setEnabled(true);
+        snapshotConfiguration.setPath(file.getPath());
+        snapshotConfiguration.setKey(key);
+        snapshotConfiguration.setMaxAge(maxAge);
+        return new VaultSnapshotStore(configuration, new ApplicationConfiguration(), new ObjectMapper());
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.buffer.netty.NettyByteBufferFactory;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.core.io.buffer.ByteBuffer;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+import io.micronaut.http.HttpResponse;
+import io.micronaut.http.HttpStatus;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.reactivex.Flowable;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ *  Tests the {@link VaultStreamingResponseDecoder} on response bodies split in chunks, and its retries.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultStreamingResponseDecoderTest {
+
+    private static final String BODY_V2 = "{\"request_id\":\"7a2d\",\"lease_id\":\"\",\"renewable\":false,\"lease_duration\":0,"
+            + "\"data\":{\"data\":{\"foo\":\"b\u00e4r\",\"port\":8200,\"ratio\":0.75,\"enabled\":true,"
+            + "\"nested\":{\"key\":\"value\"},\"hosts\":[\"a\",\"b\"]},"
+            + "\"metadata\":{\"created_time\":\"2019-05-01T10:00:00.000000Z\",\"deletion_time\":\"\",\"destroyed\":false,\"version\":3}},"
+            + "\"wrap_info\":null,\"warnings\":null,\"auth\":null}";
+    private static final String BODY_V1 = "{\"request_id\":\"7a2d\",\"lease_id\":\"\",\"renewable\":false,\"lease_duration\":3600,"
+            + "\"data\":{\"foo\":\"bar\"},\"wrap_info\":null,\"warnings\":[\"a warning\"],\"auth\":null}";
+
+    private ApplicationContext context;
+    private VaultStreamingResponseDecoder decoder;
+
+    @Before
+    public void setUp() {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.uri", "http://localhost:8200");
+        properties.put("vault.client.token", "token");
+        properties.put("vault.client.kv-version", "V2");
+        properties.put("vault.client.config.retry-count", 2);
+        properties.put("vault.client.config.retry-delay", "10ms");
+        context = ApplicationContext.build().deduceEnvironment(false).properties(properties).start();
+        decoder = context.getBean(VaultStreamingResponseDecoder.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+    }
+
+    @Test
+    public void bodySplitWithinTokensIsDecoded() {
+        for (int chunkSize : new int[] {1, 2, 7, 64}) {
+            VaultSecrets secrets = decoder.decode(chunks(BODY_V2, chunkSize), true).blockingFirst();
+
+            Map<String, Object> properties = secrets.getProperties();
+            assertEquals("b\u00e4r", properties.get("foo"));
+            assertEquals(8200, ((Number) properties.get("port")).intValue());
+            assertEquals(0.75, ((Number) properties.get("ratio")).doubleValue(), 0);
+            assertEquals(Boolean.TRUE, properties.get("enabled"));
+            assertEquals("value", properties.get("nested.key"));
+            assertEquals(Arrays.asList("a", "b"), properties.get("hosts"));
+            assertEquals(6, properties.size());
+            assertEquals(Optional.of(3), secrets.getVersion());
+        }
+    }
+
+    @Test
+    public void metadataIsOnlyDecodedWhenRequested() {
+        VaultSecrets secrets = decoder.decode(chunks(BODY_V2, 5), false).blockingFirst();
+
+        assertFalse(secrets.getVersion().isPresent());
+        assertEquals(6, secrets.getProperties().size());
+    }
+
+    @Test
+    public void kvVersion1IsDecodedWithItsLease() {
+        VaultSecrets secrets = decoder.decode(chunks(BODY_V1, 3), VaultKvVersion.V1, true).blockingFirst();
+
+        assertEquals("bar", secrets.getProperties().get("foo"));
+        assertEquals(1, secrets.getProperties().size());
+        assertEquals(Optional.of(3600L), secrets.getLeaseDuration());
+        assertFalse(secrets.getVersion().isPresent());
+    }
+
+    @Test
+    public void missingKeyIsNotRetried() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Flowable<ByteBuffer<?>> body = Flowable.defer(() -> {
+            subscriptions.incrementAndGet();
+            return Flowable.error(new HttpClientResponseException("Not Found", HttpResponse.status(HttpStatus.NOT_FOUND)));
+        });
+
+        TestSubscriber<VaultSecrets> secrets = decoder.decode(body, true).test();
+
+        secrets.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        secrets.assertError(VaultKeyNotFoundException.class);
+        assertEquals(1, subscriptions.get());
+    }
+
+    @Test
+    public void failedReadIsRetried() {
+        AtomicInteger subscriptions = new AtomicInteger();
+        Flowable<ByteBuffer<?>> body = Flowable.defer(() -> subscriptions.incrementAndGet() < 3
+                ? Flowable.error(new HttpClientResponseException("Unavailable", HttpResponse.status(HttpStatus.SERVICE_UNAVAILABLE)))
+                : chunks(BODY_V2, 16));
+
+        TestSubscriber<VaultSecrets> secrets = decoder.decode(body, true).test();
+
+        secrets.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        secrets.assertValueCount(1);
+        assertEquals(3, subscriptions.get());
+    }
+
+    private static Flowable<ByteBuffer<?>> chunks(String body, int chunkSize) {
+        return Flowable.defer(() -> {
+            byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+            List<ByteBuffer<?>> chunks = new ArrayList<>();
+            for (int i = 0; i < bytes.length; i += chunkSize) {
+                chunks.add(NettyByteBufferFactory.DEFAULT.copiedBuffer(
+                        Arrays.copyOfRange(bytes, i, Math.min(bytes.length, i + chunkSize))));
+            }
+            return Flowable.fromIterable(chunks);
+        });
+    }
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.auth;
+
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientAuthenticationConfiguration;
+import io.reactivex.Flowable;
+import io.reactivex.Single;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.After;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *  Tests the logins, the renewals and the caching of the token of the {@link AbstractLoginVaultTokenSupplier}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class AbstractLoginVaultTokenSupplierTest {
+
+    private final StubAuthHttpClient authHttpClient = new StubAuthHttpClient();
+    private TestVaultTokenSupplier tokenSupplier;
+
+    @After
+    public void tearDown() {
+        if (tokenSupplier != null) {
+            tokenSupplier.close();
+        }
+    }
+
+    @Test
+    public void concurrentCallersShareASingleLogin() {
+        authHttpClient.loginDelay = 200;
+        start(60, true);
+
+        List<TestSubscriber<String>> tokens = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            tokens.add(Flowable.fromPublisher(tokenSupplier.getToken()).test());
+        }
+
+        for (TestSubscriber<String> token : tokens) {
+            token.awaitTerminalEvent(5, TimeUnit.SECONDS);
+            token.assertValue("token-1");
+        }
+        assertEquals(1, authHttpClient.logins.get());
+        assertEquals("token-1", token());
+        assertEquals(1, authHttpClient.logins.get());
+    }
+
+    @Test
+    public void tokenIsRenewedAtTheFractionOfItsTtl() throws InterruptedException {
+        start(1, true);
+        token();
+
+        Thread.sleep(300);
+        assertEquals(0, authHttpClient.renewals.get());
+        Thread.sleep(500);
+
+        assertEquals(1, authHttpClient.renewals.get());
+        assertEquals(1, authHttpClient.logins.get());
+        assertEquals("token-1", token());
+    }
+
+    @Test
+    public void renewalWithoutTtlLogsInAgain() throws InterruptedException {
+        start(1, true);
+        authHttpClient.renewalTtl = 0;
+        token();
+
+        Thread.sleep(800);
+
+        assertEquals(1, authHttpClient.renewals.get());
+        assertEquals(2, authHttpClient.logins.get());
+        assertEquals("token-2", token());
+    }
+
+    @Test
+    public void tokenWithoutTtlIsKeptUntilRejected() {
+        start(0, false);
+
+        assertEquals("token-1", token());
+        assertEquals("token-1", token());
+        tokenSupplier.invalidate("another-token");
+        assertEquals("token-1", token());
+        assertEquals(1, authHttpClient.logins.get());
+
+        tokenSupplier.invalidate("token-1");
+
+        assertEquals("token-2", token());
+        assertEquals(2, authHttpClient.logins.get());
+    }
+
+    private void start(long ttl, boolean renewable) {
+        authHttpClient.loginTtl = ttl;
+        authHttpClient.renewable = renewable;
+        VaultClientAuthenticationConfiguration configuration = new VaultClientAuthenticationConfiguration();
+        configuration.setRenewFraction(0.5);
+        tokenSupplier = new TestVaultTokenSupplier(authHttpClient, configuration);
+    }
+
+    private String token() {
+        return Flowable.fromPublisher(tokenSupplier.getToken()).blockingFirst();
+    }
+
+    /**
+     * A login token supplier without credentials.
+     */
+    private static final class TestVaultTokenSupplier extends AbstractLoginVaultTokenSupplier {
+
+        TestVaultTokenSupplier(VaultAuthHttpClient authHttpClient, VaultClientAuthenticationConfiguration configuration) {
+            super(authHttpClient, configuration);
+        }
+
+        @Override
+        protected String getDefaultPath() {
+            return "test";
+        }
+
+        @Override
+        protected Map<String, Object> getCredentials() {
+            return Collections.emptyMap();
+        }
+    }
+
+    /**
+     * Answers the logins with a new token each and the renewals with the configured TTL.
+     */
+    private static final class StubAuthHttpClient implements VaultAuthHttpClient {
+
+        private final AtomicInteger logins = new AtomicInteger();
+        private final AtomicInteger renewals = new AtomicInteger();
+        private volatile long loginDelay;
+        private volatile long loginTtl;
+        private volatile long renewalTtl = 1;
+        private volatile boolean renewable;
+
+        @Override
+        public Publisher<VaultAuthResponse> login(String path, Map<String, Object> credentials) {
+            return Single.timer(loginDelay, TimeUnit.MILLISECONDS)
+                    .map(tick -> response("token-" + logins.incrementAndGet(), loginTtl))
+                    .toFlowable();
+        }
+
+        @Override
+        public Publisher<VaultAuthResponse> renewSelf(String token) {
+            return Single.fromCallable(() -> {
+                renewals.incrementAndGet();
+                return response(token, renewalTtl);
+            }).toFlowable();
+        }
+
+        private VaultAuthResponse response(String token, long ttl) {
+            VaultAuth auth = new VaultAuth(token, ttl, renewable, Collections.singletonList("default"));
+            return new VaultAuthResponse(null, auth, null, null, "request", null, false, null);
+        }
+    }
+}
@@ -0,0 +1,53 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.auth;
+
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.runtime.ApplicationConfiguration;
+import io.reactivex.Flowable;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *  Tests the token supplied by the {@link StaticVaultTokenSupplier}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class StaticVaultTokenSupplierTest {
+
+    @Test
+    public void configuredTokenIsSupplied() {
+        VaultClientConfiguration configuration = configuration();
+        configuration.setToken("token");
+
+        assertEquals("token", Flowable.fromPublisher(new StaticVaultTokenSupplier(configuration).getToken()).blockingFirst());
+    }
+
+    @Test
+    public void missingTokenMeansUnauthenticatedRequests() {
+        String token = Flowable.fromPublisher(new StaticVaultTokenSupplier(configuration()).getToken()).blockingFirst();
+
+        assertEquals(VaultTokenSupplier.NO_TOKEN, token);
+    }
+
+    private static VaultClientConfiguration configuration() {
+        return new VaultClientConfiguration(
+                new VaultClientConfiguration.VaultClientConnectionPoolConfiguration(), new ApplicationConfiguration());
+    }
+}
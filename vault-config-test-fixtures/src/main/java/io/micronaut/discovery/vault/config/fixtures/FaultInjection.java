@@ -0,0 +1,191 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.fixtures;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ *  The faults injected by the {@link StubVault} into the responses. Every property can be changed while the stub
+ *  is running, the change applies to the next request.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class FaultInjection {
+
+    /**
+     * The faults applied to a single request.
+     */
+    enum Fault { NONE, ERROR, RESET }
+
+    private volatile Duration latency = Duration.ZERO;
+    private volatile Duration latencyJitter = Duration.ZERO;
+    private volatile double errorRate;
+    private volatile int errorStatus = 503;
+    private volatile Duration retryAfter = Duration.ofSeconds(1);
+    private volatile double resetRate;
+    private volatile int payloadPadding;
+
+    /**
+     * @return The latency added to every response
+     */
+    public Duration getLatency() {
+        return latency;
+    }
+
+    /**
+     * Set the latency added to every response.
+     *
+     * @param latency The latency
+     * @return This fault injection
+     */
+    public FaultInjection setLatency(Duration latency) {
+        this.latency = latency;
+        return this;
+    }
+
+    /**
+     * @return The maximum random latency added on top of the latency
+     */
+    public Duration getLatencyJitter() {
+        return latencyJitter;
+    }
+
+    /**
+     * Set the maximum random latency added on top of the latency.
+     *
+     * @param latencyJitter The maximum random latency
+     * @return This fault injection
+     */
+    public FaultInjection setLatencyJitter(Duration latencyJitter) {
+        this.latencyJitter = latencyJitter;
+        return this;
+    }
+
+    /**
+     * @return The fraction of the requests answered with the error status
+     */
+    public double getErrorRate() {
+        return errorRate;
+    }
+
+    /**
+     * Set the fraction of the requests answered with the error status.
+     *
+     * @param errorRate The fraction of the requests, between 0 and 1
+     * @return This fault injection
+     */
+    public FaultInjection setErrorRate(double errorRate) {
+        this.errorRate = errorRate;
+        return this;
+    }
+
+    /**
+     * @return The error status, 503 by default
+     */
+    public int getErrorStatus() {
+        return errorStatus;
+    }
+
+    /**
+     * Set the error status, e.g. 503 or 429.
+     *
+     * @param errorStatus The error status
+     * @return This fault injection
+     */
+    public FaultInjection setErrorStatus(int errorStatus) {
+        this.errorStatus = errorStatus;
+        return this;
+    }
+
+    /**
+     * @return The Retry-After sent with a 429 or 503 error status
+     */
+    public Duration getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Set the Retry-After sent with a 429 or 503 error status.
+     *
+     * @param retryAfter The Retry-After
+     * @return This fault injection
+     */
+    public FaultInjection setRetryAfter(Duration retryAfter) {
+        this.retryAfter = retryAfter;
+        return this;
+    }
+
+    /**
+     * @return The fraction of the requests whose connection is reset instead of answered
+     */
+    public double getResetRate() {
+        return resetRate;
+    }
+
+    /**
+     * Set the fraction of the requests whose connection is reset instead of answered.
+     *
+     * @param resetRate The fraction of the requests, between 0 and 1
+     * @return This fault injection
+     */
+    public FaultInjection setResetRate(double resetRate) {
+        this.resetRate = resetRate;
+        return this;
+    }
+
+    /**
+     * @return The size in bytes of the padding secret added to every secret read
+     */
+    public int getPayloadPadding() {
+        return payloadPadding;
+    }
+
+    /**
+     * Set the size in bytes of the padding secret added to every secret read, to send large payloads.
+     *
+     * @param payloadPadding The size of the padding in bytes
+     * @return This fault injection
+     */
+    public FaultInjection setPayloadPadding(int payloadPadding) {
+        this.payloadPadding = payloadPadding;
+        return this;
+    }
+
+    /**
+     * @return The fault to apply to the next request
+     */
+    Fault nextFault() {
+        double random = ThreadLocalRandom.current().nextDouble();
+        if (random < resetRate) {
+            return Fault.RESET;
+        }
+        if (random < resetRate + errorRate) {
+            return Fault.ERROR;
+        }
+        return Fault.NONE;
+    }
+
+    /**
+     * @return The latency of the next response in milliseconds
+     */
+    long nextLatencyMillis() {
+        long jitter = latencyJitter.toMillis();
+        return latency.toMillis() + (jitter > 0 ? ThreadLocalRandom.current().nextLong(jitter + 1) : 0);
+    }
+}
@@ -0,0 +1,217 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.fixtures;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.discovery.config.ConfigurationClient;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultClientReadConfiguration;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Boots a number of simulated clients concurrently against a {@link StubVault} and reports the percentiles of
+ *  their time to ready, from the start of the application context until the configuration read from Vault is
+ *  resolvable. Every option is given as {@code --name=value}:
+ *
+ *  <ul>
+ *      <li>{@code clients}: the number of clients booted, 50 by default</li>
+ *      <li>{@code concurrency}: the number of clients booting at the same time, 10 by default</li>
+ *      <li>{@code warmup}: the number of clients booted one after the other without faults before the measured ones, 5 by default</li>
+ *      <li>{@code kv-version}: the secret engine version, V2 by default</li>
+ *      <li>{@code stub-threads}: the number of event loop threads of the stub, 2 by default</li>
+ *      <li>{@code profiles}: the number of active environments of every client, 2 by default</li>
+ *      <li>{@code secret-size}: the approximate size in bytes of the secrets of every vault key, 1024 by default</li>
+ *      <li>{@code decoder}: the response decoder of the clients, BINDING by default</li>
+ *      <li>{@code execution}: the executor of the reads of the clients, IO by default</li>
+ *      <li>{@code latency}, {@code latency-jitter}: the latency added to every response in milliseconds</li>
+ *      <li>{@code error-rate}, {@code error-status}: the fraction of the responses failing with the error status</li>
+ *      <li>{@code reset-rate}: the fraction of the connections reset instead of answered</li>
+ *      <li>{@code payload-padding}: the size in bytes of a padding secret added to every response</li>
+ *  </ul>
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public final class LoadDriver {
+
+    private static final String APPLICATION_NAME = "load-driver";
+    private static final String READY_PROPERTY = "load-driver.ready";
+
+    private final Map<String, String> options;
+
+    private LoadDriver(Map<String, String> options) {
+        this.options = options;
+    }
+
+    /**
+     * @param args The options, as {@code --name=value}
+     * @throws Exception If the stub cannot be started or the run is interrupted
+     */
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || arg.indexOf('=') < 0) {
+                throw new IllegalArgumentException("Expected an option as --name=value but was: " + arg);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        LoadReport report = new LoadDriver(options).run();
+        System.out.println(report);
+        // the http clients of the bootstrap contexts outlive the application contexts
+        System.exit(report.getFailures().isEmpty() ? 0 : 1);
+    }
+
+    /**
+     * Runs the load.
+     *
+     * @return The report of the run
+     * @throws Exception If the stub cannot be started or the run is interrupted
+     */
+    LoadReport run() throws Exception {
+        int clients = intOption("clients", 50);
+        int concurrency = intOption("concurrency", 10);
+        int profiles = intOption("profiles", 2);
+        VaultKvVersion kvVersion = VaultKvVersion.valueOf(option("kv-version", "V2"));
+
+        // the configuration client only runs in the bootstrap context, which is otherwise only started with a bootstrap.yml
+        System.setProperty("micronaut.bootstrap.context", "true");
+
+        String[] environments = new String[profiles];
+        for (int i = 0; i < profiles; i++) {
+            environments[i] = "profile" + i;
+        }
+
+        try (StubVault vault = StubVault.builder().kvVersion(kvVersion).threads(intOption("stub-threads", 2)).build().start()) {
+            Map<String, Object> secrets = secrets(intOption("secret-size", 1024));
+            Map<String, Object> ready = new LinkedHashMap<>(secrets);
+            ready.put(READY_PROPERTY, true);
+            vault.putSecret("application", ready);
+            vault.putSecret(APPLICATION_NAME, secrets);
+            for (String environment : environments) {
+                vault.putSecret("application/" + environment, secrets);
+                vault.putSecret(APPLICATION_NAME + "/" + environment, secrets);
+            }
+
+            Map<String, Object> properties = properties(vault, kvVersion);
+            for (int i = intOption("warmup", 5); i > 0; i--) {
+                boot(environments, properties);
+            }
+            vault.resetRequestCount();
+            vault.getFaults()
+                    .setLatency(Duration.ofMillis(intOption("latency", 0)))
+                    .setLatencyJitter(Duration.ofMillis(intOption("latency-jitter", 0)))
+                    .setErrorRate(Double.parseDouble(option("error-rate", "0")))
+                    .setErrorStatus(intOption("error-status", 503))
+                    .setResetRate(Double.parseDouble(option("reset-rate", "0")))
+                    .setPayloadPadding(intOption("payload-padding", 0));
+
+            ExecutorService executorService = Executors.newFixedThreadPool(concurrency);
+            CountDownLatch start = new CountDownLatch(1);
+            List<Future<Long>> boots = new ArrayList<>(clients);
+            try {
+                for (int i = 0; i < clients; i++) {
+                    boots.add(executorService.submit(() -> {
+                        start.await();
+                        return boot(environments, properties);
+                    }));
+                }
+                long begin = System.nanoTime();
+                start.countDown();
+
+                List<Long> timesToReady = new ArrayList<>(clients);
+                List<String> failures = new ArrayList<>();
+                for (Future<Long> boot : boots) {
+                    try {
+                        timesToReady.add(boot.get());
+                    } catch (ExecutionException e) {
+                        failures.add(String.valueOf(e.getCause()));
+                    }
+                }
+                return new LoadReport(clients, timesToReady, failures, System.nanoTime() - begin, vault.getRequestCount());
+            } finally {
+                executorService.shutdownNow();
+                executorService.awaitTermination(10, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    /**
+     * Boots a client and waits until the configuration read from Vault is resolvable.
+     *
+     * @return The time to ready in nanoseconds
+     */
+    private long boot(String[] environments, Map<String, Object> properties) {
+        long start = System.nanoTime();
+        try (ApplicationContext applicationContext = ApplicationContext.build(environments)
+                .deduceEnvironment(false)
+                .properties(properties)
+                .start()) {
+            if (!applicationContext.getProperty(READY_PROPERTY, Boolean.class).orElse(false)) {
+                throw new IllegalStateException("The configuration was not read from Vault");
+            }
+            return System.nanoTime() - start;
+        }
+    }
+
+    private Map<String, Object> properties(StubVault vault, VaultKvVersion kvVersion) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.application.name", APPLICATION_NAME);
+        properties.put(ConfigurationClient.ENABLED, true);
+        properties.put(VaultClientConfiguration.PREFIX + ".config.enabled", true);
+        properties.put(VaultClientConfiguration.PREFIX + ".uri", vault.getUri());
+        properties.put(VaultClientConfiguration.PREFIX + ".token", vault.getToken());
+        properties.put(VaultClientConfiguration.PREFIX + ".kv-version", kvVersion.name());
+        properties.put(VaultClientConfiguration.PREFIX + ".secret-engine-name", vault.getEngine());
+        properties.put(VaultClientConfiguration.PREFIX + ".fail-fast", true);
+        properties.put(VaultClientReadConfiguration.PREFIX + ".decoder", option("decoder", "BINDING"));
+        properties.put(VaultClientReadConfiguration.PREFIX + ".execution", option("execution", "IO"));
+        return properties;
+    }
+
+    private Map<String, Object> secrets(int size) {
+        Map<String, Object> secrets = new LinkedHashMap<>();
+        char[] value = new char[64];
+        for (int i = 0, written = 0; written < size; i++, written += 80) {
+            Arrays.fill(value, (char) ('a' + i % 26));
+            secrets.put(String.format("load-driver.key-%06d", i), new String(value));
+        }
+        return Collections.unmodifiableMap(secrets);
+    }
+
+    private String option(String name, String defaultValue) {
+        return options.getOrDefault(name, defaultValue);
+    }
+
+    private int intOption(String name, int defaultValue) {
+        return Integer.parseInt(option(name, String.valueOf(defaultValue)));
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.fixtures;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  The time to ready percentiles and the failures of a run of the {@link LoadDriver}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public final class LoadReport {
+
+    private final int clients;
+    private final List<Long> timesToReady;
+    private final List<String> failures;
+    private final long elapsed;
+    private final long requests;
+
+    /**
+     * @param clients      The number of clients booted
+     * @param timesToReady The time to ready of every client ready, in nanoseconds
+     * @param failures     The failures of the clients not ready
+     * @param elapsed      The time taken by the whole run, in nanoseconds
+     * @param requests     The number of requests received by the stub
+     */
+    LoadReport(int clients, List<Long> timesToReady, List<String> failures, long elapsed, long requests) {
+        List<Long> sorted = new ArrayList<>(timesToReady);
+        Collections.sort(sorted);
+        this.clients = clients;
+        this.timesToReady = Collections.unmodifiableList(sorted);
+        this.failures = Collections.unmodifiableList(new ArrayList<>(failures));
+        this.elapsed = elapsed;
+        this.requests = requests;
+    }
+
+    /**
+     * @return The time to ready of every client ready, in nanoseconds, sorted
+     */
+    public List<Long> getTimesToReady() {
+        return timesToReady;
+    }
+
+    /**
+     * @return The failures of the clients not ready
+     */
+    public List<String> getFailures() {
+        return failures;
+    }
+
+    /**
+     * @param percentile The percentile, between 0 and 100
+     * @return The time to ready at the percentile in milliseconds, or -1 if no client was ready
+     */
+    public double percentile(double percentile) {
+        if (timesToReady.isEmpty()) {
+            return -1;
+        }
+        int index = (int) Math.ceil(percentile / 100 * timesToReady.size()) - 1;
+        long nanos = timesToReady.get(Math.max(0, Math.min(index, timesToReady.size() - 1)));
+        return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder()
+                .append(String.format("clients: %d, ready: %d, failed: %d, elapsed: %d ms, stub requests: %d%n",
+                        clients, timesToReady.size(), failures.size(), TimeUnit.NANOSECONDS.toMillis(elapsed), requests))
+                .append(String.format("time to ready (ms): p50 %.1f, p90 %.1f, p95 %.1f, p99 %.1f, max %.1f",
+                        percentile(50), percentile(90), percentile(95), percentile(99), percentile(100)));
+        failures.stream().distinct().limit(5).forEach(failure -> report.append(System.lineSeparator()).append("failure: ").append(failure));
+        return report.toString();
+    }
+}
@@ -0,0 +1,166 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.fixtures;
+
+import java.io.ByteArrayOutputStream;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.Signature;
+import java.security.spec.ECGenParameterSpec;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  The certificate authority of a {@link StubVault}, issuing X.509 v1 certificates with EC P-256 keys, signed by a
+ *  self-signed root generated on creation. Only the fields needed by a TLS handshake are encoded.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+final class StubCertificateAuthority {
+
+    private static final byte[] ECDSA_WITH_SHA256 = {0x06, 0x08, 0x2A, (byte) 0x86, 0x48, (byte) 0xCE, 0x3D, 0x04, 0x03, 0x02};
+    private static final byte[] COMMON_NAME = {0x06, 0x03, 0x55, 0x04, 0x03};
+    private static final DateTimeFormatter UTC_TIME = DateTimeFormatter.ofPattern("yyMMddHHmmss'Z'").withZone(ZoneOffset.UTC);
+    private static final String ROOT_NAME = "Stub Vault Root";
+
+    private final AtomicLong serialNumbers = new AtomicLong(1);
+    private final KeyPair rootKeyPair;
+    private final byte[] rootCertificate;
+
+    /**
+     * Generates the key and the self-signed certificate of the root.
+     */
+    StubCertificateAuthority() {
+        try {
+            rootKeyPair = generateKeyPair();
+            Instant now = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            rootCertificate = certificate(serialNumbers.getAndIncrement(), ROOT_NAME, rootKeyPair.getPublic().getEncoded(),
+                    now.minus(Duration.ofDays(1)), now.plus(Duration.ofDays(3650)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to create the stub certificate authority", e);
+        }
+    }
+
+    /**
+     * Issues a certificate, answered like the {@code pki/issue/{role}} endpoint.
+     *
+     * @param commonName The common name of the subject
+     * @param ttl        The lifetime of the certificate
+     * @return The data of the response
+     */
+    Map<String, Object> issue(String commonName, Duration ttl) {
+        try {
+            KeyPair keyPair = generateKeyPair();
+            long serialNumber = serialNumbers.getAndIncrement();
+            Instant notBefore = Instant.now().truncatedTo(ChronoUnit.SECONDS);
+            Instant notAfter = notBefore.plus(ttl);
+            byte[] certificate = certificate(serialNumber, commonName, keyPair.getPublic().getEncoded(), notBefore, notAfter);
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("certificate", pem("CERTIFICATE", certificate));
+            data.put("issuing_ca", pem("CERTIFICATE", rootCertificate));
+            data.put("ca_chain", Collections.singletonList(pem("CERTIFICATE", rootCertificate)));
+            data.put("private_key", pem("PRIVATE KEY", keyPair.getPrivate().getEncoded()));
+            data.put("private_key_type", "ec");
+            data.put("serial_number", Long.toHexString(serialNumber));
+            data.put("expiration", notAfter.getEpochSecond());
+            return data;
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Unable to issue a certificate for " + commonName, e);
+        }
+    }
+
+    /**
+     * @return The number of certificates issued, the root excluded
+     */
+    long getIssuedCount() {
+        return serialNumbers.get() - 2;
+    }
+
+    private byte[] certificate(long serialNumber, String subject, byte[] publicKeyInfo, Instant notBefore, Instant notAfter)
+            throws GeneralSecurityException {
+        byte[] algorithm = der(0x30, ECDSA_WITH_SHA256);
+        byte[] tbs = der(0x30,
+                der(0x02, BigInteger.valueOf(serialNumber).toByteArray()),
+                algorithm,
+                name(ROOT_NAME),
+                der(0x30, time(notBefore), time(notAfter)),
+                name(subject),
+                publicKeyInfo);
+        Signature signature = Signature.getInstance("SHA256withECDSA");
+        signature.initSign(rootKeyPair.getPrivate());
+        signature.update(tbs);
+        byte[] signed = signature.sign();
+        byte[] bits = new byte[signed.length + 1];
+        System.arraycopy(signed, 0, bits, 1, signed.length);
+        return der(0x30, tbs, algorithm, der(0x03, bits));
+    }
+
+    private static KeyPair generateKeyPair() throws GeneralSecurityException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("EC");
+        generator.initialize(new ECGenParameterSpec("secp256r1"));
+        return generator.generateKeyPair();
+    }
+
+    private static byte[] name(String commonName) {
+        byte[] attribute = der(0x30, COMMON_NAME, der(0x0C, commonName.getBytes(StandardCharsets.UTF_8)));
+        return der(0x30, der(0x31, attribute));
+    }
+
+    private static byte[] time(Instant instant) {
+        return der(0x17, UTC_TIME.format(instant).getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static byte[] der(int tag, byte[]... contents) {
+        ByteArrayOutputStream content = new ByteArrayOutputStream();
+        for (byte[] bytes : contents) {
+            content.write(bytes, 0, bytes.length);
+        }
+        int length = content.size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(length + 6);
+        out.write(tag);
+        if (length < 0x80) {
+            out.write(length);
+        } else {
+            int octets = (32 - Integer.numberOfLeadingZeros(length) + 7) / 8;
+            out.write(0x80 | octets);
+            for (int i = octets - 1; i >= 0; i--) {
+                out.write(length >>> (8 * i));
+            }
+        }
+        byte[] bytes = content.toByteArray();
+        out.write(bytes, 0, bytes.length);
+        return out.toByteArray();
+    }
+
+    private static String pem(String type, byte[] der) {
+        return "-----BEGIN " + type + "-----\n"
+                + Base64.getMimeEncoder(64, new byte[] {'\n'}).encodeToString(der)
+                + "\n-----END " + type + "-----";
+    }
+}
@@ -0,0 +1,633 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.fixtures;
+
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.group.ChannelGroup;
+import io.netty.channel.group.DefaultChannelGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.HttpServerCodec;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.concurrent.GlobalEventExecutor;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ *  An embedded stub of the Vault KV v1 and v2 read endpoints, serving the secrets put into it and applying the
+ *  faults of its {@link FaultInjection}. Every read must carry the token of the stub, a read of a vault key
+ *  without secrets is answered with a 404. Additional KV mounts, each with its own version, are served like the
+ *  KV engine.
+ *
+ *  <p>Served paths, with the secret engine name and the vault key:</p>
+ *  <ul>
+ *      <li>KV v1: {@code /v1/{engine}/{key}}</li>
+ *      <li>KV v2: {@code /v2/{engine}/data/{key}} and {@code /v1/{engine}/data/{key}}</li>
+ *      <li>KV v2 metadata: {@code /v1/{engine}/metadata/{key}}</li>
+ *      <li>Lists, with the {@code LIST} method or {@code ?list=true}: {@code /v1/{engine}/{path}} for KV v1 and
+ *      {@code /v1/{engine}/metadata/{path}} for KV v2, a path without keys under it being answered with a 404</li>
+ *      <li>Health: {@code /v1/sys/health}, without token</li>
+ *      <li>Mounts: {@code /v1/sys/mounts}, listing the KV engine and the additional KV mounts with their version,
+ *      and the database, transit and PKI engines</li>
+ *      <li>Event notifications: {@code /v1/sys/events/subscribe/{type}}, a WebSocket receiving an event on every
+ *      put or removal of secrets</li>
+ *      <li>Database credentials: {@code /v1/{database engine}/creds/{role}}, generating new credentials with a
+ *      renewable lease on every read</li>
+ *      <li>Lease renewals: {@code PUT /v1/sys/leases/renew}, a lease not found or expired being answered with a 400</li>
+ *      <li>Lease revocations: {@code PUT /v1/sys/leases/revoke}, answered with a 204 whether the lease was found or not</li>
+ *      <li>Transit batches: {@code POST /v1/{transit engine}/{encrypt|decrypt|sign|verify}/{key}} with a
+ *      {@code batch_input}, the ciphertexts and signatures being reversible stand-ins, not actual cryptography</li>
+ *      <li>Data keys: {@code POST /v1/{transit engine}/datakey/plaintext/{key}}, wrapped like an encryption</li>
+ *      <li>Certificates: {@code POST /v1/{pki engine}/issue/{role}}, issuing an EC certificate signed by a root
+ *      generated by the stub, for the {@code ttl} of the request or the certificate lifetime</li>
+ *  </ul>
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public final class StubVault implements AutoCloseable {
+
+    private final String engine;
+    private final String token;
+    private final FaultInjection faults;
+    private final String databaseEngine;
+    private final String transitEngine;
+    private final String pkiEngine;
+    private final Duration certificateTtl;
+    private final StubCertificateAuthority certificateAuthority = new StubCertificateAuthority();
+    private final Duration leaseDuration;
+    private final Duration maxLeaseDuration;
+    private final Map<String, VaultKvVersion> mounts = new LinkedHashMap<>();
+    private final Map<String, Map<String, StubSecret>> secrets = new ConcurrentHashMap<>();
+    private final Map<String, StubLease> leases = new ConcurrentHashMap<>();
+    private final AtomicLong credentials = new AtomicLong();
+    private final AtomicLong revocations = new AtomicLong();
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+    private final ChannelGroup eventSubscribers = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final EventLoopGroup bossGroup = new NioEventLoopGroup(1);
+    private final EventLoopGroup workerGroup;
+    private Channel channel;
+
+    private StubVault(Builder builder) {
+        this.engine = builder.engine;
+        this.token = builder.token;
+        this.faults = builder.faults;
+        this.databaseEngine = builder.databaseEngine;
+        this.transitEngine = builder.transitEngine;
+        this.pkiEngine = builder.pkiEngine;
+        this.certificateTtl = builder.certificateTtl;
+        this.leaseDuration = builder.leaseDuration;
+        this.maxLeaseDuration = builder.maxLeaseDuration;
+        this.workerGroup = new NioEventLoopGroup(builder.threads);
+        this.mounts.put(engine, builder.kvVersion);
+        this.mounts.putAll(builder.mounts);
+        for (String mount : mounts.keySet()) {
+            secrets.put(mount, new ConcurrentHashMap<>());
+        }
+    }
+
+    /**
+     * @return A builder of a stub
+     */
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    /**
+     * Starts the stub on a random port of the loopback address.
+     *
+     * @return This stub
+     * @throws InterruptedException If interrupted while binding
+     */
+    public StubVault start() throws InterruptedException {
+        StubVaultHandler handler = new StubVaultHandler(this);
+        channel = new ServerBootstrap()
+                .group(bossGroup, workerGroup)
+                .channel(NioServerSocketChannel.class)
+                .option(ChannelOption.SO_BACKLOG, 1024)
+                .childOption(ChannelOption.TCP_NODELAY, true)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        connections.incrementAndGet();
+                        ch.pipeline()
+                                .addLast(new HttpServerCodec())
+                                .addLast(new HttpObjectAggregator(1024 * 1024))
+                                .addLast(handler);
+                    }
+                })
+                .bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0))
+                .sync()
+                .channel();
+        return this;
+    }
+
+    /**
+     * @return The uri of the stub
+     */
+    public String getUri() {
+        InetSocketAddress address = (InetSocketAddress) channel.localAddress();
+        return "http://" + address.getHostString() + ":" + address.getPort();
+    }
+
+    /**
+     * Puts the secrets of a vault key, replacing the current ones and bumping the version of the vault key.
+     *
+     * @param vaultKey The vault key, e.g. {@code application/dev}
+     * @param values   The secrets
+     * @return This stub
+     */
+    public StubVault putSecret(String vaultKey, Map<String, Object> values) {
+        return putSecret(engine, vaultKey, values);
+    }
+
+    /**
+     * Puts the secrets of a vault key of a KV mount, replacing the current ones and bumping the version of the
+     * vault key.
+     *
+     * @param mount    The KV engine name or the name of an additional KV mount
+     * @param vaultKey The vault key, e.g. {@code application/dev}
+     * @param values   The secrets
+     * @return This stub
+     */
+    public StubVault putSecret(String mount, String vaultKey, Map<String, Object> values) {
+        StubSecret secret = getSecrets(mount).compute(vaultKey, (key, current) ->
+                new StubSecret(new LinkedHashMap<>(values), current == null ? 1 : current.version + 1));
+        publishEvent(mount, vaultKey, secret.version, true);
+        return this;
+    }
+
+    /**
+     * Removes the secrets of a vault key, whose reads are then answered with a 404.
+     *
+     * @param vaultKey The vault key
+     * @return This stub
+     */
+    public StubVault removeSecret(String vaultKey) {
+        return removeSecret(engine, vaultKey);
+    }
+
+    /**
+     * Removes the secrets of a vault key of a KV mount, whose reads are then answered with a 404.
+     *
+     * @param mount    The KV engine name or the name of an additional KV mount
+     * @param vaultKey The vault key
+     * @return This stub
+     */
+    public StubVault removeSecret(String mount, String vaultKey) {
+        StubSecret secret = getSecrets(mount).remove(vaultKey);
+        if (secret != null) {
+            publishEvent(mount, vaultKey, secret.version, false);
+        }
+        return this;
+    }
+
+    /**
+     * @return The faults injected into the responses
+     */
+    public FaultInjection getFaults() {
+        return faults;
+    }
+
+    /**
+     * @return The number of requests received since the start or the last reset
+     */
+    public long getRequestCount() {
+        return requests.get();
+    }
+
+    /**
+     * @return The number of connections accepted since the start
+     */
+    public long getConnectionCount() {
+        return connections.get();
+    }
+
+    /**
+     * @return The number of WebSocket sessions subscribed to the event notifications
+     */
+    public int getEventSubscriberCount() {
+        return eventSubscribers.size();
+    }
+
+    /**
+     * Closes every WebSocket session subscribed to the event notifications, as a dropped stream.
+     */
+    public void closeEventSubscribers() {
+        eventSubscribers.close().syncUninterruptibly();
+    }
+
+    /**
+     * @return The number of database credentials generated
+     */
+    public long getGeneratedCredentialsCount() {
+        return credentials.get();
+    }
+
+    /**
+     * @return The number of leases revoked
+     */
+    public long getRevokedLeasesCount() {
+        return revocations.get();
+    }
+
+    /**
+     * @return The number of leases generated and neither revoked nor expired
+     */
+    public long getLiveLeasesCount() {
+        Instant now = Instant.now();
+        return leases.values().stream().filter(lease -> lease.expiry.isAfter(now)).count();
+    }
+
+    /**
+     * @return The number of certificates issued
+     */
+    public long getIssuedCertificatesCount() {
+        return certificateAuthority.getIssuedCount();
+    }
+
+    /**
+     * Resets the number of requests received.
+     */
+    public void resetRequestCount() {
+        requests.set(0);
+    }
+
+    @Override
+    public void close() {
+        if (channel != null) {
+            channel.close().syncUninterruptibly();
+        }
+        bossGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+        workerGroup.shutdownGracefully(0, 0, TimeUnit.SECONDS);
+    }
+
+    String getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return The KV engine and the additional KV mounts, with their version
+     */
+    Map<String, VaultKvVersion> getMounts() {
+        return Collections.unmodifiableMap(mounts);
+    }
+
+    String getToken() {
+        return token;
+    }
+
+    String getDatabaseEngine() {
+        return databaseEngine;
+    }
+
+    String getTransitEngine() {
+        return transitEngine;
+    }
+
+    String getPkiEngine() {
+        return pkiEngine;
+    }
+
+    /**
+     * Issues a certificate for the common name, with the lifetime of the certificates without ttl.
+     */
+    Map<String, Object> issueCertificate(String commonName, Duration ttl) {
+        return certificateAuthority.issue(commonName, ttl != null ? ttl : certificateTtl);
+    }
+
+    /**
+     * Generates new database credentials for a role, with a lease of the lease duration.
+     */
+    StubLease generateCredentials(String role) {
+        long number = credentials.incrementAndGet();
+        Instant now = Instant.now();
+        StubLease lease = new StubLease(databaseEngine + "/creds/" + role + "/" + UUID.randomUUID(),
+                "v-" + role + "-" + number, UUID.randomUUID().toString(),
+                now.plus(leaseDuration), now.plus(maxLeaseDuration));
+        leases.put(lease.leaseId, lease);
+        return lease;
+    }
+
+    /**
+     * Extends a lease by the increment, or by the lease duration without increment, up to the maximum lease duration.
+     *
+     * @return The renewed lease, null if it was not found or expired
+     */
+    StubLease renewLease(String leaseId, long increment) {
+        Instant now = Instant.now();
+        return leases.computeIfPresent(leaseId, (id, lease) -> {
+            if (!lease.expiry.isAfter(now)) {
+                return null;
+            }
+            Instant expiry = now.plus(increment > 0 ? Duration.ofSeconds(increment) : leaseDuration);
+            return new StubLease(id, lease.username, lease.password,
+                    expiry.isAfter(lease.maxExpiry) ? lease.maxExpiry : expiry, lease.maxExpiry);
+        });
+    }
+
+    /**
+     * Revokes a lease, a lease not found being ignored like Vault does.
+     */
+    void revokeLease(String leaseId) {
+        if (leases.remove(leaseId) != null) {
+            revocations.incrementAndGet();
+        }
+    }
+
+    StubSecret getSecret(String mount, String vaultKey) {
+        return getSecrets(mount).get(vaultKey);
+    }
+
+    /**
+     * @return The keys directly under the path, the ones with keys of their own ending with a slash
+     */
+    Set<String> listKeys(String mount, String path) {
+        String prefix = path.isEmpty() || path.endsWith("/") ? path : path + "/";
+        Set<String> keys = new TreeSet<>();
+        for (String vaultKey : getSecrets(mount).keySet()) {
+            if (vaultKey.startsWith(prefix)) {
+                String key = vaultKey.substring(prefix.length());
+                int separator = key.indexOf('/');
+                keys.add(separator < 0 ? key : key.substring(0, separator + 1));
+            }
+        }
+        return keys;
+    }
+
+    private Map<String, StubSecret> getSecrets(String mount) {
+        Map<String, StubSecret> mountSecrets = secrets.get(mount);
+        if (mountSecrets == null) {
+            throw new IllegalArgumentException("No KV mount " + mount + " in the stub");
+        }
+        return mountSecrets;
+    }
+
+    void countRequest() {
+        requests.incrementAndGet();
+    }
+
+    void addEventSubscriber(Channel subscriber) {
+        eventSubscribers.add(subscriber);
+    }
+
+    /**
+     * Sends the event of a write or a deletion of a vault key, shaped like the Vault event notifications.
+     */
+    private void publishEvent(String mount, String vaultKey, int version, boolean write) {
+        if (eventSubscribers.isEmpty()) {
+            return;
+        }
+        String path;
+        String eventType;
+        if (mounts.get(mount) == VaultKvVersion.V1) {
+            path = mount + "/" + vaultKey;
+            eventType = write ? "kv-v1/write" : "kv-v1/delete";
+        } else {
+            path = mount + (write ? "/data/" : "/delete/") + vaultKey;
+            eventType = write ? "kv-v2/data-write" : "kv-v2/delete";
+        }
+
+        Map<String, Object> metadata = new LinkedHashMap<>();
+        metadata.put("current_version", String.valueOf(version));
+        metadata.put("data_path", path);
+        metadata.put("modified", "true");
+        metadata.put("oper", write ? "write" : "delete");
+        metadata.put("path", path);
+        Map<String, Object> event = new LinkedHashMap<>();
+        event.put("id", UUID.randomUUID().toString());
+        event.put("metadata", metadata);
+        Map<String, Object> pluginInfo = new LinkedHashMap<>();
+        pluginInfo.put("mount_path", mount + "/");
+        pluginInfo.put("plugin", "kv");
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("event", event);
+        data.put("event_type", eventType);
+        data.put("plugin_info", pluginInfo);
+        Map<String, Object> notification = new LinkedHashMap<>();
+        notification.put("id", UUID.randomUUID().toString());
+        notification.put("source", "vault://stub");
+        notification.put("specversion", "1.0");
+        notification.put("type", "*");
+        notification.put("data", data);
+        notification.put("datacontentype", "application/cloudevents");
+        notification.put("time", Instant.now().toString());
+
+        try {
+            eventSubscribers.writeAndFlush(new TextWebSocketFrame(objectMapper.writeValueAsString(notification)));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to write the stub event", e);
+        }
+    }
+
+    /**
+     * The secrets of a vault key and their version.
+     */
+    static final class StubSecret {
+
+        final Map<String, Object> values;
+        final int version;
+
+        StubSecret(Map<String, Object> values, int version) {
+            this.values = Collections.unmodifiableMap(values);
+            this.version = version;
+        }
+    }
+
+    /**
+     * The lease of generated database credentials.
+     */
+    static final class StubLease {
+
+        final String leaseId;
+        final String username;
+        final String password;
+        final Instant expiry;
+        final Instant maxExpiry;
+
+        StubLease(String leaseId, String username, String password, Instant expiry, Instant maxExpiry) {
+            this.leaseId = leaseId;
+            this.username = username;
+            this.password = password;
+            this.expiry = expiry;
+            this.maxExpiry = maxExpiry;
+        }
+
+        /**
+         * @return The seconds left until the expiry, rounded up
+         */
+        long remainingSeconds() {
+            return Math.max(0, (Duration.between(Instant.now(), expiry).toMillis() + 999) / 1000);
+        }
+    }
+
+    /**
+     * A builder of a {@link StubVault}.
+     */
+    public static final class Builder {
+
+        private VaultKvVersion kvVersion = VaultKvVersion.V2;
+        private String engine = "secret";
+        private String token = "stub-token";
+        private FaultInjection faults = new FaultInjection();
+        private int threads = 2;
+        private String databaseEngine = "database";
+        private String transitEngine = "transit";
+        private String pkiEngine = "pki";
+        private Duration certificateTtl = Duration.ofHours(1);
+        private Duration leaseDuration = Duration.ofHours(1);
+        private Duration maxLeaseDuration = Duration.ofHours(24);
+        private final Map<String, VaultKvVersion> mounts = new LinkedHashMap<>();
+
+        private Builder() {
+        }
+
+        /**
+         * @param kvVersion The secret engine version, V2 by default
+         * @return This builder
+         */
+        public Builder kvVersion(VaultKvVersion kvVersion) {
+            this.kvVersion = kvVersion;
+            return this;
+        }
+
+        /**
+         * @param engine The secret engine name, {@code secret} by default
+         * @return This builder
+         */
+        public Builder engine(String engine) {
+            this.engine = engine;
+            return this;
+        }
+
+        /**
+         * Adds a KV mount served next to the KV engine, with secrets of its own.
+         *
+         * @param mount     The name of the mount
+         * @param kvVersion The version of the mount
+         * @return This builder
+         */
+        public Builder mount(String mount, VaultKvVersion kvVersion) {
+            this.mounts.put(mount, kvVersion);
+            return this;
+        }
+
+        /**
+         * @param token The token every read must carry, {@code stub-token} by default
+         * @return This builder
+         */
+        public Builder token(String token) {
+            this.token = token;
+            return this;
+        }
+
+        /**
+         * @param faults The faults injected into the responses, none by default
+         * @return This builder
+         */
+        public Builder faults(FaultInjection faults) {
+            this.faults = faults;
+            return this;
+        }
+
+        /**
+         * @param threads The number of event loop threads serving the reads, 2 by default
+         * @return This builder
+         */
+        public Builder threads(int threads) {
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * @param databaseEngine The database secrets engine name, {@code database} by default
+         * @return This builder
+         */
+        public Builder databaseEngine(String databaseEngine) {
+            this.databaseEngine = databaseEngine;
+            return this;
+        }
+
+        /**
+         * @param transitEngine The transit secrets engine name, {@code transit} by default
+         * @return This builder
+         */
+        public Builder transitEngine(String transitEngine) {
+            this.transitEngine = transitEngine;
+            return this;
+        }
+
+        /**
+         * @param pkiEngine The PKI secrets engine name, {@code pki} by default
+         * @return This builder
+         */
+        public Builder pkiEngine(String pkiEngine) {
+            this.pkiEngine = pkiEngine;
+            return this;
+        }
+
+        /**
+         * @param certificateTtl The lifetime of the certificates issued without ttl, 1 hour by default
+         * @return This builder
+         */
+        public Builder certificateTtl(Duration certificateTtl) {
+            this.certificateTtl = certificateTtl;
+            return this;
+        }
+
+        /**
+         * @param leaseDuration    The lease duration of the database credentials, 1 hour by default
+         * @param maxLeaseDuration The duration the leases can be renewed up to, 24 hours by default
+         * @return This builder
+         */
+        public Builder databaseLease(Duration leaseDuration, Duration maxLeaseDuration) {
+            this.leaseDuration = leaseDuration;
+            this.maxLeaseDuration = maxLeaseDuration;
+            return this;
+        }
+
+        /**
+         * @return The stub, not started yet
+         */
+        public StubVault build() {
+            return new StubVault(this);
+        }
+    }
+}
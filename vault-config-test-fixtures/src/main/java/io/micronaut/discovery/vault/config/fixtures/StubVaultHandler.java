@@ -0,0 +1,497 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.fixtures;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micronaut.discovery.vault.config.VaultClientConfiguration.VaultKvVersion;
+import io.micronaut.discovery.vault.config.fixtures.StubVault.StubLease;
+import io.micronaut.discovery.vault.config.fixtures.StubVault.StubSecret;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaderValues;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ *  Answers the reads of a {@link StubVault}, applying its faults.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+@ChannelHandler.Sharable
+final class StubVaultHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+    private static final String TOKEN_HEADER = "X-Vault-Token";
+    private static final String PADDING_KEY = "padding";
+    private static final String LIST_METHOD = "LIST";
+    private static final String EVENTS_PATH = "/v1/sys/events/subscribe/";
+    private static final String RENEW_PATH = "/v1/sys/leases/renew";
+    private static final String REVOKE_PATH = "/v1/sys/leases/revoke";
+    private static final String MOUNTS_PATH = "/v1/sys/mounts";
+    private static final String HEALTH_PATH = "/v1/sys/health";
+    private static final String TRANSIT_PREFIX = "vault:v1:";
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+    private final StubVault vault;
+    private volatile String padding = "";
+
+    /**
+     * @param vault The stub whose reads are answered
+     */
+    StubVaultHandler(StubVault vault) {
+        this.vault = vault;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+        vault.countRequest();
+        FaultInjection faults = vault.getFaults();
+        FaultInjection.Fault fault = faults.nextFault();
+        if (fault == FaultInjection.Fault.RESET) {
+            ctx.channel().config().setOption(ChannelOption.SO_LINGER, 0);
+            ctx.close();
+            return;
+        }
+        if (fault == FaultInjection.Fault.NONE && request.uri().startsWith(EVENTS_PATH)
+                && vault.getToken().equals(request.headers().get(TOKEN_HEADER))) {
+            subscribeToEvents(ctx, request);
+            return;
+        }
+
+        FullHttpResponse response = fault == FaultInjection.Fault.ERROR ? error(faults) : respond(request);
+        boolean keepAlive = HttpUtil.isKeepAlive(request);
+        HttpUtil.setKeepAlive(response, keepAlive);
+        response.headers().set(HttpHeaderNames.CONTENT_TYPE, HttpHeaderValues.APPLICATION_JSON);
+        HttpUtil.setContentLength(response, response.content().readableBytes());
+
+        long latency = faults.nextLatencyMillis();
+        if (latency > 0) {
+            ctx.executor().schedule(() -> write(ctx, response, keepAlive), latency, TimeUnit.MILLISECONDS);
+        } else {
+            write(ctx, response, keepAlive);
+        }
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        ctx.close();
+    }
+
+    private void subscribeToEvents(ChannelHandlerContext ctx, FullHttpRequest request) {
+        String location = "ws://" + request.headers().get(HttpHeaderNames.HOST) + request.uri();
+        WebSocketServerHandshaker handshaker = new WebSocketServerHandshakerFactory(location, null, false).newHandshaker(request);
+        if (handshaker == null) {
+            WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(ctx.channel());
+            return;
+        }
+        handshaker.handshake(ctx.channel(), request).addListener(future -> {
+            if (future.isSuccess()) {
+                vault.addEventSubscriber(ctx.channel());
+            }
+        });
+    }
+
+    private void write(ChannelHandlerContext ctx, FullHttpResponse response, boolean keepAlive) {
+        if (!ctx.channel().isActive()) {
+            response.release();
+            return;
+        }
+        if (keepAlive) {
+            ctx.writeAndFlush(response, ctx.voidPromise());
+        } else {
+            ctx.writeAndFlush(response).addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+
+    private FullHttpResponse respond(FullHttpRequest request) {
+        if (new QueryStringDecoder(request.uri()).path().equals(HEALTH_PATH)) {
+            return health();
+        }
+        if (!vault.getToken().equals(request.headers().get(TOKEN_HEADER))) {
+            return errors(HttpResponseStatus.FORBIDDEN, "permission denied");
+        }
+
+        QueryStringDecoder decoder = new QueryStringDecoder(request.uri());
+        String path = decoder.path();
+        boolean list = LIST_METHOD.equals(request.method().name())
+                || decoder.parameters().getOrDefault("list", Collections.emptyList()).contains("true");
+        String credentialsPrefix = "/v1/" + vault.getDatabaseEngine() + "/creds/";
+
+        if (path.startsWith(credentialsPrefix)) {
+            return credentials(vault.generateCredentials(path.substring(credentialsPrefix.length())));
+        }
+        if (path.equals(RENEW_PATH) && HttpMethod.PUT.equals(request.method())) {
+            return renewal(request);
+        }
+        if (path.equals(REVOKE_PATH) && HttpMethod.PUT.equals(request.method())) {
+            return revocation(request);
+        }
+        String transitPrefix = "/v1/" + vault.getTransitEngine() + "/";
+        if (path.startsWith(transitPrefix) && HttpMethod.POST.equals(request.method())) {
+            return transit(path.substring(transitPrefix.length()), request);
+        }
+        String issuePrefix = "/v1/" + vault.getPkiEngine() + "/issue/";
+        if (path.startsWith(issuePrefix) && HttpMethod.POST.equals(request.method())) {
+            return certificate(request);
+        }
+        if (path.equals(MOUNTS_PATH)) {
+            return mounts();
+        }
+        for (Map.Entry<String, VaultKvVersion> mount : vault.getMounts().entrySet()) {
+            FullHttpResponse response = kv(mount.getKey(), mount.getValue(), path, list);
+            if (response != null) {
+                return response;
+            }
+        }
+        return errors(HttpResponseStatus.NOT_FOUND);
+    }
+
+    /**
+     * Answers a read or a list of a KV mount.
+     *
+     * @return The response, null if the path is not under the mount
+     */
+    private FullHttpResponse kv(String engine, VaultKvVersion kvVersion, String path, boolean list) {
+        boolean v2 = kvVersion == VaultKvVersion.V2;
+        String metadataPrefix = "/v1/" + engine + "/metadata/";
+        String dataPrefixV2 = "/v2/" + engine + "/data/";
+        String dataPrefixV1 = "/v1/" + engine + "/data/";
+        String prefixV1 = "/v1/" + engine + "/";
+
+        if (list && (v2 ? path.startsWith(metadataPrefix) : path.startsWith(prefixV1))) {
+            return keys(vault.listKeys(engine, path.substring(v2 ? metadataPrefix.length() : prefixV1.length())));
+        }
+        if (v2 && path.startsWith(metadataPrefix)) {
+            return metadata(vault.getSecret(engine, path.substring(metadataPrefix.length())));
+        }
+        if (v2 && path.startsWith(dataPrefixV2)) {
+            return data(kvVersion, vault.getSecret(engine, path.substring(dataPrefixV2.length())));
+        }
+        if (v2 && path.startsWith(dataPrefixV1)) {
+            return data(kvVersion, vault.getSecret(engine, path.substring(dataPrefixV1.length())));
+        }
+        if (!v2 && path.startsWith(prefixV1)) {
+            return data(kvVersion, vault.getSecret(engine, path.substring(prefixV1.length())));
+        }
+        return null;
+    }
+
+    private FullHttpResponse health() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("initialized", true);
+        body.put("sealed", false);
+        body.put("standby", false);
+        body.put("server_time_utc", System.currentTimeMillis() / 1000);
+        body.put("version", "1.1.2");
+        return json(HttpResponseStatus.OK, body);
+    }
+
+    /**
+     * Answers the list of the mounts, keyed by path with a trailing slash both at the root and under data like
+     * Vault does.
+     */
+    private FullHttpResponse mounts() {
+        Map<String, Object> mounts = new LinkedHashMap<>();
+        for (Map.Entry<String, VaultKvVersion> mount : vault.getMounts().entrySet()) {
+            String version = mount.getValue() == VaultKvVersion.V2 ? "2" : "1";
+            mounts.put(mount.getKey() + "/", mount("kv", Collections.singletonMap("version", version)));
+        }
+        mounts.put(vault.getDatabaseEngine() + "/", mount("database", null));
+        mounts.put(vault.getTransitEngine() + "/", mount("transit", null));
+        mounts.put(vault.getPkiEngine() + "/", mount("pki", null));
+        Map<String, Object> body = envelope();
+        body.putAll(mounts);
+        body.put("data", mounts);
+        return json(HttpResponseStatus.OK, body);
+    }
+
+    private Map<String, Object> mount(String type, Map<String, Object> options) {
+        Map<String, Object> mount = new LinkedHashMap<>();
+        mount.put("type", type);
+        mount.put("description", "");
+        mount.put("options", options);
+        return mount;
+    }
+
+    private FullHttpResponse data(VaultKvVersion kvVersion, StubSecret secret) {
+        if (secret == null) {
+            return errors(HttpResponseStatus.NOT_FOUND);
+        }
+        Map<String, Object> values = secret.values;
+        int paddingSize = vault.getFaults().getPayloadPadding();
+        if (paddingSize > 0) {
+            values = new LinkedHashMap<>(values);
+            values.put(PADDING_KEY, padding(paddingSize));
+        }
+
+        Map<String, Object> body = envelope();
+        if (kvVersion == VaultKvVersion.V1) {
+            body.put("lease_duration", 2764800);
+            body.put("data", values);
+        } else {
+            Map<String, Object> metadata = new LinkedHashMap<>();
+            metadata.put("created_time", "2019-05-01T10:00:00.000000Z");
+            metadata.put("deletion_time", "");
+            metadata.put("destroyed", false);
+            metadata.put("version", secret.version);
+            Map<String, Object> data = new LinkedHashMap<>();
+            data.put("data", values);
+            data.put("metadata", metadata);
+            body.put("data", data);
+        }
+        return json(HttpResponseStatus.OK, body);
+    }
+
+    private FullHttpResponse credentials(StubLease lease) {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("username", lease.username);
+        data.put("password", lease.password);
+        Map<String, Object> body = envelope();
+        body.put("lease_id", lease.leaseId);
+        body.put("renewable", true);
+        body.put("lease_duration", lease.remainingSeconds());
+        body.put("data", data);
+        return json(HttpResponseStatus.OK, body);
+    }
+
+    private FullHttpResponse renewal(FullHttpRequest request) {
+        StubLease lease;
+        try {
+            JsonNode renewal = OBJECT_MAPPER.readTree(request.content().toString(StandardCharsets.UTF_8));
+            lease = vault.renewLease(renewal.path("lease_id").asText(), renewal.path("increment").asLong());
+        } catch (IOException e) {
+            return errors(HttpResponseStatus.BAD_REQUEST, e.getMessage());
+        }
+        if (lease == null) {
+            return errors(HttpResponseStatus.BAD_REQUEST, "lease not found or lease is not renewable");
+        }
+        Map<String, Object> body = envelope();
+        body.put("lease_id", lease.leaseId);
+        body.put("renewable", true);
+        body.put("lease_duration", lease.remainingSeconds());
+        return json(HttpResponseStatus.OK, body);
+    }
+
+    private FullHttpResponse revocation(FullHttpRequest request) {
+        try {
+            vault.revokeLease(OBJECT_MAPPER.readTree(request.content().toString(StandardCharsets.UTF_8)).path("lease_id").asText());
+        } catch (IOException e) {
+            return errors(HttpResponseStatus.BAD_REQUEST, e.getMessage());
+        }
+        return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.NO_CONTENT);
+    }
+
+    private FullHttpResponse certificate(FullHttpRequest request) {
+        Map<String, Object> data;
+        try {
+            JsonNode issue = OBJECT_MAPPER.readTree(request.content().toString(StandardCharsets.UTF_8));
+            String commonName = issue.path("common_name").asText();
+            if (commonName.isEmpty()) {
+                return errors(HttpResponseStatus.BAD_REQUEST, "the common_name field is required");
+            }
+            String ttl = issue.path("ttl").asText();
+            data = vault.issueCertificate(commonName,
+                    ttl.endsWith("s") ? Duration.ofSeconds(Long.parseLong(ttl.substring(0, ttl.length() - 1))) : null);
+        } catch (IOException | NumberFormatException e) {
+            return errors(HttpResponseStatus.BAD_REQUEST, e.getMessage());
+        }
+        Map<String, Object> body = envelope();
+        body.put("data", data);
+        return json(HttpResponseStatus.OK, body);
+    }
+
+    /**
+     * Answers a transit batch, {@code operation/key}, with a result per input.
+     */
+    private FullHttpResponse transit(String operationAndKey, FullHttpRequest request) {
+        int separator = operationAndKey.indexOf('/');
+        if (separator < 0) {
+            return errors(HttpResponseStatus.NOT_FOUND);
+        }
+        String operation = operationAndKey.substring(0, separator);
+        String key = operationAndKey.substring(separator + 1);
+        if (operation.equals("datakey")) {
+            return dataKey(key);
+        }
+        List<Map<String, Object>> results = new ArrayList<>();
+        try {
+            JsonNode batch = OBJECT_MAPPER.readTree(request.content().toString(StandardCharsets.UTF_8));
+            for (JsonNode input : batch.path("batch_input")) {
+                Map<String, Object> result = transit(operation, key, input);
+                if (result == null) {
+                    return errors(HttpResponseStatus.NOT_FOUND, "unsupported transit operation " + operation);
+                }
+                results.add(result);
+            }
+        } catch (IOException e) {
+            return errors(HttpResponseStatus.BAD_REQUEST, e.getMessage());
+        }
+        Map<String, Object> body = envelope();
+        body.put("data", Collections.singletonMap("batch_results", results));
+        return json(HttpResponseStatus.OK, body);
+    }
+
+    private Map<String, Object> transit(String operation, String key, JsonNode input) {
+        Map<String, Object> result = new LinkedHashMap<>();
+        switch (operation) {
+            case "encrypt":
+                result.put("ciphertext", TRANSIT_PREFIX + input.path("plaintext").asText());
+                result.put("key_version", 1);
+                break;
+            case "decrypt":
+                String ciphertext = input.path("ciphertext").asText();
+                if (ciphertext.startsWith(TRANSIT_PREFIX)) {
+                    result.put("plaintext", ciphertext.substring(TRANSIT_PREFIX.length()));
+                } else {
+                    result.put("error", "invalid ciphertext: no prefix");
+                }
+                break;
+            case "sign":
+                result.put("signature", signature(key, input.path("input").asText()));
+                result.put("key_version", 1);
+                break;
+            case "verify":
+                result.put("valid", signature(key, input.path("input").asText()).equals(input.path("signature").asText()));
+                break;
+            default:
+                return null;
+        }
+        return result;
+    }
+
+    /**
+     * Answers a data key generation, {@code plaintext/key}, wrapping the data key like an encryption.
+     */
+    private FullHttpResponse dataKey(String typeAndKey) {
+        if (!typeAndKey.startsWith("plaintext/")) {
+            return errors(HttpResponseStatus.NOT_FOUND);
+        }
+        byte[] dataKey = new byte[32];
+        ThreadLocalRandom.current().nextBytes(dataKey);
+        String plaintext = Base64.getEncoder().encodeToString(dataKey);
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("plaintext", plaintext);
+        data.put("ciphertext", TRANSIT_PREFIX + plaintext);
+        data.put("key_version", 1);
+        Map<String, Object> body = envelope();
+        body.put("data", data);
+        return json(HttpResponseStatus.OK, body);
+    }
+
+    private String signature(String key, String input) {
+        return TRANSIT_PREFIX + Base64.getEncoder().encodeToString((key + ":" + input).getBytes(StandardCharsets.UTF_8));
+    }
+
+    private FullHttpResponse keys(Set<String> keys) {
+        if (keys.isEmpty()) {
+            return errors(HttpResponseStatus.NOT_FOUND);
+        }
+        Map<String, Object> body = envelope();
+        body.put("data", Collections.singletonMap("keys", keys));
+        return json(HttpResponseStatus.OK, body);
+    }
+
+    private FullHttpResponse metadata(StubSecret secret) {
+        if (secret == null) {
+            return errors(HttpResponseStatus.NOT_FOUND);
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("current_version", secret.version);
+        data.put("oldest_version", 1);
+        data.put("max_versions", 0);
+        Map<String, Object> body = envelope();
+        body.put("data", data);
+        return json(HttpResponseStatus.OK, body);
+    }
+
+    private FullHttpResponse error(FaultInjection faults) {
+        HttpResponseStatus status = HttpResponseStatus.valueOf(faults.getErrorStatus());
+        FullHttpResponse response = errors(status, status.reasonPhrase());
+        if (status.code() == 429 || status.code() == 503) {
+            response.headers().set(HttpHeaderNames.RETRY_AFTER, faults.getRetryAfter().getSeconds());
+        }
+        return response;
+    }
+
+    private FullHttpResponse errors(HttpResponseStatus status, String... errors) {
+        return json(status, Collections.singletonMap("errors", Arrays.asList(errors)));
+    }
+
+    private Map<String, Object> envelope() {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("request_id", "3f7a6f1a-2b2e-4c5e-9b07-1e2f3a4b5c6d");
+        body.put("lease_id", "");
+        body.put("renewable", false);
+        body.put("lease_duration", 0);
+        body.put("wrap_info", null);
+        body.put("warnings", Collections.emptyList());
+        body.put("auth", null);
+        return body;
+    }
+
+    private FullHttpResponse json(HttpResponseStatus status, Object body) {
+        try {
+            byte[] bytes = OBJECT_MAPPER.writeValueAsBytes(body);
+            return new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status, Unpooled.wrappedBuffer(bytes));
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Unable to write the stub response", e);
+        }
+    }
+
+    /**
+     * @return A padding secret of the given size, kept until the size changes
+     */
+    private String padding(int size) {
+        String current = padding;
+        if (current.length() != size) {
+            char[] chars = new char[size];
+            Arrays.fill(chars, 'x');
+            current = new String(chars);
+            padding = current;
+        }
+        return current;
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import io.reactivex.Flowable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Tests that the {@link MicrometerVaultConfigMetrics} count the retries of the response decoders, which retry
+ *  the reads of configuration from a failing {@link StubVault}. The reads are made with the application context,
+ *  like the ones of the background refresh, as nothing is retried in the bootstrap context.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class MicrometerVaultConfigMetricsTest {
+
+    private StubVault vault;
+    private SimpleMeterRegistry meterRegistry;
+    private ApplicationContext context;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        vault = StubVault.builder().build().start();
+        vault.putSecret("application", Collections.singletonMap("foo", "bar"));
+        meterRegistry = new SimpleMeterRegistry();
+        Metrics.addRegistry(meterRegistry);
+    }
+
+    @After
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        vault.close();
+        Metrics.removeRegistry(meterRegistry);
+    }
+
+    @Test
+    public void retriesOfTheStreamingDecoderAreCounted() {
+        read("STREAMING");
+
+        assertEquals(4, retries("VaultStreamingResponseDecoder.decode"), 0);
+        assertEquals(6, vault.getRequestCount());
+    }
+
+    @Test
+    public void retriesOfTheIntrospectedDecoderAreCounted() {
+        read("INTROSPECTED");
+
+        assertEquals(4, retries("VaultIntrospectedResponseDecoder.decode"), 0);
+        assertEquals(6, vault.getRequestCount());
+    }
+
+    /**
+     * Reads the two vault keys of the application, each read being attempted three times.
+     */
+    private void read(String decoder) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.application.name", "metrics-test");
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.config.retry-count", 2);
+        properties.put("vault.client.config.retry-delay", "10ms");
+        properties.put("vault.client.uri", vault.getUri());
+        properties.put("vault.client.token", "stub-token");
+        properties.put("vault.client.kv-version", "V2");
+        properties.put("vault.client.read.decoder", decoder);
+        properties.put(MicrometerVaultConfigMetrics.GLOBAL_REGISTRY, true);
+        context = ApplicationContext.build().deduceEnvironment(false).properties(properties).start();
+        vault.getFaults().setErrorRate(1);
+        vault.resetRequestCount();
+
+        VaultConfigurationClient configurationClient = context.getBean(VaultConfigurationClient.class);
+        List<PropertySource> propertySources = Flowable.fromPublisher(
+                configurationClient.getPropertySources(context.getEnvironment())).toList().blockingGet();
+
+        assertTrue(propertySources.isEmpty());
+    }
+
+    private double retries(String method) {
+        Counter counter = meterRegistry.find("vault.config.retries").tag("method", method).counter();
+        assertNotNull("No retry counted for " + method, counter);
+        return counter.count();
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import io.micronaut.discovery.vault.config.v2.VaultConfigHttpClientV2;
+import io.micronaut.discovery.vault.config.v2.VaultResponseV2;
+import io.micronaut.http.client.exceptions.HttpClientResponseException;
+import io.reactivex.Flowable;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *  Tests the {@link VaultConfigReadCoalescer} against a {@link StubVault}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultConfigReadCoalescerTest {
+
+    private StubVault vault;
+    private ApplicationContext context;
+    private VaultConfigHttpClientV2 configHttpClient;
+    private VaultConfigReadCoalescer coalescer;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        vault = StubVault.builder().build().start();
+        vault.putSecret("application", Collections.singletonMap("foo", "bar"));
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.config.retry-count", 0);
+        properties.put("vault.client.uri", vault.getUri());
+        properties.put("vault.client.token", "stub-token");
+        properties.put("vault.client.kv-version", "V2");
+        context = ApplicationContext.build().deduceEnvironment(false).properties(properties).start();
+        configHttpClient = context.getBean(VaultConfigHttpClientV2.class);
+        coalescer = context.getBean(VaultConfigReadCoalescer.class);
+        vault.resetRequestCount();
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        vault.close();
+    }
+
+    @Test
+    public void concurrentReadsOfTheSameKeyShareOneRequest() {
+        vault.getFaults().setLatency(Duration.ofMillis(200));
+
+        List<VaultResponseV2> responses = Flowable.merge(reads("stub-token", 5)).toList().blockingGet();
+
+        assertEquals(5, responses.size());
+        for (VaultResponseV2 response : responses) {
+            assertEquals("bar", response.getSecrets().get("foo"));
+        }
+        assertEquals(1, vault.getRequestCount());
+    }
+
+    @Test
+    public void readsAfterCompletionAreNotShared() {
+        coalescer.read(configHttpClient, "stub-token", "secret", "application").blockingLast();
+        coalescer.read(configHttpClient, "stub-token", "secret", "application").blockingLast();
+
+        assertEquals(2, vault.getRequestCount());
+    }
+
+    @Test
+    public void readsWithDifferentTokensAreNotShared() {
+        vault.getFaults().setLatency(Duration.ofMillis(200));
+
+        List<Flowable<VaultResponseV2>> reads = new ArrayList<>();
+        reads.addAll(reads("stub-token", 2));
+        reads.addAll(reads("other-token", 2));
+        List<TestSubscriber<VaultResponseV2>> subscribers = subscribe(reads);
+        for (TestSubscriber<VaultResponseV2> subscriber : subscribers) {
+            subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        }
+
+        assertEquals(2, vault.getRequestCount());
+        subscribers.get(0).assertValueCount(1);
+        subscribers.get(1).assertValueCount(1);
+        subscribers.get(2).assertError(HttpClientResponseException.class);
+        subscribers.get(3).assertError(HttpClientResponseException.class);
+    }
+
+    @Test
+    public void failedReadIsSharedAndNotKept() {
+        vault.getFaults().setLatency(Duration.ofMillis(200)).setErrorRate(1);
+
+        List<TestSubscriber<VaultResponseV2>> subscribers = subscribe(reads("stub-token", 3));
+        for (TestSubscriber<VaultResponseV2> subscriber : subscribers) {
+            subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+            subscriber.assertError(HttpClientResponseException.class);
+        }
+        assertEquals(1, vault.getRequestCount());
+
+        vault.getFaults().setErrorRate(0);
+        VaultResponseV2 response = coalescer.read(configHttpClient, "stub-token", "secret", "application").blockingLast();
+
+        assertEquals("bar", response.getSecrets().get("foo"));
+        assertEquals(2, vault.getRequestCount());
+    }
+
+    private List<Flowable<VaultResponseV2>> reads(String token, int count) {
+        List<Flowable<VaultResponseV2>> reads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            reads.add(coalescer.read(configHttpClient, token, "secret", "application"));
+        }
+        return reads;
+    }
+
+    private static List<TestSubscriber<VaultResponseV2>> subscribe(List<Flowable<VaultResponseV2>> reads) {
+        List<TestSubscriber<VaultResponseV2>> subscribers = new ArrayList<>();
+        for (Flowable<VaultResponseV2> read : reads) {
+            subscribers.add(read.test());
+        }
+        return subscribers;
+    }
+}
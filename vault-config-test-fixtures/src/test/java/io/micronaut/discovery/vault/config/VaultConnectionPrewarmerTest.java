@@ -0,0 +1,109 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Tests that the {@link VaultConnectionPrewarmer} opens connections to every {@link StubVault} the reads of
+ *  configuration are routed to.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultConnectionPrewarmerTest {
+
+    private StubVault first;
+    private StubVault second;
+    private ApplicationContext context;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        first = StubVault.builder().build().start();
+        second = StubVault.builder().build().start();
+    }
+
+    @After
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void connectionsAreOpenedToTheVaultUri() throws InterruptedException {
+        start("BINDING", false);
+
+        await(first, 3);
+        assertEquals(0, second.getConnectionCount());
+    }
+
+    @Test
+    public void connectionsAreOpenedToEveryRoutingEndpoint() throws InterruptedException {
+        start("BINDING", true);
+
+        await(first, 3);
+        await(second, 3);
+    }
+
+    @Test
+    public void noConnectionIsOpenedWithTheStreamingDecoder() throws InterruptedException {
+        start("STREAMING", true);
+        Thread.sleep(500);
+
+        assertEquals(0, first.getConnectionCount());
+        assertEquals(0, second.getConnectionCount());
+    }
+
+    private void start(String decoder, boolean routing) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.uri", first.getUri());
+        properties.put("vault.client.token", "stub-token");
+        properties.put("vault.client.kv-version", "V2");
+        properties.put("vault.client.read.decoder", decoder);
+        properties.put("vault.client.pool.enabled", true);
+        properties.put("vault.client.pool.prewarm-connections", 3);
+        if (routing) {
+            properties.put("vault.client.routing.endpoints", Collections.singletonList(second.getUri()));
+        }
+        context = ApplicationContext.build().deduceEnvironment(false).properties(properties).start();
+    }
+
+    private static void await(StubVault vault, long connections) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (vault.getConnectionCount() < connections && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(vault.getConnectionCount() + " connections", vault.getConnectionCount() >= connections);
+    }
+}
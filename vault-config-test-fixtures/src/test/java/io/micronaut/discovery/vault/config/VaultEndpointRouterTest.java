@@ -0,0 +1,157 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.core.type.Argument;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import io.micronaut.discovery.vault.config.v2.VaultResponseV2;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Tests the {@link VaultEndpointRouter} against two {@link StubVault}s.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultEndpointRouterTest {
+
+    private static final String PATH = "/v1/secret/data/application";
+
+    private StubVault first;
+    private StubVault second;
+    private ApplicationContext context;
+    private VaultEndpointRouter router;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        first = StubVault.builder().build().start();
+        second = StubVault.builder().build().start();
+        first.putSecret("application", Collections.singletonMap("foo", "bar"));
+        second.putSecret("application", Collections.singletonMap("foo", "bar"));
+    }
+
+    @After
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        first.close();
+        second.close();
+    }
+
+    @Test
+    public void slowReadIsHedgedToTheNextEndpoint() {
+        start(true);
+        StubVault fastest = fastest();
+        StubVault next = fastest == first ? second : first;
+        fastest.getFaults().setLatency(Duration.ofSeconds(2));
+
+        long start = System.nanoTime();
+        VaultResponseV2 response = read();
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertEquals("bar", response.getSecrets().get("foo"));
+        assertTrue("hedged read took " + elapsed + "ms", elapsed < 1000);
+        assertEquals(1, fastest.getRequestCount());
+        assertEquals(1, next.getRequestCount());
+    }
+
+    @Test
+    public void hedgedReadsDemoteTheSlowEndpoint() {
+        start(true);
+        StubVault fastest = fastest();
+        fastest.getFaults().setLatency(Duration.ofSeconds(2));
+
+        for (int i = 0; i < 10; i++) {
+            read();
+        }
+
+        assertEquals(fastest.getUri(), router.getEndpoints().get(1));
+    }
+
+    @Test
+    public void slowReadIsNotHedgedWhenDisabled() {
+        start(false);
+        StubVault fastest = fastest();
+        StubVault next = fastest == first ? second : first;
+        fastest.getFaults().setLatency(Duration.ofMillis(500));
+
+        long start = System.nanoTime();
+        read();
+        long elapsed = Duration.ofNanos(System.nanoTime() - start).toMillis();
+
+        assertTrue("read took " + elapsed + "ms", elapsed >= 500);
+        assertEquals(1, fastest.getRequestCount());
+        assertEquals(0, next.getRequestCount());
+    }
+
+    @Test
+    public void failedReadFailsOverAndDemotesTheEndpoint() {
+        start(false);
+        StubVault fastest = fastest();
+        StubVault next = fastest == first ? second : first;
+        fastest.getFaults().setResetRate(1);
+
+        VaultResponseV2 response = read();
+
+        assertEquals("bar", response.getSecrets().get("foo"));
+        assertEquals(1, next.getRequestCount());
+        assertEquals(next.getUri(), router.getEndpoints().get(0));
+    }
+
+    private void start(boolean hedgeEnabled) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.uri", first.getUri());
+        properties.put("vault.client.token", "stub-token");
+        properties.put("vault.client.kv-version", "V2");
+        properties.put("vault.client.routing.endpoints", Collections.singletonList(second.getUri()));
+        properties.put("vault.client.routing.hedge-enabled", hedgeEnabled);
+        context = ApplicationContext.build().deduceEnvironment(false).properties(properties).start();
+        router = context.getBean(VaultEndpointRouter.class);
+    }
+
+    /**
+     * Warms both endpoints up so that every endpoint has a latency, and resets the request counts.
+     *
+     * @return The stub ranked first
+     */
+    private StubVault fastest() {
+        for (int i = 0; i < 20; i++) {
+            read();
+        }
+        first.resetRequestCount();
+        second.resetRequestCount();
+        return router.getEndpoints().get(0).equals(first.getUri()) ? first : second;
+    }
+
+    private VaultResponseV2 read() {
+        return router.retrieve(PATH, "stub-token", Argument.of(VaultResponseV2.class)).blockingFirst();
+    }
+}
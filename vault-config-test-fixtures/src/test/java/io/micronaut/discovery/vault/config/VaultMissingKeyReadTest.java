@@ -0,0 +1,105 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import io.reactivex.Flowable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *  Tests that the {@link VaultConfigurationClient} skips the reads of the vault keys found missing in a
+ *  {@link StubVault} for the missing key time to live, and reads them again once it expired.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultMissingKeyReadTest {
+
+    private StubVault vault;
+    private ApplicationContext context;
+    private VaultConfigurationClient configurationClient;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        vault = StubVault.builder().build().start();
+        vault.putSecret("application", Collections.singletonMap("foo", "bar"));
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.application.name", "missing-test");
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.uri", vault.getUri());
+        properties.put("vault.client.token", "stub-token");
+        properties.put("vault.client.kv-version", "V2");
+        properties.put("vault.client.read.missing-key-ttl", "500ms");
+        context = ApplicationContext.build().deduceEnvironment(false).properties(properties).start();
+        configurationClient = context.getBean(VaultConfigurationClient.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        vault.close();
+    }
+
+    @Test
+    public void missingKeyIsNotReadAgainWithinTheTtl() {
+        assertEquals(Collections.singletonList("application"), read());
+        assertEquals(2, vault.getRequestCount());
+        vault.resetRequestCount();
+
+        assertEquals(Collections.singletonList("application"), read());
+
+        assertEquals(1, vault.getRequestCount());
+    }
+
+    @Test
+    public void missingKeyIsReadAgainOnceTheTtlExpired() throws InterruptedException {
+        read();
+        vault.putSecret("missing-test", Collections.singletonMap("baz", "qux"));
+        assertEquals(Collections.singletonList("application"), read());
+
+        Thread.sleep(600);
+        vault.resetRequestCount();
+
+        assertEquals(2, read().size());
+        assertEquals(2, vault.getRequestCount());
+    }
+
+    /**
+     * @return The names of the property sources read
+     */
+    private List<String> read() {
+        List<String> names = new ArrayList<>();
+        for (PropertySource propertySource : Flowable.fromPublisher(
+                configurationClient.getPropertySources(context.getEnvironment())).toList().blockingGet()) {
+            names.add(propertySource.getName());
+        }
+        return names;
+    }
+}
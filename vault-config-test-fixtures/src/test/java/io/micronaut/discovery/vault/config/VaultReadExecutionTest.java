@@ -0,0 +1,108 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.context.env.PropertySource;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import io.reactivex.Flowable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *  Tests that the reads of the {@link VaultConfigurationClient} on the I/O executor and on virtual threads read
+ *  the same property sources from a {@link StubVault}. Before Java 21 both read on the I/O executor.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultReadExecutionTest {
+
+    private StubVault vault;
+    private final List<ApplicationContext> contexts = new ArrayList<>();
+
+    @Before
+    public void setUp() throws InterruptedException {
+        vault = StubVault.builder().build().start();
+        vault.putSecret("application", Collections.singletonMap("foo", "application"));
+        vault.putSecret("application/dev", Collections.singletonMap("foo", "application-dev"));
+        vault.putSecret("execution-test", Collections.singletonMap("bar", "execution-test"));
+        vault.putSecret("execution-test/dev", Collections.singletonMap("bar", "execution-test-dev"));
+        Map<String, Object> secrets = new HashMap<>();
+        secrets.put("baz", "execution-test-prod");
+        secrets.put("port", 8080);
+        vault.putSecret("execution-test/prod", secrets);
+    }
+
+    @After
+    public void tearDown() {
+        for (ApplicationContext context : contexts) {
+            context.close();
+        }
+        vault.close();
+    }
+
+    @Test
+    public void virtualThreadsReadTheSamePropertySources() {
+        List<Map<String, Object>> io = read("IO");
+        List<Map<String, Object>> virtualThreads = read("VIRTUAL_THREADS");
+
+        assertEquals(5, io.size());
+        assertEquals(io, virtualThreads);
+    }
+
+    /**
+     * @return The name, the order and the properties of every property source read, in the order read
+     */
+    private List<Map<String, Object>> read(String execution) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.application.name", "execution-test");
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.uri", vault.getUri());
+        properties.put("vault.client.token", "stub-token");
+        properties.put("vault.client.kv-version", "V2");
+        properties.put("vault.client.read.execution", execution);
+        properties.put("vault.client.read.max-concurrency", 4);
+        ApplicationContext context = ApplicationContext.build("dev", "prod")
+                .deduceEnvironment(false).properties(properties).start();
+        contexts.add(context);
+
+        List<Map<String, Object>> read = new ArrayList<>();
+        for (PropertySource propertySource : Flowable.fromPublisher(context.getBean(VaultConfigurationClient.class)
+                .getPropertySources(context.getEnvironment())).toList().blockingGet()) {
+            Map<String, Object> values = new LinkedHashMap<>();
+            values.put("name", propertySource.getName());
+            values.put("order", propertySource.getOrder());
+            for (String key : propertySource) {
+                values.put(key, propertySource.get(key));
+            }
+            read.add(values);
+        }
+        return read;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ *  Tests that the {@link VaultSnapshotRefresher} applies the changes made in a {@link StubVault} since the snapshot
+ *  served at startup was taken.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultSnapshotRefresherTest {
+
+    private static final String BOOTSTRAP_CONTEXT = "micronaut.bootstrap.context";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private StubVault vault;
+    private ApplicationContext context;
+    private String bootstrapContext;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        bootstrapContext = System.setProperty(BOOTSTRAP_CONTEXT, "true");
+        vault = StubVault.builder().build().start();
+        vault.putSecret("application", Collections.singletonMap("foo", "bar"));
+        vault.putSecret("snapshot-test", Collections.singletonMap("baz", "qux"));
+    }
+
+    @After
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        vault.close();
+        if (bootstrapContext == null) {
+            System.clearProperty(BOOTSTRAP_CONTEXT);
+        } else {
+            System.setProperty(BOOTSTRAP_CONTEXT, bootstrapContext);
+        }
+    }
+
+    @Test
+    public void changesSinceTheSnapshotAreApplied() throws InterruptedException {
+        File snapshot = new File(folder.getRoot(), "snapshot-test.snapshot");
+        start(snapshot).close();
+        vault.putSecret("application", Collections.singletonMap("foo", "changed"));
+        vault.removeSecret("snapshot-test");
+        vault.getFaults().setLatency(Duration.ofMillis(500));
+
+        context = start(snapshot);
+
+        assertEquals(Optional.of("bar"), context.getEnvironment().getProperty("foo", String.class));
+        assertEquals(Optional.of("qux"), context.getEnvironment().getProperty("baz", String.class));
+        await("changed", "foo");
+        assertFalse(context.getEnvironment().getProperty("baz", String.class).isPresent());
+    }
+
+    @Test
+    public void snapshotIsWrittenAgainAfterTheVerification() throws InterruptedException {
+        File snapshot = new File(folder.getRoot(), "snapshot-test.snapshot");
+        start(snapshot).close();
+        vault.putSecret("application", Collections.singletonMap("foo", "changed"));
+        context = start(snapshot);
+        await("changed", "foo");
+        context.close();
+
+        vault.getFaults().setLatency(Duration.ofSeconds(2));
+        context = start(snapshot);
+
+        assertEquals(Optional.of("changed"), context.getEnvironment().getProperty("foo", String.class));
+    }
+
+    private ApplicationContext start(File snapshot) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.application.name", "snapshot-test");
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.uri", vault.getUri());
+        properties.put("vault.client.token", "stub-token");
+        properties.put("vault.client.kv-version", "V2");
+        properties.put("vault.client.snapshot.enabled", true);
+        properties.put("vault.client.snapshot.path", snapshot.getPath());
+        properties.put("vault.client.snapshot.key", Base64.getEncoder().encodeToString(new byte[16]));
+        return ApplicationContext.build().deduceEnvironment(false).properties(properties).start();
+    }
+
+    private void await(String expected, String property) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!Optional.of(expected).equals(context.getEnvironment().getProperty(property, String.class))
+                && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertEquals(Optional.of(expected), context.getEnvironment().getProperty(property, String.class));
+    }
+}
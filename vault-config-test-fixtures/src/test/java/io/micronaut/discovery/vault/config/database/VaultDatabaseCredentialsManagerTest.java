@@ -0,0 +1,137 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.database;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import org.junit.After;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Tests the renewal, the rotation and the revocation of the database credentials a {@link StubVault} generates
+ *  for the {@link VaultDatabaseCredentialsManager}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultDatabaseCredentialsManagerTest {
+
+    private static final String ROLE = "app";
+
+    private StubVault vault;
+    private ApplicationContext context;
+
+    @After
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        if (vault != null) {
+            vault.close();
+        }
+    }
+
+    @Test
+    public void leaseIsRenewedBeforeTheRotationWindow() throws InterruptedException {
+        VaultDatabaseCredentialsManager manager = start("200ms", "1m", "1s");
+        VaultDatabaseCredentials first = manager.awaitCredentials(ROLE, Duration.ofSeconds(5));
+
+        await(() -> manager.getCredentials(ROLE).get().getExpiry().isAfter(first.getExpiry()));
+
+        VaultDatabaseCredentials renewed = manager.getCredentials(ROLE).get();
+        assertEquals(first.getUsername(), renewed.getUsername());
+        assertEquals(first.getLeaseId(), renewed.getLeaseId());
+        assertEquals(1, vault.getGeneratedCredentialsCount());
+    }
+
+    @Test
+    public void credentialsAreRotatedAndThePreviousLeaseRevokedAfterTheRevokeDelay() throws InterruptedException {
+        VaultDatabaseCredentialsManager manager = start("5m", "300ms", "1s");
+        VaultDatabaseCredentials first = manager.awaitCredentials(ROLE, Duration.ofSeconds(5));
+
+        await(() -> !manager.getCredentials(ROLE).get().getUsername().equals(first.getUsername()));
+        assertEquals(0, vault.getRevokedLeasesCount());
+
+        await(() -> vault.getRevokedLeasesCount() >= 1);
+        assertTrue(Instant.now().isBefore(first.getExpiry()));
+        assertTrue(vault.getGeneratedCredentialsCount() >= 2);
+    }
+
+    @Test
+    public void leaseExpiringBeforeTheRevokeDelayIsNotRevoked() throws InterruptedException {
+        VaultDatabaseCredentialsManager manager = start("5m", "10s", "1s");
+        VaultDatabaseCredentials first = manager.awaitCredentials(ROLE, Duration.ofSeconds(5));
+
+        await(() -> !manager.getCredentials(ROLE).get().getUsername().equals(first.getUsername()));
+        Thread.sleep(500);
+
+        assertEquals(0, vault.getRevokedLeasesCount());
+    }
+
+    @Test
+    public void failedRenewalGeneratesNewCredentialsAfterTheRetryDelay() throws InterruptedException {
+        VaultDatabaseCredentialsManager manager = start("200ms", "1m", "1500ms");
+        VaultDatabaseCredentials first = manager.awaitCredentials(ROLE, Duration.ofSeconds(5));
+        vault.resetRequestCount();
+        vault.getFaults().setErrorRate(1);
+
+        await(() -> vault.getRequestCount() >= 1);
+        Thread.sleep(500);
+        assertEquals(1, vault.getRequestCount());
+
+        vault.getFaults().setErrorRate(0);
+        await(() -> !manager.getCredentials(ROLE).get().getUsername().equals(first.getUsername()));
+        assertEquals(2, vault.getGeneratedCredentialsCount());
+    }
+
+    private VaultDatabaseCredentialsManager start(String rotateBefore, String revokeDelay, String retryDelay)
+            throws InterruptedException {
+        vault = StubVault.builder().databaseLease(Duration.ofSeconds(2), Duration.ofHours(1)).build().start();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.uri", vault.getUri());
+        properties.put("vault.client.token", "stub-token");
+        properties.put("vault.client.kv-version", "V2");
+        properties.put("vault.client.database.enabled", true);
+        properties.put("vault.client.database.roles", Collections.singletonList(ROLE));
+        properties.put("vault.client.database.renew-fraction", 0.5);
+        properties.put("vault.client.database.rotate-before", rotateBefore);
+        properties.put("vault.client.database.revoke-delay", revokeDelay);
+        properties.put("vault.client.database.retry-delay", retryDelay);
+        context = ApplicationContext.build().deduceEnvironment(false).properties(properties).start();
+        return context.getBean(VaultDatabaseCredentialsManager.class);
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,265 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.pki;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import io.reactivex.Flowable;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.net.ssl.KeyManager;
+import javax.net.ssl.X509KeyManager;
+import java.security.GeneralSecurityException;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ *  Tests the parsing of the certificates issued by a {@link StubVault}, the hot reload of the
+ *  {@link VaultReloadingKeyManager} and the {@link VaultReloadingTrustManager}, and the renewal of the certificate
+ *  by the {@link VaultCertificateManager}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultCertificateManagerTest {
+
+    private static final String AUTH_TYPE = "ECDHE_ECDSA";
+
+    private StubVault vault;
+    private StubVault otherVault;
+    private ApplicationContext context;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        vault = StubVault.builder().build().start();
+        otherVault = StubVault.builder().build().start();
+    }
+
+    @After
+    public void tearDown() {
+        if (context != null) {
+            context.close();
+        }
+        vault.close();
+        otherVault.close();
+    }
+
+    @Test
+    public void pemIsParsed() throws GeneralSecurityException {
+        context = start(vault, Duration.ofHours(1));
+        Map<String, Object> data = issue(context, "pki-test");
+
+        VaultCertificate certificate = VaultCertificate.of(data);
+
+        assertEquals(data.get("serial_number"), certificate.getSerialNumber());
+        assertEquals("vault-" + data.get("serial_number"), certificate.getAlias());
+        assertEquals(2, certificate.getChain().length);
+        assertEquals(1, certificate.getAuthorities().size());
+        assertEquals(certificate.getAuthorities().get(0), certificate.getChain()[1]);
+        assertTrue(certificate.getCertificate().getSubjectX500Principal().getName().contains("CN=pki-test"));
+        assertEquals("EC", certificate.getPrivateKey().getAlgorithm());
+        assertEquals(Duration.ofMinutes(5), Duration.between(certificate.getNotBefore(), certificate.getNotAfter()));
+        assertTrue(certificate.getKeyStore().isKeyEntry(certificate.getAlias()));
+        assertArrayEquals(certificate.getChain(), certificate.getKeyStore().getCertificateChain(certificate.getAlias()));
+    }
+
+    @Test
+    public void privateKeyNotInThePkcs8FormatIsRejected() {
+        context = start(vault, Duration.ofHours(1));
+        Map<String, Object> data = issue(context, "pki-test");
+        data.put("private_key", data.get("private_key").toString().replace("PRIVATE KEY", "EC PRIVATE KEY"));
+
+        try {
+            VaultCertificate.of(data);
+            fail("A private key in the SEC 1 format must be rejected");
+        } catch (GeneralSecurityException e) {
+            assertTrue(e.getMessage().contains("PKCS#8"));
+        }
+    }
+
+    @Test
+    public void responseWithoutCertificateIsRejected() {
+        context = start(vault, Duration.ofHours(1));
+        Map<String, Object> data = issue(context, "pki-test");
+        data.remove("certificate");
+
+        try {
+            VaultCertificate.of(data);
+            fail("A response without certificate must be rejected");
+        } catch (GeneralSecurityException e) {
+            assertTrue(e.getMessage().contains("No certificate"));
+        }
+    }
+
+    @Test
+    public void keyManagerServesTheNewCertificateAndKeepsThePreviousOne() throws GeneralSecurityException {
+        context = start(vault, Duration.ofHours(1));
+        VaultCertificate first = VaultCertificate.of(issue(context, "pki-test"));
+        VaultCertificate second = VaultCertificate.of(issue(context, "pki-test"));
+        VaultCertificate third = VaultCertificate.of(issue(context, "pki-test"));
+        VaultReloadingKeyManager keyManager = new VaultReloadingKeyManager();
+
+        assertNull(keyManager.chooseServerAlias("EC", null, null));
+
+        keyManager.update(first);
+        assertEquals(first.getAlias(), keyManager.chooseServerAlias("EC", null, null));
+        assertEquals(first.getCertificate(), keyManager.getCertificateChain(first.getAlias())[0]);
+
+        keyManager.update(second);
+        assertEquals(second.getAlias(), keyManager.chooseServerAlias("EC", null, null));
+        assertEquals(second.getAlias(), keyManager.chooseClientAlias(new String[] {"EC"}, null, null));
+        assertEquals(second.getPrivateKey(), keyManager.getPrivateKey(second.getAlias()));
+        assertEquals(first.getPrivateKey(), keyManager.getPrivateKey(first.getAlias()));
+
+        keyManager.update(third);
+        assertEquals(third.getAlias(), keyManager.chooseServerAlias("EC", null, null));
+        assertNull(keyManager.getCertificateChain(first.getAlias()));
+        assertNull(keyManager.getPrivateKey(first.getAlias()));
+        assertEquals(second.getPrivateKey(), keyManager.getPrivateKey(second.getAlias()));
+    }
+
+    @Test
+    public void trustManagerTrustsTheAuthoritiesOfTheNewCertificate() throws GeneralSecurityException {
+        context = start(vault, Duration.ofHours(1));
+        VaultCertificate certificate = VaultCertificate.of(issue(context, "pki-test"));
+        context.close();
+        context = start(otherVault, Duration.ofHours(1));
+        VaultCertificate otherCertificate = VaultCertificate.of(issue(context, "pki-test"));
+        VaultReloadingTrustManager trustManager = new VaultReloadingTrustManager();
+
+        assertRejected(trustManager, certificate.getChain());
+
+        trustManager.update(certificate);
+        trustManager.checkServerTrusted(certificate.getChain(), AUTH_TYPE);
+        trustManager.checkClientTrusted(certificate.getChain(), AUTH_TYPE);
+        assertRejected(trustManager, otherCertificate.getChain());
+        assertEquals(certificate.getAuthorities().get(0), trustManager.getAcceptedIssuers()[0]);
+
+        trustManager.update(otherCertificate);
+        trustManager.checkServerTrusted(otherCertificate.getChain(), AUTH_TYPE);
+        assertRejected(trustManager, certificate.getChain());
+    }
+
+    @Test
+    public void certificateIsRenewedAtTheRenewFractionOfItsLifetime() throws InterruptedException {
+        context = start(vault, Duration.ofSeconds(2));
+        VaultCertificateManager manager = context.getBean(VaultCertificateManager.class);
+        VaultCertificate first = manager.awaitCertificate(Duration.ofSeconds(5));
+        X509KeyManager keyManager = keyManager(manager);
+        assertEquals(first.getAlias(), keyManager.chooseServerAlias("EC", null, null));
+
+        VaultCertificate renewed = awaitRenewal(manager, first);
+
+        assertTrue(renewed.getNotBefore().compareTo(first.getNotAfter()) < 0);
+        assertTrue(vault.getIssuedCertificatesCount() >= 2);
+        assertEquals(renewed.getAlias(), keyManager.chooseServerAlias("EC", null, null));
+        assertEquals(renewed.getCertificate(), keyManager.getCertificateChain(renewed.getAlias())[0]);
+    }
+
+    @Test
+    public void failedIssuanceIsRetried() throws InterruptedException {
+        vault.getFaults().setErrorRate(1);
+        context = start(vault, Duration.ofHours(1));
+        VaultCertificateManager manager = context.getBean(VaultCertificateManager.class);
+        Thread.sleep(300);
+        assertFalse(manager.getCertificate().isPresent());
+
+        vault.getFaults().setErrorRate(0);
+
+        VaultCertificate certificate = manager.awaitCertificate(Duration.ofSeconds(15));
+        assertEquals(Duration.ofHours(1), Duration.between(certificate.getNotBefore(), certificate.getNotAfter()));
+    }
+
+    @Test
+    public void noCertificateIsIssuedAfterClose() throws InterruptedException {
+        context = start(vault, Duration.ofSeconds(2));
+        VaultCertificateManager manager = context.getBean(VaultCertificateManager.class);
+        manager.awaitCertificate(Duration.ofSeconds(5));
+
+        manager.close();
+        long issued = vault.getIssuedCertificatesCount();
+        Thread.sleep(2500);
+
+        assertEquals(issued, vault.getIssuedCertificatesCount());
+    }
+
+    private ApplicationContext start(StubVault vault, Duration ttl) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.uri", vault.getUri());
+        properties.put("vault.client.token", "stub-token");
+        properties.put("vault.client.kv-version", "V2");
+        properties.put("vault.client.pki.enabled", true);
+        properties.put("vault.client.pki.role", "server");
+        properties.put("vault.client.pki.common-name", "pki-test");
+        properties.put("vault.client.pki.ttl", ttl.getSeconds() + "s");
+        properties.put("vault.client.pki.renew-fraction", 0.5);
+        properties.put("vault.client.pki.retry-delay", "100ms");
+        return ApplicationContext.build().deduceEnvironment(false).properties(properties).start();
+    }
+
+    private static Map<String, Object> issue(ApplicationContext context, String commonName) {
+        Map<String, Object> request = new LinkedHashMap<>();
+        request.put("common_name", commonName);
+        request.put("ttl", "300s");
+        request.put("private_key_format", "pkcs8");
+        VaultPkiResponse response = Flowable.fromPublisher(context.getBean(VaultPkiHttpClient.class)
+                .issue("stub-token", "pki", "server", request)).blockingFirst();
+        return new LinkedHashMap<>(response.getData());
+    }
+
+    private static X509KeyManager keyManager(VaultCertificateManager manager) {
+        KeyManager[] keyManagers = manager.getKeyManagerFactory().getKeyManagers();
+        assertEquals(1, keyManagers.length);
+        return (X509KeyManager) keyManagers[0];
+    }
+
+    private static VaultCertificate awaitRenewal(VaultCertificateManager manager, VaultCertificate first)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (manager.getCertificate().map(first::equals).orElse(true) && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        VaultCertificate renewed = manager.getCertificate().orElse(first);
+        assertNotEquals(first.getSerialNumber(), renewed.getSerialNumber());
+        return renewed;
+    }
+
+    private static void assertRejected(VaultReloadingTrustManager trustManager, X509Certificate[] chain) {
+        try {
+            trustManager.checkServerTrusted(chain, AUTH_TYPE);
+            fail("The chain must not be trusted");
+        } catch (CertificateException e) {
+            // expected
+        }
+    }
+}
@@ -0,0 +1,187 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.transit;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import io.reactivex.Flowable;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+
+/**
+ *  Tests the envelopes of the {@link VaultEnvelopeEncryption} and its use of the data keys of a {@link StubVault}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultEnvelopeEncryptionTest {
+
+    private static final byte[] PAYLOAD = "payload".getBytes(StandardCharsets.UTF_8);
+
+    private StubVault vault;
+    private final List<ApplicationContext> contexts = new ArrayList<>();
+
+    @Before
+    public void setUp() throws InterruptedException {
+        vault = StubVault.builder().build().start();
+    }
+
+    @After
+    public void tearDown() {
+        for (ApplicationContext context : contexts) {
+            context.close();
+        }
+        vault.close();
+    }
+
+    @Test
+    public void envelopeIsOpenedWithTheDataKeyInMemory() {
+        VaultEnvelopeEncryption encryption = start(100, Duration.ofMinutes(1));
+
+        byte[] envelope = encrypt(encryption, PAYLOAD);
+
+        assertArrayEquals(PAYLOAD, decrypt(encryption, envelope));
+        assertEquals(1, vault.getRequestCount());
+    }
+
+    @Test
+    public void envelopeIsOpenedByUnwrappingItsDataKey() {
+        byte[] envelope = encrypt(start(100, Duration.ofMinutes(1)), PAYLOAD);
+        VaultEnvelopeEncryption other = start(100, Duration.ofMinutes(1));
+        vault.resetRequestCount();
+
+        assertArrayEquals(PAYLOAD, decrypt(other, envelope));
+        assertArrayEquals(PAYLOAD, decrypt(other, envelope));
+        assertEquals(1, vault.getRequestCount());
+    }
+
+    @Test
+    public void tamperedInitializationVectorIsRejected() {
+        VaultEnvelopeEncryption encryption = start(100, Duration.ofMinutes(1));
+        byte[] envelope = encrypt(encryption, PAYLOAD);
+        envelope[3 + wrappedKeyLength(envelope)] ^= 1;
+
+        decryption(encryption, envelope).assertError(VaultTransitException.class);
+    }
+
+    @Test
+    public void tamperedHeaderIsRejected() {
+        VaultEnvelopeEncryption encryption = start(100, Duration.ofMinutes(1));
+        byte[] envelope = encrypt(encryption, PAYLOAD);
+        envelope[3 + wrappedKeyLength(envelope) - 1] ^= 1;
+
+        decryption(encryption, envelope).assertError(VaultTransitException.class);
+    }
+
+    @Test
+    public void dataKeyIsReplacedOnceUsedUp() {
+        VaultEnvelopeEncryption encryption = start(2, Duration.ofMinutes(1));
+
+        byte[] first = encrypt(encryption, PAYLOAD);
+        byte[] second = encrypt(encryption, PAYLOAD);
+        byte[] third = encrypt(encryption, PAYLOAD);
+
+        assertEquals(2, vault.getRequestCount());
+        assertArrayEquals(header(first), header(second));
+        assertFalse(Arrays.equals(header(first), header(third)));
+        assertArrayEquals(PAYLOAD, decrypt(encryption, first));
+        assertArrayEquals(PAYLOAD, decrypt(encryption, third));
+        assertEquals(2, vault.getRequestCount());
+    }
+
+    @Test
+    public void concurrentEncryptionsShareTheDataKeyGeneration() {
+        VaultEnvelopeEncryption encryption = start(100, Duration.ofMinutes(1));
+        vault.getFaults().setLatency(Duration.ofMillis(200));
+
+        List<TestSubscriber<byte[]>> envelopes = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            envelopes.add(Flowable.fromPublisher(encryption.encrypt("key", PAYLOAD)).test());
+        }
+
+        for (TestSubscriber<byte[]> envelope : envelopes) {
+            envelope.awaitTerminalEvent(5, TimeUnit.SECONDS);
+            envelope.assertValueCount(1);
+        }
+        assertEquals(1, vault.getRequestCount());
+    }
+
+    @Test
+    public void expiredDataKeysAreEvicted() throws InterruptedException {
+        VaultEnvelopeEncryption encryption = start(100, Duration.ofMillis(100));
+        byte[] envelope = encrypt(encryption, PAYLOAD);
+        Thread.sleep(200);
+
+        encrypt(encryption, PAYLOAD);
+
+        assertEquals(1, encryption.getDecryptionKeyCount());
+        assertArrayEquals(PAYLOAD, decrypt(encryption, envelope));
+        assertEquals(3, vault.getRequestCount());
+    }
+
+    private VaultEnvelopeEncryption start(long maxUses, Duration lifetime) {
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.uri", vault.getUri());
+        properties.put("vault.client.token", "stub-token");
+        properties.put("vault.client.kv-version", "V2");
+        properties.put("vault.client.transit.data-key-max-uses", maxUses);
+        properties.put("vault.client.transit.data-key-lifetime", lifetime.toMillis() + "ms");
+        ApplicationContext context = ApplicationContext.build().deduceEnvironment(false).properties(properties).start();
+        contexts.add(context);
+        vault.resetRequestCount();
+        return context.getBean(VaultEnvelopeEncryption.class);
+    }
+
+    private static byte[] encrypt(VaultEnvelopeEncryption encryption, byte[] payload) {
+        return Flowable.fromPublisher(encryption.encrypt("key", payload)).blockingFirst();
+    }
+
+    private static byte[] decrypt(VaultEnvelopeEncryption encryption, byte[] envelope) {
+        return Flowable.fromPublisher(encryption.decrypt("key", envelope)).blockingFirst();
+    }
+
+    private static TestSubscriber<byte[]> decryption(VaultEnvelopeEncryption encryption, byte[] envelope) {
+        TestSubscriber<byte[]> decryption = Flowable.fromPublisher(encryption.decrypt("key", envelope)).test();
+        decryption.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        return decryption;
+    }
+
+    private static int wrappedKeyLength(byte[] envelope) {
+        return ((envelope[1] & 0xff) << 8) | (envelope[2] & 0xff);
+    }
+
+    private static byte[] header(byte[] envelope) {
+        return Arrays.copyOf(envelope, 3 + wrappedKeyLength(envelope));
+    }
+}
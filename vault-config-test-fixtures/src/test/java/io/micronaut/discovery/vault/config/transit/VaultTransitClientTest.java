@@ -0,0 +1,174 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.transit;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import io.reactivex.Flowable;
+import io.reactivex.subscribers.TestSubscriber;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.reactivestreams.Publisher;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ *  Tests the batching of the {@link VaultTransitClient} against a {@link StubVault}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultTransitClientTest {
+
+    private StubVault vault;
+    private ApplicationContext context;
+    private VaultTransitClient transitClient;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        vault = StubVault.builder().build().start();
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.uri", vault.getUri());
+        properties.put("vault.client.token", "stub-token");
+        properties.put("vault.client.kv-version", "V2");
+        properties.put("vault.client.transit.max-batch-size", 4);
+        properties.put("vault.client.transit.linger", "100ms");
+        context = ApplicationContext.build().deduceEnvironment(false).properties(properties).start();
+        transitClient = context.getBean(VaultTransitClient.class);
+        vault.resetRequestCount();
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        vault.close();
+    }
+
+    @Test
+    public void batchResultsAreReturnedToTheirOperations() {
+        List<Publisher<String>> encryptions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            encryptions.add(transitClient.encrypt("key", bytes("secret-" + i)));
+        }
+        List<TestSubscriber<String>> ciphertexts = subscribe(encryptions);
+        List<Publisher<byte[]>> decryptions = new ArrayList<>();
+        for (TestSubscriber<String> ciphertext : await(ciphertexts)) {
+            decryptions.add(transitClient.decrypt("key", ciphertext.values().get(0)));
+        }
+        List<TestSubscriber<byte[]>> plaintexts = await(subscribe(decryptions));
+
+        for (int i = 0; i < 3; i++) {
+            ciphertexts.get(i).assertValueCount(1);
+            assertEquals("secret-" + i, string(plaintexts.get(i).values().get(0)));
+        }
+        assertEquals(2, vault.getRequestCount());
+    }
+
+    @Test
+    public void itemErrorFailsOnlyItsOperation() {
+        String ciphertext = Flowable.fromPublisher(transitClient.encrypt("key", bytes("secret"))).blockingFirst();
+        vault.resetRequestCount();
+
+        List<Publisher<byte[]>> decryptions = new ArrayList<>();
+        decryptions.add(transitClient.decrypt("key", ciphertext));
+        decryptions.add(transitClient.decrypt("key", "garbage"));
+        decryptions.add(transitClient.decrypt("key", ciphertext));
+        List<TestSubscriber<byte[]>> plaintexts = await(subscribe(decryptions));
+
+        assertEquals("secret", string(plaintexts.get(0).values().get(0)));
+        plaintexts.get(1).assertError(VaultTransitException.class);
+        plaintexts.get(1).assertErrorMessage("invalid ciphertext: no prefix");
+        assertEquals("secret", string(plaintexts.get(2).values().get(0)));
+        assertEquals(1, vault.getRequestCount());
+    }
+
+    @Test
+    public void verificationsAreReturnedToTheirOperations() {
+        String signature = Flowable.fromPublisher(transitClient.sign("key", bytes("signed"))).blockingFirst();
+        vault.resetRequestCount();
+
+        List<Publisher<Boolean>> verifications = new ArrayList<>();
+        verifications.add(transitClient.verify("key", bytes("signed"), signature));
+        verifications.add(transitClient.verify("key", bytes("tampered"), signature));
+        List<TestSubscriber<Boolean>> valid = await(subscribe(verifications));
+
+        valid.get(0).assertValue(true);
+        valid.get(1).assertValue(false);
+        assertEquals(1, vault.getRequestCount());
+    }
+
+    @Test
+    public void batchesAreSplitAtTheMaximumSize() {
+        List<Publisher<String>> encryptions = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            encryptions.add(transitClient.encrypt("key", bytes("secret-" + i)));
+        }
+
+        for (TestSubscriber<String> ciphertext : await(subscribe(encryptions))) {
+            ciphertext.assertValueCount(1);
+        }
+        assertEquals(3, vault.getRequestCount());
+    }
+
+    @Test
+    public void batchErrorFailsEveryOperation() {
+        vault.getFaults().setErrorRate(1);
+
+        List<Publisher<String>> encryptions = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            encryptions.add(transitClient.encrypt("key", bytes("secret-" + i)));
+        }
+
+        for (TestSubscriber<String> ciphertext : await(subscribe(encryptions))) {
+            ciphertext.assertError(VaultTransitException.class);
+        }
+        assertEquals(1, vault.getRequestCount());
+    }
+
+    private static <T> List<TestSubscriber<T>> subscribe(List<Publisher<T>> publishers) {
+        List<TestSubscriber<T>> subscribers = new ArrayList<>();
+        for (Publisher<T> publisher : publishers) {
+            subscribers.add(Flowable.fromPublisher(publisher).test());
+        }
+        return subscribers;
+    }
+
+    private static <T> List<TestSubscriber<T>> await(List<TestSubscriber<T>> subscribers) {
+        for (TestSubscriber<T> subscriber : subscribers) {
+            subscriber.awaitTerminalEvent(5, TimeUnit.SECONDS);
+        }
+        return subscribers;
+    }
+
+    private static byte[] bytes(String value) {
+        return value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String string(byte[] value) {
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
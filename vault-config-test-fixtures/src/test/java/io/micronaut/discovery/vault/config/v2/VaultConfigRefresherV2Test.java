@@ -0,0 +1,120 @@
+/*
+ * Copyright 2017-2019 original authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package io.micronaut.discovery.vault.config.v2;
+
+import io.micronaut.context.ApplicationContext;
+import io.micronaut.discovery.vault.config.fixtures.StubVault;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ *  Tests that the polls of the {@link VaultConfigRefresherV2} apply the changes made in a {@link StubVault}.
+ *
+ *  @author thiagolocatelli
+ *  @since 1.2.0
+ */
+public class VaultConfigRefresherV2Test {
+
+    private static final String BOOTSTRAP_CONTEXT = "micronaut.bootstrap.context";
+
+    private StubVault vault;
+    private ApplicationContext context;
+    private VaultConfigRefresherV2 refresher;
+    private String bootstrapContext;
+
+    @Before
+    public void setUp() throws InterruptedException {
+        bootstrapContext = System.setProperty(BOOTSTRAP_CONTEXT, "true");
+        vault = StubVault.builder().build().start();
+        vault.putSecret("application", Collections.singletonMap("foo", "bar"));
+        vault.putSecret("refresh-test", Collections.singletonMap("baz", "qux"));
+
+        Map<String, Object> properties = new HashMap<>();
+        properties.put("micronaut.application.name", "refresh-test");
+        properties.put("micronaut.config-client.enabled", true);
+        properties.put("vault.client.config.enabled", true);
+        properties.put("vault.client.uri", vault.getUri());
+        properties.put("vault.client.token", "stub-token");
+        properties.put("vault.client.kv-version", "V2");
+        properties.put("vault.client.refresh.enabled", true);
+        properties.put("vault.client.refresh.interval", "1h");
+        context = ApplicationContext.build().deduceEnvironment(false).properties(properties).start();
+        refresher = context.getBean(VaultConfigRefresherV2.class);
+    }
+
+    @After
+    public void tearDown() {
+        context.close();
+        vault.close();
+        if (bootstrapContext == null) {
+            System.clearProperty(BOOTSTRAP_CONTEXT);
+        } else {
+            System.setProperty(BOOTSTRAP_CONTEXT, bootstrapContext);
+        }
+    }
+
+    @Test
+    public void unchangedVersionIsNotReadAgain() throws InterruptedException {
+        vault.resetRequestCount();
+
+        refresher.refresh();
+        Thread.sleep(500);
+
+        assertEquals(2, vault.getRequestCount());
+    }
+
+    @Test
+    public void newVersionIsApplied() throws InterruptedException {
+        vault.putSecret("application", Collections.singletonMap("foo", "changed"));
+
+        refresher.refresh();
+
+        await(() -> Optional.of("changed").equals(context.getEnvironment().getProperty("foo", String.class)));
+        assertEquals(Optional.of("qux"), context.getEnvironment().getProperty("baz", String.class));
+    }
+
+    @Test
+    public void deletedKeyIsReplacedByAnEmptyPropertySource() throws InterruptedException {
+        vault.removeSecret("refresh-test");
+
+        refresher.refresh();
+
+        await(() -> !context.getEnvironment().getProperty("baz", String.class).isPresent());
+        assertTrue(context.getEnvironment().getPropertySources().stream()
+                .anyMatch(ps -> ps.getName().equals("refresh-test") && !ps.iterator().hasNext()));
+        assertEquals(Optional.of("bar"), context.getEnvironment().getProperty("foo", String.class));
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            Thread.sleep(20);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}